@@ -0,0 +1,805 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encodes and decodes JSON values as CBOR (RFC 8949), a binary format in
+ * which numbers are written natively and strings are prefixed with their
+ * length. JSONObjects are maps with text keys and JSONArrays are arrays;
+ * integers are written in the fewest bytes, BigIntegers that do not fit a
+ * long as bignums (tags 2 and 3), BigDecimals as decimal fractions (tag 4),
+ * so that their scale is kept, and Doubles and Floats as floats of their
+ * own size. Values are mapped as JSONObject.toString maps them, so the
+ * decoded value is the one a JSON text would give, except that numbers
+ * keep their Java type.
+ * <p>
+ * Strings can be shared with the stringref extension of CBOR (tags 256 and
+ * 25): each string long enough to gain is numbered when it is first
+ * written, and written again as its number. Repeated keys then cost one to
+ * three bytes. The decoder accepts the whole of CBOR that has a JSON
+ * meaning, including indefinite lengths and half floats; other tags are
+ * ignored, and byte strings outside bignums are an error.
+ */
+final class CBOR {
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1;
+    private static final int BYTES = 2;
+    private static final int TEXT = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+    private static final int TAG = 6;
+    private static final int SIMPLE = 7;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+    private static final int TAG_STRINGREF = 25;
+    private static final int TAG_STRINGREF_NAMESPACE = 256;
+
+    private static final int FALSE = 0xF4;
+    private static final int TRUE = 0xF5;
+    private static final int NULL = 0xF6;
+    private static final int UNDEFINED = 0xF7;
+    private static final int HALF = 0xF9;
+    private static final int FLOAT = 0xFA;
+    private static final int DOUBLE = 0xFB;
+    private static final int BREAK = 0xFF;
+
+    /** An additional info that means an indefinite length. */
+    private static final int INDEFINITE = 31;
+
+    private static final BigInteger UNSIGNED_LONG = BigInteger.ONE.shiftLeft(64);
+
+    private CBOR() {
+    }
+
+    /**
+     * Determine if a string is long enough to be numbered, as the stringref
+     * extension has it: a reference must be shorter than the string.
+     */
+    private static boolean isShared(int length, int index) {
+        if (index < 24) {
+            return length >= 3;
+        } else if (index < 256) {
+            return length >= 4;
+        } else if (index < 65536) {
+            return length >= 5;
+        } else if (index >= 0) {
+            // index < 2^32
+            return length >= 7;
+        }
+        return length >= 11;
+    }
+
+    /**
+     * Encode a JSONObject or JSONArray.
+     *
+     * @param value The value.
+     * @param out The output, which is not flushed.
+     * @param shareStrings True to number the strings, and write them again
+     *  as their numbers.
+     */
+    static void write(Object value, OutputStream out, boolean shareStrings) throws JSONException {
+        try {
+            Encoder encoder = new Encoder(out, shareStrings);
+            encoder.write(value);
+            encoder.flush();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Decode a value.
+     *
+     * @param in The input, which is read up to the end of the value.
+     * @param config The parser configuration, which limits the nesting.
+     */
+    static Object read(InputStream in, JSONParserConfiguration config) throws JSONException {
+        try {
+            return new Decoder(in, config.getMaxNestingDepth()).read();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /** A map or array that the encoder is in the middle of writing. */
+    private static final class WriteFrame {
+        final WriteFrame parent;
+        final Iterator<?> iterator;
+
+        WriteFrame(WriteFrame parent, Iterator<?> iterator) {
+            this.parent = parent;
+            this.iterator = iterator;
+        }
+    }
+
+    private static final class Encoder {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        /** The numbers of the strings written, if they are shared. */
+        private final Map<String, Integer> strings;
+        private int stringCount;
+
+        Encoder(OutputStream out, boolean shareStrings) {
+            this.out = out;
+            this.strings = shareStrings ? new HashMap<String, Integer>() : null;
+        }
+
+        void write(Object value) throws IOException {
+            if (this.strings != null) {
+                this.head(TAG, TAG_STRINGREF_NAMESPACE);
+            }
+            WriteFrame top = null;
+            for (;;) {
+                if (value instanceof JSONString) {
+                    value = jsonStringValue((JSONString) value);
+                }
+                if (value instanceof Map) {
+                    value = new JSONObject((Map<?, ?>) value);
+                } else if (value instanceof Collection) {
+                    value = new JSONArray((Collection<?>) value);
+                } else if (value != null && value.getClass().isArray()) {
+                    value = new JSONArray(value);
+                }
+                if (value instanceof JSONObject) {
+                    JSONObject jo = (JSONObject) value;
+                    this.head(MAP, jo.length());
+                    top = new WriteFrame(top, jo.entrySet().iterator());
+                } else if (value instanceof JSONArray) {
+                    JSONArray ja = (JSONArray) value;
+                    this.head(ARRAY, ja.length());
+                    top = new WriteFrame(top, ja.iterator());
+                } else {
+                    this.simple(value);
+                }
+
+                // find the next value to write, leaving finished containers
+                while (top != null && !top.iterator.hasNext()) {
+                    top = top.parent;
+                }
+                if (top == null) {
+                    return;
+                }
+                Object next = top.iterator.next();
+                if (next instanceof Entry) {
+                    Entry<?, ?> entry = (Entry<?, ?>) next;
+                    this.text((String) entry.getKey());
+                    value = entry.getValue();
+                } else {
+                    value = next;
+                }
+            }
+        }
+
+        /**
+         * The value of a JSONString, which is its JSON text parsed, or its
+         * string if it has no JSON text.
+         */
+        private static Object jsonStringValue(JSONString value) {
+            Object text;
+            try {
+                text = value.toJSONString();
+            } catch (Exception e) {
+                throw new JSONException(e);
+            }
+            if (text == null) {
+                return value.toString();
+            }
+            return new JSONTokener(text.toString()).nextValue();
+        }
+
+        /** Write a value that is neither a map nor an array. */
+        private void simple(Object value) throws IOException {
+            if (value == null || JSONObject.NULL.equals(value)) {
+                this.put(NULL);
+            } else if (value instanceof Boolean) {
+                this.put(((Boolean) value).booleanValue() ? TRUE : FALSE);
+            } else if (value instanceof Number) {
+                this.number((Number) value);
+            } else if (value instanceof Enum<?>) {
+                this.text(((Enum<?>) value).name());
+            } else {
+                this.text(value.toString());
+            }
+        }
+
+        private void number(Number number) throws IOException {
+            if (number instanceof Integer || number instanceof Long || number instanceof Short
+                    || number instanceof Byte || number instanceof AtomicInteger || number instanceof AtomicLong) {
+                this.integer(number.longValue());
+            } else if (number instanceof Double) {
+                JSONObject.testValidity(number);
+                this.put(DOUBLE);
+                this.putLong(Double.doubleToLongBits(number.doubleValue()));
+            } else if (number instanceof Float) {
+                JSONObject.testValidity(number);
+                this.put(FLOAT);
+                this.putInt(Float.floatToIntBits(number.floatValue()));
+            } else if (number instanceof BigInteger) {
+                this.bigInteger((BigInteger) number);
+            } else if (number instanceof BigDecimal) {
+                BigDecimal decimal = (BigDecimal) number;
+                this.head(TAG, TAG_DECIMAL_FRACTION);
+                this.head(ARRAY, 2);
+                this.integer(-(long) decimal.scale());
+                this.bigInteger(decimal.unscaledValue());
+            } else {
+                // as JSONObject.toString writes it
+                String string = JSONObject.numberToString(number);
+                if (JSONObject.NUMBER_PATTERN.matcher(string).matches()) {
+                    this.number(JSONObject.stringToNumber(string));
+                } else {
+                    this.text(string);
+                }
+            }
+        }
+
+        private void integer(long value) throws IOException {
+            if (value >= 0) {
+                this.head(UNSIGNED, value);
+            } else {
+                this.head(NEGATIVE, -1 - value);
+            }
+        }
+
+        private void bigInteger(BigInteger value) throws IOException {
+            if (value.bitLength() <= 63) {
+                this.integer(value.longValue());
+            } else if (value.signum() >= 0) {
+                this.head(TAG, TAG_POSITIVE_BIGNUM);
+                this.bytes(magnitude(value));
+            } else {
+                this.head(TAG, TAG_NEGATIVE_BIGNUM);
+                this.bytes(magnitude(BigInteger.ONE.negate().subtract(value)));
+            }
+        }
+
+        /** The bytes of a positive BigInteger, without a sign byte. */
+        private static byte[] magnitude(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+        }
+
+        private void bytes(byte[] bytes) throws IOException {
+            this.head(BYTES, bytes.length);
+            this.put(bytes, bytes.length);
+            if (this.strings != null && isShared(bytes.length, this.stringCount)) {
+                // numbered too, but not written again as a number
+                this.stringCount += 1;
+            }
+        }
+
+        private void text(String string) throws IOException {
+            if (this.strings != null) {
+                Integer index = this.strings.get(string);
+                if (index != null) {
+                    this.head(TAG, TAG_STRINGREF);
+                    this.head(UNSIGNED, index.intValue() & 0xFFFFFFFFL);
+                    return;
+                }
+            }
+            int length = string.length();
+            int i = 0;
+            while (i < length && string.charAt(i) < 0x80) {
+                i += 1;
+            }
+            int byteLength;
+            if (i == length) {
+                byteLength = length;
+                this.head(TEXT, length);
+                // in pieces of the buffer, which the string may be longer than
+                int j = 0;
+                while (j < length) {
+                    if (this.position == this.buffer.length) {
+                        this.flush();
+                    }
+                    int end = Math.min(length, j + this.buffer.length - this.position);
+                    while (j < end) {
+                        this.buffer[this.position++] = (byte) string.charAt(j++);
+                    }
+                }
+            } else {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                byteLength = bytes.length;
+                this.head(TEXT, byteLength);
+                this.put(bytes, byteLength);
+            }
+            if (this.strings != null && isShared(byteLength, this.stringCount)) {
+                this.strings.put(string, Integer.valueOf(this.stringCount++));
+            }
+        }
+
+        /** Write the head of an item: its major type and its argument. */
+        private void head(int major, long argument) throws IOException {
+            int type = major << 5;
+            if (argument >= 0 && argument < 24) {
+                this.put(type | (int) argument);
+            } else if (argument >= 0 && argument < 0x100) {
+                this.put(type | 24);
+                this.put((int) argument);
+            } else if (argument >= 0 && argument < 0x10000) {
+                this.put(type | 25);
+                this.put((int) (argument >>> 8));
+                this.put((int) argument);
+            } else if (argument >= 0 && argument < 0x100000000L) {
+                this.put(type | 26);
+                this.putInt((int) argument);
+            } else {
+                this.put(type | 27);
+                this.putLong(argument);
+            }
+        }
+
+        private void ensure(int length) throws IOException {
+            if (this.position + length > this.buffer.length) {
+                this.flush();
+            }
+        }
+
+        private void put(int b) throws IOException {
+            this.ensure(1);
+            this.buffer[this.position++] = (byte) b;
+        }
+
+        private void putInt(int value) throws IOException {
+            this.ensure(4);
+            byte[] buffer = this.buffer;
+            buffer[this.position++] = (byte) (value >>> 24);
+            buffer[this.position++] = (byte) (value >>> 16);
+            buffer[this.position++] = (byte) (value >>> 8);
+            buffer[this.position++] = (byte) value;
+        }
+
+        private void putLong(long value) throws IOException {
+            this.putInt((int) (value >>> 32));
+            this.putInt((int) value);
+        }
+
+        private void put(byte[] bytes, int length) throws IOException {
+            if (length > this.buffer.length) {
+                this.flush();
+                this.out.write(bytes, 0, length);
+            } else {
+                this.ensure(length);
+                System.arraycopy(bytes, 0, this.buffer, this.position, length);
+                this.position += length;
+            }
+        }
+
+        void flush() throws IOException {
+            this.out.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+    /** A map or array that the decoder is in the middle of reading. */
+    private static final class ReadFrame {
+        final ReadFrame parent;
+        final Object container;
+        /** The number of items left, or -1 for an indefinite length. */
+        long remaining;
+        /** The key of the member being read, once it has been read. */
+        String key;
+        /** The strings of the enclosing namespace, if the container began a namespace. */
+        List<Object> outerStrings;
+
+        ReadFrame(ReadFrame parent, Object container, long remaining) {
+            this.parent = parent;
+            this.container = container;
+            this.remaining = remaining;
+        }
+    }
+
+    private static final class Decoder {
+        private final InputStream in;
+        private final int maxNestingDepth;
+        /** The strings of the current stringref namespace, or null outside one. */
+        private List<Object> strings;
+        /** True if the next item begins a stringref namespace. */
+        private boolean namespace;
+
+        Decoder(InputStream in, int maxNestingDepth) {
+            this.in = in;
+            this.maxNestingDepth = maxNestingDepth;
+        }
+
+        Object read() throws IOException {
+            ReadFrame top = null;
+            int depth = 0;
+            for (;;) {
+                Object value;
+                int initial = this.next();
+                if (initial == BREAK) {
+                    if (top == null || top.remaining >= 0 || top.key != null) {
+                        throw new JSONException("Unexpected CBOR break");
+                    }
+                    top.remaining = 0;
+                    value = null;
+                } else {
+                    int major = initial >>> 5;
+                    long tag = 0;
+                    while (major == TAG) {
+                        // a tag that only hints at the meaning of the item, or begins a namespace
+                        tag = this.argument(initial);
+                        if (tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM
+                                || tag == TAG_DECIMAL_FRACTION || tag == TAG_STRINGREF) {
+                            break;
+                        }
+                        this.namespace |= tag == TAG_STRINGREF_NAMESPACE;
+                        initial = this.next();
+                        major = initial >>> 5;
+                    }
+                    if (major == ARRAY || major == MAP) {
+                        long length = this.argument(initial);
+                        boolean namespace = this.namespace;
+                        this.namespace = false;
+                        if (this.maxNestingDepth > JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH
+                                && depth >= this.maxNestingDepth) {
+                            throw new JSONException("Maximum nesting depth of " + this.maxNestingDepth + " reached");
+                        }
+                        if (top != null && top.container instanceof JSONObject && top.key == null) {
+                            throw new JSONException("A CBOR map key must be a text string");
+                        }
+                        Object container = major == ARRAY ? new JSONArray() : new JSONObject();
+                        top = new ReadFrame(top, container, length);
+                        depth += 1;
+                        if (namespace) {
+                            top.outerStrings = this.strings;
+                            this.strings = new ArrayList<Object>();
+                        }
+                        if (length != 0) {
+                            continue;
+                        }
+                        value = null;
+                    } else if (major == TAG) {
+                        value = this.tagged(tag);
+                    } else {
+                        value = this.scalar(initial);
+                    }
+                }
+
+                // give the value to its container, and leave finished containers
+                for (;;) {
+                    if (value == null) {
+                        // top has ended
+                        value = top.container;
+                        if (top.outerStrings != null) {
+                            this.strings = top.outerStrings;
+                        }
+                        top = top.parent;
+                        depth -= 1;
+                    }
+                    if (top == null) {
+                        return value;
+                    }
+                    if (top.container instanceof JSONArray) {
+                        ((JSONArray) top.container).put(value);
+                    } else if (top.key == null) {
+                        if (!(value instanceof String)) {
+                            throw new JSONException("A CBOR map key must be a text string");
+                        }
+                        top.key = (String) value;
+                        break;
+                    } else {
+                        JSONObject jo = (JSONObject) top.container;
+                        if (jo.opt(top.key) != null) {
+                            throw new JSONException("Duplicate key \"" + top.key + "\"");
+                        }
+                        jo.put(top.key, value);
+                        top.key = null;
+                    }
+                    if (top.remaining > 0) {
+                        top.remaining -= 1;
+                    }
+                    if (top.remaining != 0) {
+                        break;
+                    }
+                    value = null;
+                }
+            }
+        }
+
+        /** Read an item that is neither a map nor an array. */
+        private Object scalar(int initial) throws IOException {
+            int major = initial >>> 5;
+            if (major == TEXT) {
+                return this.text(initial);
+            }
+            this.namespace = false;
+            switch (major) {
+            case UNSIGNED:
+                return unsigned(this.argument(initial));
+            case NEGATIVE:
+                return negative(this.argument(initial));
+            case SIMPLE:
+                switch (initial) {
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case NULL:
+                case UNDEFINED:
+                    return JSONObject.NULL;
+                case HALF:
+                    return Float.valueOf(halfToFloat((this.next() << 8) | this.next()));
+                case FLOAT:
+                    return Float.valueOf(Float.intBitsToFloat(this.nextInt()));
+                case DOUBLE:
+                    return Double.valueOf(Double.longBitsToDouble(((long) this.nextInt() << 32)
+                            | (this.nextInt() & 0xFFFFFFFFL)));
+                default:
+                    throw new JSONException("Unsupported CBOR simple value " + (initial & 31));
+                }
+            default:
+                // BYTES
+                throw new JSONException("A CBOR byte string has no JSON value");
+            }
+        }
+
+        /** Read an item tagged as a bignum, a decimal fraction or a stringref. */
+        private Object tagged(long tag) throws IOException {
+            boolean namespace = this.namespace;
+            this.namespace = false;
+            if (tag == TAG_STRINGREF) {
+                if (this.strings == null || namespace) {
+                    throw new JSONException("A CBOR stringref outside a namespace");
+                }
+                int next = this.next();
+                long index = next >>> 5 == UNSIGNED ? this.argument(next) : -1;
+                if (index < 0 || index >= this.strings.size()) {
+                    throw new JSONException("Unknown CBOR stringref " + index);
+                }
+                Object string = this.strings.get((int) index);
+                if (!(string instanceof String)) {
+                    throw new JSONException("A CBOR byte string has no JSON value");
+                }
+                return string;
+            }
+            if (tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) {
+                BigInteger magnitude = this.bignum(this.next(), !namespace);
+                return narrow(tag == TAG_POSITIVE_BIGNUM ? magnitude : BigInteger.ONE.negate().subtract(magnitude));
+            }
+            // a decimal fraction
+            if (this.next() != ((ARRAY << 5) | 2)) {
+                throw new JSONException("A CBOR decimal fraction must be an array of two integers");
+            }
+            BigInteger exponent = this.integer();
+            BigInteger mantissa = this.integer();
+            if (exponent.bitLength() > 31) {
+                throw new JSONException("The exponent of a CBOR decimal fraction is too large");
+            }
+            return new BigDecimal(mantissa, -exponent.intValue());
+        }
+
+        /** Read an integer or a bignum, as a BigInteger. */
+        private BigInteger integer() throws IOException {
+            int initial = this.next();
+            switch (initial >>> 5) {
+            case UNSIGNED:
+                return toBigInteger(unsigned(this.argument(initial)));
+            case NEGATIVE:
+                return toBigInteger(negative(this.argument(initial)));
+            case TAG:
+                long tag = this.argument(initial);
+                if (tag == TAG_POSITIVE_BIGNUM) {
+                    return this.bignum(this.next(), true);
+                }
+                if (tag == TAG_NEGATIVE_BIGNUM) {
+                    return BigInteger.ONE.negate().subtract(this.bignum(this.next(), true));
+                }
+                break;
+            default:
+            }
+            throw new JSONException("A CBOR decimal fraction must be an array of two integers");
+        }
+
+        private static BigInteger toBigInteger(Number number) {
+            return number instanceof BigInteger ? (BigInteger) number : BigInteger.valueOf(number.longValue());
+        }
+
+        /**
+         * Read the byte string of a bignum.
+         *
+         * @param shared True if the string is numbered in the current namespace.
+         */
+        private BigInteger bignum(int initial, boolean shared) throws IOException {
+            if (initial >>> 5 != BYTES) {
+                throw new JSONException("A CBOR bignum must be a byte string");
+            }
+            byte[] bytes;
+            if ((initial & 31) == INDEFINITE) {
+                bytes = this.chunks(BYTES);
+            } else {
+                bytes = this.bytes(this.length(initial));
+                if (shared && this.strings != null && isShared(bytes.length, this.strings.size())) {
+                    this.strings.add(bytes);
+                }
+            }
+            return new BigInteger(1, bytes);
+        }
+
+        private String text(int initial) throws IOException {
+            String string;
+            if ((initial & 31) == INDEFINITE) {
+                string = new String(this.chunks(TEXT), StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = this.bytes(this.length(initial));
+                string = new String(bytes, StandardCharsets.UTF_8);
+                if (this.strings != null && !this.namespace && isShared(bytes.length, this.strings.size())) {
+                    this.strings.add(string);
+                }
+            }
+            this.namespace = false;
+            return string;
+        }
+
+        /** Read the chunks of an indefinite length string, as one. */
+        private byte[] chunks(int major) throws IOException {
+            byte[] bytes = new byte[0];
+            for (;;) {
+                int initial = this.next();
+                if (initial == BREAK) {
+                    return bytes;
+                }
+                if (initial >>> 5 != major || (initial & 31) == INDEFINITE) {
+                    throw new JSONException("Malformed CBOR indefinite length string");
+                }
+                byte[] chunk = this.bytes(this.length(initial));
+                int length = bytes.length;
+                bytes = Arrays.copyOf(bytes, length + chunk.length);
+                System.arraycopy(chunk, 0, bytes, length, chunk.length);
+            }
+        }
+
+        private static Number unsigned(long value) {
+            if (value >= 0 && value <= Integer.MAX_VALUE) {
+                return Integer.valueOf((int) value);
+            }
+            if (value >= 0) {
+                return Long.valueOf(value);
+            }
+            return BigInteger.valueOf(value).add(UNSIGNED_LONG);
+        }
+
+        private static Number negative(long value) {
+            if (value >= 0 && value <= Integer.MAX_VALUE) {
+                return Integer.valueOf((int) (-1 - value));
+            }
+            if (value >= 0) {
+                return Long.valueOf(-1 - value);
+            }
+            return BigInteger.ONE.negate().subtract(BigInteger.valueOf(value).add(UNSIGNED_LONG));
+        }
+
+        /** Make a BigInteger an Integer or a Long if it fits, as JSONObject.stringToNumber does. */
+        private static Number narrow(BigInteger value) {
+            if (value.bitLength() <= 31) {
+                return Integer.valueOf(value.intValue());
+            }
+            if (value.bitLength() <= 63) {
+                return Long.valueOf(value.longValue());
+            }
+            return value;
+        }
+
+        private static float halfToFloat(int half) {
+            int exponent = (half >>> 10) & 0x1F;
+            int mantissa = half & 0x3FF;
+            float value;
+            if (exponent == 0) {
+                value = mantissa * 0x1p-24f;
+            } else if (exponent == 31) {
+                value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+            } else {
+                value = (mantissa + 1024) * (float) Math.pow(2, exponent - 25);
+            }
+            return (half & 0x8000) != 0 ? -value : value;
+        }
+
+        /** Read the argument of an item. */
+        private long argument(int initial) throws IOException {
+            int info = initial & 31;
+            if (info < 24) {
+                return info;
+            }
+            switch (info) {
+            case 24:
+                return this.next();
+            case 25:
+                return (this.next() << 8) | this.next();
+            case 26:
+                return this.nextInt() & 0xFFFFFFFFL;
+            case 27:
+                return ((long) this.nextInt() << 32) | (this.nextInt() & 0xFFFFFFFFL);
+            case INDEFINITE:
+                int major = initial >>> 5;
+                if (major != ARRAY && major != MAP) {
+                    throw new JSONException("Malformed CBOR item " + initial);
+                }
+                return -1;
+            default:
+                throw new JSONException("Malformed CBOR item " + initial);
+            }
+        }
+
+        private int length(int initial) throws IOException {
+            long length = this.argument(initial);
+            if (length < 0 || length > Integer.MAX_VALUE - 8) {
+                throw new JSONException("A CBOR string is too long");
+            }
+            return (int) length;
+        }
+
+        private int next() throws IOException {
+            int b = this.in.read();
+            if (b < 0) {
+                throw new JSONException("Unexpected end of CBOR data");
+            }
+            return b;
+        }
+
+        private int nextInt() throws IOException {
+            return (this.next() << 24) | (this.next() << 16) | (this.next() << 8) | this.next();
+        }
+
+        /** Read bytes, growing the array as they arrive, so that a false length cannot take memory. */
+        private byte[] bytes(int length) throws IOException {
+            byte[] bytes = new byte[Math.min(length, 1 << 16)];
+            int count = 0;
+            while (count < length) {
+                if (count == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min((long) length, bytes.length * 2L));
+                }
+                int n = this.in.read(bytes, count, bytes.length - count);
+                if (n < 0) {
+                    throw new JSONException("Unexpected end of CBOR data");
+                }
+                count += n;
+            }
+            return bytes;
+        }
+    }
+}
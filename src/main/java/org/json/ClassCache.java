@@ -0,0 +1,106 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A value computed once for each class, as a ClassValue keeps one, for the
+ * platforms that lack ClassValue, such as Android before API 34.
+ * <p>
+ * It never keeps a class from being unloaded. The values of classes whose
+ * class loader is the one of this library, or one of its parents, live as
+ * long as this library does, so they are kept in a ConcurrentHashMap. The
+ * values of other classes, such as those of a web application when this
+ * library is shared by a container, are kept by weak references, under a
+ * weak key, and are computed again if they are collected.
+ *
+ * @param <V> The type of the values.
+ */
+abstract class ClassCache<V> {
+
+    private final ConcurrentHashMap<Class<?>, V> shared = new ConcurrentHashMap<Class<?>, V>();
+
+    /** The values of the other classes, guarded by itself. */
+    private final Map<Class<?>, WeakReference<V>> others = new WeakHashMap<Class<?>, WeakReference<V>>();
+
+    /**
+     * Compute the value of a class. It may be called more than once for a
+     * class, and the value of only one call is kept.
+     *
+     * @param type The class.
+     * @return The value, which is not null.
+     */
+    protected abstract V computeValue(Class<?> type);
+
+    /**
+     * Get the value of a class, computing it if it is not kept.
+     *
+     * @param type The class.
+     * @return The value.
+     */
+    V get(Class<?> type) {
+        V value = this.shared.get(type);
+        if (value != null) {
+            return value;
+        }
+        if (isShared(type.getClassLoader())) {
+            value = this.computeValue(type);
+            V kept = this.shared.putIfAbsent(type, value);
+            return kept != null ? kept : value;
+        }
+        synchronized (this.others) {
+            WeakReference<V> reference = this.others.get(type);
+            value = reference != null ? reference.get() : null;
+        }
+        if (value == null) {
+            value = this.computeValue(type);
+            synchronized (this.others) {
+                this.others.put(type, new WeakReference<V>(value));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @param loader A class loader, or null for the bootstrap class loader.
+     * @return true if the classes of the loader live as long as this library
+     */
+    private static boolean isShared(ClassLoader loader) {
+        if (loader == null) {
+            return true;
+        }
+        for (ClassLoader own = ClassCache.class.getClassLoader(); own != null; own = own.getParent()) {
+            if (own == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
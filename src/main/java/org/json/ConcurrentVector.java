@@ -0,0 +1,326 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The list of a concurrent JSONArray: a copy-on-write array. Reads take no
+ * lock and see the array as it was when they began; iterators, and the
+ * views and streams made from them, walk a snapshot and never throw
+ * ConcurrentModificationException. Changes are made under the monitor of
+ * the list, each to a fresh copy of the array, so they are atomic, and
+ * cost time in the order of the length of the array. It suits lists that
+ * are read far more often than they are changed.
+ */
+final class ConcurrentVector extends AbstractList<Object> implements RandomAccess {
+    private volatile Object[] array;
+
+    ConcurrentVector(Collection<?> elements) {
+        this.array = elements.toArray();
+    }
+
+    /** The elements, as they are now. */
+    private List<Object> snapshot() {
+        return Collections.unmodifiableList(Arrays.asList(this.array));
+    }
+
+    /**
+     * Put an element at an index, adding null elements to pad the list out
+     * if the index is past its end, as one change.
+     *
+     * @param index The index, which is not negative.
+     * @param element The element.
+     */
+    synchronized void put(int index, Object element) {
+        Object[] array = this.array;
+        Object[] copy = Arrays.copyOf(array, Math.max(array.length, index + 1));
+        for (int i = array.length; i < index; i += 1) {
+            copy[i] = JSONObject.NULL;
+        }
+        copy[index] = element;
+        this.array = copy;
+    }
+
+    /**
+     * Get the element at an index, if there is one.
+     *
+     * @param index The index.
+     * @return The element, or null.
+     */
+    Object opt(int index) {
+        Object[] array = this.array;
+        return index >= 0 && index < array.length ? array[index] : null;
+    }
+
+    /**
+     * Remove the element at an index, if there is one.
+     *
+     * @param index The index.
+     * @return The element that was removed, or null.
+     */
+    synchronized Object removeIfPresent(int index) {
+        return index >= 0 && index < this.array.length ? this.remove(index) : null;
+    }
+
+    @Override
+    public Object get(int index) {
+        Object[] array = this.array;
+        if (index < 0 || index >= array.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + array.length);
+        }
+        return array[index];
+    }
+
+    @Override
+    public int size() {
+        return this.array.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.array.length == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return this.snapshot().contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return this.snapshot().indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return this.snapshot().lastIndexOf(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return this.array.clone();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return this.snapshot().toArray(a);
+    }
+
+    @Override
+    public synchronized Object set(int index, Object element) {
+        Object old = this.get(index);
+        Object[] copy = this.array.clone();
+        copy[index] = element;
+        this.array = copy;
+        return old;
+    }
+
+    @Override
+    public synchronized boolean add(Object e) {
+        Object[] array = this.array;
+        Object[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = e;
+        this.array = copy;
+        return true;
+    }
+
+    @Override
+    public synchronized void add(int index, Object element) {
+        this.addAll(index, Collections.singletonList(element));
+    }
+
+    @Override
+    public synchronized Object remove(int index) {
+        Object old = this.get(index);
+        this.removeRange(index, index + 1);
+        return old;
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        int i = this.indexOf(o);
+        if (i < 0) {
+            return false;
+        }
+        this.removeRange(i, i + 1);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.array = new Object[0];
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends Object> c) {
+        return this.addAll(this.array.length, c);
+    }
+
+    @Override
+    public synchronized boolean addAll(int index, Collection<? extends Object> c) {
+        Object[] array = this.array;
+        if (index < 0 || index > array.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + array.length);
+        }
+        Object[] added = c.toArray();
+        if (added.length == 0) {
+            return false;
+        }
+        Object[] copy = new Object[array.length + added.length];
+        System.arraycopy(array, 0, copy, 0, index);
+        System.arraycopy(added, 0, copy, index, added.length);
+        System.arraycopy(array, index, copy, index + added.length, array.length - index);
+        this.array = copy;
+        return true;
+    }
+
+    @Override
+    protected synchronized void removeRange(int fromIndex, int toIndex) {
+        Object[] array = this.array;
+        if (fromIndex < 0 || toIndex > array.length || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + array.length);
+        }
+        Object[] copy = new Object[array.length - (toIndex - fromIndex)];
+        System.arraycopy(array, 0, copy, 0, fromIndex);
+        System.arraycopy(array, toIndex, copy, fromIndex, array.length - toIndex);
+        this.array = copy;
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        return this.removeIf(new Predicate<Object>() {
+            @Override
+            public boolean test(Object o) {
+                return c.contains(o);
+            }
+        });
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        return this.removeIf(new Predicate<Object>() {
+            @Override
+            public boolean test(Object o) {
+                return !c.contains(o);
+            }
+        });
+    }
+
+    @Override
+    public synchronized boolean removeIf(Predicate<? super Object> filter) {
+        List<Object> kept = new ArrayList<Object>(this.array.length);
+        for (Object o : this.array) {
+            if (!filter.test(o)) {
+                kept.add(o);
+            }
+        }
+        if (kept.size() == this.array.length) {
+            return false;
+        }
+        this.array = kept.toArray();
+        return true;
+    }
+
+    @Override
+    public synchronized void replaceAll(UnaryOperator<Object> operator) {
+        Object[] copy = this.array.clone();
+        for (int i = 0; i < copy.length; i += 1) {
+            copy[i] = operator.apply(copy[i]);
+        }
+        this.array = copy;
+    }
+
+    @Override
+    public synchronized void sort(Comparator<? super Object> c) {
+        Object[] copy = this.array.clone();
+        Arrays.sort(copy, c);
+        this.array = copy;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return this.snapshot().containsAll(c);
+    }
+
+    @Override
+    public ListIterator<Object> listIterator(int i) {
+        return this.snapshot().listIterator(i);
+    }
+
+    @Override
+    public ListIterator<Object> listIterator() {
+        return this.snapshot().listIterator();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return this.snapshot().iterator();
+    }
+
+    @Override
+    public List<Object> subList(int fromIndex, int toIndex) {
+        return this.snapshot().subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Object> action) {
+        this.snapshot().forEach(action);
+    }
+
+    @Override
+    public Spliterator<Object> spliterator() {
+        return this.snapshot().spliterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this.snapshot().equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.snapshot().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.snapshot().toString();
+    }
+}
@@ -25,11 +25,14 @@ package org.json;
  */
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -84,9 +87,11 @@ import java.util.Map;
 public class JSONArray implements Iterable<Object> {
 
     /**
-     * The arrayList where the JSONArray's properties are kept.
+     * The arrayList where the JSONArray's properties are kept. It is an
+     * ArrayList unless the JSONArray is lazy, read-only, persistent or
+     * concurrent.
      */
-    private final ArrayList<Object> myArrayList;
+    private final List<Object> myArrayList;
 
     /**
      * Construct an empty JSONArray.
@@ -96,7 +101,48 @@ public class JSONArray implements Iterable<Object> {
     }
 
     /**
-     * Construct a JSONArray from a JSONTokener.
+     * Construct a JSONArray whose elements are read from the text of an
+     * index when it is first used.
+     *
+     * @param index The index of the text.
+     * @param header The index of the array in the tape of the index.
+     */
+    JSONArray(JSONIndex index, int header) {
+        this.myArrayList = index.list(header);
+    }
+
+    /**
+     * Construct a read-only JSONArray that reads its elements from a
+     * JSONTape.
+     *
+     * @param tape The JSONTape.
+     * @param at The offset of the array in the JSONTape.
+     */
+    JSONArray(JSONTape tape, int at) {
+        this.myArrayList = tape.list(at);
+    }
+
+    /**
+     * Construct a persistent JSONArray.
+     *
+     * @param list The elements, whose JSONObjects and JSONArrays are persistent.
+     */
+    JSONArray(PersistentVector list) {
+        this.myArrayList = list;
+    }
+
+    /**
+     * Construct a concurrent JSONArray.
+     *
+     * @param list The elements.
+     */
+    JSONArray(ConcurrentVector list) {
+        this.myArrayList = list;
+    }
+
+    /**
+     * Construct a JSONArray from a JSONTokener. Nesting is limited to
+     * {@link JSONParserConfiguration#DEFAULT_MAXIMUM_NESTING_DEPTH} levels.
      *
      * @param x
      *            A JSONTokener
@@ -104,48 +150,24 @@ public class JSONArray implements Iterable<Object> {
      *             If there is a syntax error.
      */
     public JSONArray(JSONTokener x) throws JSONException {
+        this(x, new JSONParserConfiguration());
+    }
+
+    /**
+     * Construct a JSONArray from a JSONTokener, using a parser configuration.
+     * Nested objects and arrays do not use the call stack, so any depth the
+     * configuration allows can be parsed.
+     *
+     * @param x
+     *            A JSONTokener
+     * @param jsonParserConfiguration
+     *            The parser configuration.
+     * @throws JSONException
+     *             If there is a syntax error or the nesting is too deep.
+     */
+    public JSONArray(JSONTokener x, JSONParserConfiguration jsonParserConfiguration) throws JSONException {
         this();
-        if (x.nextClean() != '[') {
-            throw x.syntaxError("A JSONArray text must start with '['");
-        }
-        
-        char nextChar = x.nextClean();
-        if (nextChar == 0) {
-            // array is unclosed. No ']' found, instead EOF
-            throw x.syntaxError("Expected a ',' or ']'");
-        }
-        if (nextChar != ']') {
-            x.back();
-            for (;;) {
-                if (x.nextClean() == ',') {
-                    x.back();
-                    this.myArrayList.add(JSONObject.NULL);
-                } else {
-                    x.back();
-                    this.myArrayList.add(x.nextValue());
-                }
-                switch (x.nextClean()) {
-                case 0:
-                    // array is unclosed. No ']' found, instead EOF
-                    throw x.syntaxError("Expected a ',' or ']'");
-                case ',':
-                    nextChar = x.nextClean();
-                    if (nextChar == 0) {
-                        // array is unclosed. No ']' found, instead EOF
-                        throw x.syntaxError("Expected a ',' or ']'");
-                    }
-                    if (nextChar == ']') {
-                        return;
-                    }
-                    x.back();
-                    break;
-                case ']':
-                    return;
-                default:
-                    throw x.syntaxError("Expected a ',' or ']'");
-                }
-            }
-        }
+        x.parse(this, jsonParserConfiguration);
     }
 
     /**
@@ -244,6 +266,29 @@ public class JSONArray implements Iterable<Object> {
     	this.myArrayList = new ArrayList<Object>(initialCapacity);
     }
 
+    /**
+     * Parse a large JSONArray file on several threads. A quick scan of the
+     * bytes of the file finds the commas between the elements of the array,
+     * the runs of elements between them are parsed on a fork-join pool, and
+     * the elements are put in order into a JSONArray sized to hold them, so
+     * the JSONArray is the one
+     * {@link #JSONArray(JSONTokener, JSONParserConfiguration)} produces. The
+     * file is read as UTF-8. A file with errors is parsed again on the
+     * calling thread, to report them as the sequential parser does.
+     *
+     * @param path The JSON file.
+     * @param config The parser configuration.
+     * @param threads The number of threads to parse with. With 1 or less the
+     *  file is parsed on the calling thread.
+     * @return A JSONArray of the elements of the file.
+     * @throws JSONException If the file cannot be read or there is an error
+     *  while parsing it
+     */
+    public static JSONArray parseParallel(Path path, JSONParserConfiguration config, int threads)
+            throws JSONException {
+        return JSONParallelParser.toJSONArray(path, config, threads);
+    }
+
     @Override
     public Iterator<Object> iterator() {
         return this.myArrayList.iterator();
@@ -583,6 +628,9 @@ public class JSONArray implements Iterable<Object> {
      * @return An object value, or null if there is no object at that index.
      */
     public Object opt(int index) {
+        if (this.myArrayList instanceof ConcurrentVector) {
+            return ((ConcurrentVector) this.myArrayList).opt(index);
+        }
         return (index < 0 || index >= this.length()) ? null : this.myArrayList
                 .get(index);
     }
@@ -1170,7 +1218,8 @@ public class JSONArray implements Iterable<Object> {
     /**
      * Put or replace an object value in the JSONArray. If the index is greater
      * than the length of the JSONArray, then null elements will be added as
-     * necessary to pad it out.
+     * necessary to pad it out. In a concurrent JSONArray the padding and the
+     * put are one atomic change.
      *
      * @param index
      *            The subscript.
@@ -1187,6 +1236,11 @@ public class JSONArray implements Iterable<Object> {
         if (index < 0) {
             throw new JSONException("JSONArray[" + index + "] not found.");
         }
+        if (this.myArrayList instanceof ConcurrentVector) {
+            JSONObject.testValidity(value);
+            ((ConcurrentVector) this.myArrayList).put(index, value);
+            return this;
+        }
         if (index < this.length()) {
             JSONObject.testValidity(value);
             this.myArrayList.set(index, value);
@@ -1198,7 +1252,7 @@ public class JSONArray implements Iterable<Object> {
         }
         // if we are inserting past the length, we want to grow the array all at once
         // instead of incrementally.
-        this.myArrayList.ensureCapacity(index + 1);
+        this.ensureCapacity(index + 1);
         while (index != this.length()) {
             // we don't need to test validity of NULL objects
             this.myArrayList.add(JSONObject.NULL);
@@ -1345,6 +1399,9 @@ public class JSONArray implements Iterable<Object> {
      *         was no value.
      */
     public Object remove(int index) {
+        if (this.myArrayList instanceof ConcurrentVector) {
+            return ((ConcurrentVector) this.myArrayList).removeIfPresent(index);
+        }
         return index >= 0 && index < this.length()
             ? this.myArrayList.remove(index)
             : null;
@@ -1358,37 +1415,7 @@ public class JSONArray implements Iterable<Object> {
      * @return true if they are equal
      */
     public boolean similar(Object other) {
-        if (!(other instanceof JSONArray)) {
-            return false;
-        }
-        int len = this.length();
-        if (len != ((JSONArray)other).length()) {
-            return false;
-        }
-        for (int i = 0; i < len; i += 1) {
-            Object valueThis = this.myArrayList.get(i);
-            Object valueOther = ((JSONArray)other).myArrayList.get(i);
-            if(valueThis == valueOther) {
-            	continue;
-            }
-            if(valueThis == null) {
-            	return false;
-            }
-            if (valueThis instanceof JSONObject) {
-                if (!((JSONObject)valueThis).similar(valueOther)) {
-                    return false;
-                }
-            } else if (valueThis instanceof JSONArray) {
-                if (!((JSONArray)valueThis).similar(valueOther)) {
-                    return false;
-                }
-            } else if (valueThis instanceof Number && valueOther instanceof Number) {
-                return JSONObject.isNumberSimilar((Number)valueThis, (Number)valueOther);
-            } else if (!valueThis.equals(valueOther)) {
-                return false;
-            }
-        }
-        return true;
+        return JSONObject.isSimilar(this, other);
     }
 
     /**
@@ -1469,6 +1496,76 @@ public class JSONArray implements Iterable<Object> {
         }
     }
 
+    /**
+     * Write the JSONArray in CBOR (RFC 8949), a compact binary form of JSON in
+     * which numbers are written natively and strings are prefixed with their
+     * length. See {@link #toBinary(OutputStream, boolean)}.
+     *
+     * @param out The output, which is neither flushed nor closed.
+     * @return The output.
+     * @throws JSONException If a value cannot be written, or the output fails.
+     */
+    public OutputStream toBinary(OutputStream out) throws JSONException {
+        return this.toBinary(out, false);
+    }
+
+    /**
+     * Write the JSONArray in CBOR (RFC 8949). The JSONArray is written as a
+     * CBOR array, and the JSONObjects and JSONArrays in it as maps and
+     * arrays; strings as UTF-8, Integers and Longs in the fewest bytes,
+     * BigIntegers too large for a long as bignums, BigDecimals as decimal
+     * fractions, and Doubles and Floats as floats of their own size. Other
+     * values are written as they are in the JSON text, so
+     * {@link #fromBinary(InputStream)} gives a JSONArray similar to the one
+     * parsed from {@link #toString()}, and numbers keep their types.
+     * <p>
+     * With shareStrings, each key and string is written once and then as a
+     * number (the stringref extension of CBOR), which makes records with the
+     * same keys much smaller. The references are shared across all the
+     * elements, so the records of this JSONArray write their keys once.
+     *
+     * @param out The output, which is neither flushed nor closed.
+     * @param shareStrings True to write repeated strings as references.
+     * @return The output.
+     * @throws JSONException If a value cannot be written, or the output fails.
+     */
+    public OutputStream toBinary(OutputStream out, boolean shareStrings) throws JSONException {
+        CBOR.write(this, out, shareStrings);
+        return out;
+    }
+
+    /**
+     * Read a JSONArray written in CBOR, as by {@link #toBinary(OutputStream)}.
+     * The input is read up to the end of the JSONArray and no further, so a
+     * stream may hold several. It is read a byte at a time, so a stream that
+     * is not already buffered, such as a FileInputStream or the stream of a
+     * socket, should be wrapped in a BufferedInputStream.
+     *
+     * @param in The input.
+     * @return The JSONArray.
+     * @throws JSONException If the input is not a JSONArray in CBOR, or fails.
+     */
+    public static JSONArray fromBinary(InputStream in) throws JSONException {
+        return fromBinary(in, new JSONParserConfiguration());
+    }
+
+    /**
+     * Read a JSONArray written in CBOR, using the maximum nesting depth of a
+     * parser configuration. See {@link #fromBinary(InputStream)}.
+     *
+     * @param in The input.
+     * @param config The parser configuration.
+     * @return The JSONArray.
+     * @throws JSONException If the input is not a JSONArray in CBOR, or fails.
+     */
+    public static JSONArray fromBinary(InputStream in, JSONParserConfiguration config) throws JSONException {
+        Object value = CBOR.read(in, config);
+        if (value instanceof JSONArray) {
+            return (JSONArray) value;
+        }
+        throw new JSONException("Expected a CBOR array");
+    }
+
     /**
      * Write the contents of the JSONArray as JSON text to a writer. For
      * compactness, no whitespace is added.
@@ -1514,43 +1611,7 @@ public class JSONArray implements Iterable<Object> {
     public Writer write(Writer writer, int indentFactor, int indent)
             throws JSONException {
         try {
-            boolean needsComma = false;
-            int length = this.length();
-            writer.write('[');
-
-            if (length == 1) {
-                try {
-                    JSONObject.writeValue(writer, this.myArrayList.get(0),
-                            indentFactor, indent);
-                } catch (Exception e) {
-                    throw new JSONException("Unable to write JSONArray value at index: 0", e);
-                }
-            } else if (length != 0) {
-                final int newIndent = indent + indentFactor;
-
-                for (int i = 0; i < length; i += 1) {
-                    if (needsComma) {
-                        writer.write(',');
-                    }
-                    if (indentFactor > 0) {
-                        writer.write('\n');
-                    }
-                    JSONObject.indent(writer, newIndent);
-                    try {
-                        JSONObject.writeValue(writer, this.myArrayList.get(i),
-                                indentFactor, newIndent);
-                    } catch (Exception e) {
-                        throw new JSONException("Unable to write JSONArray value at index: " + i, e);
-                    }
-                    needsComma = true;
-                }
-                if (indentFactor > 0) {
-                    writer.write('\n');
-                }
-                JSONObject.indent(writer, indent);
-            }
-            writer.write(']');
-            return writer;
+            return JSONObject.writeValue(writer, this, indentFactor, indent);
         } catch (IOException e) {
             throw new JSONException(e);
         }
@@ -1559,7 +1620,8 @@ public class JSONArray implements Iterable<Object> {
     /**
      * Returns a java.util.List containing all of the elements in this array.
      * If an element in the array is a JSONArray or JSONObject it will also
-     * be converted to a List and a Map respectively.
+     * be converted to a List and a Map respectively. To read a few elements
+     * without copying the whole array, use {@link #asList()}.
      * <p>
      * Warning: This method assumes that the data structure is acyclical.
      *
@@ -1567,20 +1629,171 @@ public class JSONArray implements Iterable<Object> {
      */
     public List<Object> toList() {
         List<Object> results = new ArrayList<Object>(this.myArrayList.size());
-        for (Object element : this.myArrayList) {
-            if (element == null || JSONObject.NULL.equals(element)) {
-                results.add(null);
-            } else if (element instanceof JSONArray) {
-                results.add(((JSONArray) element).toList());
-            } else if (element instanceof JSONObject) {
-                results.add(((JSONObject) element).toMap());
-            } else {
-                results.add(element);
-            }
-        }
+        JSONObject.toJava(this, results);
         return results;
     }
 
+    /**
+     * Returns a read-only view of this array as a java.util.List. Nothing is
+     * copied: the view reads this array when it is used, so it is made in
+     * constant time, and it sees later changes to this array. Elements are
+     * given as {@link #toList()} gives them: <code>JSONObject.NULL</code> as
+     * null, and a nested JSONObject or JSONArray as a view of its own, made
+     * when it is reached. The view cannot be changed.
+     *
+     * @return a read-only java.util.List view of this array
+     */
+    public List<Object> asList() {
+        return new JSONViews.ArrayView(this.myArrayList);
+    }
+
+    /**
+     * Determine if this JSONArray is persistent: made by
+     * {@link #toPersistent()} or one of the <code>with</code> methods, so
+     * that it cannot be changed.
+     *
+     * @return true if this JSONArray is persistent.
+     */
+    public boolean isPersistent() {
+        return this.myArrayList instanceof PersistentVector;
+    }
+
+    /**
+     * Make a persistent copy of this JSONArray: one that cannot be changed,
+     * whose nested JSONObjects and JSONArrays are persistent too. A
+     * persistent JSONArray is copied and changed with
+     * {@link #with(int, Object)}, {@link #withAppended(Object)} and
+     * {@link #without(int)}, which make new versions that share all but the
+     * changed path with the old one. A version is a snapshot that never
+     * changes, so it can be kept, and shared between threads without locks.
+     * The methods that would change a persistent JSONArray, such as
+     * <code>put</code>, throw UnsupportedOperationException.
+     * <p>
+     * A persistent JSONArray is returned as it is; any other is copied, once.
+     * Warning: This method assumes that the data structure is acyclical.
+     *
+     * @return a persistent JSONArray with the elements of this one
+     * @see JSONObject#toPersistent()
+     */
+    public JSONArray toPersistent() {
+        return (JSONArray) JSONObject.persist(this);
+    }
+
+    /**
+     * Make a persistent JSONArray with an element replaced or added, sharing
+     * the rest of this one. If the index is greater than the length, null
+     * elements are added as needed to pad it out, as
+     * {@link #put(int, Object)} does. Replacing an element takes time in the
+     * order of log n. This JSONArray is not changed. If it is not
+     * persistent, it is copied with {@link #toPersistent()} first.
+     *
+     * @param index
+     *            The subscript.
+     * @param value
+     *            The value to put into the array. The value should be a
+     *            Boolean, Double, Integer, JSONArray, JSONObject, Long, or
+     *            String, or the JSONObject.NULL object. A Map or Collection
+     *            is made into a JSONObject or JSONArray.
+     * @return a persistent JSONArray with the element
+     * @throws JSONException
+     *             If the index is negative or if the value is a non-finite
+     *             number.
+     */
+    public JSONArray with(int index, Object value) throws JSONException {
+        if (index < 0) {
+            throw new JSONException("JSONArray[" + index + "] not found.");
+        }
+        JSONObject.testValidity(value);
+        PersistentVector list = (PersistentVector) this.toPersistent().myArrayList;
+        if (index < list.size()) {
+            return new JSONArray(list.with(index, JSONObject.persistValue(value)));
+        }
+        while (index != list.size()) {
+            list = list.withAppended(JSONObject.NULL);
+        }
+        return new JSONArray(list.withAppended(JSONObject.persistValue(value)));
+    }
+
+    /**
+     * Make a persistent JSONArray with an element appended, sharing the rest
+     * of this one. It takes time in the order of log n, and mostly copies
+     * only the last few elements. This JSONArray is not changed. If it is not
+     * persistent, it is copied with {@link #toPersistent()} first.
+     *
+     * @param value
+     *            The value to append, as for {@link #with(int, Object)}.
+     * @return a persistent JSONArray with the element
+     * @throws JSONException
+     *             If the value is a non-finite number.
+     */
+    public JSONArray withAppended(Object value) throws JSONException {
+        JSONObject.testValidity(value);
+        PersistentVector list = (PersistentVector) this.toPersistent().myArrayList;
+        return new JSONArray(list.withAppended(JSONObject.persistValue(value)));
+    }
+
+    /**
+     * Make a persistent JSONArray without an element. Removing the last
+     * element takes time in the order of log n, and shares the rest of this
+     * JSONArray; removing any other copies the elements after it. This
+     * JSONArray is not changed. If it is not persistent, it is copied with
+     * {@link #toPersistent()} first.
+     *
+     * @param index
+     *            The index of the element to be removed.
+     * @return a persistent JSONArray without the element, or with the same
+     *         elements if there is no such index
+     */
+    public JSONArray without(int index) {
+        JSONArray persistent = this.toPersistent();
+        PersistentVector list = (PersistentVector) persistent.myArrayList;
+        if (index < 0 || index >= list.size()) {
+            return persistent;
+        }
+        PersistentVector changed = list;
+        for (int i = list.size() - 1; i >= index; i -= 1) {
+            changed = changed.withoutLast();
+        }
+        for (int i = index + 1; i < list.size(); i += 1) {
+            changed = changed.withAppended(list.get(i));
+        }
+        return new JSONArray(changed);
+    }
+
+    /**
+     * Determine if this JSONArray is concurrent: made by
+     * {@link #toConcurrent()}, so that threads can read and change it
+     * without locks of their own.
+     *
+     * @return true if this JSONArray is concurrent.
+     */
+    public boolean isConcurrent() {
+        return this.myArrayList instanceof ConcurrentVector;
+    }
+
+    /**
+     * Make a concurrent copy of this JSONArray: one that threads can share,
+     * reading and changing it without locks of their own, whose nested
+     * JSONObjects and JSONArrays are concurrent too. Its elements are kept in
+     * a copy-on-write array: reads take no lock, and each change copies the
+     * array, so it suits arrays that are read far more often than they are
+     * changed.
+     * <p>
+     * Each method that reads, puts or removes one element is atomic. A
+     * sequence of calls is not: an index found by one call may be gone by
+     * the next. Iteration and {@link #write(Writer)} walk a snapshot of the
+     * elements taken when they begin.
+     * <p>
+     * A concurrent JSONArray is returned as it is; any other is copied, once.
+     * Warning: This method assumes that the data structure is acyclical.
+     *
+     * @return a concurrent JSONArray with the elements of this one
+     * @see JSONObject#toConcurrent()
+     */
+    public JSONArray toConcurrent() {
+        return (JSONArray) JSONObject.concurrent(this);
+    }
+
     /**
      * Check if JSONArray is empty.
      *
@@ -1590,6 +1803,19 @@ public class JSONArray implements Iterable<Object> {
         return this.myArrayList.isEmpty();
     }
 
+    /**
+     * Make room for elements to be added all at once, if the list is an
+     * ArrayList.
+     *
+     * @param capacity
+     *            The number of elements to make room for.
+     */
+    private void ensureCapacity(int capacity) {
+        if (this.myArrayList instanceof ArrayList) {
+            ((ArrayList<Object>) this.myArrayList).ensureCapacity(capacity);
+        }
+    }
+
     /**
      * Add a collection's elements to the JSONArray.
      *
@@ -1601,7 +1827,7 @@ public class JSONArray implements Iterable<Object> {
      *            
      */
     private void addAll(Collection<?> collection, boolean wrap) {
-        this.myArrayList.ensureCapacity(this.myArrayList.size() + collection.size());
+        this.ensureCapacity(this.myArrayList.size() + collection.size());
         if (wrap) {
             for (Object o: collection){
                 this.put(JSONObject.wrap(o));
@@ -1653,7 +1879,7 @@ public class JSONArray implements Iterable<Object> {
     private void addAll(Object array, boolean wrap) throws JSONException {
         if (array.getClass().isArray()) {
             int length = Array.getLength(array);
-            this.myArrayList.ensureCapacity(this.myArrayList.size() + length);
+            this.ensureCapacity(this.myArrayList.size() + length);
             if (wrap) {
                 for (int i = 0; i < length; i += 1) {
                     this.put(JSONObject.wrap(Array.get(array, i)));
@@ -0,0 +1,853 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * An annotation processor that generates a {@link JSONBeanSerializer} for
+ * each class annotated with {@link JSONBean}, so that beans and records are
+ * written and read without reflection. The serializer of
+ * <code>com.example.Person</code> is
+ * <code>com.example.Person_JSONBeanSerializer</code>; JSONObject and
+ * JSONTokener find it by that name, once for each class, and use it in
+ * place of reflection.
+ * <p>
+ * The generated code follows the rules of <code>new JSONObject(bean)</code>
+ * and <code>JSONObject.toBean</code>: the keys of getters and setters, and
+ * {@link JSONPropertyName} and {@link JSONPropertyIgnore} on them and on the
+ * methods they override, are found as reflection finds them. A record is
+ * written and read by its components. Properties whose types have typed
+ * getters in JSONObject, enums, arrays, collections and maps with String
+ * keys are read by generated code; other beans are read with
+ * <code>toBean</code>. A property of a type that cannot be read, such as
+ * <code>char</code>, is written but not read, and the processor warns of it.
+ * <p>
+ * The processor is not registered as a service, so it runs only when it is
+ * asked for:
+ * <pre>
+ * javac -processor org.json.JSONBeanProcessor ...
+ * </pre>
+ */
+@SupportedAnnotationTypes("org.json.JSONBean")
+public class JSONBeanProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Messager messager = this.processingEnv.getMessager();
+        for (Element element : roundEnv.getElementsAnnotatedWith(JSONBean.class)) {
+            String kind = element.getKind().name();
+            if (!kind.equals("CLASS") && !kind.equals("RECORD")) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "@JSONBean is for classes and records", element);
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            String problem = null;
+            for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+                NestingKind nesting = ((TypeElement) e).getNestingKind();
+                if (nesting != NestingKind.TOP_LEVEL && nesting != NestingKind.MEMBER) {
+                    problem = "A @JSONBean class must be a top level class or a member of one";
+                } else if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                    problem = "A @JSONBean class must not be private, or be a member of a private class";
+                }
+            }
+            if (problem != null) {
+                messager.printMessage(Diagnostic.Kind.ERROR, problem, element);
+                continue;
+            }
+            try {
+                new Generator(this.processingEnv.getElementUtils(), this.processingEnv.getTypeUtils(), messager,
+                        type).write(this.processingEnv.getFiler());
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Unable to write the serializer of " + type + ": " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Make a Java string literal.
+     *
+     * @param string The string.
+     * @return The literal, in quotes.
+     */
+    static String literal(String string) {
+        StringBuilder sb = new StringBuilder(string.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < string.length(); i += 1) {
+            char c = string.charAt(i);
+            switch (c) {
+            case '"':
+            case '\\':
+                sb.append('\\').append(c);
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < ' ') {
+                    // an octal escape: a unicode escape of a line break would end the line
+                    sb.append('\\').append(Integer.toOctalString(c | 0x200).substring(1));
+                } else if (c < 0x7f) {
+                    sb.append(c);
+                } else {
+                    String hex = Integer.toHexString(c | 0x10000);
+                    sb.append("\\u").append(hex, 1, 5);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /** Writes the serializer of one class. */
+    private static final class Generator {
+        private final Elements elements;
+        private final Types types;
+        private final Messager messager;
+        private final TypeElement type;
+        private final boolean record;
+        /** The name of the class in source, without type arguments. */
+        private final String typeName;
+        private final String packageName;
+        private final String serializerName;
+        /** The helpers that read arrays, collections and maps, by type. */
+        private final Map<String, String> helperNames = new HashMap<String, String>();
+        private final StringBuilder helpers = new StringBuilder();
+
+        Generator(Elements elements, Types types, Messager messager, TypeElement type) {
+            this.elements = elements;
+            this.types = types;
+            this.messager = messager;
+            this.type = type;
+            this.record = type.getKind().name().equals("RECORD");
+            this.typeName = type.getQualifiedName().toString();
+            this.packageName = elements.getPackageOf(type).getQualifiedName().toString();
+            String binaryName = elements.getBinaryName(type).toString();
+            this.serializerName = binaryName.substring(binaryName.lastIndexOf('.') + 1).replace('$', '_')
+                    + "_JSONBeanSerializer";
+        }
+
+        void write(Filer filer) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            sb.append("// Generated by org.json.JSONBeanProcessor from ").append(this.typeName).append(". Do not edit.\n");
+            if (!this.packageName.isEmpty()) {
+                sb.append("package ").append(this.packageName).append(";\n");
+            }
+            sb.append('\n');
+            sb.append("import java.io.Closeable;\n");
+            sb.append("import java.io.IOException;\n");
+            sb.append("import java.io.Writer;\n");
+            sb.append("import java.util.Map;\n\n");
+            sb.append("import org.json.JSONArray;\n");
+            sb.append("import org.json.JSONBeanSerializer;\n");
+            sb.append("import org.json.JSONException;\n");
+            sb.append("import org.json.JSONObject;\n\n");
+            sb.append("/** The serializer of {@link ").append(this.typeName).append("}. */\n");
+            sb.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            sb.append("public final class ").append(this.serializerName)
+                    .append(" implements JSONBeanSerializer<").append(this.typeName).append("> {\n");
+            sb.append("    /** The serializer. */\n");
+            sb.append("    public static final ").append(this.serializerName).append(" INSTANCE = new ")
+                    .append(this.serializerName).append("();\n\n");
+            sb.append("    private ").append(this.serializerName).append("() {\n");
+            sb.append("    }\n\n");
+            this.writeToJSONObject(sb);
+            sb.append("    @Override\n");
+            sb.append("    public Writer toJSON(").append(this.typeName).append(" bean, Writer writer)");
+            sb.append(" throws JSONException {\n");
+            sb.append("        return this.toJSONObject(bean).write(writer);\n");
+            sb.append("    }\n\n");
+            if (this.record) {
+                this.writeRecordFromJSON(sb);
+            } else {
+                this.writeBeanFromJSON(sb);
+            }
+            sb.append("    private static void put(Map<String, Object> map, String key, Object value) {\n");
+            sb.append("        if (value != null) {\n");
+            sb.append("            map.put(key, JSONObject.wrap(value));\n");
+            sb.append("            if (value instanceof Closeable) {\n");
+            sb.append("                try {\n");
+            sb.append("                    ((Closeable) value).close();\n");
+            sb.append("                } catch (IOException ignore) {\n");
+            sb.append("                }\n");
+            sb.append("            }\n");
+            sb.append("        }\n");
+            sb.append("    }\n");
+            sb.append(this.helpers);
+            sb.append("}\n");
+            String name = this.packageName.isEmpty() ? this.serializerName
+                    : this.packageName + '.' + this.serializerName;
+            Writer writer = filer.createSourceFile(name, this.type).openWriter();
+            try {
+                writer.write(sb.toString());
+            } finally {
+                writer.close();
+            }
+        }
+
+        /**
+         * Write putProperties, which calls the getters that
+         * <code>new JSONObject(bean)</code> calls, or the accessors of the
+         * components of a record, and toJSONObject, which is
+         * <code>new JSONObject(bean)</code>, filled by putProperties. As with
+         * reflection, a getter that throws is left out.
+         */
+        private void writeToJSONObject(StringBuilder sb) {
+            sb.append("    @Override\n");
+            sb.append("    public JSONObject toJSONObject(").append(this.typeName).append(" bean) {\n");
+            sb.append("        // which gives the bean to putProperties\n");
+            sb.append("        return new JSONObject(bean);\n");
+            sb.append("    }\n\n");
+            sb.append("    @Override\n");
+            sb.append("    public void putProperties(").append(this.typeName)
+                    .append(" bean, Map<String, Object> map) {\n");
+            Map<String, ExecutableElement> getters = new LinkedHashMap<String, ExecutableElement>();
+            if (this.record) {
+                for (Element component : this.components()) {
+                    ExecutableElement accessor = this.accessor(component);
+                    if (accessor != null && !this.isIgnored(accessor)) {
+                        getters.put(this.componentKey(component, accessor), accessor);
+                    }
+                }
+            } else {
+                for (ExecutableElement method : this.methods(this.type)) {
+                    String name = method.getSimpleName().toString();
+                    if (method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID
+                            && !name.equals("getClass") && !name.equals("getDeclaringClass")) {
+                        String key = this.getterKey(method);
+                        if (key != null && !key.isEmpty()) {
+                            getters.put(key, method);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, ExecutableElement> entry : getters.entrySet()) {
+                sb.append("        try {\n");
+                sb.append("            put(map, ").append(literal(entry.getKey())).append(", bean.")
+                        .append(entry.getValue().getSimpleName()).append("());\n");
+                sb.append("        } catch (Exception ignore) {\n");
+                sb.append("        }\n");
+            }
+            sb.append("    }\n\n");
+        }
+
+        /**
+         * Write fromJSON for a bean, which makes the bean with its
+         * constructor without parameters, and calls the setters that
+         * <code>JSONObject.toBean</code> calls.
+         */
+        private void writeBeanFromJSON(StringBuilder sb) {
+            sb.append("    @Override\n");
+            sb.append("    public ").append(this.typeName).append(" fromJSON(JSONObject json)");
+            sb.append(" throws JSONException {\n");
+            if (!this.isConstructible()) {
+                sb.append("        throw new JSONException(").append(literal("Unable to make a "
+                        + this.elements.getBinaryName(this.type) + ": it has no public constructor without parameters"))
+                        .append(");\n");
+                sb.append("    }\n\n");
+                return;
+            }
+            sb.append("        ").append(this.typeName).append(" bean = new ").append(this.typeName).append("();\n");
+            for (Map.Entry<String, ExecutableElement> entry : this.setters().entrySet()) {
+                String key = literal(entry.getKey());
+                ExecutableElement setter = entry.getValue();
+                TypeMirror type = setter.getParameters().get(0).asType();
+                String value = this.read(type, "json", key);
+                if (value == null) {
+                    this.unsupported(entry.getKey(), type, setter);
+                    continue;
+                }
+                sb.append(type.getKind().isPrimitive() ? "        if (json.has(" : "        if (!json.isNull(")
+                        .append(key).append(")) {\n");
+                sb.append("            bean.").append(setter.getSimpleName()).append('(').append(value).append(");\n");
+                sb.append("        }\n");
+            }
+            sb.append("        return bean;\n");
+            sb.append("    }\n\n");
+        }
+
+        /**
+         * Write fromJSON for a record, which calls the canonical constructor,
+         * with the default values of the components that are not found.
+         */
+        private void writeRecordFromJSON(StringBuilder sb) {
+            sb.append("    @Override\n");
+            sb.append("    public ").append(this.typeName).append(" fromJSON(JSONObject json)");
+            sb.append(" throws JSONException {\n");
+            sb.append("        return new ").append(this.typeName).append('(');
+            String separator = "\n";
+            for (Element component : this.components()) {
+                TypeMirror type = component.asType();
+                ExecutableElement accessor = this.accessor(component);
+                String value = null;
+                if (accessor != null && !this.isIgnored(accessor)) {
+                    String key = this.componentKey(component, accessor);
+                    value = this.read(type, "json", literal(key));
+                    if (value == null) {
+                        this.unsupported(key, type, component);
+                    } else if (type.getKind().isPrimitive()) {
+                        value = "json.has(" + literal(key) + ") ? " + value + " : " + defaultValue(type);
+                    } else {
+                        value = "json.isNull(" + literal(key) + ") ? null : " + value;
+                    }
+                }
+                if (value == null) {
+                    value = type.getKind().isPrimitive() ? defaultValue(type)
+                            : "(" + this.types.erasure(type) + ") null";
+                }
+                sb.append(separator).append("                ").append(value);
+                separator = ",\n";
+            }
+            sb.append(");\n");
+            sb.append("    }\n\n");
+        }
+
+        private void unsupported(String key, TypeMirror type, Element element) {
+            this.messager.printMessage(Diagnostic.Kind.WARNING, "The property " + literal(key) + " of "
+                    + this.typeName + " is not read: its type " + type + " is not supported", element);
+        }
+
+        /**
+         * Make an expression that gets a value from a JSONObject or a
+         * JSONArray, as a type. The value must not be null, unless the type is
+         * primitive, whose getters throw if it is.
+         *
+         * @param type The type.
+         * @param from The JSONObject or JSONArray.
+         * @param at The key or index.
+         * @return The expression, or null if the type cannot be read.
+         */
+        private String read(TypeMirror type, String from, String at) {
+            String get = from + ".get";
+            String args = "(" + at + ")";
+            switch (type.getKind()) {
+            case BOOLEAN:
+                return get + "Boolean" + args;
+            case INT:
+                return get + "Int" + args;
+            case LONG:
+                return get + "Long" + args;
+            case DOUBLE:
+                return get + "Double" + args;
+            case FLOAT:
+                return get + "Float" + args;
+            case SHORT:
+                return "(short) " + get + "Int" + args;
+            case BYTE:
+                return "(byte) " + get + "Int" + args;
+            case ARRAY:
+                return this.helper(type) + "(" + get + "JSONArray" + args + ")";
+            case TYPEVAR:
+                return this.read(((TypeVariable) type).getUpperBound(), from, at);
+            case WILDCARD:
+                TypeMirror bound = ((WildcardType) type).getExtendsBound();
+                return this.read(bound != null ? bound : this.declared("java.lang.Object"), from, at);
+            case DECLARED:
+                break;
+            default:
+                return null;
+            }
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            String name = element.getQualifiedName().toString();
+            if (name.equals("java.lang.Boolean")) {
+                return "Boolean.valueOf(" + get + "Boolean" + args + ")";
+            } else if (name.equals("java.lang.Integer")) {
+                return "Integer.valueOf(" + get + "Int" + args + ")";
+            } else if (name.equals("java.lang.Long")) {
+                return "Long.valueOf(" + get + "Long" + args + ")";
+            } else if (name.equals("java.lang.Double")) {
+                return "Double.valueOf(" + get + "Double" + args + ")";
+            } else if (name.equals("java.lang.Float")) {
+                return "Float.valueOf(" + get + "Float" + args + ")";
+            } else if (name.equals("java.lang.Short")) {
+                return "Short.valueOf((short) " + get + "Int" + args + ")";
+            } else if (name.equals("java.lang.Byte")) {
+                return "Byte.valueOf((byte) " + get + "Int" + args + ")";
+            } else if (name.equals("java.lang.Character")) {
+                return null;
+            } else if (name.equals("java.lang.String")) {
+                return get + "String" + args;
+            } else if (name.equals("java.math.BigInteger")) {
+                return get + "BigInteger" + args;
+            } else if (name.equals("java.math.BigDecimal")) {
+                return get + "BigDecimal" + args;
+            } else if (name.equals("java.lang.Number")) {
+                return get + "Number" + args;
+            } else if (name.equals("java.lang.Object")) {
+                return get + args;
+            } else if (name.equals("org.json.JSONObject")) {
+                return get + "JSONObject" + args;
+            } else if (name.equals("org.json.JSONArray")) {
+                return get + "JSONArray" + args;
+            } else if (element.getKind() == ElementKind.ENUM) {
+                return from + ".getEnum(" + name + ".class, " + at + ")";
+            } else if (this.isA(type, "java.util.Collection")) {
+                String helper = this.helper(type);
+                return helper == null ? null : helper + "(" + get + "JSONArray" + args + ")";
+            } else if (this.isA(type, "java.util.Map")) {
+                String helper = this.helper(type);
+                return helper == null ? null : helper + "(" + get + "JSONObject" + args + ")";
+            }
+            return get + "JSONObject" + args + ".toBean(" + this.types.erasure(type) + ".class)";
+        }
+
+        /**
+         * Make an expression that gets an element of an array, a collection
+         * or a map, which may be null.
+         */
+        private String readElement(TypeMirror type, String from, String at) {
+            String value = this.read(type, from, at);
+            if (value == null || type.getKind().isPrimitive()) {
+                return value;
+            }
+            return from + ".isNull(" + at + ") ? null : " + value;
+        }
+
+        /**
+         * Find or write the helper that reads an array, a collection or a
+         * map, and return its name. The helpers use raw types, so that the
+         * type arguments of the property need not be written.
+         *
+         * @return The name, or null if the type cannot be read.
+         */
+        private String helper(TypeMirror type) {
+            String key = type.toString();
+            if (this.helperNames.containsKey(key)) {
+                return this.helperNames.get(key);
+            }
+            String name = "read" + this.helperNames.size();
+            // found before it is written, for a type that contains itself
+            this.helperNames.put(key, name);
+            StringBuilder sb = new StringBuilder();
+            TypeMirror raw = this.types.erasure(type);
+            sb.append('\n');
+            if (type.getKind() == TypeKind.ARRAY) {
+                TypeMirror component = ((ArrayType) type).getComponentType();
+                String element = this.readElement(component, "array", "i");
+                if (element == null) {
+                    this.helperNames.put(key, null);
+                    return null;
+                }
+                String creation = raw.toString();
+                int bracket = creation.indexOf('[');
+                creation = creation.substring(0, bracket) + "[array.length()]" + creation.substring(bracket + 2);
+                sb.append("    private static ").append(raw).append(' ').append(name).append("(JSONArray array) {\n");
+                sb.append("        ").append(raw).append(" result = new ").append(creation).append(";\n");
+                sb.append("        for (int i = 0; i < result.length; i += 1) {\n");
+                sb.append("            result[i] = ").append(element).append(";\n");
+                sb.append("        }\n");
+            } else if (this.isA(type, "java.util.Collection")) {
+                String made = this.made(type, "java.util.ArrayList", "java.util.LinkedHashSet", "java.util.TreeSet",
+                        "java.util.ArrayDeque");
+                String element = made == null ? null
+                        : this.readElement(this.argument(type, "java.util.Collection", 0), "array", "i");
+                if (element == null) {
+                    this.helperNames.put(key, null);
+                    return null;
+                }
+                sb.append("    private static ").append(raw).append(' ').append(name).append("(JSONArray array) {\n");
+                sb.append("        ").append(raw).append(" result = new ").append(made).append("();\n");
+                sb.append("        for (int i = 0; i < array.length(); i += 1) {\n");
+                sb.append("            result.add(").append(element).append(");\n");
+                sb.append("        }\n");
+            } else {
+                String made = this.made(type, "java.util.LinkedHashMap", "java.util.TreeMap",
+                        "java.util.concurrent.ConcurrentHashMap");
+                TypeMirror keyType = this.argument(type, "java.util.Map", 0);
+                String element = made == null || !this.isStringKey(keyType) ? null
+                        : this.readElement(this.argument(type, "java.util.Map", 1), "object", "key");
+                if (element == null) {
+                    this.helperNames.put(key, null);
+                    return null;
+                }
+                sb.append("    private static ").append(raw).append(' ').append(name).append("(JSONObject object) {\n");
+                sb.append("        ").append(raw).append(" result = new ").append(made).append("();\n");
+                sb.append("        for (String key : object.keySet()) {\n");
+                sb.append("            result.put(key, ").append(element).append(");\n");
+                sb.append("        }\n");
+            }
+            sb.append("        return result;\n");
+            sb.append("    }\n");
+            this.helpers.append(sb);
+            return name;
+        }
+
+        /**
+         * Find the class that is made for a collection or map type: the type
+         * itself, if it can be made, or else the first of the given classes
+         * that is one.
+         */
+        private String made(TypeMirror type, String... classes) {
+            TypeElement element = (TypeElement) this.types.asElement(type);
+            if (element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT)) {
+                return this.types.erasure(type).toString();
+            }
+            for (String name : classes) {
+                if (this.types.isAssignable(this.types.erasure(this.declared(name)), this.types.erasure(type))) {
+                    return name;
+                }
+            }
+            return null;
+        }
+
+        private boolean isStringKey(TypeMirror type) {
+            String name = this.types.erasure(type).toString();
+            return name.equals("java.lang.String") || name.equals("java.lang.Object")
+                    || name.equals("java.lang.CharSequence");
+        }
+
+        private TypeMirror declared(String name) {
+            return this.elements.getTypeElement(name).asType();
+        }
+
+        private boolean isA(TypeMirror type, String name) {
+            return this.types.isAssignable(this.types.erasure(type), this.types.erasure(this.declared(name)));
+        }
+
+        /**
+         * Find a type argument of Collection or Map as it is given by a type,
+         * which may be a subtype, or Object if there is none.
+         */
+        private TypeMirror argument(TypeMirror type, String name, int index) {
+            for (TypeMirror t = type; t != null; ) {
+                TypeElement element = (TypeElement) this.types.asElement(t);
+                if (element.getQualifiedName().contentEquals(name)) {
+                    List<? extends TypeMirror> arguments = ((DeclaredType) t).getTypeArguments();
+                    return index < arguments.size() ? arguments.get(index) : this.declared("java.lang.Object");
+                }
+                TypeMirror next = null;
+                for (TypeMirror supertype : this.types.directSupertypes(t)) {
+                    if (this.isA(supertype, name)) {
+                        next = supertype;
+                        break;
+                    }
+                }
+                t = next;
+            }
+            return this.declared("java.lang.Object");
+        }
+
+        private static String defaultValue(TypeMirror type) {
+            switch (type.getKind()) {
+            case BOOLEAN:
+                return "false";
+            case LONG:
+                return "0L";
+            case DOUBLE:
+                return "0.0";
+            case FLOAT:
+                return "0.0f";
+            case SHORT:
+                return "(short) 0";
+            case BYTE:
+                return "(byte) 0";
+            case CHAR:
+                return "'\\0'";
+            default:
+                return "0";
+            }
+        }
+
+        /** The public instance methods of a class, as Class.getMethods finds them. */
+        private List<ExecutableElement> methods(TypeElement type) {
+            List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+            for (Element member : this.elements.getAllMembers(type)) {
+                if (member.getKind() == ElementKind.METHOD && member.getModifiers().contains(Modifier.PUBLIC)
+                        && !member.getModifiers().contains(Modifier.STATIC)) {
+                    methods.add((ExecutableElement) member);
+                }
+            }
+            return methods;
+        }
+
+        private boolean isConstructible() {
+            if (this.type.getModifiers().contains(Modifier.ABSTRACT)
+                    || (this.type.getNestingKind() == NestingKind.MEMBER
+                            && !this.type.getModifiers().contains(Modifier.STATIC))) {
+                return false;
+            }
+            for (Element member : this.type.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.CONSTRUCTOR
+                        && ((ExecutableElement) member).getParameters().isEmpty()
+                        && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Find the setters of a bean by key, as JSONObject.toBean does: the
+         * public methods whose names start with "set", which take one
+         * parameter. The key of a setter is the name given it by
+         * JSONPropertyName, or else the key of its getter.
+         */
+        private Map<String, ExecutableElement> setters() {
+            List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+            for (ExecutableElement method : this.methods(this.type)) {
+                String name = method.getSimpleName().toString();
+                if (method.getParameters().size() == 1 && name.startsWith("set") && name.length() > 3
+                        && !this.isIgnored(method)) {
+                    methods.add(method);
+                }
+            }
+            // an overloaded setter is chosen as JSONObject.toBean chooses it
+            Collections.sort(methods, new Comparator<ExecutableElement>() {
+                @Override
+                public int compare(ExecutableElement a, ExecutableElement b) {
+                    int c = a.getSimpleName().toString().compareTo(b.getSimpleName().toString());
+                    return c != 0 ? c : Generator.this.parameter(a).compareTo(Generator.this.parameter(b));
+                }
+            });
+            Map<String, ExecutableElement> setters = new LinkedHashMap<String, ExecutableElement>();
+            for (ExecutableElement method : methods) {
+                String name = method.getSimpleName().toString();
+                ExecutableElement getter = this.getter(name.substring(3));
+                String key = this.annotatedKey(method);
+                if (key == null) {
+                    key = getter != null ? this.getterKey(getter) : key(name.substring(3));
+                }
+                if (key == null) {
+                    continue;
+                }
+                ExecutableElement other = setters.get(key);
+                if (other == null || (getter != null
+                        && this.parameter(method).equals(this.types.erasure(getter.getReturnType()).toString())
+                        && !this.parameter(other).equals(this.types.erasure(getter.getReturnType()).toString()))) {
+                    setters.put(key, method);
+                }
+            }
+            return setters;
+        }
+
+        private String parameter(ExecutableElement method) {
+            return this.types.erasure(method.getParameters().get(0).asType()).toString();
+        }
+
+        private ExecutableElement getter(String name) {
+            for (String prefix : new String[] {"get", "is"}) {
+                for (ExecutableElement method : this.methods(this.type)) {
+                    if (method.getSimpleName().contentEquals(prefix + name) && method.getParameters().isEmpty()
+                            && method.getReturnType().getKind() != TypeKind.VOID) {
+                        return method;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /** The components of a record, in order. */
+        private List<Element> components() {
+            List<Element> components = new ArrayList<Element>();
+            for (Element member : this.type.getEnclosedElements()) {
+                if (member.getKind().name().equals("RECORD_COMPONENT")) {
+                    components.add(member);
+                }
+            }
+            return components;
+        }
+
+        private ExecutableElement accessor(Element component) {
+            for (Element member : this.type.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.METHOD && member.getSimpleName().equals(component.getSimpleName())
+                        && ((ExecutableElement) member).getParameters().isEmpty()) {
+                    return (ExecutableElement) member;
+                }
+            }
+            return null;
+        }
+
+        private String componentKey(Element component, ExecutableElement accessor) {
+            String key = this.annotatedKey(accessor);
+            return key != null ? key : component.getSimpleName().toString();
+        }
+
+        /** The key of a getter, as JSONObject.getKeyNameFromMethod finds it. */
+        private String getterKey(ExecutableElement method) {
+            if (this.isIgnored(method)) {
+                return null;
+            }
+            String key = this.annotatedKey(method);
+            if (key != null) {
+                return key;
+            }
+            String name = method.getSimpleName().toString();
+            if (name.startsWith("get") && name.length() > 3) {
+                return key(name.substring(3));
+            } else if (name.startsWith("is") && name.length() > 2) {
+                return key(name.substring(2));
+            }
+            return null;
+        }
+
+        /** Make a key from the rest of the name of a getter or setter. */
+        private static String key(String name) {
+            if (Character.isLowerCase(name.charAt(0))) {
+                return null;
+            }
+            if (name.length() == 1) {
+                return name.toLowerCase(Locale.ROOT);
+            } else if (!Character.isUpperCase(name.charAt(1))) {
+                return name.substring(0, 1).toLowerCase(Locale.ROOT) + name.substring(1);
+            }
+            return name;
+        }
+
+        private boolean isIgnored(ExecutableElement method) {
+            int ignoreDepth = this.annotationDepth(method, JSONPropertyIgnore.class);
+            if (ignoreDepth > 0) {
+                int forcedNameDepth = this.annotationDepth(method, JSONPropertyName.class);
+                return forcedNameDepth < 0 || ignoreDepth <= forcedNameDepth;
+            }
+            return false;
+        }
+
+        private String annotatedKey(ExecutableElement method) {
+            JSONPropertyName annotation = this.annotation(method, JSONPropertyName.class);
+            if (annotation != null && annotation.value() != null && !annotation.value().isEmpty()) {
+                return annotation.value();
+            }
+            return null;
+        }
+
+        /**
+         * Find an annotation on a method or the methods it overrides, in the
+         * order of JSONObject.getAnnotation.
+         */
+        private <A extends Annotation> A annotation(ExecutableElement method, Class<A> annotationClass) {
+            A annotation = method.getAnnotation(annotationClass);
+            if (annotation != null) {
+                return annotation;
+            }
+            TypeElement c = (TypeElement) method.getEnclosingElement();
+            if (c.getSuperclass().getKind() == TypeKind.NONE) {
+                return null;
+            }
+            for (TypeMirror i : c.getInterfaces()) {
+                ExecutableElement im = this.overridden(i, method);
+                if (im != null) {
+                    return this.annotation(im, annotationClass);
+                }
+            }
+            ExecutableElement sm = this.overridden(c.getSuperclass(), method);
+            return sm == null ? null : this.annotation(sm, annotationClass);
+        }
+
+        /**
+         * Find the depth of an annotation on a method or the methods it
+         * overrides, as JSONObject.getAnnotationDepth finds it.
+         */
+        private int annotationDepth(ExecutableElement method, Class<? extends Annotation> annotationClass) {
+            if (method.getAnnotation(annotationClass) != null) {
+                return 1;
+            }
+            TypeElement c = (TypeElement) method.getEnclosingElement();
+            if (c.getSuperclass().getKind() == TypeKind.NONE) {
+                return -1;
+            }
+            for (TypeMirror i : c.getInterfaces()) {
+                ExecutableElement im = this.overridden(i, method);
+                if (im != null) {
+                    int d = this.annotationDepth(im, annotationClass);
+                    if (d > 0) {
+                        return d + 1;
+                    }
+                }
+            }
+            ExecutableElement sm = this.overridden(c.getSuperclass(), method);
+            if (sm != null) {
+                int d = this.annotationDepth(sm, annotationClass);
+                if (d > 0) {
+                    return d + 1;
+                }
+            }
+            return -1;
+        }
+
+        /** Find the public method of a supertype with the name and parameters of a method. */
+        private ExecutableElement overridden(TypeMirror supertype, ExecutableElement method) {
+            for (ExecutableElement candidate : this.methods((TypeElement) this.types.asElement(supertype))) {
+                if (candidate.getSimpleName().equals(method.getSimpleName())
+                        && candidate.getParameters().size() == method.getParameters().size()) {
+                    boolean same = true;
+                    for (int i = 0; i < method.getParameters().size() && same; i += 1) {
+                        same = this.types.isSameType(this.types.erasure(candidate.getParameters().get(i).asType()),
+                                this.types.erasure(method.getParameters().get(i).asType()));
+                    }
+                    if (same) {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Converts the objects of one class to and from JSON without reflection.
+ * Serializers are generated by {@link JSONBeanProcessor} for the classes
+ * annotated with {@link JSONBean}; the serializer of a class
+ * <code>com.example.Outer.Person</code> is
+ * <code>com.example.Outer_Person_JSONBeanSerializer</code>, and its one
+ * instance is in its <code>INSTANCE</code> field.
+ *
+ * @param <T> The class.
+ */
+public interface JSONBeanSerializer<T> {
+    /**
+     * Make a JSONObject from an object, as <code>new JSONObject(bean)</code>
+     * does with reflection.
+     *
+     * @param bean The object.
+     * @return The JSONObject.
+     */
+    JSONObject toJSONObject(T bean);
+
+    /**
+     * Put the properties of an object in a map, with the keys and the
+     * wrapped values that <code>new JSONObject(bean)</code> gives them. Null
+     * values are left out. This is how <code>new JSONObject(bean)</code>
+     * fills its members.
+     *
+     * @param bean The object.
+     * @param map The map.
+     */
+    void putProperties(T bean, Map<String, Object> map);
+
+    /**
+     * Write an object as JSON text.
+     *
+     * @param bean The object.
+     * @param writer The writer.
+     * @return The writer.
+     * @throws JSONException If the object cannot be written.
+     */
+    Writer toJSON(T bean, Writer writer) throws JSONException;
+
+    /**
+     * Make an object from a JSONObject, as <code>JSONObject.toBean</code>
+     * does with reflection.
+     *
+     * @param jo The JSONObject.
+     * @return The object.
+     * @throws JSONException If a value cannot be converted to the type of
+     *  its property.
+     */
+    T fromJSON(JSONObject jo) throws JSONException;
+}
@@ -0,0 +1,83 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+/**
+ * Finds the serializers that JSONBeanProcessor generated, once for each
+ * class. It is reached only for classes annotated with {@link JSONBean}, so
+ * that converting other beans loads nothing but JSONObject; and it keeps
+ * its cache in a {@link ClassCache} rather than a ClassValue, which not
+ * every platform this library supports has.
+ */
+final class JSONBeanSerializers {
+
+    /** Stands for a class that has no serializer. */
+    private static final Object NONE = new Object();
+
+    /** The serializer of each annotated class, or NONE. */
+    private static final ClassCache<Object> SERIALIZERS = new ClassCache<Object>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            return find(type);
+        }
+    };
+
+    private JSONBeanSerializers() {
+    }
+
+    /**
+     * Get the serializer generated for a class.
+     *
+     * @param type The class, which should be annotated with JSONBean.
+     * @return The serializer, or null if the class has none, because it is
+     *  not annotated or was compiled without the processor.
+     */
+    @SuppressWarnings("unchecked")
+    static JSONBeanSerializer<Object> get(Class<?> type) {
+        Object serializer = SERIALIZERS.get(type);
+        return serializer == NONE ? null : (JSONBeanSerializer<Object>) serializer;
+    }
+
+    private static Object find(Class<?> type) {
+        if (!type.isAnnotationPresent(JSONBean.class)) {
+            return NONE;
+        }
+        String name = type.getName();
+        int dot = name.lastIndexOf('.');
+        name = name.substring(0, dot + 1) + name.substring(dot + 1).replace('$', '_') + "_JSONBeanSerializer";
+        try {
+            Class<?> serializer = Class.forName(name, true, type.getClassLoader());
+            Object instance = serializer.getField("INSTANCE").get(null);
+            return instance instanceof JSONBeanSerializer ? instance : NONE;
+        } catch (ClassNotFoundException e) {
+            return NONE;
+        } catch (NoSuchFieldException e) {
+            return NONE;
+        } catch (IllegalAccessException e) {
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,710 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds JSON values to objects of Java classes: the reverse of
+ * <code>JSONObject(Object bean)</code>. A JSONObject is bound to a bean by
+ * its public setters, or to a record by its canonical constructor, and a
+ * JSONArray to an array or a collection; the type arguments of fields such
+ * as <code>List&lt;Person&gt;</code> and <code>Map&lt;String, Integer&gt;</code>
+ * are followed. Numbers, booleans and enums are converted as the getters of
+ * JSONObject convert them.
+ * <p>
+ * What is found by reflection for a class is found once, and kept in a
+ * {@link ClassCache}: the setters and constructors as method handles, and
+ * the constants of enums by name. Values can be bound from a JSONObject, or read from a
+ * JSONReader, which binds each value as it is read and makes no JSONObject
+ * for the beans between. A class annotated with JSONBean whose serializer
+ * was generated is bound by the serializer instead.
+ */
+final class JSONBinder {
+
+    /*
+     * The reflection of records, which are found on Java 16 and later. This
+     * library is built for Java 8, so they are found by name.
+     */
+    private static final Method IS_RECORD = method(Class.class, "isRecord");
+    private static final Method GET_RECORD_COMPONENTS = method(Class.class, "getRecordComponents");
+    private static final Class<?> RECORD_COMPONENT = type("java.lang.reflect.RecordComponent");
+    private static final Method COMPONENT_NAME = method(RECORD_COMPONENT, "getName");
+    private static final Method COMPONENT_TYPE = method(RECORD_COMPONENT, "getType");
+    private static final Method COMPONENT_GENERIC_TYPE = method(RECORD_COMPONENT, "getGenericType");
+    private static final Method COMPONENT_ACCESSOR = method(RECORD_COMPONENT, "getAccessor");
+
+    /** The bindings of beans and records, made once for each class. */
+    private static final ClassCache<Binding> BINDINGS = new ClassCache<Binding>() {
+        @Override
+        protected Binding computeValue(Class<?> type) {
+            return new Binding(type);
+        }
+    };
+
+    /** The constants of enums by name, made once for each class. */
+    private static final ClassCache<Map<String, Object>> CONSTANTS = new ClassCache<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> type) {
+            Map<String, Object> constants = new HashMap<String, Object>();
+            for (Object constant : type.getEnumConstants()) {
+                constants.put(((Enum<?>) constant).name(), constant);
+            }
+            return constants;
+        }
+    };
+
+    private JSONBinder() {
+    }
+
+    private static Method method(Class<?> type, String name) {
+        try {
+            return type == null ? null : type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the serializer generated for a class.
+     *
+     * @param type The class.
+     * @return The serializer, or null if the class has none.
+     */
+    static JSONBeanSerializer<Object> serializer(Class<?> type) {
+        return type.isAnnotationPresent(JSONBean.class) ? JSONBeanSerializers.get(type) : null;
+    }
+
+    private static Object invoke(Method method, Object target) {
+        try {
+            return method.invoke(target);
+        } catch (Exception e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Convert a value, such as a JSONObject, to a type.
+     *
+     * @param value The value.
+     * @param type The type.
+     * @param where The key of the value, its index, or null.
+     * @return The value of the type.
+     */
+    static Object convert(Object value, Type type, Object where) throws JSONException {
+        Class<?> raw = raw(type);
+        if (value == null || JSONObject.NULL.equals(value)) {
+            if (raw.isPrimitive()) {
+                throw mismatch(where, type, value);
+            }
+            return null;
+        }
+        if (raw == Object.class) {
+            return value;
+        }
+        if (value instanceof JSONObject) {
+            JSONObject jo = (JSONObject) value;
+            if (raw.isInstance(jo)) {
+                return jo;
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                Map<Object, Object> map = newMap(raw);
+                Type keyType = argument(type, 0);
+                Type valueType = argument(type, 1);
+                for (Map.Entry<String, Object> entry : jo.entrySet()) {
+                    String key = entry.getKey();
+                    map.put(convert(key, keyType, key), convert(entry.getValue(), valueType, key));
+                }
+                return map;
+            }
+            if (isScalar(raw)) {
+                throw mismatch(where, type, value);
+            }
+            JSONBeanSerializer<Object> serializer = serializer(raw);
+            if (serializer != null) {
+                return serializer.fromJSON(jo);
+            }
+            Binding binding = BINDINGS.get(raw);
+            Object[] values = binding.values();
+            for (Property property : binding.properties) {
+                Object member = jo.opt(property.key);
+                if (member != null) {
+                    values[property.index] = convert(member, property.type, property.key);
+                }
+            }
+            return binding.make(values);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray ja = (JSONArray) value;
+            if (raw.isInstance(ja)) {
+                return ja;
+            }
+            int length = ja.length();
+            if (raw.isArray()) {
+                Type elementType = elementType(type);
+                Object array = Array.newInstance(raw.getComponentType(), length);
+                for (int i = 0; i < length; i += 1) {
+                    Array.set(array, i, convert(ja.opt(i), elementType, Integer.valueOf(i)));
+                }
+                return array;
+            }
+            if (Collection.class.isAssignableFrom(raw)) {
+                Collection<Object> collection = newCollection(raw);
+                Type elementType = argument(type, 0);
+                for (int i = 0; i < length; i += 1) {
+                    collection.add(convert(ja.opt(i), elementType, Integer.valueOf(i)));
+                }
+                return collection;
+            }
+            throw mismatch(where, type, value);
+        }
+        return scalar(value, raw, type, where);
+    }
+
+    /**
+     * Read a value from a reader and convert it to a type. Beans, records,
+     * maps, collections and arrays are bound as they are read; other values
+     * are read as the JSONObject parser makes them, and converted.
+     *
+     * @param reader The reader.
+     * @param type The type.
+     * @param where The key of the value, its index, or null.
+     * @return The value of the type.
+     */
+    static Object read(JSONReader reader, Type type, Object where) throws JSONException {
+        Class<?> raw = raw(type);
+        switch (reader.peek()) {
+        case BEGIN_OBJECT:
+            if (raw.isAssignableFrom(JSONObject.class) || isScalar(raw)) {
+                break;
+            }
+            JSONBeanSerializer<Object> serializer = serializer(raw);
+            if (serializer != null) {
+                return serializer.fromJSON((JSONObject) reader.nextValue());
+            }
+            reader.beginObject();
+            Object result;
+            if (Map.class.isAssignableFrom(raw)) {
+                Map<Object, Object> map = newMap(raw);
+                Type keyType = argument(type, 0);
+                Type valueType = argument(type, 1);
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    map.put(convert(key, keyType, key), read(reader, valueType, key));
+                }
+                result = map;
+            } else {
+                Binding binding = BINDINGS.get(raw);
+                Object[] values = binding.values();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    Property property = binding.byKey.get(key);
+                    if (property == null) {
+                        reader.skipValue();
+                    } else {
+                        values[property.index] = read(reader, property.type, key);
+                    }
+                }
+                result = binding.make(values);
+            }
+            reader.endObject();
+            return result;
+        case BEGIN_ARRAY:
+            boolean array = raw.isArray();
+            if (!array && !Collection.class.isAssignableFrom(raw)) {
+                break;
+            }
+            reader.beginArray();
+            Collection<Object> collection = array ? new ArrayList<Object>() : newCollection(raw);
+            Type elementType = array ? elementType(type) : argument(type, 0);
+            for (int i = 0; reader.hasNext(); i += 1) {
+                collection.add(read(reader, elementType, Integer.valueOf(i)));
+            }
+            reader.endArray();
+            if (array) {
+                Object elements = Array.newInstance(raw.getComponentType(), collection.size());
+                int i = 0;
+                for (Object element : collection) {
+                    Array.set(elements, i++, element);
+                }
+                return elements;
+            }
+            return collection;
+        case NUMBER:
+            if (raw == int.class || raw == Integer.class) {
+                return Integer.valueOf(reader.nextInt());
+            } else if (raw == long.class || raw == Long.class) {
+                return Long.valueOf(reader.nextLong());
+            } else if (raw == double.class || raw == Double.class) {
+                return Double.valueOf(reader.nextDouble());
+            }
+            break;
+        case STRING:
+            if (raw == String.class) {
+                return reader.nextString();
+            }
+            break;
+        default:
+        }
+        return convert(reader.nextValue(), type, where);
+    }
+
+    /** Convert a value that is not a JSONObject or JSONArray, as the getters of JSONObject do. */
+    private static Object scalar(Object value, Class<?> raw, Type type, Object where) {
+        Class<?> boxed = raw.isPrimitive() ? MethodType.methodType(raw).wrap().returnType() : raw;
+        if (boxed.isInstance(value)) {
+            return value;
+        }
+        if (raw == boolean.class || raw == Boolean.class) {
+            if (value instanceof String) {
+                String string = (String) value;
+                if (string.equalsIgnoreCase("true")) {
+                    return Boolean.TRUE;
+                } else if (string.equalsIgnoreCase("false")) {
+                    return Boolean.FALSE;
+                }
+            }
+        } else if (raw == char.class || raw == Character.class) {
+            if (value instanceof String && ((String) value).length() == 1) {
+                return Character.valueOf(((String) value).charAt(0));
+            }
+        } else if (raw.isEnum()) {
+            Object constant = value instanceof String ? CONSTANTS.get(raw).get(value) : null;
+            if (constant != null) {
+                return constant;
+            }
+        } else if (raw == BigInteger.class) {
+            BigInteger number = JSONObject.objectToBigInteger(value, null);
+            if (number != null) {
+                return number;
+            }
+        } else if (raw == BigDecimal.class) {
+            BigDecimal number = JSONObject.objectToBigDecimal(value, null);
+            if (number != null) {
+                return number;
+            }
+        } else if (raw.isPrimitive() || Number.class.isAssignableFrom(raw)) {
+            Number number = null;
+            if (value instanceof Number) {
+                number = (Number) value;
+            } else if (value instanceof String) {
+                try {
+                    number = JSONObject.stringToNumber((String) value);
+                } catch (NumberFormatException e) {
+                    throw mismatch(where, type, value);
+                }
+            }
+            if (number != null) {
+                if (raw == int.class || raw == Integer.class) {
+                    return Integer.valueOf(number.intValue());
+                } else if (raw == long.class || raw == Long.class) {
+                    return Long.valueOf(number.longValue());
+                } else if (raw == double.class || raw == Double.class) {
+                    return Double.valueOf(number.doubleValue());
+                } else if (raw == float.class || raw == Float.class) {
+                    return Float.valueOf(number.floatValue());
+                } else if (raw == short.class || raw == Short.class) {
+                    return Short.valueOf(number.shortValue());
+                } else if (raw == byte.class || raw == Byte.class) {
+                    return Byte.valueOf(number.byteValue());
+                } else if (raw == Number.class) {
+                    return number;
+                }
+            }
+        }
+        throw mismatch(where, type, value);
+    }
+
+    /**
+     * Determine if a class is bound from a value that is not a JSONObject,
+     * and so cannot be bound from one.
+     */
+    private static boolean isScalar(Class<?> raw) {
+        return raw.isPrimitive() || raw.isEnum() || raw.isArray() || raw == String.class
+                || raw == Boolean.class || raw == Character.class || Number.class.isAssignableFrom(raw)
+                || Collection.class.isAssignableFrom(raw) || raw == JSONArray.class;
+    }
+
+    private static JSONException mismatch(Object where, Type type, Object value) {
+        String name;
+        if (type instanceof Class && ((Class<?>) type).isEnum()) {
+            name = "enum of type " + JSONObject.quote(((Class<?>) type).getSimpleName());
+        } else if (type instanceof Class && !((Class<?>) type).isPrimitive()) {
+            name = ((Class<?>) type).getSimpleName();
+        } else {
+            name = type.getTypeName();
+        }
+        String location;
+        if (where instanceof String) {
+            location = "JSONObject[" + JSONObject.quote((String) where) + "]";
+        } else if (where != null) {
+            location = "JSONArray[" + where + "]";
+        } else {
+            location = "The value";
+        }
+        return new JSONException(location + " is not a " + name + " (" + value + ").");
+    }
+
+    private static Class<?> raw(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return raw(((ParameterizedType) type).getRawType());
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(raw(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        } else if (type instanceof WildcardType) {
+            return raw(((WildcardType) type).getUpperBounds()[0]);
+        }
+        // a type variable
+        return Object.class;
+    }
+
+    /** The type argument of a map or collection type, or Object if it has none. */
+    private static Type argument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+    private static Type elementType(Type type) {
+        if (type instanceof GenericArrayType) {
+            return ((GenericArrayType) type).getGenericComponentType();
+        }
+        return raw(type).getComponentType();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> raw) {
+        if (!raw.isInterface() && !Modifier.isAbstract(raw.getModifiers())) {
+            return (Collection<Object>) BINDINGS.get(raw).make(null);
+        } else if (raw.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<Object>();
+        } else if (raw.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<Object>();
+        } else if (raw.isAssignableFrom(TreeSet.class)) {
+            return new TreeSet<Object>();
+        } else if (raw.isAssignableFrom(ArrayDeque.class)) {
+            return new ArrayDeque<Object>();
+        }
+        throw new JSONException("Unable to make a " + raw.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> raw) {
+        if (!raw.isInterface() && !Modifier.isAbstract(raw.getModifiers())) {
+            return (Map<Object, Object>) BINDINGS.get(raw).make(null);
+        } else if (raw.isAssignableFrom(LinkedHashMap.class)) {
+            return new LinkedHashMap<Object, Object>();
+        } else if (raw.isAssignableFrom(TreeMap.class)) {
+            return new TreeMap<Object, Object>();
+        } else if (raw.isAssignableFrom(ConcurrentHashMap.class)) {
+            return new ConcurrentHashMap<Object, Object>();
+        }
+        throw new JSONException("Unable to make a " + raw.getName());
+    }
+
+    /**
+     * Make a key from the rest of the name of a setter, as the key of a
+     * getter is made in JSONObject.
+     */
+    private static String key(String name) {
+        if (name.isEmpty() || Character.isLowerCase(name.charAt(0))) {
+            return null;
+        }
+        if (name.length() == 1) {
+            return name.toLowerCase(Locale.ROOT);
+        } else if (!Character.isUpperCase(name.charAt(1))) {
+            return name.substring(0, 1).toLowerCase(Locale.ROOT) + name.substring(1);
+        }
+        return name;
+    }
+
+    /**
+     * Determine if a method is to be ignored, by its annotations. As with
+     * getters, the annotation nearest the class wins, and JSONPropertyIgnore
+     * wins a tie.
+     */
+    private static boolean isIgnored(Method method) {
+        int ignoreDepth = JSONObject.getAnnotationDepth(method, JSONPropertyIgnore.class);
+        if (ignoreDepth > 0) {
+            int forcedNameDepth = JSONObject.getAnnotationDepth(method, JSONPropertyName.class);
+            return forcedNameDepth < 0 || ignoreDepth <= forcedNameDepth;
+        }
+        return false;
+    }
+
+    private static String annotatedKey(Method method) {
+        JSONPropertyName annotation = JSONObject.getAnnotation(method, JSONPropertyName.class);
+        if (annotation != null && annotation.value() != null && !annotation.value().isEmpty()) {
+            return annotation.value();
+        }
+        return null;
+    }
+
+    /** A property of a bean, or a component of a record. */
+    private static final class Property {
+        final String key;
+        final Type type;
+        final int index;
+        /** The setter, as (Object, Object)void, or null for a component. */
+        final MethodHandle setter;
+
+        Property(String key, Type type, int index, MethodHandle setter) {
+            this.key = key;
+            this.type = type;
+            this.index = index;
+            this.setter = setter;
+        }
+    }
+
+    /** How to make an object of a class, and set its properties. */
+    private static final class Binding {
+        private final Class<?> type;
+        final Property[] properties;
+        final Map<String, Property> byKey = new HashMap<String, Property>();
+        /** The constructor, as ()Object for a bean or (Object[])Object for a record. */
+        private final MethodHandle constructor;
+        private final boolean record;
+        /** The values of the properties that are not in the JSON. */
+        private final Object[] defaults;
+
+        Binding(Class<?> type) {
+            this.type = type;
+            this.record = IS_RECORD != null && Boolean.TRUE.equals(invoke(IS_RECORD, type));
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            List<Property> properties = new ArrayList<Property>();
+            MethodHandle constructor = null;
+            if (this.record) {
+                Object[] components = (Object[]) invoke(GET_RECORD_COMPONENTS, type);
+                Class<?>[] types = new Class<?>[components.length];
+                this.defaults = new Object[components.length];
+                for (int i = 0; i < components.length; i += 1) {
+                    types[i] = (Class<?>) invoke(COMPONENT_TYPE, components[i]);
+                    this.defaults[i] = defaultValue(types[i]);
+                    Method accessor = (Method) invoke(COMPONENT_ACCESSOR, components[i]);
+                    if (!isIgnored(accessor)) {
+                        String key = annotatedKey(accessor);
+                        if (key == null) {
+                            key = (String) invoke(COMPONENT_NAME, components[i]);
+                        }
+                        properties.add(new Property(key, (Type) invoke(COMPONENT_GENERIC_TYPE, components[i]),
+                                i, null));
+                    }
+                }
+                try {
+                    Constructor<?> canonical = type.getDeclaredConstructor(types);
+                    constructor = lookup.unreflectConstructor(canonical)
+                            .asSpreader(Object[].class, types.length)
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                } catch (NoSuchMethodException e) {
+                    // not made
+                } catch (IllegalAccessException e) {
+                    // not made
+                }
+            } else {
+                this.defaults = null;
+                try {
+                    if (!Modifier.isAbstract(type.getModifiers())) {
+                        constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                                .asType(MethodType.methodType(Object.class));
+                    }
+                } catch (NoSuchMethodException e) {
+                    // not made
+                } catch (IllegalAccessException e) {
+                    // not made
+                }
+                this.setters(lookup, properties);
+            }
+            this.constructor = constructor;
+            this.properties = properties.toArray(new Property[properties.size()]);
+            for (Property property : this.properties) {
+                this.byKey.put(property.key, property);
+            }
+        }
+
+        /**
+         * Find the setters of a bean: its public methods whose names start
+         * with "set", which take one parameter. The key of a setter is the
+         * name given it by JSONPropertyName, or else the key of its getter,
+         * so that a bean is read with the keys it is written with.
+         */
+        private void setters(MethodHandles.Lookup lookup, List<Property> properties) {
+            List<Method> methods = new ArrayList<Method>();
+            for (Method method : this.type.getMethods()) {
+                String name = method.getName();
+                if (!Modifier.isStatic(method.getModifiers()) && !method.isBridge()
+                        && method.getParameterTypes().length == 1 && name.startsWith("set") && name.length() > 3
+                        && !isIgnored(method)) {
+                    methods.add(method);
+                }
+            }
+            // an overloaded setter is chosen in the same way every time
+            Collections.sort(methods, new Comparator<Method>() {
+                @Override
+                public int compare(Method a, Method b) {
+                    int c = a.getName().compareTo(b.getName());
+                    return c != 0 ? c : a.getParameterTypes()[0].getName().compareTo(
+                            b.getParameterTypes()[0].getName());
+                }
+            });
+            Map<String, Method> setters = new LinkedHashMap<String, Method>();
+            for (Method method : methods) {
+                String name = method.getName();
+                Method getter = this.getter(name.substring(3));
+                String key = annotatedKey(method);
+                if (key == null) {
+                    key = getter != null ? JSONObject.getKeyNameFromMethod(getter) : key(name.substring(3));
+                }
+                if (key == null) {
+                    continue;
+                }
+                Method other = setters.get(key);
+                if (other == null || (getter != null && method.getParameterTypes()[0] == getter.getReturnType()
+                        && other.getParameterTypes()[0] != getter.getReturnType())) {
+                    setters.put(key, method);
+                }
+            }
+            MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+            for (Map.Entry<String, Method> entry : setters.entrySet()) {
+                Method method = entry.getValue();
+                try {
+                    MethodHandle setter = lookup.unreflect(method).asType(setterType);
+                    properties.add(new Property(entry.getKey(), method.getGenericParameterTypes()[0],
+                            properties.size(), setter));
+                } catch (IllegalAccessException e) {
+                    // a setter of a class that is not public
+                }
+            }
+        }
+
+        private Method getter(String name) {
+            for (String prefix : new String[] {"get", "is"}) {
+                try {
+                    Method getter = this.type.getMethod(prefix + name);
+                    if (!Modifier.isStatic(getter.getModifiers()) && getter.getReturnType() != Void.TYPE) {
+                        return getter;
+                    }
+                } catch (NoSuchMethodException e) {
+                    continue;
+                }
+            }
+            return null;
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return null;
+            } else if (type == boolean.class) {
+                return Boolean.FALSE;
+            } else if (type == char.class) {
+                return Character.valueOf((char) 0);
+            }
+            return Array.get(Array.newInstance(type, 1), 0);
+        }
+
+        /** The values of the properties, to be set by key before make. */
+        Object[] values() {
+            return this.record ? this.defaults.clone() : new Object[this.properties.length];
+        }
+
+        /**
+         * Make an object: a record from the values of its components, or a
+         * bean whose setters are called for the values that were found.
+         */
+        Object make(Object[] values) {
+            if (this.constructor == null) {
+                throw new JSONException("Unable to make a " + this.type.getName()
+                        + (this.record ? "" : ": it has no public constructor without parameters"));
+            }
+            Object object;
+            try {
+                object = this.record ? this.constructor.invokeExact(values) : this.constructor.invokeExact();
+            } catch (Throwable e) {
+                throw failure("Unable to make a " + this.type.getName(), e);
+            }
+            if (!this.record && values != null) {
+                for (Property property : this.properties) {
+                    Object value = values[property.index];
+                    if (value == null) {
+                        continue;
+                    }
+                    try {
+                        property.setter.invokeExact(object, value);
+                    } catch (Throwable e) {
+                        throw failure("Unable to set " + JSONObject.quote(property.key) + " of a "
+                                + this.type.getName(), e);
+                    }
+                }
+            }
+            return object;
+        }
+
+        private static RuntimeException failure(String message, Throwable e) {
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            return new JSONException(message, e);
+        }
+    }
+}
@@ -0,0 +1,874 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.CharArrayReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Parses JSON text lazily. Parsing only checks the syntax and records where
+ * the containers, keys and values of the text are, in an array of offsets;
+ * nothing else is made. The JSONObjects and JSONArrays it returns read the
+ * text as they are used: a JSONObject finds its keys in the text when it is
+ * first read, and makes a value only when that value is asked for, and a
+ * JSONArray makes its elements when it is first read. A nested JSONObject
+ * or JSONArray is itself lazy, so the parts of a large document that are
+ * never read cost next to nothing.
+ * <p>
+ * The values are the same as those of the eager constructors, and so are
+ * the exceptions thrown for malformed text, with one difference: a
+ * duplicated key is found only when its JSONObject is first read, which
+ * then throws the exception. Once a lazy JSONObject is changed, or its keys
+ * or entries are listed, it makes all of its values and works as an eager
+ * one. The text is kept as long as any lazy value made from it is, and
+ * must not be changed. Like all JSONObjects, lazy ones must not be shared
+ * between threads without synchronization, even to be read.
+ */
+public final class JSONIndex {
+
+    /** The delimiters of an unquoted value, as JSONTokener has them. */
+    private static final String DELIMITERS = ",:]}/\\\"[{;=#";
+
+    /*
+     * The tape holds the containers of the text in document order. A
+     * container is a header of three ints: the offset of its '{' or '[',
+     * the index after its last entry, and its number of members or
+     * elements. A member follows as two ints, the offsets of its key and of
+     * its value; an element as one int, the offset of its value, or -1 for
+     * an element left out, as in [1,,2]. A nested container follows the
+     * entry of which it is the value.
+     */
+    private static final int HEADER = 3;
+
+    private final char[] text;
+    private final int offset;
+    private final int length;
+    private final JSONParserConfiguration config;
+    private int[] tape = new int[64];
+    private int size;
+
+    private JSONIndex(char[] text, int offset, int length, JSONParserConfiguration config) {
+        this.text = text;
+        this.offset = offset;
+        this.length = length;
+        this.config = config;
+    }
+
+    /**
+     * Parse a JSONObject text lazily.
+     *
+     * @param text The text.
+     * @param config The parser configuration.
+     * @return A lazy JSONObject.
+     * @throws JSONException If the text is not a JSONObject text, or is
+     *  nested deeper than the configuration allows.
+     */
+    public static JSONObject parseObject(String text, JSONParserConfiguration config) throws JSONException {
+        char[] chars = text.toCharArray();
+        return parseObject(chars, 0, chars.length, config);
+    }
+
+    /**
+     * Parse a JSONObject text lazily. The chars are kept, not copied.
+     *
+     * @param text The chars of the text.
+     * @param offset The index of the first char of the text.
+     * @param length The number of chars of the text.
+     * @param config The parser configuration.
+     * @return A lazy JSONObject.
+     * @throws JSONException If the text is not a JSONObject text, or is
+     *  nested deeper than the configuration allows.
+     */
+    public static JSONObject parseObject(char[] text, int offset, int length,
+            JSONParserConfiguration config) throws JSONException {
+        JSONIndex index = new JSONIndex(text, offset, length, config);
+        if (!index.build('{')) {
+            return (JSONObject) index.parseEagerly(true);
+        }
+        return new JSONObject(index, 0);
+    }
+
+    /**
+     * Parse a JSONObject text lazily, from its UTF-8 bytes. The bytes are
+     * decoded at once, as the offsets are of chars.
+     *
+     * @param utf8 The bytes of the text.
+     * @param config The parser configuration.
+     * @return A lazy JSONObject.
+     * @throws JSONException If the text is not a JSONObject text, or is
+     *  nested deeper than the configuration allows.
+     */
+    public static JSONObject parseObject(byte[] utf8, JSONParserConfiguration config) throws JSONException {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(utf8));
+        return parseObject(chars.array(), chars.arrayOffset(), chars.remaining(), config);
+    }
+
+    /**
+     * Parse a JSONArray text lazily.
+     *
+     * @param text The text.
+     * @param config The parser configuration.
+     * @return A lazy JSONArray.
+     * @throws JSONException If the text is not a JSONArray text, or is
+     *  nested deeper than the configuration allows.
+     */
+    public static JSONArray parseArray(String text, JSONParserConfiguration config) throws JSONException {
+        char[] chars = text.toCharArray();
+        return parseArray(chars, 0, chars.length, config);
+    }
+
+    /**
+     * Parse a JSONArray text lazily. The chars are kept, not copied.
+     *
+     * @param text The chars of the text.
+     * @param offset The index of the first char of the text.
+     * @param length The number of chars of the text.
+     * @param config The parser configuration.
+     * @return A lazy JSONArray.
+     * @throws JSONException If the text is not a JSONArray text, or is
+     *  nested deeper than the configuration allows.
+     */
+    public static JSONArray parseArray(char[] text, int offset, int length,
+            JSONParserConfiguration config) throws JSONException {
+        JSONIndex index = new JSONIndex(text, offset, length, config);
+        if (!index.build('[')) {
+            return (JSONArray) index.parseEagerly(false);
+        }
+        return new JSONArray(index, 0);
+    }
+
+    /**
+     * Parse a JSONArray text lazily, from its UTF-8 bytes. The bytes are
+     * decoded at once, as the offsets are of chars.
+     *
+     * @param utf8 The bytes of the text.
+     * @param config The parser configuration.
+     * @return A lazy JSONArray.
+     * @throws JSONException If the text is not a JSONArray text, or is
+     *  nested deeper than the configuration allows.
+     */
+    public static JSONArray parseArray(byte[] utf8, JSONParserConfiguration config) throws JSONException {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(utf8));
+        return parseArray(chars.array(), chars.arrayOffset(), chars.remaining(), config);
+    }
+
+    /**
+     * Parse the text with JSONTokener, which reports its errors. The index
+     * covers the common forms of JSON text; what it does not cover, such as
+     * a key that is itself an object, is left to the eager parser.
+     */
+    private Object parseEagerly(boolean object) throws JSONException {
+        JSONTokener x = new JSONTokener(new CharArrayReader(this.text, this.offset, this.length));
+        return object ? new JSONObject(x, this.config) : new JSONArray(x, this.config);
+    }
+
+    /**
+     * Report a key that a JSONObject has twice, with the exception the eager
+     * parser throws for the text.
+     */
+    private JSONException duplicateKey(String key) {
+        try {
+            this.parseEagerly(this.text[this.tape[0]] == '{');
+        } catch (JSONException e) {
+            return e;
+        }
+        return new JSONException("Duplicate key \"" + key + "\"");
+    }
+
+    // Building the tape
+
+    private void add(int value) {
+        if (this.size == this.tape.length) {
+            this.tape = Arrays.copyOf(this.tape, this.size * 2);
+        }
+        this.tape[this.size++] = value;
+    }
+
+    /**
+     * Skip whitespace, as JSONTokener.nextClean does, which stops at a 0.
+     *
+     * @return the index of the next char, or end
+     */
+    private int clean(int i, int end) {
+        while (i < end && this.text[i] <= ' ' && this.text[i] != 0) {
+            i += 1;
+        }
+        return i;
+    }
+
+    /**
+     * Index the text, with the grammar of JSONTokener.parse.
+     *
+     * @param open The char that must begin the text.
+     * @return false if the text is malformed, or has a form left to the
+     *  eager parser
+     */
+    private boolean build(char open) {
+        char[] text = this.text;
+        int end = this.offset + this.length;
+        int maxNestingDepth = this.config.getMaxNestingDepth();
+        int[] stack = new int[16];
+        int depth = 0;
+        int i = this.clean(this.offset, end);
+        if (i == end || text[i] != open) {
+            return false;
+        }
+        boolean descend = true;
+        for (;;) {
+            boolean closed;
+            if (descend) {
+                // i is at the '{' or '[' of a container to open
+                if (maxNestingDepth > JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH
+                        && depth >= maxNestingDepth) {
+                    return false;
+                }
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = this.size;
+                this.add(i);
+                this.add(0);
+                this.add(0);
+                i = this.clean(i + 1, end);
+                if (i == end) {
+                    return false;
+                }
+                closed = text[i] == (text[this.tape[stack[depth - 1]]] == '{' ? '}' : ']');
+            } else {
+                // i is after a value
+                i = this.clean(i, end);
+                if (i == end) {
+                    return false;
+                }
+                boolean array = text[this.tape[stack[depth - 1]]] == '[';
+                char c = text[i];
+                if (c == (array ? ']' : '}')) {
+                    closed = true;
+                } else if (c == ',' || (c == ';' && !array)) {
+                    i = this.clean(i + 1, end);
+                    if (i == end) {
+                        return false;
+                    }
+                    closed = text[i] == (array ? ']' : '}');
+                } else {
+                    return false;
+                }
+            }
+            int header = stack[depth - 1];
+            if (closed) {
+                i += 1;
+                this.tape[header + 1] = this.size;
+                depth -= 1;
+                if (depth == 0) {
+                    return true;
+                }
+                descend = false;
+                continue;
+            }
+            this.tape[header + 2] += 1;
+            int at;
+            if (text[this.tape[header]] == '[') {
+                if (text[i] == ',') {
+                    // an element that is left out is null
+                    this.add(-1);
+                    descend = false;
+                    continue;
+                }
+                at = i;
+                this.add(at);
+            } else {
+                char c = text[i];
+                if (c == '{' || c == '[') {
+                    return false;
+                }
+                int key = i;
+                i = c == '"' || c == '\'' ? this.string(i, end) : this.unquoted(i, end);
+                if (i < 0) {
+                    return false;
+                }
+                i = this.clean(i, end);
+                if (i == end || text[i] != ':') {
+                    return false;
+                }
+                at = this.clean(i + 1, end);
+                if (at == end) {
+                    return false;
+                }
+                this.add(key);
+                this.add(at);
+            }
+            char c = text[at];
+            if (c == '{' || c == '[') {
+                i = at;
+                descend = true;
+            } else {
+                i = c == '"' || c == '\'' ? this.string(at, end) : this.unquoted(at, end);
+                if (i < 0) {
+                    return false;
+                }
+                descend = false;
+            }
+        }
+    }
+
+    /**
+     * Check a quoted string, as JSONTokener.nextString reads it.
+     *
+     * @return the index after the closing quote, or -1 if it is malformed
+     */
+    private int string(int i, int end) {
+        char[] text = this.text;
+        char quote = text[i];
+        i += 1;
+        while (i < end) {
+            char c = text[i];
+            if (c == quote) {
+                return i + 1;
+            }
+            if (c == '\n' || c == '\r' || c == 0) {
+                return -1;
+            }
+            if (c == '\\') {
+                i += 1;
+                if (i == end) {
+                    return -1;
+                }
+                switch (text[i]) {
+                case 'b':
+                case 't':
+                case 'n':
+                case 'f':
+                case 'r':
+                case '"':
+                case '\'':
+                case '\\':
+                case '/':
+                    break;
+                case 'u':
+                    if (i + 4 >= end || unicode(text, i + 1) < 0) {
+                        return -1;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    return -1;
+                }
+            }
+            i += 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Check an unquoted value, as JSONTokener.nextSimpleValue reads it.
+     *
+     * @return the index after it, or -1 if it is empty
+     */
+    private int unquoted(int i, int end) {
+        int start = i;
+        while (i < end && this.text[i] >= ' ' && DELIMITERS.indexOf(this.text[i]) < 0) {
+            i += 1;
+        }
+        return i == start ? -1 : i;
+    }
+
+    /**
+     * Decode the four chars of a \\u escape, as JSONTokener does.
+     *
+     * @return the char, or -1 if the chars are not a number
+     */
+    private static int unicode(char[] text, int i) {
+        try {
+            return (char) Integer.parseInt(new String(text, i, 4), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Reading the text
+
+    /**
+     * Get the value that begins at an offset.
+     *
+     * @param at The offset of the value, or -1 for a left out element.
+     * @param container The header of the value if it is a container.
+     */
+    private Object value(int at, int container) {
+        if (at < 0) {
+            return JSONObject.NULL;
+        }
+        switch (this.text[at]) {
+        case '{':
+            return new JSONObject(this, container);
+        case '[':
+            return new JSONArray(this, container);
+        case '"':
+        case '\'':
+            return this.string(at);
+        default:
+            int end = this.unquoted(at, this.offset + this.length);
+            return JSONObject.stringToValue(new String(this.text, at, end - at).trim());
+        }
+    }
+
+    /**
+     * Decode a quoted string that has been checked.
+     *
+     * @param at The offset of its opening quote.
+     */
+    private String string(int at) {
+        char[] text = this.text;
+        char quote = text[at];
+        int i = at + 1;
+        while (text[i] != quote && text[i] != '\\') {
+            i += 1;
+        }
+        if (text[i] == quote) {
+            return new String(text, at + 1, i - at - 1);
+        }
+        StringBuilder sb = new StringBuilder(i - at + 16);
+        sb.append(text, at + 1, i - at - 1);
+        for (;;) {
+            char c = text[i];
+            if (c == quote) {
+                return sb.toString();
+            }
+            if (c == '\\') {
+                i += 1;
+                c = text[i];
+                switch (c) {
+                case 'b':
+                    c = '\b';
+                    break;
+                case 't':
+                    c = '\t';
+                    break;
+                case 'n':
+                    c = '\n';
+                    break;
+                case 'f':
+                    c = '\f';
+                    break;
+                case 'r':
+                    c = '\r';
+                    break;
+                case 'u':
+                    c = (char) unicode(text, i + 1);
+                    i += 4;
+                    break;
+                default:
+                    // a quote, a backslash or a slash
+                }
+            }
+            sb.append(c);
+            i += 1;
+        }
+    }
+
+    /**
+     * Get the key of a member, as JSONTokener.nextValue reads it.
+     *
+     * @param at The offset of the key.
+     */
+    private String key(int at) {
+        char c = this.text[at];
+        if (c == '"' || c == '\'') {
+            return this.string(at);
+        }
+        int end = this.unquoted(at, this.offset + this.length);
+        return JSONObject.stringToValue(new String(this.text, at, end - at).trim()).toString();
+    }
+
+    /**
+     * The index after an entry of the tape.
+     *
+     * @param entry The index of the entry.
+     * @param width The number of ints of the entry, 2 for a member and 1 for
+     *  an element.
+     */
+    private int next(int entry, int width) {
+        int at = this.tape[entry + width - 1];
+        if (at >= 0 && (this.text[at] == '{' || this.text[at] == '[')) {
+            return this.tape[entry + width + 1];
+        }
+        return entry + width;
+    }
+
+    /**
+     * Make the map of a lazy JSONObject.
+     *
+     * @param header The header of the object in the tape.
+     */
+    Map<String, Object> map(int header) {
+        return new LazyMap(this, header);
+    }
+
+    /**
+     * Make the list of a lazy JSONArray.
+     *
+     * @param header The header of the array in the tape.
+     */
+    List<Object> list(int header) {
+        return new LazyList(this, header);
+    }
+
+    /**
+     * The members of a lazy JSONObject. When it is first read, it puts the
+     * keys in a hash table whose hashes are computed over the text, so that
+     * most keys are never made into Strings; a value is made when it is
+     * first got. A change, or a view of the keys or entries, fills a HashMap
+     * with the members, in the order of the eager parser, and from then on
+     * the HashMap is used.
+     */
+    private static final class LazyMap extends AbstractMap<String, Object> {
+        private final JSONIndex index;
+        private final int header;
+        /** The tape indexes of the members, once read. */
+        private int[] members;
+        /** The keys that are not simple quoted strings, once read. */
+        private String[] keys;
+        /** The values that have been made. */
+        private Object[] values;
+        /** The hash table, of member numbers plus one. */
+        private int[] table;
+        /** The members, once filled. */
+        private HashMap<String, Object> map;
+
+        LazyMap(JSONIndex index, int header) {
+            this.index = index;
+            this.header = header;
+        }
+
+        /**
+         * Read the keys, and check that none is duplicated.
+         *
+         * @return true if the HashMap is not filled yet
+         */
+        private boolean open() {
+            if (this.map != null) {
+                return false;
+            }
+            if (this.members != null) {
+                return true;
+            }
+            JSONIndex index = this.index;
+            int[] tape = index.tape;
+            char[] text = index.text;
+            int count = tape[this.header + 2];
+            int[] members = new int[count];
+            String[] keys = new String[count];
+            int[] table = new int[Integer.highestOneBit(Math.max(count, 2) * 2 - 1) * 2];
+            int mask = table.length - 1;
+            int entry = this.header + HEADER;
+            for (int m = 0; m < count; m += 1) {
+                members[m] = entry;
+                int at = tape[entry];
+                int hash;
+                int simple = simpleKey(text, at);
+                if (simple >= 0) {
+                    hash = 0;
+                    for (int i = at + 1; i < simple; i += 1) {
+                        hash = 31 * hash + text[i];
+                    }
+                } else {
+                    keys[m] = index.key(at);
+                    hash = keys[m].hashCode();
+                }
+                int slot = spread(hash) & mask;
+                while (table[slot] != 0) {
+                    int other = table[slot] - 1;
+                    if (this.keyEquals(members, keys, other, m)) {
+                        throw index.duplicateKey(keys[m] != null ? keys[m] : index.key(at));
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = m + 1;
+                entry = index.next(entry, 2);
+            }
+            this.members = members;
+            this.keys = keys;
+            this.values = new Object[count];
+            this.table = table;
+            return true;
+        }
+
+        /**
+         * The offset of the closing quote of a quoted key without escapes,
+         * or -1 for another key.
+         */
+        private static int simpleKey(char[] text, int at) {
+            char quote = text[at];
+            if (quote != '"' && quote != '\'') {
+                return -1;
+            }
+            int i = at + 1;
+            while (text[i] != quote) {
+                if (text[i] == '\\') {
+                    return -1;
+                }
+                i += 1;
+            }
+            return i;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private boolean keyEquals(int[] members, String[] keys, int a, int b) {
+            if (keys[a] != null || keys[b] != null) {
+                return this.keyString(members, keys, a).equals(this.keyString(members, keys, b));
+            }
+            char[] text = this.index.text;
+            int i = this.index.tape[members[a]];
+            int j = this.index.tape[members[b]];
+            char quoteA = text[i];
+            char quoteB = text[j];
+            for (;;) {
+                i += 1;
+                j += 1;
+                boolean endA = text[i] == quoteA;
+                boolean endB = text[j] == quoteB;
+                if (endA || endB) {
+                    return endA && endB;
+                }
+                if (text[i] != text[j]) {
+                    return false;
+                }
+            }
+        }
+
+        private String keyString(int[] members, String[] keys, int m) {
+            return keys[m] != null ? keys[m] : this.index.string(this.index.tape[members[m]]);
+        }
+
+        /**
+         * Find the member with a key.
+         *
+         * @return the number of the member, or -1
+         */
+        private int find(String key) {
+            int hash = key.hashCode();
+            int mask = this.table.length - 1;
+            char[] text = this.index.text;
+            for (int slot = spread(hash) & mask; this.table[slot] != 0; slot = (slot + 1) & mask) {
+                int m = this.table[slot] - 1;
+                if (this.keys[m] != null) {
+                    if (this.keys[m].equals(key)) {
+                        return m;
+                    }
+                    continue;
+                }
+                int at = this.index.tape[this.members[m]];
+                char quote = text[at];
+                int length = key.length();
+                int i = 0;
+                while (i < length && text[at + 1 + i] != quote && text[at + 1 + i] == key.charAt(i)) {
+                    i += 1;
+                }
+                if (i == length && text[at + 1 + i] == quote) {
+                    return m;
+                }
+            }
+            return -1;
+        }
+
+        private Object value(int m) {
+            Object value = this.values[m];
+            if (value == null) {
+                int entry = this.members[m];
+                value = this.index.value(this.index.tape[entry + 1], entry + 2);
+                this.values[m] = value;
+            }
+            return value;
+        }
+
+        /** Fill the HashMap with the members. */
+        private HashMap<String, Object> fill() {
+            if (this.open()) {
+                HashMap<String, Object> map = new HashMap<String, Object>();
+                for (int m = 0; m < this.members.length; m += 1) {
+                    map.put(this.keyString(this.members, this.keys, m), this.value(m));
+                }
+                this.map = map;
+                this.members = null;
+                this.keys = null;
+                this.values = null;
+                this.table = null;
+            }
+            return this.map;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (!this.open()) {
+                return this.map.get(key);
+            }
+            int m = key instanceof String ? this.find((String) key) : -1;
+            return m < 0 ? null : this.value(m);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!this.open()) {
+                return this.map.containsKey(key);
+            }
+            return key instanceof String && this.find((String) key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return this.open() ? this.members.length : this.map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.size() == 0;
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return this.fill().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return this.fill().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            this.fill().clear();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return this.fill().keySet();
+        }
+
+        @Override
+        public Collection<Object> values() {
+            return this.fill().values();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return this.fill().entrySet();
+        }
+    }
+
+    /**
+     * The elements of a lazy JSONArray, made when the array is first read.
+     * Nested objects and arrays are themselves lazy.
+     */
+    private static final class LazyList extends AbstractList<Object> implements RandomAccess {
+        private JSONIndex index;
+        private final int header;
+        private ArrayList<Object> elements;
+
+        LazyList(JSONIndex index, int header) {
+            this.index = index;
+            this.header = header;
+        }
+
+        private ArrayList<Object> open() {
+            JSONIndex index = this.index;
+            if (index == null) {
+                return this.elements;
+            }
+            this.index = null;
+            int count = index.tape[this.header + 2];
+            ArrayList<Object> elements = new ArrayList<Object>(count);
+            int entry = this.header + HEADER;
+            for (int e = 0; e < count; e += 1) {
+                elements.add(index.value(index.tape[entry], entry + 1));
+                entry = index.next(entry, 1);
+            }
+            this.elements = elements;
+            return elements;
+        }
+
+        @Override
+        public Object get(int i) {
+            return this.open().get(i);
+        }
+
+        @Override
+        public int size() {
+            return this.open().size();
+        }
+
+        @Override
+        public Object set(int i, Object element) {
+            return this.open().set(i, element);
+        }
+
+        @Override
+        public boolean add(Object e) {
+            return this.open().add(e);
+        }
+
+        @Override
+        public void add(int i, Object element) {
+            this.open().add(i, element);
+        }
+
+        @Override
+        public Object remove(int i) {
+            return this.open().remove(i);
+        }
+
+        @Override
+        public void clear() {
+            this.index = null;
+            this.elements = new ArrayList<Object>();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return this.open().iterator();
+        }
+
+        @Override
+        public ListIterator<Object> listIterator(int i) {
+            return this.open().listIterator(i);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads and writes newline-delimited JSON, a JSONObject text on each line.
+ * The input is cut into batches of whole lines at the byte level, and a
+ * parallel stream parses the batches on several threads; a batch is split
+ * again, at the newline after its middle, when there are more threads to
+ * give work to. A file is first split into ranges in the same way, which
+ * are read in parallel. The lines are decoded as UTF-8 only once they are
+ * cut.
+ */
+final class JSONLines {
+
+    /** The size of the first batch read from the input. */
+    private static final int BATCH = 1 << 16;
+
+    /** The largest batch read from the input. */
+    private static final int MAX_BATCH = 1 << 24;
+
+    /** A batch smaller than this is not split. */
+    private static final int MIN_SPLIT = 1 << 12;
+
+    private JSONLines() {
+    }
+
+    /**
+     * Make a parallel stream of the JSONObjects of the lines of a stream.
+     *
+     * @param in The input, which the caller must close.
+     * @param config The parser configuration for each line.
+     */
+    static Stream<JSONObject> stream(InputStream in, JSONParserConfiguration config) {
+        return StreamSupport.stream(new InputSpliterator(in, 0, config), true);
+    }
+
+    /**
+     * Make a parallel stream of the JSONObjects of the lines of a file. The
+     * file is closed when the stream is.
+     *
+     * @param path The file.
+     * @param config The parser configuration for each line.
+     */
+    static Stream<JSONObject> stream(Path path, JSONParserConfiguration config) throws JSONException {
+        try {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return StreamSupport.stream(new FileSpliterator(channel, 0, channel.size(), config), true)
+                        .onClose(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    channel.close();
+                                } catch (IOException e) {
+                                    throw new JSONException(e);
+                                }
+                            }
+                        });
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Write JSONObjects as lines.
+     *
+     * @param objects The JSONObjects.
+     * @param out The output, which is flushed but not closed.
+     */
+    static void write(Iterable<JSONObject> objects, OutputStream out) throws JSONException {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            for (JSONObject object : objects) {
+                object.write(writer);
+                writer.write('\n');
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Parse one line.
+     *
+     * @param bytes The bytes that hold the line.
+     * @param start The index of the first byte of the line.
+     * @param end The index of the newline, or of the end of the input.
+     * @param offset The position of bytes[0] in the input, for errors.
+     * @return The JSONObject, or null if the line is blank.
+     */
+    static JSONObject parse(byte[] bytes, int start, int end, long offset, JSONParserConfiguration config)
+            throws JSONException {
+        int first = start;
+        while (first < end && (bytes[first] == ' ' || bytes[first] == '\t' || bytes[first] == '\r')) {
+            first += 1;
+        }
+        if (first == end) {
+            return null;
+        }
+        String line = new String(bytes, first, end - first, StandardCharsets.UTF_8);
+        try {
+            JSONTokener x = new JSONTokener(new StringReader(line));
+            JSONObject object = new JSONObject(x, config);
+            if (x.nextClean() != 0) {
+                throw x.syntaxError("Expected the end of the line");
+            }
+            return object;
+        } catch (JSONException e) {
+            throw new JSONException(e.getMessage() + " in the line at byte " + (offset + start), e);
+        }
+    }
+
+    /**
+     * The lines of a batch that has been read.
+     */
+    private static final class BatchSpliterator implements Spliterator<JSONObject> {
+        private final byte[] bytes;
+        private final long offset;
+        private final JSONParserConfiguration config;
+        private int position;
+        private final int end;
+
+        /**
+         * @param bytes The batch.
+         * @param offset The position of bytes[0] in the input.
+         * @param position The start of the first line.
+         * @param end The end of the last line, which follows its newline.
+         */
+        BatchSpliterator(byte[] bytes, long offset, int position, int end, JSONParserConfiguration config) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.position = position;
+            this.end = end;
+            this.config = config;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JSONObject> action) {
+            while (this.position < this.end) {
+                int start = this.position;
+                int newline = newline(this.bytes, start, this.end);
+                this.position = newline + 1;
+                JSONObject object = parse(this.bytes, start, newline, this.offset, this.config);
+                if (object != null) {
+                    action.accept(object);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<JSONObject> trySplit() {
+            if (this.end - this.position < MIN_SPLIT) {
+                return null;
+            }
+            int middle = this.position + (this.end - this.position) / 2;
+            int split = newline(this.bytes, middle, this.end) + 1;
+            if (split >= this.end) {
+                return null;
+            }
+            Spliterator<JSONObject> prefix = new BatchSpliterator(this.bytes, this.offset, this.position,
+                    split, this.config);
+            this.position = split;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.end - this.position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * The lines of an input stream. Each split reads a batch of whole lines,
+     * larger each time.
+     */
+    private static final class InputSpliterator implements Spliterator<JSONObject> {
+        private final InputStream in;
+        private final JSONParserConfiguration config;
+        /** The bytes read, of which those from pending on are not in a batch yet. */
+        private byte[] buffer = new byte[BATCH];
+        private int pending;
+        private int limit;
+        /** The position of buffer[0] in the input. */
+        private long offset;
+        private boolean eof;
+        private int batch = BATCH;
+        /** The batch being traversed, if any. */
+        private BatchSpliterator current;
+
+        /**
+         * @param in The input.
+         * @param offset The position of the input in the whole input.
+         * @param config The parser configuration for each line.
+         */
+        InputSpliterator(InputStream in, long offset, JSONParserConfiguration config) {
+            this.in = in;
+            this.offset = offset;
+            this.config = config;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JSONObject> action) {
+            for (;;) {
+                if (this.current != null && this.current.tryAdvance(action)) {
+                    return true;
+                }
+                this.current = this.nextBatch();
+                if (this.current == null) {
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public Spliterator<JSONObject> trySplit() {
+            if (this.current != null) {
+                // the rest of the batch being traversed comes first
+                Spliterator<JSONObject> rest = this.current;
+                this.current = null;
+                return rest;
+            }
+            Spliterator<JSONObject> next = this.nextBatch();
+            this.batch = Math.min(this.batch * 2, MAX_BATCH);
+            return next;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        /**
+         * Read a batch of whole lines. Each batch has an array of its own,
+         * as the batches before it may still be parsed.
+         *
+         * @return the batch, or null at the end of the input
+         */
+        private BatchSpliterator nextBatch() {
+            int kept = this.limit - this.pending;
+            if (this.eof && kept == 0) {
+                return null;
+            }
+            try {
+                byte[] bytes = new byte[Math.max(this.batch, kept + BATCH)];
+                System.arraycopy(this.buffer, this.pending, bytes, 0, kept);
+                this.offset += this.pending;
+                int limit = kept;
+                int searched = 0;
+                int end = 0;
+                while (!this.eof) {
+                    if (limit == bytes.length) {
+                        // a line longer than the batch
+                        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                    }
+                    int n = this.in.read(bytes, limit, bytes.length - limit);
+                    if (n < 0) {
+                        this.eof = true;
+                        break;
+                    }
+                    limit += n;
+                    if (limit >= this.batch) {
+                        end = lastNewline(bytes, searched, limit) + 1;
+                        searched = limit;
+                        if (end > 0) {
+                            break;
+                        }
+                    }
+                }
+                if (this.eof) {
+                    end = limit;
+                }
+                this.buffer = bytes;
+                this.limit = limit;
+                this.pending = end;
+                int start = this.offset == 0 && hasByteOrderMark(bytes, end) ? 3 : 0;
+                return new BatchSpliterator(bytes, this.offset, start, end, this.config);
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+        }
+    }
+
+    /**
+     * The lines of a range of a file, which starts at the start of a line.
+     * A large range is split in two at the newline after its middle; a small
+     * one is read in batches, as an input stream is.
+     */
+    private static final class FileSpliterator implements Spliterator<JSONObject> {
+        private final FileChannel channel;
+        private long start;
+        private final long end;
+        private final JSONParserConfiguration config;
+        /** The lines of the range, once it is no longer split. */
+        private InputSpliterator lines;
+
+        FileSpliterator(FileChannel channel, long start, long end, JSONParserConfiguration config) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.config = config;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JSONObject> action) {
+            return this.lines().tryAdvance(action);
+        }
+
+        @Override
+        public Spliterator<JSONObject> trySplit() {
+            if (this.lines == null && this.end - this.start > MAX_BATCH) {
+                long split = this.newlineAfter(this.start + (this.end - this.start) / 2) + 1;
+                if (split < this.end) {
+                    Spliterator<JSONObject> prefix = new FileSpliterator(this.channel, this.start, split,
+                            this.config);
+                    this.start = split;
+                    return prefix;
+                }
+            }
+            return this.lines().trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.lines == null ? this.end - this.start : this.lines.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        private InputSpliterator lines() {
+            if (this.lines == null) {
+                this.lines = new InputSpliterator(new RangeInputStream(this.channel, this.start, this.end),
+                        this.start, this.config);
+            }
+            return this.lines;
+        }
+
+        /**
+         * @return the position of the first newline at or after a position,
+         *  or end
+         */
+        private long newlineAfter(long position) {
+            byte[] bytes = new byte[1 << 12];
+            RangeInputStream in = new RangeInputStream(this.channel, position, this.end);
+            try {
+                for (;;) {
+                    int n = in.read(bytes, 0, bytes.length);
+                    if (n < 0) {
+                        return this.end;
+                    }
+                    int newline = newline(bytes, 0, n);
+                    if (newline < n) {
+                        return position + newline;
+                    }
+                    position += n;
+                }
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+        }
+    }
+
+    /**
+     * Reads a range of a file with positional reads, which can be made on
+     * several threads at once.
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return this.read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.position >= this.end) {
+                return -1;
+            }
+            int n = this.channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, this.end - this.position)),
+                    this.position);
+            if (n < 0) {
+                return -1;
+            }
+            this.position += n;
+            return n;
+        }
+    }
+
+    private static boolean hasByteOrderMark(byte[] bytes, int end) {
+        return end >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF;
+    }
+
+    /**
+     * @return the index of the first newline at or after start, or end
+     */
+    private static int newline(byte[] bytes, int start, int end) {
+        while (start < end && bytes[start] != '\n') {
+            start += 1;
+        }
+        return start;
+    }
+
+    /**
+     * @return the index of the last newline from start and before end, or -1
+     */
+    private static int lastNewline(byte[] bytes, int start, int end) {
+        int i = end - 1;
+        while (i >= start && bytes[i] != '\n') {
+            i -= 1;
+        }
+        return i >= start ? i : -1;
+    }
+}
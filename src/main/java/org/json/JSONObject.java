@@ -27,6 +27,8 @@ import java.io.Closeable;
  */
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
@@ -36,10 +38,14 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -47,6 +53,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -187,6 +196,46 @@ public class JSONObject {
         this.map = new HashMap<String, Object>();
     }
 
+    /**
+     * Construct a JSONObject whose members are read from the text of an
+     * index when it is first used.
+     *
+     * @param index The index of the text.
+     * @param header The index of the object in the tape of the index.
+     */
+    JSONObject(JSONIndex index, int header) {
+        this.map = index.map(header);
+    }
+
+    /**
+     * Construct a read-only JSONObject that reads its members from a
+     * JSONTape.
+     *
+     * @param tape The JSONTape.
+     * @param at The offset of the object in the JSONTape.
+     */
+    JSONObject(JSONTape tape, int at) {
+        this.map = tape.map(at);
+    }
+
+    /**
+     * Construct a persistent JSONObject.
+     *
+     * @param map The members, whose JSONObjects and JSONArrays are persistent.
+     */
+    JSONObject(PersistentMap map) {
+        this.map = map;
+    }
+
+    /**
+     * Construct a concurrent JSONObject.
+     *
+     * @param map The members.
+     */
+    JSONObject(ConcurrentHashMap<String, Object> map) {
+        this.map = map;
+    }
+
     /**
      * Construct a JSONObject from a subset of another JSONObject. An array of
      * strings is used to identify the keys that should be copied. Missing keys
@@ -208,7 +257,8 @@ public class JSONObject {
     }
 
     /**
-     * Construct a JSONObject from a JSONTokener.
+     * Construct a JSONObject from a JSONTokener. Nesting is limited to
+     * {@link JSONParserConfiguration#DEFAULT_MAXIMUM_NESTING_DEPTH} levels.
      *
      * @param x
      *            A JSONTokener object containing the source string.
@@ -217,63 +267,25 @@ public class JSONObject {
      *             duplicated key.
      */
     public JSONObject(JSONTokener x) throws JSONException {
-        this();
-        char c;
-        String key;
-
-        if (x.nextClean() != '{') {
-            throw x.syntaxError("A JSONObject text must begin with '{'");
-        }
-        for (;;) {
-            c = x.nextClean();
-            switch (c) {
-            case 0:
-                throw x.syntaxError("A JSONObject text must end with '}'");
-            case '}':
-                return;
-            default:
-                x.back();
-                key = x.nextValue().toString();
-            }
-
-            // The key is followed by ':'.
-
-            c = x.nextClean();
-            if (c != ':') {
-                throw x.syntaxError("Expected a ':' after a key");
-            }
-            
-            // Use syntaxError(..) to include error location
-            
-            if (key != null) {
-                // Check if key exists
-                if (this.opt(key) != null) {
-                    // key already exists
-                    throw x.syntaxError("Duplicate key \"" + key + "\"");
-                }
-                // Only add value if non-null
-                Object value = x.nextValue();
-                if (value!=null) {
-                    this.put(key, value);
-                }
-            }
-
-            // Pairs are separated by ','.
+        this(x, new JSONParserConfiguration());
+    }
 
-            switch (x.nextClean()) {
-            case ';':
-            case ',':
-                if (x.nextClean() == '}') {
-                    return;
-                }
-                x.back();
-                break;
-            case '}':
-                return;
-            default:
-                throw x.syntaxError("Expected a ',' or '}'");
-            }
-        }
+    /**
+     * Construct a JSONObject from a JSONTokener, using a parser configuration.
+     * Nested objects and arrays do not use the call stack, so any depth the
+     * configuration allows can be parsed.
+     *
+     * @param x
+     *            A JSONTokener object containing the source string.
+     * @param jsonParserConfiguration
+     *            The parser configuration.
+     * @throws JSONException
+     *             If there is a syntax error in the source string, a
+     *             duplicated key, or the nesting is too deep.
+     */
+    public JSONObject(JSONTokener x, JSONParserConfiguration jsonParserConfiguration) throws JSONException {
+        this();
+        x.parse(this, jsonParserConfiguration);
     }
 
     /**
@@ -357,6 +369,10 @@ public class JSONObject {
      * public String getName() { return this.name; }
      * </pre>
      * <p>
+     * If the class of the bean is annotated with {@link JSONBean} and was
+     * compiled with {@link JSONBeanProcessor}, the getters are called by the
+     * generated {@link JSONBeanSerializer} rather than by reflection, with
+     * the same keys.
      * 
      * @param bean
      *            An object that has getter methods that should be used to make
@@ -473,6 +489,9 @@ public class JSONObject {
      * If only one value is accumulated that is not a JSONArray, then the result
      * will be the same as using put. But if multiple values are accumulated,
      * then the result will be like append.
+     * <p>
+     * In a concurrent JSONObject the value is accumulated atomically, and the
+     * JSONArrays it makes are concurrent.
      *
      * @param key
      *            A key string.
@@ -484,8 +503,23 @@ public class JSONObject {
      * @throws NullPointerException
      *            If the key is <code>null</code>.
      */
-    public JSONObject accumulate(String key, Object value) throws JSONException {
+    public JSONObject accumulate(String key, final Object value) throws JSONException {
         testValidity(value);
+        if (this.isConcurrent()) {
+            this.update(key, new BiFunction<String, Object, Object>() {
+                @Override
+                public Object apply(String k, Object object) {
+                    if (object == null) {
+                        return value instanceof JSONArray ? concurrentArray().put(value) : value;
+                    } else if (object instanceof JSONArray) {
+                        ((JSONArray) object).put(value);
+                        return object;
+                    }
+                    return concurrentArray().put(object).put(value);
+                }
+            });
+            return this;
+        }
         Object object = this.opt(key);
         if (object == null) {
             this.put(key,
@@ -504,6 +538,9 @@ public class JSONObject {
      * JSONObject, then the key is put in the JSONObject with its value being a
      * JSONArray containing the value parameter. If the key was already
      * associated with a JSONArray, then the value parameter is appended to it.
+     * <p>
+     * In a concurrent JSONObject the value is appended atomically, and the
+     * JSONArray it makes is concurrent.
      *
      * @param key
      *            A key string.
@@ -516,8 +553,22 @@ public class JSONObject {
      * @throws NullPointerException
      *            If the key is <code>null</code>.
      */
-    public JSONObject append(String key, Object value) throws JSONException {
+    public JSONObject append(final String key, final Object value) throws JSONException {
         testValidity(value);
+        if (this.isConcurrent()) {
+            this.update(key, new BiFunction<String, Object, Object>() {
+                @Override
+                public Object apply(String k, Object object) {
+                    if (object == null) {
+                        return concurrentArray().put(value);
+                    } else if (object instanceof JSONArray) {
+                        return ((JSONArray) object).put(value);
+                    }
+                    throw wrongValueFormatException(key, "JSONArray", null, null);
+                }
+            });
+            return this;
+        }
         Object object = this.opt(key);
         if (object == null) {
             this.put(key, new JSONArray().put(value));
@@ -884,6 +935,9 @@ public class JSONObject {
      * No overflow bounds checking is performed, so callers should initialize the key
      * prior to this call with an appropriate type that can handle the maximum expected
      * value.
+     * <p>
+     * In a concurrent JSONObject the property is incremented atomically, so
+     * no increment is lost to another thread.
      *
      * @param key
      *            A key string.
@@ -892,26 +946,45 @@ public class JSONObject {
      *             If there is already a property with this name that is not an
      *             Integer, Long, Double, or Float.
      */
-    public JSONObject increment(String key) throws JSONException {
-        Object value = this.opt(key);
+    public JSONObject increment(final String key) throws JSONException {
+        if (this.isConcurrent()) {
+            this.update(key, new BiFunction<String, Object, Object>() {
+                @Override
+                public Object apply(String k, Object value) {
+                    return incremented(key, value);
+                }
+            });
+            return this;
+        }
+        return this.put(key, incremented(key, this.opt(key)));
+    }
+
+    /**
+     * Add one to the value of a property, for {@link #increment(String)}.
+     *
+     * @param key The key of the property.
+     * @param value The value, or null if there is none.
+     * @return The incremented value.
+     * @throws JSONException If the value is not a number that can be
+     *  incremented.
+     */
+    private static Object incremented(String key, Object value) throws JSONException {
         if (value == null) {
-            this.put(key, 1);
+            return 1;
         } else if (value instanceof Integer) {
-            this.put(key, ((Integer) value).intValue() + 1);
+            return ((Integer) value).intValue() + 1;
         } else if (value instanceof Long) {
-            this.put(key, ((Long) value).longValue() + 1L);
+            return ((Long) value).longValue() + 1L;
         } else if (value instanceof BigInteger) {
-            this.put(key, ((BigInteger)value).add(BigInteger.ONE));
+            return ((BigInteger)value).add(BigInteger.ONE);
         } else if (value instanceof Float) {
-            this.put(key, ((Float) value).floatValue() + 1.0f);
+            return ((Float) value).floatValue() + 1.0f;
         } else if (value instanceof Double) {
-            this.put(key, ((Double) value).doubleValue() + 1.0d);
+            return ((Double) value).doubleValue() + 1.0d;
         } else if (value instanceof BigDecimal) {
-            this.put(key, ((BigDecimal)value).add(BigDecimal.ONE));
-        } else {
-            throw new JSONException("Unable to increment [" + quote(key) + "].");
+            return ((BigDecimal)value).add(BigDecimal.ONE);
         }
-        return this;
+        throw new JSONException("Unable to increment [" + quote(key) + "].");
     }
 
     /**
@@ -1493,6 +1566,16 @@ public class JSONObject {
     private void populateMap(Object bean) {
         Class<?> klass = bean.getClass();
 
+        // a class annotated with JSONBean may have a generated serializer,
+        // which calls the getters without reflection
+        if (klass.isAnnotationPresent(JSONBean.class)) {
+            JSONBeanSerializer<Object> serializer = JSONBeanSerializers.get(klass);
+            if (serializer != null) {
+                serializer.putProperties(bean, this.map);
+                return;
+            }
+        }
+
         // If klass is a System class then set includeSuperClass to false.
 
         boolean includeSuperClass = klass.getClassLoader() != null;
@@ -1535,7 +1618,7 @@ public class JSONObject {
         return !"getClass".equals(name) && !"getDeclaringClass".equals(name);
     }
 
-    private static String getKeyNameFromMethod(Method method) {
+    static String getKeyNameFromMethod(Method method) {
         final int ignoreDepth = getAnnotationDepth(method, JSONPropertyIgnore.class);
         if (ignoreDepth > 0) {
             final int forcedNameDepth = getAnnotationDepth(method, JSONPropertyName.class);
@@ -1586,7 +1669,7 @@ public class JSONObject {
      * @return the {@link Annotation} if the annotation exists on the current method
      *         or one of it's super class definitions
      */
-    private static <A extends Annotation> A getAnnotation(final Method m, final Class<A> annotationClass) {
+    static <A extends Annotation> A getAnnotation(final Method m, final Class<A> annotationClass) {
         // if we have invalid data the result is null
         if (m == null || annotationClass == null) {
             return null;
@@ -1639,7 +1722,7 @@ public class JSONObject {
      *            annotation to look for
      * @return Depth of the annotation or -1 if the annotation is not on the method.
      */
-    private static int getAnnotationDepth(final Method m, final Class<? extends Annotation> annotationClass) {
+    static int getAnnotationDepth(final Method m, final Class<? extends Annotation> annotationClass) {
         // if we have invalid data the result is -1
         if (m == null || annotationClass == null) {
             return -1;
@@ -1840,7 +1923,8 @@ public class JSONObject {
     /**
      * Put a key/value pair in the JSONObject, but only if the key and the value
      * are both non-null, and only if there is not already a member with that
-     * name.
+     * name. In a concurrent JSONObject the test and the put are atomic, so
+     * of threads that put the same key once, one succeeds.
      *
      * @param key
      *            key to insert into
@@ -1851,7 +1935,12 @@ public class JSONObject {
      *             if the key is a duplicate
      */
     public JSONObject putOnce(String key, Object value) throws JSONException {
-        if (key != null && value != null) {
+        if (key != null && value != null && this.isConcurrent()) {
+            testValidity(value);
+            if (((ConcurrentMap<String, Object>) this.map).putIfAbsent(key, value) != null) {
+                throw new JSONException("Duplicate key \"" + key + "\"");
+            }
+        } else if (key != null && value != null) {
             if (this.opt(key) != null) {
                 throw new JSONException("Duplicate key \"" + key + "\"");
             }
@@ -1966,74 +2055,82 @@ public class JSONObject {
      * @return A String correctly formatted for insertion in a JSON text.
      */
     public static String quote(String string) {
-        StringWriter sw = new StringWriter();
-        synchronized (sw.getBuffer()) {
-            try {
-                return quote(string, sw).toString();
-            } catch (IOException ignored) {
-                // will never happen - we are writing to a string writer
-                return "";
-            }
+        StringBuilder sb = new StringBuilder(string == null ? 2 : string.length() + 2);
+        try {
+            quote(string, sb);
+        } catch (IOException ignored) {
+            // will never happen - we are writing to a string builder
         }
+        return sb.toString();
     }
 
     public static Writer quote(String string, Writer w) throws IOException {
+        quote(string, (Appendable) w);
+        return w;
+    }
+
+    /**
+     * Write a string in double quotes with backslash sequences in all the
+     * right places, as {@link #quote(String)} makes it. Runs of characters
+     * that need no escape are appended whole.
+     *
+     * @param string A String, or null for an empty string.
+     * @param a The Appendable that the quoted string is appended to.
+     * @throws IOException If the Appendable throws it.
+     */
+    static void quote(String string, Appendable a) throws IOException {
         if (string == null || string.isEmpty()) {
-            w.write("\"\"");
-            return w;
+            a.append("\"\"");
+            return;
         }
 
         char b;
         char c = 0;
         String hhhh;
-        int i;
         int len = string.length();
+        int run = 0;
 
-        w.write('"');
-        for (i = 0; i < len; i += 1) {
+        a.append('"');
+        for (int i = 0; i < len; i += 1) {
             b = c;
             c = string.charAt(i);
+            if (c >= ' ' && c != '\\' && c != '"' && (c != '/' || b != '<')
+                    && (c < '\u0080' || c >= '\u00a0') && (c < '\u2000' || c >= '\u2100')) {
+                continue;
+            }
+            a.append(string, run, i);
+            run = i + 1;
             switch (c) {
             case '\\':
             case '"':
-                w.write('\\');
-                w.write(c);
-                break;
             case '/':
-                if (b == '<') {
-                    w.write('\\');
-                }
-                w.write(c);
+                a.append('\\');
+                a.append(c);
                 break;
             case '\b':
-                w.write("\\b");
+                a.append("\\b");
                 break;
             case '\t':
-                w.write("\\t");
+                a.append("\\t");
                 break;
             case '\n':
-                w.write("\\n");
+                a.append("\\n");
                 break;
             case '\f':
-                w.write("\\f");
+                a.append("\\f");
                 break;
             case '\r':
-                w.write("\\r");
+                a.append("\\r");
                 break;
             default:
-                if (c < ' ' || (c >= '\u0080' && c < '\u00a0')
-                        || (c >= '\u2000' && c < '\u2100')) {
-                    w.write("\\u");
-                    hhhh = Integer.toHexString(c);
-                    w.write("0000", 0, 4 - hhhh.length());
-                    w.write(hhhh);
-                } else {
-                    w.write(c);
-                }
+                a.append("\\u");
+                hhhh = Integer.toHexString(c);
+                a.append("0000", 0, 4 - hhhh.length());
+                a.append(hhhh);
             }
         }
-        w.write('"');
-        return w;
+        a.append(string, run, len);
+        a.append('"');
     }
 
     /**
@@ -2058,42 +2155,83 @@ public class JSONObject {
      */
     public boolean similar(Object other) {
         try {
-            if (!(other instanceof JSONObject)) {
-                return false;
-            }
-            if (!this.keySet().equals(((JSONObject)other).keySet())) {
-                return false;
-            }
-            for (final Entry<String,?> entry : this.entrySet()) {
-                String name = entry.getKey();
-                Object valueThis = entry.getValue();
-                Object valueOther = ((JSONObject)other).get(name);
-                if(valueThis == valueOther) {
-                	continue;
+            return isSimilar(this, other);
+        } catch (Throwable exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Determine if two JSONObjects, or two JSONArrays, are similar. Nested
+     * values are compared from an explicit stack rather than by recursion.
+     *
+     * @param container A JSONObject or a JSONArray
+     * @param other The value to compare it to
+     * @return true if they are similar
+     */
+    static boolean isSimilar(Object container, Object other) {
+        ArrayDeque<Object> pending = new ArrayDeque<Object>();
+        pending.push(container);
+        pending.push(other);
+        while (!pending.isEmpty()) {
+            Object valueOther = pending.pop();
+            Object valueThis = pending.pop();
+            if (valueThis instanceof JSONObject) {
+                if (!(valueOther instanceof JSONObject)) {
+                    return false;
                 }
-                if(valueThis == null) {
-                	return false;
+                JSONObject jo = (JSONObject) valueThis;
+                JSONObject joOther = (JSONObject) valueOther;
+                if (!jo.keySet().equals(joOther.keySet())) {
+                    return false;
                 }
-                if (valueThis instanceof JSONObject) {
-                    if (!((JSONObject)valueThis).similar(valueOther)) {
+                for (final Entry<String,?> entry : jo.entrySet()) {
+                    if (!isSimilarMember(entry.getValue(), joOther.get(entry.getKey()), pending)) {
                         return false;
                     }
-                } else if (valueThis instanceof JSONArray) {
-                    if (!((JSONArray)valueThis).similar(valueOther)) {
+                }
+            } else {
+                if (!(valueOther instanceof JSONArray)) {
+                    return false;
+                }
+                JSONArray ja = (JSONArray) valueThis;
+                JSONArray jaOther = (JSONArray) valueOther;
+                int len = ja.length();
+                if (len != jaOther.length()) {
+                    return false;
+                }
+                for (int i = 0; i < len; i += 1) {
+                    if (!isSimilarMember(ja.opt(i), jaOther.opt(i), pending)) {
                         return false;
                     }
-                } else if (valueThis instanceof Number && valueOther instanceof Number) {
-                    return isNumberSimilar((Number)valueThis, (Number)valueOther);
-                } else if (!valueThis.equals(valueOther)) {
-                    return false;
                 }
             }
+        }
+        return true;
+    }
+
+    /**
+     * Compare two members of similar containers. Nested JSONObjects and
+     * JSONArrays are pushed for the caller to compare.
+     */
+    private static boolean isSimilarMember(Object valueThis, Object valueOther, ArrayDeque<Object> pending) {
+        if (valueThis == valueOther) {
             return true;
-        } catch (Throwable exception) {
+        }
+        if (valueThis == null) {
             return false;
         }
+        if (valueThis instanceof JSONObject || valueThis instanceof JSONArray) {
+            pending.push(valueThis);
+            pending.push(valueOther);
+            return true;
+        }
+        if (valueThis instanceof Number && valueOther instanceof Number) {
+            return isNumberSimilar((Number)valueThis, (Number)valueOther);
+        }
+        return valueThis.equals(valueOther);
     }
-    
+
     /**
      * Compares two numbers to see if they are similar.
      * 
@@ -2443,6 +2581,151 @@ public class JSONObject {
         }
     }
 
+    /**
+     * Read a newline-delimited JSON file, which has a JSONObject text on each
+     * line, as a parallel stream. The file is cut into batches of lines at
+     * the byte level, and the batches are read and parsed on the threads of
+     * the stream. Blank lines are skipped. The stream keeps the order of the
+     * lines; when the order does not matter, call
+     * {@link Stream#unordered()} or use forEach rather than forEachOrdered,
+     * and the JSONObjects are given as soon as they are parsed. For a
+     * sequential stream, call {@link Stream#sequential()}.
+     * <p>
+     * The file is read as UTF-8, and is closed when the stream is, so the
+     * stream should be used in a try-with-resources statement. A line that
+     * is not a JSONObject text gives a JSONException that says where the
+     * line starts.
+     *
+     * @param path The file.
+     * @return The stream of JSONObjects.
+     * @throws JSONException If the file cannot be opened.
+     */
+    public static Stream<JSONObject> streamLines(Path path) throws JSONException {
+        return streamLines(path, new JSONParserConfiguration());
+    }
+
+    /**
+     * Read a newline-delimited JSON file as a parallel stream, using a parser
+     * configuration for each line. See {@link #streamLines(Path)}.
+     *
+     * @param path The file.
+     * @param config The parser configuration.
+     * @return The stream of JSONObjects.
+     * @throws JSONException If the file cannot be opened.
+     */
+    public static Stream<JSONObject> streamLines(Path path, JSONParserConfiguration config)
+            throws JSONException {
+        return JSONLines.stream(path, config);
+    }
+
+    /**
+     * Read newline-delimited JSON from a stream as a parallel stream. The
+     * input is read in batches of lines, which are parsed on the threads of
+     * the stream. See {@link #streamLines(Path)}. The caller must close the
+     * input stream.
+     *
+     * @param in The UTF-8 input.
+     * @return The stream of JSONObjects.
+     */
+    public static Stream<JSONObject> streamLines(InputStream in) {
+        return streamLines(in, new JSONParserConfiguration());
+    }
+
+    /**
+     * Read newline-delimited JSON from a stream as a parallel stream, using
+     * a parser configuration for each line. See {@link #streamLines(Path)}.
+     * The caller must close the input stream.
+     *
+     * @param in The UTF-8 input.
+     * @param config The parser configuration.
+     * @return The stream of JSONObjects.
+     */
+    public static Stream<JSONObject> streamLines(InputStream in, JSONParserConfiguration config) {
+        return JSONLines.stream(in, config);
+    }
+
+    /**
+     * Write JSONObjects as newline-delimited JSON, one compact JSONObject
+     * text on each line, in UTF-8. The output is buffered, and is flushed
+     * but not closed.
+     *
+     * @param objects The JSONObjects.
+     * @param out The output.
+     * @throws JSONException If the output cannot be written.
+     */
+    public static void writeLines(Iterable<JSONObject> objects, OutputStream out) throws JSONException {
+        JSONLines.write(objects, out);
+    }
+
+    /**
+     * Write the JSONObject in CBOR (RFC 8949), a compact binary form of JSON in
+     * which numbers are written natively and strings are prefixed with their
+     * length. See {@link #toBinary(OutputStream, boolean)}.
+     *
+     * @param out The output, which is neither flushed nor closed.
+     * @return The output.
+     * @throws JSONException If a value cannot be written, or the output fails.
+     */
+    public OutputStream toBinary(OutputStream out) throws JSONException {
+        return this.toBinary(out, false);
+    }
+
+    /**
+     * Write the JSONObject in CBOR (RFC 8949). JSONObjects are written as maps and
+     * arrays, strings as UTF-8, Integers and Longs in the fewest bytes,
+     * BigIntegers too large for a long as bignums, BigDecimals as decimal
+     * fractions, and Doubles and Floats as floats of their own size. Other
+     * values are written as they are in the JSON text, so
+     * {@link #fromBinary(InputStream)} gives a JSONObject similar to the one
+     * parsed from {@link #toString()}, and numbers keep their types.
+     * <p>
+     * With shareStrings, each key and string is written once and then as a
+     * number (the stringref extension of CBOR), which makes records with the
+     * same keys much smaller. To share the keys between records, write them
+     * together in one JSONArray.
+     *
+     * @param out The output, which is neither flushed nor closed.
+     * @param shareStrings True to write repeated strings as references.
+     * @return The output.
+     * @throws JSONException If a value cannot be written, or the output fails.
+     */
+    public OutputStream toBinary(OutputStream out, boolean shareStrings) throws JSONException {
+        CBOR.write(this, out, shareStrings);
+        return out;
+    }
+
+    /**
+     * Read a JSONObject written in CBOR, as by {@link #toBinary(OutputStream)}.
+     * The input is read up to the end of the JSONObject and no further, so a
+     * stream may hold several. It is read a byte at a time, so a stream that
+     * is not already buffered, such as a FileInputStream or the stream of a
+     * socket, should be wrapped in a BufferedInputStream.
+     *
+     * @param in The input.
+     * @return The JSONObject.
+     * @throws JSONException If the input is not a JSONObject in CBOR, or fails.
+     */
+    public static JSONObject fromBinary(InputStream in) throws JSONException {
+        return fromBinary(in, new JSONParserConfiguration());
+    }
+
+    /**
+     * Read a JSONObject written in CBOR, using the maximum nesting depth of a
+     * parser configuration. See {@link #fromBinary(InputStream)}.
+     *
+     * @param in The input.
+     * @param config The parser configuration.
+     * @return The JSONObject.
+     * @throws JSONException If the input is not a JSONObject in CBOR, or fails.
+     */
+    public static JSONObject fromBinary(InputStream in, JSONParserConfiguration config) throws JSONException {
+        Object value = CBOR.read(in, config);
+        if (value instanceof JSONObject) {
+            return (JSONObject) value;
+        }
+        throw new JSONException("Expected a CBOR map");
+    }
+
     /**
      * Write the contents of the JSONObject as JSON text to a writer. For
      * compactness, no whitespace is added.
@@ -2457,8 +2740,99 @@ public class JSONObject {
         return this.write(writer, 0, 0);
     }
 
+    /**
+     * Write a value as JSON text. JSONObjects and JSONArrays, and the maps,
+     * collections and arrays that are written as them, are written from an
+     * explicit stack rather than by recursion, so the depth of the value is
+     * not limited by the size of the thread's stack.
+     */
     static final Writer writeValue(Writer writer, Object value,
             int indentFactor, int indent) throws JSONException, IOException {
+        WriteFrame top = null;
+        for (;;) {
+            try {
+                if (value instanceof JSONString) {
+                    // written by writeSimpleValue
+                } else if (value instanceof Map) {
+                    value = new JSONObject((Map<?, ?>) value);
+                } else if (value instanceof Collection) {
+                    value = new JSONArray((Collection<?>) value);
+                } else if (value != null && value.getClass().isArray()) {
+                    value = new JSONArray(value);
+                }
+                if (value instanceof JSONObject) {
+                    writer.write('{');
+                    JSONObject jo = (JSONObject) value;
+                    top = new WriteFrame(top, '}', jo.entrySet().iterator(), jo.length(), indent);
+                } else if (value instanceof JSONArray) {
+                    writer.write('[');
+                    JSONArray ja = (JSONArray) value;
+                    top = new WriteFrame(top, ']', ja.iterator(), ja.length(), indent);
+                } else {
+                    writeSimpleValue(writer, value);
+                }
+
+                // find the next value to write, closing finished containers
+                for (;;) {
+                    if (top == null) {
+                        return writer;
+                    }
+                    if (top.iterator.hasNext()) {
+                        break;
+                    }
+                    if (top.length > 1) {
+                        if (indentFactor > 0) {
+                            writer.write('\n');
+                        }
+                        indent(writer, top.indent);
+                    }
+                    writer.write(top.close);
+                    top = top.parent;
+                }
+                Object next = top.iterator.next();
+                // the length only shapes the layout: a concurrent container
+                // may have grown since it was taken
+                if (top.index >= 0 || top.key != null) {
+                    writer.write(',');
+                }
+                if (top.length > 1) {
+                    if (indentFactor > 0) {
+                        writer.write('\n');
+                    }
+                    indent = top.indent + indentFactor;
+                    indent(writer, indent);
+                } else {
+                    indent = top.indent;
+                }
+                if (next instanceof Entry) {
+                    Entry<?, ?> entry = (Entry<?, ?>) next;
+                    top.key = (String) entry.getKey();
+                    writer.write(quote(top.key));
+                    writer.write(':');
+                    if (indentFactor > 0) {
+                        writer.write(' ');
+                    }
+                    value = entry.getValue();
+                } else {
+                    top.index += 1;
+                    value = next;
+                }
+            } catch (Exception e) {
+                if (top == null) {
+                    if (e instanceof IOException) {
+                        throw (IOException) e;
+                    }
+                    throw (RuntimeException) e;
+                }
+                throw top.wrap(e);
+            }
+        }
+    }
+
+    /**
+     * Write a value that is neither a JSONObject nor a JSONArray.
+     */
+    private static void writeSimpleValue(Writer writer, Object value) throws IOException {
         if (value == null || value.equals(null)) {
             writer.write("null");
         } else if (value instanceof JSONString) {
@@ -2483,22 +2857,47 @@ public class JSONObject {
             writer.write(value.toString());
         } else if (value instanceof Enum<?>) {
             writer.write(quote(((Enum<?>)value).name()));
-        } else if (value instanceof JSONObject) {
-            ((JSONObject) value).write(writer, indentFactor, indent);
-        } else if (value instanceof JSONArray) {
-            ((JSONArray) value).write(writer, indentFactor, indent);
-        } else if (value instanceof Map) {
-            Map<?, ?> map = (Map<?, ?>) value;
-            new JSONObject(map).write(writer, indentFactor, indent);
-        } else if (value instanceof Collection) {
-            Collection<?> coll = (Collection<?>) value;
-            new JSONArray(coll).write(writer, indentFactor, indent);
-        } else if (value.getClass().isArray()) {
-            new JSONArray(value).write(writer, indentFactor, indent);
         } else {
             quote(value.toString(), writer);
         }
-        return writer;
+    }
+
+    /**
+     * A JSONObject or JSONArray that writeValue is in the middle of writing.
+     */
+    private static final class WriteFrame {
+        final WriteFrame parent;
+        /** The character that closes the container. */
+        final char close;
+        final Iterator<?> iterator;
+        final int length;
+        final int indent;
+        /** The key of the member being written, if the container is a JSONObject. */
+        String key;
+        /** The index of the element being written, if the container is a JSONArray. */
+        int index = -1;
+
+        WriteFrame(WriteFrame parent, char close, Iterator<?> iterator, int length, int indent) {
+            this.parent = parent;
+            this.close = close;
+            this.iterator = iterator;
+            this.length = length;
+            this.indent = indent;
+        }
+
+        /**
+         * Report a failure to write the current value the way nested calls
+         * to write would: one JSONException per enclosing container.
+         */
+        JSONException wrap(Exception e) {
+            Exception cause = e;
+            for (WriteFrame frame = this; frame != null; frame = frame.parent) {
+                cause = new JSONException(frame.close == '}'
+                        ? "Unable to write JSONObject value for key: " + frame.key
+                        : "Unable to write JSONArray value at index: " + Math.max(frame.index, 0), cause);
+            }
+            return (JSONException) cause;
+        }
     }
 
     static final void indent(Writer writer, int indent) throws IOException {
@@ -2537,53 +2936,7 @@ public class JSONObject {
     public Writer write(Writer writer, int indentFactor, int indent)
             throws JSONException {
         try {
-            boolean needsComma = false;
-            final int length = this.length();
-            writer.write('{');
-
-            if (length == 1) {
-            	final Entry<String,?> entry = this.entrySet().iterator().next();
-                final String key = entry.getKey();
-                writer.write(quote(key));
-                writer.write(':');
-                if (indentFactor > 0) {
-                    writer.write(' ');
-                }
-                try{
-                    writeValue(writer, entry.getValue(), indentFactor, indent);
-                } catch (Exception e) {
-                    throw new JSONException("Unable to write JSONObject value for key: " + key, e);
-                }
-            } else if (length != 0) {
-                final int newIndent = indent + indentFactor;
-                for (final Entry<String,?> entry : this.entrySet()) {
-                    if (needsComma) {
-                        writer.write(',');
-                    }
-                    if (indentFactor > 0) {
-                        writer.write('\n');
-                    }
-                    indent(writer, newIndent);
-                    final String key = entry.getKey();
-                    writer.write(quote(key));
-                    writer.write(':');
-                    if (indentFactor > 0) {
-                        writer.write(' ');
-                    }
-                    try {
-                        writeValue(writer, entry.getValue(), indentFactor, newIndent);
-                    } catch (Exception e) {
-                        throw new JSONException("Unable to write JSONObject value for key: " + key, e);
-                    }
-                    needsComma = true;
-                }
-                if (indentFactor > 0) {
-                    writer.write('\n');
-                }
-                indent(writer, indent);
-            }
-            writer.write('}');
-            return writer;
+            return writeValue(writer, this, indentFactor, indent);
         } catch (IOException exception) {
             throw new JSONException(exception);
         }
@@ -2592,7 +2945,8 @@ public class JSONObject {
     /**
      * Returns a java.util.Map containing all of the entries in this object.
      * If an entry in the object is a JSONArray or JSONObject it will also
-     * be converted.
+     * be converted. To read a few entries without copying the whole
+     * object, use {@link #asMap()}.
      * <p>
      * Warning: This method assumes that the data structure is acyclical.
      *
@@ -2600,23 +2954,368 @@ public class JSONObject {
      */
     public Map<String, Object> toMap() {
         Map<String, Object> results = new HashMap<String, Object>();
-        for (Entry<String, Object> entry : this.entrySet()) {
-            Object value;
-            if (entry.getValue() == null || NULL.equals(entry.getValue())) {
-                value = null;
-            } else if (entry.getValue() instanceof JSONObject) {
-                value = ((JSONObject) entry.getValue()).toMap();
-            } else if (entry.getValue() instanceof JSONArray) {
-                value = ((JSONArray) entry.getValue()).toList();
+        toJava(this, results);
+        return results;
+    }
+
+    /**
+     * Returns a read-only view of this object as a java.util.Map. Nothing is
+     * copied: the view reads this object when it is used, so it is made in
+     * constant time, and it sees later changes to this object. Values are
+     * given as {@link #toMap()} gives them: <code>JSONObject.NULL</code> as
+     * null, and a nested JSONObject or JSONArray as a view of its own, made
+     * when it is reached. The view cannot be changed.
+     *
+     * @return a read-only java.util.Map view of this object
+     */
+    public Map<String, Object> asMap() {
+        return new JSONViews.ObjectView(this.map);
+    }
+
+    /**
+     * Determine if this JSONObject is persistent: made by
+     * {@link #toPersistent()}, {@link #with(String, Object)} or
+     * {@link #without(String)}, so that it cannot be changed.
+     *
+     * @return true if this JSONObject is persistent.
+     */
+    public boolean isPersistent() {
+        return this.map instanceof PersistentMap;
+    }
+
+    /**
+     * Make a persistent copy of this JSONObject: one that cannot be changed,
+     * whose nested JSONObjects and JSONArrays are persistent too. A
+     * persistent JSONObject is copied and changed with
+     * {@link #with(String, Object)} and {@link #without(String)}, which make
+     * new versions that share all but the changed path with the old one. A
+     * version is a snapshot that never changes, so it can be kept, and
+     * shared between threads without locks. The methods that would change a
+     * persistent JSONObject, such as <code>put</code>, throw
+     * UnsupportedOperationException.
+     * <p>
+     * A persistent JSONObject is returned as it is; any other is copied,
+     * once. Warning: This method assumes that the data structure is
+     * acyclical.
+     *
+     * @return a persistent JSONObject with the members of this one
+     */
+    public JSONObject toPersistent() {
+        return (JSONObject) persist(this);
+    }
+
+    /**
+     * Make a persistent JSONObject with a member added or replaced, sharing
+     * the rest of this one. It takes time in the order of log n, where n is
+     * the number of members. This JSONObject is not changed. If it is not
+     * persistent, it is copied with {@link #toPersistent()} first.
+     * <p>
+     * The value is checked as {@link #put(String, Object)} checks it. A Map
+     * or Collection is made into a JSONObject or JSONArray, and a
+     * JSONObject or JSONArray is made persistent.
+     *
+     * @param key
+     *            A key string.
+     * @param value
+     *            An object which is the value. It should be of one of these
+     *            types: Boolean, Double, Integer, JSONArray, JSONObject, Long,
+     *            String, or the JSONObject.NULL object. If it is null, the
+     *            member is removed.
+     * @return a persistent JSONObject with the member
+     * @throws JSONException
+     *            If the value is non-finite number.
+     * @throws NullPointerException
+     *            If the key is <code>null</code>.
+     */
+    public JSONObject with(String key, Object value) throws JSONException {
+        if (key == null) {
+            throw new NullPointerException("Null key.");
+        }
+        if (value == null) {
+            return this.without(key);
+        }
+        testValidity(value);
+        JSONObject persistent = this.toPersistent();
+        PersistentMap map = (PersistentMap) persistent.map;
+        PersistentMap changed = map.with(key, persistValue(value));
+        return changed == map ? persistent : new JSONObject(changed);
+    }
+
+    /**
+     * Make a persistent JSONObject without a member, sharing the rest of this
+     * one. It takes time in the order of log n, where n is the number of
+     * members. This JSONObject is not changed. If it is not persistent, it
+     * is copied with {@link #toPersistent()} first.
+     *
+     * @param key
+     *            The name to be removed.
+     * @return a persistent JSONObject without the member
+     */
+    public JSONObject without(String key) {
+        JSONObject persistent = this.toPersistent();
+        PersistentMap map = (PersistentMap) persistent.map;
+        PersistentMap changed = map.without(key);
+        return changed == map ? persistent : new JSONObject(changed);
+    }
+
+    /**
+     * Determine if this JSONObject is concurrent: made by
+     * {@link #toConcurrent()}, so that threads can read and change it
+     * without locks of their own.
+     *
+     * @return true if this JSONObject is concurrent.
+     */
+    public boolean isConcurrent() {
+        return this.map instanceof ConcurrentHashMap;
+    }
+
+    /**
+     * Make a concurrent copy of this JSONObject: one that threads can share,
+     * reading and changing it without locks of their own, whose nested
+     * JSONObjects and JSONArrays are concurrent too. Its members are kept in
+     * a ConcurrentHashMap, and the elements of its JSONArrays in
+     * copy-on-write arrays.
+     * <p>
+     * Each method that reads or puts one member is atomic, and so are
+     * {@link #accumulate(String, Object)}, {@link #append(String, Object)},
+     * {@link #increment(String)} and {@link #putOnce(String, Object)}; a
+     * sequence of calls is not. Iteration, {@link #write(Writer)} and
+     * {@link #toStream()} are weakly consistent: they never throw for
+     * changes made by other threads while they run, and may or may not see
+     * them. Values put into a concurrent JSONObject are kept as they are, so
+     * a JSONObject or JSONArray to be shared should be concurrent before it
+     * is put.
+     * <p>
+     * A concurrent JSONObject is returned as it is; any other is copied,
+     * once. Warning: This method assumes that the data structure is
+     * acyclical.
+     *
+     * @return a concurrent JSONObject with the members of this one
+     */
+    public JSONObject toConcurrent() {
+        return (JSONObject) concurrent(this);
+    }
+
+    /**
+     * Make a concurrent copy of a JSONObject or JSONArray, and of the
+     * JSONObjects and JSONArrays within it that are not concurrent.
+     *
+     * @param value A value.
+     * @return The concurrent value, or the value if it is not a JSONObject or
+     *  JSONArray, or is already concurrent.
+     */
+    static Object concurrent(Object value) {
+        return copyContainers(value, true);
+    }
+
+    /**
+     * Put a value in a concurrent JSONObject as a function of the value
+     * that was there, atomically.
+     */
+    private void update(String key, BiFunction<String, Object, Object> function) {
+        if (key == null) {
+            throw new NullPointerException("Null key.");
+        }
+        ((ConcurrentMap<String, Object>) this.map).compute(key, function);
+    }
+
+    private static JSONArray concurrentArray() {
+        return new JSONArray(new ConcurrentVector(Collections.emptyList()));
+    }
+
+    /**
+     * Make a value persistent, for a persistent JSONObject or JSONArray: a
+     * Map or Collection is made into a JSONObject or JSONArray, and those
+     * are made persistent.
+     */
+    static Object persistValue(Object value) {
+        if (value instanceof Map) {
+            return new JSONObject((Map<?, ?>) value).toPersistent();
+        } else if (value instanceof Collection) {
+            return new JSONArray((Collection<?>) value).toPersistent();
+        }
+        return persist(value);
+    }
+
+    /**
+     * Make a persistent copy of a JSONObject or JSONArray, and of the
+     * JSONObjects and JSONArrays within it that are not persistent.
+     *
+     * @param value A value.
+     * @return The persistent value, or the value if it is not a JSONObject or
+     *  JSONArray, or is already persistent.
+     */
+    static Object persist(Object value) {
+        return copyContainers(value, false);
+    }
+
+    /**
+     * Make a persistent or concurrent copy of a JSONObject or JSONArray, and
+     * of the JSONObjects and JSONArrays within it that are not already of
+     * that kind. It does not recurse, so any depth can be copied. Containers
+     * are copied after the containers within them, and a container that is
+     * reached twice is copied once.
+     *
+     * @param value A value.
+     * @param concurrent true for a concurrent copy, false for a persistent one.
+     * @return The copy, or the value if it is not a JSONObject or JSONArray,
+     *  or is already of the kind.
+     */
+    private static Object copyContainers(Object value, boolean concurrent) {
+        if (!needsCopy(value, concurrent)) {
+            return value;
+        }
+        Map<Object, Object> made = new IdentityHashMap<Object, Object>();
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        ArrayDeque<Object> pending = new ArrayDeque<Object>();
+        pending.push(value);
+        while (!pending.isEmpty()) {
+            Object container = pending.peek();
+            if (made.containsKey(container)) {
+                pending.pop();
+            } else if (visited.add(container)) {
+                for (Object child : container instanceof JSONObject ? ((JSONObject) container).map.values()
+                        : (JSONArray) container) {
+                    if (needsCopy(child, concurrent) && !made.containsKey(child) && !visited.contains(child)) {
+                        pending.push(child);
+                    }
+                }
             } else {
-                value = entry.getValue();
+                pending.pop();
+                if (container instanceof JSONObject && concurrent) {
+                    Map<String, Object> members = ((JSONObject) container).map;
+                    ConcurrentHashMap<String, Object> map = new ConcurrentHashMap<String, Object>(
+                            Math.max(16, (int) (members.size() / 0.75f) + 1));
+                    for (Entry<String, Object> entry : members.entrySet()) {
+                        map.put(entry.getKey(), copied(entry.getValue(), made));
+                    }
+                    made.put(container, new JSONObject(map));
+                } else if (container instanceof JSONObject) {
+                    PersistentMap map = PersistentMap.EMPTY;
+                    for (Entry<String, Object> entry : ((JSONObject) container).map.entrySet()) {
+                        map = map.with(entry.getKey(), copied(entry.getValue(), made));
+                    }
+                    made.put(container, new JSONObject(map));
+                } else if (concurrent) {
+                    List<Object> list = new ArrayList<Object>(((JSONArray) container).length());
+                    for (Object element : (JSONArray) container) {
+                        list.add(copied(element, made));
+                    }
+                    made.put(container, new JSONArray(new ConcurrentVector(list)));
+                } else {
+                    PersistentVector list = PersistentVector.EMPTY;
+                    for (Object element : (JSONArray) container) {
+                        list = list.withAppended(copied(element, made));
+                    }
+                    made.put(container, new JSONArray(list));
+                }
             }
-            results.put(entry.getKey(), value);
         }
+        return made.get(value);
+    }
+
+    private static boolean needsCopy(Object value, boolean concurrent) {
+        if (value instanceof JSONObject) {
+            return concurrent ? !((JSONObject) value).isConcurrent() : !((JSONObject) value).isPersistent();
+        }
+        if (value instanceof JSONArray) {
+            return concurrent ? !((JSONArray) value).isConcurrent() : !((JSONArray) value).isPersistent();
+        }
+        return false;
+    }
+
+    private static Object copied(Object value, Map<Object, Object> made) {
+        Object copy = made.get(value);
+        return copy != null ? copy : value;
+    }
+
+    /**
+     * Make an object of a class from this JSONObject: the reverse of
+     * {@link #JSONObject(Object)}. A bean is made with its public
+     * constructor without parameters, and each member whose key is that of
+     * a public setter is given to the setter; a record is made with its
+     * canonical constructor. The key of a setter is the one given it by
+     * {@link JSONPropertyName}, or else the key of its getter, and setters
+     * and record components marked with {@link JSONPropertyIgnore} are left
+     * out, so a bean is read with the keys it is written with. Members
+     * without a setter are ignored, and properties without a member keep
+     * their defaults. A value that is null in the JSONObject is not set.
+     * <p>
+     * Values are converted to the types of the setters as the getters of
+     * JSONObject convert them: numbers to any numeric type, the strings
+     * "true" and "false" to booleans, and strings to enum constants by
+     * name. Nested JSONObjects are made into beans, records or maps, and
+     * JSONArrays into arrays or collections, following type arguments such
+     * as that of <code>List&lt;Person&gt;</code>. A property of type
+     * Object is given the JSON value itself. A class is reflected upon only
+     * the first time it is bound. On Android this needs API level 26, which
+     * has the method handles that the setters are called by.
+     *
+     * @param <T> The type.
+     * @param type The class of the object, or a map class.
+     * @return The object.
+     * @throws JSONException If a value cannot be converted to the type of
+     *  its setter, or the object cannot be made.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T toBean(Class<T> type) throws JSONException {
+        return (T) JSONBinder.convert(this, type, null);
+    }
+
+    /**
+     * Copy the contents of a JSONObject into a Map, or of a JSONArray into a
+     * List, converting nested containers the same way. Nested containers are
+     * converted from an explicit stack rather than by recursion.
+     *
+     * @param container A JSONObject or a JSONArray
+     * @param results The empty Map or List that receives the contents
+     */
+    @SuppressWarnings("unchecked")
+    static void toJava(Object container, Object results) {
+        ArrayDeque<Object> pending = new ArrayDeque<Object>();
+        pending.push(container);
+        pending.push(results);
+        while (!pending.isEmpty()) {
+            Object target = pending.pop();
+            Object source = pending.pop();
+            if (source instanceof JSONObject) {
+                Map<String, Object> map = (Map<String, Object>) target;
+                for (Entry<String, Object> entry : ((JSONObject) source).entrySet()) {
+                    map.put(entry.getKey(), toJavaValue(entry.getValue(), pending));
+                }
+            } else {
+                List<Object> list = (List<Object>) target;
+                for (Object element : (JSONArray) source) {
+                    list.add(toJavaValue(element, pending));
+                }
+            }
+        }
+    }
+
+    /**
+     * Convert a member of a container. A nested JSONObject or JSONArray is
+     * given an empty Map or List that is pushed for the caller to fill.
+     */
+    private static Object toJavaValue(Object value, ArrayDeque<Object> pending) {
+        Object results;
+        if (value == null || NULL.equals(value)) {
+            return null;
+        } else if (value instanceof JSONObject) {
+            results = new HashMap<String, Object>();
+        } else if (value instanceof JSONArray) {
+            results = new ArrayList<Object>(((JSONArray) value).length());
+        } else {
+            return value;
+        }
+        pending.push(value);
+        pending.push(results);
         return results;
     }
 
     /**
+     * Stream the nodes of this JSONObject, itself first, in breadth-first
+     * order. In a concurrent JSONObject the stream is weakly consistent: a
+     * node removed by another thread before it is reached has a null value.
      *
      * @return Stream of JSONNode
      */
@@ -2627,11 +3326,13 @@ public class JSONObject {
         // add top level complete JSONObject
         traversalQueue.add(new JSONPointer(""));
         streamingQueue.add(new JSONPointer(""));
+        // in a concurrent JSONObject, a node removed while it is streamed is null
+        final boolean weak = this.isConcurrent();
 
         while (!traversalQueue.isEmpty()){
             JSONPointer pointer = traversalQueue.remove(0);
             // add to streaming queue
-            Object value = this.query(pointer);
+            Object value = weak ? this.optQuery(pointer) : this.query(pointer);
             if (value == null || value.equals(NULL)){
                 // nothing to add
             }else if (value instanceof String){
@@ -2666,7 +3367,7 @@ public class JSONObject {
             }
         }
 
-        return streamingQueue.stream().map((pointer)-> new JSONNode(pointer, query(pointer)));
+        return streamingQueue.stream().map((pointer)-> new JSONNode(pointer, weak ? optQuery(pointer) : query(pointer)));
     }
     
     /**
@@ -0,0 +1,260 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a large JSONArray file on several threads. A pre-scan of the bytes
+ * of the file, which follows strings and their escapes, finds the commas
+ * between the elements of the array, and the runs of elements between some
+ * of those commas are parsed in parallel. The elements of the runs are then
+ * put, in order, into one JSONArray, which is the one
+ * {@link JSONArray#JSONArray(JSONTokener, JSONParserConfiguration)} builds.
+ * <p>
+ * The file is read as UTF-8, with positional reads, so it may be larger
+ * than can be mapped. Files the pre-scan does not split, and files with
+ * errors, are parsed on the calling thread, so errors are reported exactly
+ * as the sequential parser reports them.
+ */
+final class JSONParallelParser {
+
+    /** Each thread is given about this many runs, to even out their sizes. */
+    private static final int RUNS_PER_THREAD = 4;
+
+    /** A run is no larger than about this many bytes, to bound the memory of the text being parsed. */
+    private static final long MAX_RUN = 1 << 24;
+
+    /** The size of the reads of the pre-scan. */
+    private static final int SCAN_BUFFER = 1 << 20;
+
+    private JSONParallelParser() {
+    }
+
+    static JSONArray toJSONArray(Path path, JSONParserConfiguration config, int threads) throws JSONException {
+        try {
+            if (threads > 1) {
+                JSONArray jsonArray = toJSONArrayInParallel(path, config, threads);
+                if (jsonArray != null) {
+                    return jsonArray;
+                }
+            }
+            Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            try {
+                return new JSONArray(new JSONTokener(reader), config);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * @return the JSONArray, or null if the file must be parsed
+     *  sequentially
+     */
+    private static JSONArray toJSONArrayInParallel(Path path, final JSONParserConfiguration config,
+            int threads) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        ForkJoinPool pool = null;
+        try {
+            long size = channel.size();
+            long target = Math.min(size / (threads * RUNS_PER_THREAD) + 1, MAX_RUN);
+            List<Long> splits = scan(channel, size, target);
+            if (splits == null || splits.size() <= 2) {
+                return null;
+            }
+            pool = new ForkJoinPool(threads);
+            List<Future<JSONArray>> runs = new ArrayList<Future<JSONArray>>(splits.size() / 2);
+            for (int i = 0; i < splits.size(); i += 2) {
+                final long start = splits.get(i).longValue();
+                final long end = splits.get(i + 1).longValue();
+                final boolean last = i + 2 == splits.size();
+                runs.add(pool.submit(new Callable<JSONArray>() {
+                    @Override
+                    public JSONArray call() throws IOException {
+                        return parseRun(channel, start, end, last, config);
+                    }
+                }));
+            }
+            List<JSONArray> arrays = new ArrayList<JSONArray>(runs.size());
+            int length = 0;
+            for (Future<JSONArray> run : runs) {
+                JSONArray array = run.get();
+                if (array == null) {
+                    return null;
+                }
+                arrays.add(array);
+                length += array.length();
+            }
+            JSONArray jsonArray = new JSONArray(length);
+            for (JSONArray array : arrays) {
+                jsonArray.putAll(array);
+            }
+            return jsonArray;
+        } catch (ExecutionException e) {
+            // parse again on this thread to report the error the sequential parser reports
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSONException(e);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Parse the elements of a run, between two commas of the array or its
+     * brackets.
+     *
+     * @return the elements, or null if the run must not be split from the
+     *  rest of the array, as when it has a left out element at an end
+     */
+    private static JSONArray parseRun(FileChannel channel, long start, long end, boolean last,
+            JSONParserConfiguration config) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) {
+                return null;
+            }
+        }
+        bytes.flip();
+        // malformed bytes are reported by the sequential parser
+        String text = StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+        String trimmed = text.trim();
+        if (!last && (trimmed.isEmpty() || trimmed.charAt(trimmed.length() - 1) == ',')) {
+            return null;
+        }
+        JSONTokener x = new JSONTokener("[" + text + "]");
+        JSONArray jsonArray = new JSONArray(x, config);
+        // the run must be read to its end, and no further
+        if (x.nextClean() != 0) {
+            return null;
+        }
+        return jsonArray;
+    }
+
+    /**
+     * Find commas between the elements of the array that split its content
+     * into runs of about the target size.
+     *
+     * @return the start and the end of each run: the first starts after the
+     *  '[', and the last ends at the ']', and the others start after and end
+     *  at the commas; or null if the file does not begin with an array, or
+     *  the array does not end with ']'
+     */
+    private static List<Long> scan(FileChannel channel, long size, long target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER);
+        List<Long> splits = new ArrayList<Long>();
+        long lastSplit = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escape = false;
+        byte quote = 0;
+        // the last byte outside a string that is not whitespace
+        byte previous = 0;
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                return null;
+            }
+            for (int i = 0; i < n; i += 1, position += 1) {
+                byte b = buffer.get(i);
+                if (inString) {
+                    if (escape) {
+                        escape = false;
+                    } else if (b == '\\') {
+                        escape = true;
+                    } else if (b == quote) {
+                        inString = false;
+                        previous = b;
+                    }
+                    continue;
+                }
+                if (b >= 0 && b <= ' ') {
+                    continue;
+                }
+                if (depth == 0) {
+                    if (b != '[' || !splits.isEmpty()) {
+                        return null;
+                    }
+                    depth = 1;
+                    lastSplit = position + 1;
+                    splits.add(Long.valueOf(lastSplit));
+                } else if (b == '"' || b == '\'' && isValueStart(previous)) {
+                    // a single quote may be part of an unquoted value
+                    inString = true;
+                    quote = b;
+                } else if (b == '[' || b == '{') {
+                    depth += 1;
+                } else if (b == ']' || b == '}') {
+                    depth -= 1;
+                    if (depth == 0) {
+                        if (b != ']') {
+                            return null;
+                        }
+                        splits.add(Long.valueOf(position));
+                        return splits;
+                    }
+                } else if (b == ',' && depth == 1 && position - lastSplit >= target) {
+                    splits.add(Long.valueOf(position));
+                    lastSplit = position + 1;
+                    splits.add(Long.valueOf(lastSplit));
+                }
+                previous = b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determine if a value or key begins after a char, as JSONTokener reads
+     * a text.
+     */
+    private static boolean isValueStart(byte previous) {
+        return previous == '[' || previous == '{' || previous == ',' || previous == ':' || previous == ';';
+    }
+}
@@ -0,0 +1,124 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.time.Duration;
+
+/**
+ * Configuration object for the JSON parser. The configuration is immutable.
+ */
+public class JSONParserConfiguration {
+    /**
+     * Used to indicate there's no defined limit to the maximum nesting depth when parsing a
+     * JSON document.
+     */
+    public static final int UNDEFINED_MAXIMUM_NESTING_DEPTH = -1;
+
+    /**
+     * The default maximum nesting depth when parsing a JSON document.
+     */
+    public static final int DEFAULT_MAXIMUM_NESTING_DEPTH = 512;
+
+    /**
+     * The maximum number of JSONObjects and JSONArrays that may be open at
+     * once while parsing.
+     */
+    private int maxNestingDepth;
+
+    /**
+     * The longest time a parse may take, or <code>null</code> for no limit.
+     */
+    private Duration timeout;
+
+    /**
+     * Default parser configuration. Nesting is limited to
+     * {@link #DEFAULT_MAXIMUM_NESTING_DEPTH} levels.
+     */
+    public JSONParserConfiguration() {
+        this.maxNestingDepth = DEFAULT_MAXIMUM_NESTING_DEPTH;
+    }
+
+    /**
+     * Provides a new instance of the same configuration.
+     */
+    @Override
+    protected JSONParserConfiguration clone() {
+        JSONParserConfiguration newConfig = new JSONParserConfiguration();
+        newConfig.maxNestingDepth = this.maxNestingDepth;
+        newConfig.timeout = this.timeout;
+        return newConfig;
+    }
+
+    /**
+     * The maximum nesting depth that the parser will descend before throwing an exception
+     * when parsing a JSON document.
+     * @return the maximum nesting depth set for this configuration
+     */
+    public int getMaxNestingDepth() {
+        return this.maxNestingDepth;
+    }
+
+    /**
+     * Defines the maximum nesting depth that the parser will descend before throwing an exception
+     * when parsing a JSON document. The default max nesting depth is 512, which means the parser
+     * will throw a JSONException if the maximum depth is reached.
+     * Using any negative value as a parameter is equivalent to setting no limit to the nesting depth,
+     * which means the parser will go as deep as the memory allows.
+     * @param maxNestingDepth the maximum nesting depth allowed to the JSON parser
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public JSONParserConfiguration withMaxNestingDepth(int maxNestingDepth) {
+        JSONParserConfiguration newConfig = this.clone();
+        if (maxNestingDepth > UNDEFINED_MAXIMUM_NESTING_DEPTH) {
+            newConfig.maxNestingDepth = maxNestingDepth;
+        } else {
+            newConfig.maxNestingDepth = UNDEFINED_MAXIMUM_NESTING_DEPTH;
+        }
+        return newConfig;
+    }
+
+    /**
+     * The longest time a parse may take before it fails.
+     * @return the timeout, or <code>null</code> if there is no limit
+     */
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Defines the longest time a parse may take. The time is counted from the
+     * start of the parse, and once it has passed the parser throws a
+     * JSONException. A parse with a timeout also stops with a JSONException
+     * when its thread is interrupted.
+     * @param timeout the longest time a parse may take, or <code>null</code> for no limit
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public JSONParserConfiguration withTimeout(Duration timeout) {
+        JSONParserConfiguration newConfig = this.clone();
+        newConfig.timeout = timeout;
+        return newConfig;
+    }
+}
@@ -187,6 +187,17 @@ public class JSONPointer {
         this.refTokens = new ArrayList<String>(refTokens);
     }
 
+    /**
+     * Returns the unescaped reference tokens of this pointer. Used by the
+     * streaming XML methods that match the pointer against element names
+     * as they are read instead of evaluating it against a built document.
+     *
+     * @return an unmodifiable view of the reference tokens
+     */
+    List<String> getRefTokens() {
+        return Collections.unmodifiableList(this.refTokens);
+    }
+
     private static String unescape(String token) {
         return token.replace("~1", "/").replace("~0", "~")
                 .replace("\\\"", "\"")
@@ -0,0 +1,388 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * A JSON parser that is fed its input a chunk at a time, as it arrives from
+ * a channel or a socket, instead of reading it from a Reader. No call
+ * blocks waiting for input: each chunk is buffered and parsed as far as it
+ * goes, and the parse resumes where it stopped when the next chunk arrives,
+ * so an event loop can parse a request body while it is still being
+ * received, without holding all of its text.
+ * <p>
+ * The text is parsed as {@link JSONObject#JSONObject(JSONTokener, JSONParserConfiguration)}
+ * and {@link JSONArray#JSONArray(JSONTokener, JSONParserConfiguration)}
+ * parse it, whatever the chunks are: a chunk may end in the middle of a
+ * string, a number or a multibyte UTF-8 sequence. The result, and the
+ * message of any syntax error, are the same as if the text had been read at
+ * once.
+ * <p>
+ * The {@link JSONParserConfiguration#getTimeout() timeout} of the
+ * configuration is counted from the first chunk, and includes the time
+ * spent waiting for later chunks, so an input that arrives too slowly fails
+ * as one that is too long to parse does. It is checked as the chars are
+ * read and whenever a chunk is fed.
+ * <pre>{@code
+ * JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration());
+ * while (channel.read(buffer) >= 0) {
+ *     buffer.flip();
+ *     parser.feed(buffer);
+ *     buffer.clear();
+ * }
+ * parser.endOfInput();
+ * JSONObject jsonObject = (JSONObject) parser.getValue();
+ * }</pre>
+ */
+public class JSONPushParser {
+
+    /** Between tokens. */
+    private static final int BETWEEN = 0;
+    /** In an unquoted value. */
+    private static final int UNQUOTED = 1;
+    /** In a quoted string. */
+    private static final int QUOTED = 2;
+    /** After a backslash in a quoted string. */
+    private static final int ESCAPE = 3;
+
+    private final int maxNestingDepth;
+    private final Duration timeout;
+    private final Consumer<Object> values;
+    /** True if the values passed on are the elements of an array. */
+    private final boolean elements;
+    private final PushReader input = new PushReader();
+    private final JSONTokener x = new JSONTokener(this.input);
+    private final JSONTokener.Position position = new JSONTokener.Position();
+
+    /** The state of the parse of the current text, or null between texts. */
+    private JSONTokener.ParseState state;
+    private Object value;
+
+    /** The state of the scan for the ends of tokens. */
+    private int scan = BETWEEN;
+    /** The quote that ends the current quoted string. */
+    private char quote;
+    /** The number of chars scanned. */
+    private long scanned;
+    /** The number of chars up to the end of the last token scanned. */
+    private long boundary;
+    /** The number of chars that had arrived when a step last ran out of them. */
+    private long starved = -1;
+
+    private boolean started;
+    private boolean ended;
+    private boolean finished;
+    private JSONException failure;
+
+    /**
+     * Construct a parser of a single JSONObject or JSONArray text. Input
+     * that follows the text is ignored.
+     *
+     * @param config The parser configuration.
+     */
+    public JSONPushParser(JSONParserConfiguration config) {
+        this.maxNestingDepth = config.getMaxNestingDepth();
+        this.timeout = config.getTimeout();
+        this.values = null;
+        this.elements = false;
+    }
+
+    /**
+     * Construct a parser of a sequence of JSONObject and JSONArray texts,
+     * separated by whitespace, that passes on each of them as soon as it is
+     * complete.
+     *
+     * @param config The parser configuration.
+     * @param values Receives each JSONObject or JSONArray.
+     */
+    public JSONPushParser(JSONParserConfiguration config, Consumer<Object> values) {
+        this(config, values, false);
+    }
+
+    private JSONPushParser(JSONParserConfiguration config, Consumer<Object> values, boolean elements) {
+        if (values == null) {
+            throw new NullPointerException("values cannot be null");
+        }
+        this.maxNestingDepth = config.getMaxNestingDepth();
+        this.timeout = config.getTimeout();
+        this.values = values;
+        this.elements = elements;
+    }
+
+    /**
+     * Construct a parser of a JSONArray text that passes on each element of
+     * the array as soon as it is complete, then forgets it, so a long array
+     * of records is parsed in constant memory. Input that follows the array
+     * is ignored.
+     *
+     * @param config The parser configuration.
+     * @param elements Receives each element of the array.
+     * @return The parser.
+     */
+    public static JSONPushParser forElements(JSONParserConfiguration config, Consumer<Object> elements) {
+        return new JSONPushParser(config, elements, true);
+    }
+
+    /**
+     * Feed the next chunk of the input, as chars.
+     *
+     * @param chars The chunk.
+     * @param offset The index of the first char of the chunk.
+     * @param length The number of chars in the chunk.
+     * @throws JSONException Thrown if the text is not well formed, or if the
+     *  input has ended.
+     */
+    public void feed(char[] chars, int offset, int length) throws JSONException {
+        if (!this.accepts()) {
+            return;
+        }
+        this.input.append(chars, offset, length);
+        this.parse();
+    }
+
+    /**
+     * Feed the next chunk of the input, as the remaining chars of a buffer.
+     * The buffer is drained.
+     *
+     * @param chars The chunk.
+     * @throws JSONException Thrown if the text is not well formed, or if the
+     *  input has ended.
+     */
+    public void feed(CharBuffer chars) throws JSONException {
+        if (!this.accepts()) {
+            chars.position(chars.limit());
+            return;
+        }
+        this.input.append(chars);
+        this.parse();
+    }
+
+    /**
+     * Feed the next chunk of the input, as the remaining bytes of a buffer
+     * in UTF-8. The buffer is drained; a multibyte sequence that is cut by
+     * the end of the chunk is kept until the next chunk completes it.
+     *
+     * @param bytes The chunk.
+     * @throws JSONException Thrown if the text is not well formed, or if the
+     *  input has ended.
+     */
+    public void feed(ByteBuffer bytes) throws JSONException {
+        if (!this.accepts()) {
+            bytes.position(bytes.limit());
+            return;
+        }
+        this.input.append(bytes);
+        this.parse();
+    }
+
+    /**
+     * Report that all of the input has been fed, and finish parsing it.
+     *
+     * @throws JSONException Thrown if the text is not well formed or is
+     *  incomplete.
+     */
+    public void endOfInput() throws JSONException {
+        if (!this.accepts()) {
+            this.ended = true;
+            return;
+        }
+        this.input.endOfInput();
+        this.ended = true;
+        this.parse();
+    }
+
+    /**
+     * @return true if the text, or the sequence of texts, has been parsed
+     *  to its end; later chunks are ignored
+     */
+    public boolean isDone() {
+        return this.finished;
+    }
+
+    /**
+     * @return the JSONObject or JSONArray once it is done, or null if it is
+     *  not done or the parser passes on a sequence of texts or elements
+     */
+    public Object getValue() {
+        return this.finished ? this.value : null;
+    }
+
+    /**
+     * @return false if the parser is done and input is to be ignored
+     * @throws JSONException if the parser has failed, or the input has ended
+     */
+    private boolean accepts() throws JSONException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+        if (this.ended) {
+            throw new JSONException("The input has ended");
+        }
+        return !this.finished;
+    }
+
+    /**
+     * Scan the chars that arrived for the ends of tokens, then parse as far
+     * as they go. A step that runs out of chars is undone, and is not run
+     * again until the end of another token has arrived, so the chars of a
+     * long token are not parsed over and over.
+     */
+    private void parse() throws JSONException {
+        if (!this.started) {
+            this.started = true;
+            this.x.setTimeout(this.timeout);
+        } else {
+            try {
+                this.x.checkCancelled();
+            } catch (JSONException e) {
+                this.failure = e;
+                throw e;
+            }
+        }
+        PushReader input = this.input;
+        for (int i = (int) (this.scanned - input.base); i < input.end; i += 1) {
+            if (this.scan(input.buf[i])) {
+                this.boundary = input.base + i + 1;
+            }
+        }
+        this.scanned = input.base + input.end;
+        while (!this.finished && (input.isEnded() || this.boundary > this.starved)) {
+            int start = input.start;
+            this.x.savePosition(this.position);
+            JSONTokener.ParseState state = this.state;
+            int depth = 0;
+            Object value = null;
+            boolean descend = false;
+            if (state != null) {
+                depth = state.depth;
+                value = state.value;
+                descend = state.descend;
+            }
+            try {
+                this.step();
+            } catch (JSONException e) {
+                if (!PushReader.isUnderflow(e)) {
+                    this.failure = e;
+                    throw e;
+                }
+                input.start = start;
+                this.x.restorePosition(this.position);
+                this.state = state;
+                if (state != null) {
+                    state.depth = depth;
+                    state.value = value;
+                    state.descend = descend;
+                }
+                this.starved = input.base + input.end;
+            }
+        }
+    }
+
+    /**
+     * Read the start of the next text, or the next value or end of a
+     * container of the current text.
+     */
+    private void step() throws JSONException {
+        if (this.state == null) {
+            char c = this.x.nextClean();
+            if (c == 0 && this.values != null && !this.elements) {
+                this.finished = true;
+            } else if (c == '{' && !this.elements) {
+                this.value = new JSONObject();
+                this.state = new JSONTokener.ParseState(this.value, this.maxNestingDepth);
+            } else if (c == '[') {
+                this.value = new JSONArray();
+                this.state = new JSONTokener.ParseState(this.value, this.maxNestingDepth);
+            } else if (this.elements) {
+                throw this.x.syntaxError("A JSONArray text must start with '['");
+            } else {
+                throw this.x.syntaxError("A JSON text must begin with '{' or '['");
+            }
+        } else if (!this.x.parseNext(this.state)) {
+            this.state = null;
+            if (this.values == null || this.elements) {
+                this.finished = true;
+            } else {
+                this.values.accept(this.value);
+                this.value = null;
+            }
+        } else if (this.elements && this.state.depth == 1 && !this.state.descend) {
+            // an element of the array is complete
+            this.values.accept(((JSONArray) this.value).remove(0));
+        }
+    }
+
+    /**
+     * Scan the next char, following the way JSONTokener reads tokens
+     * closely enough to know where they end.
+     *
+     * @param c The char.
+     * @return true if the char ends a token
+     */
+    private boolean scan(char c) {
+        switch (this.scan) {
+        case BETWEEN:
+            if (c <= ' ') {
+                return false;
+            }
+            if (c == '"' || c == '\'') {
+                this.quote = c;
+                this.scan = QUOTED;
+                return false;
+            }
+            if ("{}[],:;".indexOf(c) >= 0) {
+                return true;
+            }
+            this.scan = UNQUOTED;
+            return false;
+        case UNQUOTED:
+            if (c < ' ' || ",:]}/\\\"[{;=#".indexOf(c) >= 0) {
+                // the char that ends the value is read with it
+                this.scan = BETWEEN;
+                this.scan(c);
+                return true;
+            }
+            return false;
+        case QUOTED:
+            if (c == '\\') {
+                this.scan = ESCAPE;
+                return false;
+            }
+            if (c == this.quote || c == '\n' || c == '\r') {
+                this.scan = BETWEEN;
+                return true;
+            }
+            return false;
+        default:
+            this.scan = QUOTED;
+            return false;
+        }
+    }
+}
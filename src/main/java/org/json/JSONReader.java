@@ -0,0 +1,934 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.util.Arrays;
+
+/**
+ * JSONReader reads a JSON text one token at a time, so that values can be
+ * bound directly into objects of the caller without making a JSONObject or
+ * JSONArray for each. It is the reading counterpart of JSONWriter. For
+ * example, <pre>
+ * JSONReader reader = new JSONReader(new JSONTokener(myReader));
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ *     String name = reader.nextName();
+ *     if ("id".equals(name)) {
+ *         id = reader.nextLong();
+ *     } else {
+ *         reader.skipValue();
+ *     }
+ * }
+ * reader.endObject();</pre>
+ * <p>
+ * The text is read with the grammar of JSONTokener, so the same unquoted and
+ * single quoted strings, left out array elements and trailing commas are
+ * accepted, and a malformed text gives the same exceptions as
+ * <code>JSONObject</code> and <code>JSONArray</code>. One difference is that
+ * a duplicated key is not found, as the reader does not remember the keys it
+ * has read. A JSONReader reads one value, which may be a scalar, and ignores
+ * the text after it.
+ */
+public class JSONReader {
+
+    /** The kinds of token that {@link #peek()} returns. */
+    public enum Token {
+        /** The start of an object, read by {@link JSONReader#beginObject()}. */
+        BEGIN_OBJECT,
+        /** The end of an object, read by {@link JSONReader#endObject()}. */
+        END_OBJECT,
+        /** The start of an array, read by {@link JSONReader#beginArray()}. */
+        BEGIN_ARRAY,
+        /** The end of an array, read by {@link JSONReader#endArray()}. */
+        END_ARRAY,
+        /** A key, read by {@link JSONReader#nextName()}. */
+        NAME,
+        /** A string, read by {@link JSONReader#nextString()}. */
+        STRING,
+        /** A number, read by {@link JSONReader#nextNumber()} and the like. */
+        NUMBER,
+        /** true or false, read by {@link JSONReader#nextBoolean()}. */
+        BOOLEAN,
+        /** null, read by {@link JSONReader#nextNull()}. */
+        NULL,
+        /** The end of the value. */
+        END_DOCUMENT
+    }
+
+    /** The delimiters of an unquoted value, as JSONTokener has them. */
+    private static final String DELIMITERS = ",:]}/\\\"[{;=#";
+
+    // What has been peeked, but not read.
+    private static final int PEEKED_NONE = 0;
+    private static final int PEEKED_BEGIN_OBJECT = 1;
+    private static final int PEEKED_END_OBJECT = 2;
+    private static final int PEEKED_BEGIN_ARRAY = 3;
+    private static final int PEEKED_END_ARRAY = 4;
+    /** A key whose opening quote has been read. */
+    private static final int PEEKED_QUOTED_NAME = 5;
+    /** A key, in the buffer. */
+    private static final int PEEKED_NAME = 6;
+    /** A string whose opening quote has been read. */
+    private static final int PEEKED_QUOTED = 7;
+    /** An unquoted value, in the buffer. */
+    private static final int PEEKED_UNQUOTED = 8;
+    /** An array element that is left out, which is null. */
+    private static final int PEEKED_LEFT_OUT = 9;
+    /** A string that has been read, in the buffer. */
+    private static final int PEEKED_BUFFERED = 10;
+    private static final int PEEKED_END_DOCUMENT = 11;
+
+    // The modes of the open containers, as in JSONWriter.
+    /** An array before its first element. */
+    private static final char EMPTY_ARRAY = 'a';
+    /** An array after an element. */
+    private static final char ARRAY = 'A';
+    /** An object before a key. */
+    private static final char EMPTY_OBJECT = 'o';
+    /** An object after a key. */
+    private static final char KEY = 'k';
+    /** An object after a value. */
+    private static final char OBJECT = 'O';
+    /** Before the value. */
+    private static final char INITIAL = 'i';
+    /** After the value. */
+    private static final char DONE = 'd';
+
+    private final JSONTokener x;
+
+    private final int maxNestingDepth;
+
+    /**
+     * The modes of the open containers. The bottom of the stack is the mode
+     * of the text itself.
+     */
+    private char[] stack = new char[16];
+
+    /** The number of modes in the stack. */
+    private int depth;
+
+    /** What has been peeked, a PEEKED_ value. */
+    private int peeked = PEEKED_NONE;
+
+    /** The opening quote of a quoted string that has been peeked. */
+    private char quote;
+
+    /** The text of an unquoted value, or of a key that is not a string. */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /** The kind of the unquoted value in the buffer, once known. */
+    private Token unquotedToken;
+
+    /**
+     * Make a JSONReader. Nesting is limited to
+     * {@link JSONParserConfiguration#DEFAULT_MAXIMUM_NESTING_DEPTH} levels.
+     *
+     * @param x The tokener to read from.
+     */
+    public JSONReader(JSONTokener x) {
+        this(x, new JSONParserConfiguration());
+    }
+
+    /**
+     * Make a JSONReader, using a parser configuration.
+     *
+     * @param x The tokener to read from.
+     * @param config The parser configuration, which limits the nesting and
+     *  the time allowed for reading.
+     */
+    public JSONReader(JSONTokener x, JSONParserConfiguration config) {
+        this.x = x;
+        this.maxNestingDepth = config.getMaxNestingDepth();
+        if (config.getTimeout() != null) {
+            x.setTimeout(config.getTimeout());
+        }
+        this.stack[0] = INITIAL;
+        this.depth = 1;
+    }
+
+    /**
+     * Get the kind of the next token, without reading it.
+     *
+     * @return The kind of the next token.
+     * @throws JSONException If the text is malformed.
+     */
+    public Token peek() throws JSONException {
+        switch (this.doPeek()) {
+        case PEEKED_BEGIN_OBJECT:
+            return Token.BEGIN_OBJECT;
+        case PEEKED_END_OBJECT:
+            return Token.END_OBJECT;
+        case PEEKED_BEGIN_ARRAY:
+            return Token.BEGIN_ARRAY;
+        case PEEKED_END_ARRAY:
+            return Token.END_ARRAY;
+        case PEEKED_QUOTED_NAME:
+        case PEEKED_NAME:
+            return Token.NAME;
+        case PEEKED_QUOTED:
+        case PEEKED_BUFFERED:
+            return Token.STRING;
+        case PEEKED_UNQUOTED:
+            return this.unquotedToken();
+        case PEEKED_LEFT_OUT:
+            return Token.NULL;
+        default:
+            return Token.END_DOCUMENT;
+        }
+    }
+
+    /**
+     * Determine if the object or array being read has another member or
+     * element, or if the value has not been read yet.
+     *
+     * @return true if the next token is not the end of a container or of
+     *  the value.
+     * @throws JSONException If the text is malformed.
+     */
+    public boolean hasNext() throws JSONException {
+        int p = this.doPeek();
+        return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_END_DOCUMENT;
+    }
+
+    /**
+     * Read the start of an object.
+     *
+     * @throws JSONException If the next token is not the start of an object,
+     *  or the nesting is deeper than allowed.
+     */
+    public void beginObject() throws JSONException {
+        this.expect(PEEKED_BEGIN_OBJECT, Token.BEGIN_OBJECT);
+        this.push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Read the end of an object.
+     *
+     * @throws JSONException If the next token is not the end of an object.
+     */
+    public void endObject() throws JSONException {
+        this.expect(PEEKED_END_OBJECT, Token.END_OBJECT);
+        this.depth -= 1;
+    }
+
+    /**
+     * Read the start of an array.
+     *
+     * @throws JSONException If the next token is not the start of an array,
+     *  or the nesting is deeper than allowed.
+     */
+    public void beginArray() throws JSONException {
+        this.expect(PEEKED_BEGIN_ARRAY, Token.BEGIN_ARRAY);
+        this.push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Read the end of an array.
+     *
+     * @throws JSONException If the next token is not the end of an array.
+     */
+    public void endArray() throws JSONException {
+        this.expect(PEEKED_END_ARRAY, Token.END_ARRAY);
+        this.depth -= 1;
+    }
+
+    /**
+     * Read the key of a member, and the ':' after it.
+     *
+     * @return The key.
+     * @throws JSONException If the next token is not a key.
+     */
+    public String nextName() throws JSONException {
+        int p = this.doPeek();
+        String name;
+        if (p == PEEKED_QUOTED_NAME) {
+            name = this.x.nextString(this.quote);
+        } else if (p == PEEKED_NAME) {
+            name = this.buffer.toString();
+        } else {
+            throw this.unexpected(Token.NAME);
+        }
+        this.peeked = PEEKED_NONE;
+        this.colon();
+        return name;
+    }
+
+    /**
+     * Read a string. A number is read as it is written.
+     *
+     * @return The string.
+     * @throws JSONException If the next token is not a string or a number.
+     */
+    public String nextString() throws JSONException {
+        int p = this.doPeek();
+        if (p == PEEKED_QUOTED) {
+            this.peeked = PEEKED_NONE;
+            return this.x.nextString(this.quote);
+        }
+        if (p == PEEKED_BUFFERED) {
+            this.peeked = PEEKED_NONE;
+            return this.buffer.toString();
+        }
+        if (p == PEEKED_UNQUOTED) {
+            Token token = this.unquotedToken();
+            if (token == Token.STRING || token == Token.NUMBER) {
+                this.peeked = PEEKED_NONE;
+                return this.buffer.toString();
+            }
+        }
+        throw this.unexpected(Token.STRING);
+    }
+
+    /**
+     * Read true or false.
+     *
+     * @return The boolean.
+     * @throws JSONException If the next token is not a boolean.
+     */
+    public boolean nextBoolean() throws JSONException {
+        if (this.doPeek() == PEEKED_UNQUOTED && this.unquotedToken() == Token.BOOLEAN) {
+            this.peeked = PEEKED_NONE;
+            return this.buffer.charAt(0) == 't' || this.buffer.charAt(0) == 'T';
+        }
+        throw this.unexpected(Token.BOOLEAN);
+    }
+
+    /**
+     * Read null, or an array element that is left out.
+     *
+     * @throws JSONException If the next token is not null.
+     */
+    public void nextNull() throws JSONException {
+        int p = this.doPeek();
+        if (p == PEEKED_LEFT_OUT || (p == PEEKED_UNQUOTED && this.unquotedToken() == Token.NULL)) {
+            this.peeked = PEEKED_NONE;
+            return;
+        }
+        throw this.unexpected(Token.NULL);
+    }
+
+    /**
+     * Read a number, as the JSONObject parser makes it: an Integer, Long,
+     * BigInteger, BigDecimal or Double. A string that holds a number is
+     * read as the number.
+     *
+     * @return The number.
+     * @throws JSONException If the next token is not a number.
+     */
+    public Number nextNumber() throws JSONException {
+        return JSONObject.stringToNumber(this.numberText());
+    }
+
+    /**
+     * Read a number as a long. As with JSONObject.getLong, a fraction is
+     * dropped.
+     *
+     * @return The long.
+     * @throws JSONException If the next token is not a number.
+     */
+    public long nextLong() throws JSONException {
+        int p = this.doPeek();
+        if (p == PEEKED_UNQUOTED && this.unquotedToken() == Token.NUMBER) {
+            long value = this.parseLong();
+            if (value != Long.MIN_VALUE) {
+                this.peeked = PEEKED_NONE;
+                return value;
+            }
+        }
+        return this.nextNumber().longValue();
+    }
+
+    /**
+     * Read a number as an int. As with JSONObject.getInt, a fraction is
+     * dropped.
+     *
+     * @return The int.
+     * @throws JSONException If the next token is not a number.
+     */
+    public int nextInt() throws JSONException {
+        int p = this.doPeek();
+        if (p == PEEKED_UNQUOTED && this.unquotedToken() == Token.NUMBER) {
+            long value = this.parseLong();
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                this.peeked = PEEKED_NONE;
+                return (int) value;
+            }
+        }
+        return this.nextNumber().intValue();
+    }
+
+    /**
+     * Read a number as a double.
+     *
+     * @return The double.
+     * @throws JSONException If the next token is not a number.
+     */
+    public double nextDouble() throws JSONException {
+        return this.nextNumber().doubleValue();
+    }
+
+    /**
+     * Read the next value as the JSONObject parser makes it. An object or
+     * array is read into a JSONObject or JSONArray, in which a duplicated
+     * key is an error.
+     *
+     * @return The value.
+     * @throws JSONException If the next token is not the start of a value,
+     *  or the value is malformed.
+     */
+    public Object nextValue() throws JSONException {
+        Object[] open = new Object[8];
+        String[] keys = new String[8];
+        int count = 0;
+        for (;;) {
+            Object value;
+            switch (this.doPeek()) {
+            case PEEKED_BEGIN_OBJECT:
+                this.beginObject();
+                value = new JSONObject();
+                break;
+            case PEEKED_BEGIN_ARRAY:
+                this.beginArray();
+                value = new JSONArray();
+                break;
+            case PEEKED_END_OBJECT:
+            case PEEKED_END_ARRAY:
+                if (count == 0) {
+                    throw this.unexpected(null);
+                }
+                this.peeked = PEEKED_NONE;
+                this.depth -= 1;
+                count -= 1;
+                if (count == 0) {
+                    return open[0];
+                }
+                continue;
+            case PEEKED_QUOTED_NAME:
+            case PEEKED_NAME:
+                String key = this.nextName();
+                if (((JSONObject) open[count - 1]).opt(key) != null) {
+                    throw this.x.syntaxError("Duplicate key \"" + key + "\"");
+                }
+                keys[count - 1] = key;
+                continue;
+            case PEEKED_QUOTED:
+                this.peeked = PEEKED_NONE;
+                value = this.x.nextString(this.quote);
+                break;
+            case PEEKED_UNQUOTED:
+                this.peeked = PEEKED_NONE;
+                value = JSONObject.stringToValue(this.buffer.toString());
+                break;
+            case PEEKED_BUFFERED:
+                this.peeked = PEEKED_NONE;
+                value = this.buffer.toString();
+                break;
+            case PEEKED_LEFT_OUT:
+                this.peeked = PEEKED_NONE;
+                value = JSONObject.NULL;
+                break;
+            default:
+                throw this.unexpected(null);
+            }
+            if (count > 0) {
+                Object parent = open[count - 1];
+                if (parent instanceof JSONArray) {
+                    ((JSONArray) parent).put(value);
+                } else {
+                    ((JSONObject) parent).put(keys[count - 1], value);
+                }
+            }
+            if (value instanceof JSONObject || value instanceof JSONArray) {
+                if (count == open.length) {
+                    open = Arrays.copyOf(open, count * 2);
+                    keys = Arrays.copyOf(keys, count * 2);
+                }
+                open[count++] = value;
+            } else if (count == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Read the next value as an object of a class, binding it as it is
+     * read. See {@link JSONTokener#readValue(Class)}.
+     *
+     * @param <T> The type.
+     * @param type The class of the object.
+     * @return The object, or null for a JSON null.
+     * @throws JSONException If the text is malformed, or a value cannot be
+     *  converted.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T nextValue(Class<T> type) throws JSONException {
+        return (T) JSONBinder.read(this, type, null);
+    }
+
+    /**
+     * Skip the next value, and all that it holds. If the next token is a
+     * key, the key and its value are skipped. Nothing is made while
+     * skipping, but the text is still checked.
+     *
+     * @throws JSONException If there is no value to skip, or the text is
+     *  malformed.
+     */
+    public void skipValue() throws JSONException {
+        int level = 0;
+        for (;;) {
+            switch (this.doPeek()) {
+            case PEEKED_BEGIN_OBJECT:
+                this.push(EMPTY_OBJECT);
+                level += 1;
+                continue;
+            case PEEKED_BEGIN_ARRAY:
+                this.push(EMPTY_ARRAY);
+                level += 1;
+                continue;
+            case PEEKED_END_OBJECT:
+            case PEEKED_END_ARRAY:
+                if (level == 0) {
+                    throw this.unexpected(null);
+                }
+                this.peeked = PEEKED_NONE;
+                this.depth -= 1;
+                level -= 1;
+                break;
+            case PEEKED_QUOTED_NAME:
+                this.skipString();
+                this.peeked = PEEKED_NONE;
+                this.colon();
+                // the value of the key is skipped too
+                continue;
+            case PEEKED_NAME:
+                this.peeked = PEEKED_NONE;
+                this.colon();
+                continue;
+            case PEEKED_QUOTED:
+                this.skipString();
+                this.peeked = PEEKED_NONE;
+                break;
+            case PEEKED_END_DOCUMENT:
+                throw this.unexpected(null);
+            default:
+                this.peeked = PEEKED_NONE;
+            }
+            if (level == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Make a printable string of the position of the reader.
+     *
+     * @return " at {index} [character {character} line {line}]"
+     */
+    @Override
+    public String toString() {
+        return this.x.toString();
+    }
+
+    /**
+     * Find the next token, reading as little of it as is needed to know
+     * its kind.
+     *
+     * @return a PEEKED_ value
+     */
+    private int doPeek() throws JSONException {
+        if (this.peeked != PEEKED_NONE) {
+            return this.peeked;
+        }
+        JSONTokener x = this.x;
+        char c;
+        switch (this.stack[this.depth - 1]) {
+        case INITIAL:
+            this.stack[this.depth - 1] = DONE;
+            return this.peekValue(x.nextClean());
+        case DONE:
+            return this.peeked = PEEKED_END_DOCUMENT;
+        case EMPTY_ARRAY:
+            c = x.nextClean();
+            if (c == 0) {
+                // array is unclosed. No ']' found, instead EOF
+                throw x.syntaxError("Expected a ',' or ']'");
+            }
+            if (c == ']') {
+                return this.peeked = PEEKED_END_ARRAY;
+            }
+            x.back();
+            this.stack[this.depth - 1] = ARRAY;
+            return this.peekElement();
+        case ARRAY:
+            switch (x.nextClean()) {
+            case ',':
+                c = x.nextClean();
+                if (c == 0) {
+                    throw x.syntaxError("Expected a ',' or ']'");
+                }
+                if (c == ']') {
+                    return this.peeked = PEEKED_END_ARRAY;
+                }
+                x.back();
+                return this.peekElement();
+            case ']':
+                return this.peeked = PEEKED_END_ARRAY;
+            default:
+                throw x.syntaxError("Expected a ',' or ']'");
+            }
+        case OBJECT:
+            switch (x.nextClean()) {
+            case ';':
+            case ',':
+                return this.peekName();
+            case '}':
+                return this.peeked = PEEKED_END_OBJECT;
+            default:
+                throw x.syntaxError("Expected a ',' or '}'");
+            }
+        case EMPTY_OBJECT:
+            return this.peekName();
+        default:
+            // KEY
+            this.stack[this.depth - 1] = OBJECT;
+            return this.peekValue(x.nextClean());
+        }
+    }
+
+    /** Peek an array element, which may be left out. */
+    private int peekElement() throws JSONException {
+        char c = this.x.nextClean();
+        if (c == ',') {
+            this.x.back();
+            return this.peeked = PEEKED_LEFT_OUT;
+        }
+        return this.peekValue(c);
+    }
+
+    /** Peek a key, or the end of the object. */
+    private int peekName() throws JSONException {
+        JSONTokener x = this.x;
+        char c = x.nextClean();
+        switch (c) {
+        case 0:
+            throw x.syntaxError("A JSONObject text must end with '}'");
+        case '}':
+            return this.peeked = PEEKED_END_OBJECT;
+        case '"':
+        case '\'':
+            this.quote = c;
+            return this.peeked = PEEKED_QUOTED_NAME;
+        case '{':
+        case '[':
+            // a key can be any value, as the JSONObject parser reads it
+            x.back();
+            this.buffer.setLength(0);
+            this.buffer.append(x.nextValue());
+            return this.peeked = PEEKED_NAME;
+        default:
+            this.readUnquoted(c);
+            this.buffer.replace(0, this.buffer.length(),
+                    JSONObject.stringToValue(this.buffer.toString()).toString());
+            return this.peeked = PEEKED_NAME;
+        }
+    }
+
+    /** Peek a value that begins with a char already read. */
+    private int peekValue(char c) throws JSONException {
+        switch (c) {
+        case '"':
+        case '\'':
+            this.quote = c;
+            return this.peeked = PEEKED_QUOTED;
+        case '{':
+            return this.peeked = PEEKED_BEGIN_OBJECT;
+        case '[':
+            return this.peeked = PEEKED_BEGIN_ARRAY;
+        default:
+            this.readUnquoted(c);
+            this.unquotedToken = null;
+            return this.peeked = PEEKED_UNQUOTED;
+        }
+    }
+
+    /**
+     * Read an unquoted value into the buffer, trimmed, as
+     * JSONTokener.nextSimpleValue reads it.
+     */
+    private void readUnquoted(char c) throws JSONException {
+        JSONTokener x = this.x;
+        StringBuilder sb = this.buffer;
+        sb.setLength(0);
+        while (c >= ' ' && DELIMITERS.indexOf(c) < 0) {
+            sb.append(c);
+            c = x.next();
+        }
+        if (!x.end()) {
+            x.back();
+        }
+        int length = sb.length();
+        while (length > 0 && sb.charAt(length - 1) == ' ') {
+            length -= 1;
+        }
+        if (length == 0) {
+            throw x.syntaxError("Missing value");
+        }
+        sb.setLength(length);
+    }
+
+    /** Read the ':' after a key. */
+    private void colon() throws JSONException {
+        if (this.x.nextClean() != ':') {
+            throw this.x.syntaxError("Expected a ':' after a key");
+        }
+        this.stack[this.depth - 1] = KEY;
+    }
+
+    /**
+     * Skip a quoted string whose opening quote has been read, checking it
+     * as JSONTokener.nextString does.
+     */
+    private void skipString() throws JSONException {
+        JSONTokener x = this.x;
+        char quote = this.quote;
+        for (;;) {
+            char c = x.next();
+            switch (c) {
+            case 0:
+            case '\n':
+            case '\r':
+                throw x.syntaxError("Unterminated string");
+            case '\\':
+                c = x.next();
+                switch (c) {
+                case 'b':
+                case 't':
+                case 'n':
+                case 'f':
+                case 'r':
+                case '"':
+                case '\'':
+                case '\\':
+                case '/':
+                    break;
+                case 'u':
+                    boolean valid = true;
+                    for (int i = 0; i < 4; i += 1) {
+                        c = x.next();
+                        if (x.end()) {
+                            throw x.syntaxError("Substring bounds error");
+                        }
+                        // as Integer.parseInt reads 4 chars, with an optional sign
+                        valid &= JSONTokener.dehexchar(c) >= 0 || (i == 0 && (c == '-' || c == '+'));
+                    }
+                    if (!valid) {
+                        throw x.syntaxError("Illegal escape.");
+                    }
+                    break;
+                default:
+                    throw x.syntaxError("Illegal escape.");
+                }
+                break;
+            default:
+                if (c == quote) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Open a container, after its '{' or '['. */
+    private void push(char mode) throws JSONException {
+        // the bottom of the stack is the text, not a container
+        if (this.maxNestingDepth > JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH
+                && this.depth > this.maxNestingDepth) {
+            throw this.x.syntaxError("Maximum nesting depth of " + this.maxNestingDepth + " reached");
+        }
+        if (this.depth == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+        }
+        this.stack[this.depth++] = mode;
+        this.peeked = PEEKED_NONE;
+    }
+
+    private void expect(int peeked, Token token) throws JSONException {
+        if (this.doPeek() != peeked) {
+            throw this.unexpected(token);
+        }
+        this.peeked = PEEKED_NONE;
+    }
+
+    private JSONException unexpected(Token expected) throws JSONException {
+        return this.x.syntaxError((expected == null ? "Expected a value" : "Expected " + expected)
+                + " but was " + this.peek());
+    }
+
+    /**
+     * Get the kind of the unquoted value in the buffer, as
+     * JSONObject.stringToValue would make it. A plain JSON number is known
+     * without making anything.
+     */
+    private Token unquotedToken() {
+        if (this.unquotedToken == null) {
+            this.unquotedToken = classify(this.buffer);
+        }
+        return this.unquotedToken;
+    }
+
+    private static Token classify(StringBuilder sb) {
+        if (equalsIgnoreCase(sb, "true") || equalsIgnoreCase(sb, "false")) {
+            return Token.BOOLEAN;
+        }
+        if (equalsIgnoreCase(sb, "null")) {
+            return Token.NULL;
+        }
+        char initial = sb.charAt(0);
+        if ((initial < '0' || initial > '9') && initial != '-') {
+            return Token.STRING;
+        }
+        if (isPlainNumber(sb)) {
+            return Token.NUMBER;
+        }
+        return JSONObject.stringToValue(sb.toString()) instanceof Number ? Token.NUMBER : Token.STRING;
+    }
+
+    private static boolean equalsIgnoreCase(StringBuilder sb, String word) {
+        int length = word.length();
+        if (sb.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i += 1) {
+            if (Character.toLowerCase(sb.charAt(i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine if text is a number of the JSON grammar, which
+     * JSONObject.stringToValue always makes a Number.
+     */
+    private static boolean isPlainNumber(CharSequence s) {
+        int length = s.length();
+        int i = 0;
+        if (s.charAt(i) == '-') {
+            i += 1;
+        }
+        if (i == length) {
+            return false;
+        }
+        if (s.charAt(i) == '0') {
+            i += 1;
+        } else {
+            int start = i;
+            while (i < length && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                i += 1;
+            }
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < length && s.charAt(i) == '.') {
+            int start = ++i;
+            while (i < length && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                i += 1;
+            }
+            if (i == start) {
+                return false;
+            }
+        }
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i += 1;
+            if (i < length && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                i += 1;
+            }
+            int start = i;
+            while (i < length && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                i += 1;
+            }
+            if (i == start) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    /**
+     * Parse the number in the buffer as a long, without making a String.
+     *
+     * @return the long, or Long.MIN_VALUE if it is not a plain integer
+     *  that fits a long
+     */
+    private long parseLong() {
+        StringBuilder sb = this.buffer;
+        int length = sb.length();
+        boolean negative = sb.charAt(0) == '-';
+        int i = negative ? 1 : 0;
+        if (length - i > 18) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < length; i += 1) {
+            char c = sb.charAt(i);
+            if (c < '0' || c > '9') {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (negative && value == 0) {
+            // -0 is the double -0.0
+            return Long.MIN_VALUE;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Read the text of a number, or of a string that holds a number. A
+     * string that does not is kept, to be read otherwise.
+     */
+    private String numberText() throws JSONException {
+        int p = this.doPeek();
+        if (p == PEEKED_QUOTED) {
+            this.buffer.setLength(0);
+            this.buffer.append(this.x.nextString(this.quote));
+            p = this.peeked = PEEKED_BUFFERED;
+        }
+        String text;
+        if (p == PEEKED_UNQUOTED && this.unquotedToken() == Token.NUMBER) {
+            text = this.buffer.toString();
+        } else if (p == PEEKED_BUFFERED) {
+            text = this.buffer.toString();
+            if (!(JSONObject.stringToValue(text) instanceof Number)) {
+                throw this.unexpected(Token.NUMBER);
+            }
+        } else {
+            throw this.unexpected(Token.NUMBER);
+        }
+        this.peeked = PEEKED_NONE;
+        return text;
+    }
+}
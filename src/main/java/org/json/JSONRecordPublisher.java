@@ -0,0 +1,372 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the records of a document, one JSONObject at a time, to a
+ * subscriber that asks for them. The document is read and converted only as
+ * the subscriber requests records, a chunk at a time, so a slow consumer
+ * holds back the parsing instead of letting records pile up in memory.
+ * Records can be the elements found at a path of an XML document, the lines
+ * of an NDJSON text, or the elements of a JSONArray text.
+ * <p>
+ * The protocol is the one of {@code java.util.concurrent.Flow}, whose
+ * interfaces are mirrored by {@link Subscriber} and {@link Subscription}
+ * because Flow is not available to the Java version this library is built
+ * for. On Java 9 and later, a {@code Flow.Subscriber} is adapted by
+ * forwarding each of its methods. Records are read and delivered on the
+ * thread that requests them. A publisher reads its document once, so it
+ * accepts a single subscriber. The caller must close the reader.
+ */
+public class JSONRecordPublisher {
+
+    /**
+     * Receives the records of a publisher, as a {@code Flow.Subscriber}
+     * does: onSubscribe first, then onNext once for each record requested,
+     * then onComplete or onError, unless the subscription is cancelled.
+     */
+    public interface Subscriber {
+
+        /**
+         * The subscription starts. No records are sent until some are
+         * requested.
+         *
+         * @param subscription The subscription, to request records and to
+         *  cancel it.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * @param record The next record.
+         */
+        void onNext(JSONObject record);
+
+        /**
+         * The document could not be read or converted, and no more records
+         * are sent.
+         *
+         * @param throwable The error.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Every record has been sent.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and its subscriber, as a
+     * {@code Flow.Subscription} is.
+     */
+    public interface Subscription {
+
+        /**
+         * Ask for more records. Requests add up; Long.MAX_VALUE asks for all
+         * of them.
+         *
+         * @param n The number of records, which must be positive.
+         */
+        void request(long n);
+
+        /**
+         * Stop sending records. Records that were requested may still be
+         * sent while the cancellation is taking effect.
+         */
+        void cancel();
+    }
+
+    /** The size of the chunks the document is read in. */
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Reader reader;
+    /** The records converted and not yet sent. */
+    private final ArrayDeque<JSONObject> records = new ArrayDeque<JSONObject>();
+    /** The parser the chunks are fed to. */
+    private XMLPushParser xmlParser;
+    private JSONPushParser jsonParser;
+    private char[] chunk;
+    private boolean ended;
+    /** The error met while reading, reported once the records before it are sent. */
+    private Exception failure;
+
+    private Subscriber subscriber;
+    private long demand;
+    private boolean draining;
+    /** True if a request was for no records, which ends the subscription. */
+    private boolean badRequest;
+    private boolean cancelled;
+    private boolean done;
+
+    private JSONRecordPublisher(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Publish the elements found at a path of an XML document, as
+     * {@link XMLPushParser#XMLPushParser(XMLParserConfiguration, JSONPointer, Consumer)}
+     * finds them.
+     *
+     * @param reader The XML source reader.
+     * @param path The names of the record elements and of their ancestors,
+     *  such as "/catalog/book".
+     * @param config Configuration options for the parser.
+     * @return The publisher.
+     */
+    public static JSONRecordPublisher fromXML(Reader reader, JSONPointer path,
+            XMLParserConfiguration config) {
+        final JSONRecordPublisher publisher = new JSONRecordPublisher(reader);
+        publisher.xmlParser = new XMLPushParser(config, path, new Consumer<JSONObject>() {
+            @Override
+            public void accept(JSONObject record) {
+                publisher.records.add(record);
+            }
+        });
+        return publisher;
+    }
+
+    /**
+     * Publish the JSONObject texts of an NDJSON document, one per line.
+     *
+     * @param reader The NDJSON source reader.
+     * @param config The parser configuration.
+     * @return The publisher.
+     */
+    public static JSONRecordPublisher fromLines(Reader reader, JSONParserConfiguration config) {
+        JSONRecordPublisher publisher = new JSONRecordPublisher(reader);
+        publisher.jsonParser = new JSONPushParser(config, publisher.recordAdder());
+        return publisher;
+    }
+
+    /**
+     * Publish the elements of a JSONArray text, which must all be
+     * JSONObjects.
+     *
+     * @param reader The JSON source reader.
+     * @param config The parser configuration.
+     * @return The publisher.
+     */
+    public static JSONRecordPublisher fromArray(Reader reader, JSONParserConfiguration config) {
+        JSONRecordPublisher publisher = new JSONRecordPublisher(reader);
+        publisher.jsonParser = JSONPushParser.forElements(config, publisher.recordAdder());
+        return publisher;
+    }
+
+    private Consumer<Object> recordAdder() {
+        return new Consumer<Object>() {
+            @Override
+            public void accept(Object value) {
+                if (!(value instanceof JSONObject)) {
+                    throw new JSONException("Record " + JSONObject.quote(String.valueOf(value))
+                            + " is not a JSONObject");
+                }
+                JSONRecordPublisher.this.records.add((JSONObject) value);
+            }
+        };
+    }
+
+    /**
+     * Subscribe to the records. The subscriber is given its subscription at
+     * once, and receives records as it requests them.
+     *
+     * @param subscriber The subscriber.
+     */
+    public void subscribe(Subscriber subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber cannot be null");
+        }
+        boolean first;
+        synchronized (this) {
+            first = this.subscriber == null;
+            if (first) {
+                this.subscriber = subscriber;
+            }
+        }
+        if (!first) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    // this subscriber has already failed
+                }
+
+                @Override
+                public void cancel() {
+                    // this subscriber has already failed
+                }
+            });
+            subscriber.onError(new IllegalStateException("The publisher accepts a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                JSONRecordPublisher.this.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                JSONRecordPublisher.this.cancel();
+            }
+        });
+    }
+
+    private void request(long n) {
+        synchronized (this) {
+            if (n <= 0) {
+                this.badRequest = true;
+            } else {
+                this.demand += n;
+                if (this.demand < 0) {
+                    this.demand = Long.MAX_VALUE;
+                }
+            }
+            if (this.draining) {
+                // the thread that is sending records will send these too
+                return;
+            }
+            this.draining = true;
+        }
+        this.drain();
+    }
+
+    private synchronized void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Send records while there is demand for them. A request made by the
+     * subscriber while it receives a record only adds to the demand, so the
+     * calls do not nest.
+     */
+    private void drain() {
+        for (;;) {
+            boolean badRequest;
+            synchronized (this) {
+                badRequest = this.badRequest;
+                if (this.done || this.cancelled || (this.demand == 0 && !badRequest)) {
+                    this.draining = false;
+                    return;
+                }
+            }
+            if (badRequest) {
+                this.fail(new IllegalArgumentException("The number of records requested must be positive"));
+                return;
+            }
+            JSONObject record = this.next();
+            if (record == null && this.failure != null) {
+                this.fail(this.failure);
+                return;
+            }
+            if (record == null) {
+                synchronized (this) {
+                    this.done = true;
+                    this.draining = false;
+                    if (this.cancelled) {
+                        return;
+                    }
+                }
+                this.subscriber.onComplete();
+                return;
+            }
+            synchronized (this) {
+                if (this.cancelled) {
+                    this.draining = false;
+                    return;
+                }
+                if (this.demand != Long.MAX_VALUE) {
+                    this.demand -= 1;
+                }
+            }
+            try {
+                this.subscriber.onNext(record);
+            } catch (RuntimeException e) {
+                // a subscriber that throws breaks the protocol, and is sent nothing more
+                synchronized (this) {
+                    this.done = true;
+                    this.draining = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void fail(Exception e) {
+        synchronized (this) {
+            this.done = true;
+            this.draining = false;
+            if (this.cancelled) {
+                return;
+            }
+        }
+        this.subscriber.onError(e);
+    }
+
+    /**
+     * Get the next record, reading chunks of the document until one is
+     * complete.
+     *
+     * @return The record, or null if there are no more or reading failed.
+     */
+    private JSONObject next() {
+        while (this.records.isEmpty()) {
+            if (this.ended || this.failure != null) {
+                return null;
+            }
+            try {
+                this.readChunk();
+            } catch (JSONException e) {
+                this.failure = e;
+            } catch (IOException e) {
+                this.failure = e;
+            }
+        }
+        return this.records.poll();
+    }
+
+    private void readChunk() throws IOException, JSONException {
+        if (this.chunk == null) {
+            this.chunk = new char[CHUNK_SIZE];
+        }
+        int length = this.reader.read(this.chunk, 0, this.chunk.length);
+        if (length < 0) {
+            this.ended = true;
+            if (this.xmlParser != null) {
+                this.xmlParser.endOfInput();
+            } else {
+                this.jsonParser.endOfInput();
+            }
+        } else if (this.xmlParser != null) {
+            this.xmlParser.feed(this.chunk, 0, length);
+        } else {
+            this.jsonParser.feed(this.chunk, 0, length);
+        }
+    }
+}
@@ -0,0 +1,771 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A read-only JSON document in a binary form that is used where it lies,
+ * typically in a file mapped into memory. A large document that every
+ * process reads can so be written once with {@link #write(Object, Path)}
+ * and then opened with {@link #open(Path)} at next to no cost: nothing is
+ * parsed or copied when it is opened, and the processes that map the file
+ * share its pages in the operating system's cache.
+ * <p>
+ * The JSONObjects and JSONArrays of a JSONTape are views of it that read
+ * each value when it is asked for. The members of a JSONObject are sorted
+ * by key, so a key is found by binary search, and an element of a JSONArray
+ * is found by its index at once. The views cannot be changed: a method that
+ * would change one throws UnsupportedOperationException, so copy a view,
+ * as with {@code new JSONObject(view.toMap())}, to change it. Since they
+ * only read, the views of a JSONTape can be used by several threads at
+ * once. Members are listed in the order of their keys.
+ * <p>
+ * The values are those of the document written, with their types:
+ * Integers, Longs, Doubles, Floats, BigIntegers and BigDecimals are kept as
+ * they are, and other values are converted as JSONObject.toString converts
+ * them. A JSONTape is at most 2 GB long.
+ */
+public final class JSONTape {
+
+    /*
+     * A JSONTape begins with MAGIC and the int VERSION, and ends with the
+     * offset of the root value. A value is a tag byte followed by its
+     * data, and is referred to by its offset. Ints are big-endian.
+     *
+     *   'O' count (key offset, value offset) * count   a JSONObject,
+     *                                                  sorted by the UTF-8
+     *                                                  bytes of the keys
+     *   'A' count (value offset) * count               a JSONArray
+     *   'S' length bytes                               a UTF-8 string
+     *   'I' int, 'L' long, 'D' double, 'R' float       numbers
+     *   'G' length digits, 'B' length digits           a BigInteger or a
+     *                                                  BigDecimal as text
+     *   't', 'f', 'n'                                  true, false, null
+     *
+     * Values are written before the containers that hold them, and equal
+     * strings are written once.
+     */
+    private static final byte[] MAGIC = {'J', 'S', 'O', 'N', 'T', 'A', 'P', 'E'};
+    private static final int VERSION = 1;
+    private static final int HEADER = MAGIC.length + 4;
+
+    private final ByteBuffer buffer;
+    private final int root;
+
+    private JSONTape(ByteBuffer buffer) throws JSONException {
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        if (limit < HEADER + 5) {
+            throw new JSONException("Not a JSONTape");
+        }
+        for (int i = 0; i < MAGIC.length; i += 1) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new JSONException("Not a JSONTape");
+            }
+        }
+        if (buffer.getInt(MAGIC.length) != VERSION) {
+            throw new JSONException("Unsupported JSONTape version " + buffer.getInt(MAGIC.length));
+        }
+        this.root = buffer.getInt(limit - 4);
+        if (this.root < HEADER || this.root >= limit - 4) {
+            throw new JSONException("Malformed JSONTape");
+        }
+    }
+
+    /**
+     * Open a JSONTape file by mapping it into memory. The file is only
+     * read, and must not be changed while the JSONTape is used.
+     *
+     * @param path The file.
+     * @return The JSONTape.
+     * @throws JSONException If the file cannot be read, or is not a JSONTape.
+     */
+    public static JSONTape open(Path path) throws JSONException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new JSONException("Not a JSONTape");
+            }
+            return new JSONTape(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Use a JSONTape that is in a buffer, from its start to its limit. The
+     * buffer must not be changed while the JSONTape is used.
+     *
+     * @param buffer The buffer.
+     * @return The JSONTape.
+     * @throws JSONException If the buffer does not hold a JSONTape.
+     */
+    public static JSONTape wrap(ByteBuffer buffer) throws JSONException {
+        return new JSONTape(buffer.slice());
+    }
+
+    /**
+     * Get the JSONObject of the JSONTape.
+     *
+     * @return A read-only view of the JSONObject.
+     * @throws JSONException If the JSONTape holds a JSONArray.
+     */
+    public JSONObject getJSONObject() throws JSONException {
+        Object value = this.value(this.root);
+        if (value instanceof JSONObject) {
+            return (JSONObject) value;
+        }
+        throw new JSONException("The JSONTape does not hold a JSONObject.");
+    }
+
+    /**
+     * Get the JSONArray of the JSONTape.
+     *
+     * @return A read-only view of the JSONArray.
+     * @throws JSONException If the JSONTape holds a JSONObject.
+     */
+    public JSONArray getJSONArray() throws JSONException {
+        Object value = this.value(this.root);
+        if (value instanceof JSONArray) {
+            return (JSONArray) value;
+        }
+        throw new JSONException("The JSONTape does not hold a JSONArray.");
+    }
+
+    /**
+     * Write a JSONObject or JSONArray, or a map, collection or array, as a
+     * JSONTape file, replacing the file if there is one.
+     *
+     * @param value The value.
+     * @param path The file.
+     * @throws JSONException If the value cannot be written, or the file fails.
+     */
+    public static void write(Object value, Path path) throws JSONException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(value, out);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * Write a JSONObject or JSONArray, or a map, collection or array, as a
+     * JSONTape. The output is flushed but not closed.
+     *
+     * @param value The value.
+     * @param out The output.
+     * @throws JSONException If the value cannot be written, or the output fails.
+     */
+    public static void write(Object value, OutputStream out) throws JSONException {
+        try {
+            Writer writer = new Writer(new BufferedOutputStream(out, 1 << 16));
+            writer.write(value);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * The map of a JSONObject view.
+     *
+     * @param at The offset of the JSONObject.
+     */
+    Map<String, Object> map(int at) {
+        return new TapeMap(this, at);
+    }
+
+    /**
+     * The list of a JSONArray view.
+     *
+     * @param at The offset of the JSONArray.
+     */
+    List<Object> list(int at) {
+        return new TapeList(this, at);
+    }
+
+    /** Read the value at an offset. */
+    private Object value(int at) {
+        ByteBuffer buffer = this.buffer;
+        switch (buffer.get(at)) {
+        case 'O':
+            return new JSONObject(this, at);
+        case 'A':
+            return new JSONArray(this, at);
+        case 'S':
+            return this.string(at);
+        case 'I':
+            return Integer.valueOf(buffer.getInt(at + 1));
+        case 'L':
+            return Long.valueOf(buffer.getLong(at + 1));
+        case 'D':
+            return Double.valueOf(buffer.getDouble(at + 1));
+        case 'R':
+            return Float.valueOf(buffer.getFloat(at + 1));
+        case 'G':
+            return new BigInteger(this.string(at));
+        case 'B':
+            return new BigDecimal(this.string(at));
+        case 't':
+            return Boolean.TRUE;
+        case 'f':
+            return Boolean.FALSE;
+        case 'n':
+            return JSONObject.NULL;
+        default:
+            throw new JSONException("Malformed JSONTape at " + at);
+        }
+    }
+
+    /** Read the string at an offset. */
+    private String string(int at) {
+        int length = this.buffer.getInt(at + 1);
+        ByteBuffer bytes = this.buffer.duplicate();
+        bytes.position(at + 5);
+        bytes.limit(at + 5 + length);
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + at + 5, length, StandardCharsets.UTF_8);
+        }
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    /**
+     * Compare the UTF-8 bytes of the string at an offset with others, as
+     * unsigned bytes.
+     */
+    private int compare(int at, byte[] key) {
+        ByteBuffer buffer = this.buffer;
+        int length = buffer.getInt(at + 1);
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i += 1) {
+            int c = (buffer.get(at + 5 + i) & 0xFF) - (key[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return length - key.length;
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i += 1) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("A JSONTape is read-only");
+    }
+
+    /** A container that the writer is in the middle of writing. */
+    private static final class WriteFrame {
+        final WriteFrame parent;
+        /** The sorted keys of a JSONObject, or null for a JSONArray. */
+        final String[] keys;
+        final JSONObject object;
+        final JSONArray array;
+        final int[] offsets;
+        int next;
+
+        WriteFrame(WriteFrame parent, JSONObject object) {
+            this.parent = parent;
+            this.object = object;
+            this.array = null;
+            int count = object.length();
+            final String[] keys = object.keySet().toArray(new String[count]);
+            final byte[][] bytes = new byte[count][];
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i += 1) {
+                bytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+                order[i] = Integer.valueOf(i);
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return compareUnsigned(bytes[a.intValue()], bytes[b.intValue()]);
+                }
+            });
+            this.keys = new String[count];
+            for (int i = 0; i < count; i += 1) {
+                this.keys[i] = keys[order[i].intValue()];
+            }
+            this.offsets = new int[count];
+        }
+
+        WriteFrame(WriteFrame parent, JSONArray array) {
+            this.parent = parent;
+            this.keys = null;
+            this.object = null;
+            this.array = array;
+            this.offsets = new int[array.length()];
+        }
+
+        Object nextValue() {
+            return this.keys != null ? this.object.opt(this.keys[this.next]) : this.array.opt(this.next);
+        }
+    }
+
+    /**
+     * Writes values before the containers that hold them, from an explicit
+     * stack, and keeps the offsets of the strings and constants written.
+     */
+    private static final class Writer {
+        private final OutputStream out;
+        private long position;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+        private final Map<Object, Integer> constants = new HashMap<Object, Integer>();
+        private final byte[] scratch = new byte[9];
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(Object value) throws IOException {
+            value = container(value);
+            if (!(value instanceof JSONObject || value instanceof JSONArray)) {
+                throw new JSONException("A JSONTape holds a JSONObject or a JSONArray.");
+            }
+            this.out.write(MAGIC);
+            this.writeInt(VERSION);
+            this.position = HEADER;
+            WriteFrame top = null;
+            for (;;) {
+                value = container(value);
+                if (value instanceof JSONObject) {
+                    top = new WriteFrame(top, (JSONObject) value);
+                } else if (value instanceof JSONArray) {
+                    top = new WriteFrame(top, (JSONArray) value);
+                } else {
+                    top.offsets[top.next++] = this.simple(value);
+                }
+                // write the containers that are complete
+                while (top.next == top.offsets.length) {
+                    int offset = this.container(top);
+                    top = top.parent;
+                    if (top == null) {
+                        this.writeInt(offset);
+                        this.out.flush();
+                        return;
+                    }
+                    top.offsets[top.next++] = offset;
+                }
+                value = top.nextValue();
+            }
+        }
+
+        /**
+         * Convert a value to a JSONObject or JSONArray if it is written as
+         * one, as JSONObject.toString does.
+         */
+        private static Object container(Object value) {
+            if (value instanceof JSONString) {
+                Object text;
+                try {
+                    text = ((JSONString) value).toJSONString();
+                } catch (Exception e) {
+                    throw new JSONException(e);
+                }
+                value = text == null ? value.toString() : new JSONTokener(text.toString()).nextValue();
+            }
+            if (value instanceof Map) {
+                return new JSONObject((Map<?, ?>) value);
+            } else if (value instanceof Collection) {
+                return new JSONArray((Collection<?>) value);
+            } else if (value != null && value.getClass().isArray()) {
+                return new JSONArray(value);
+            }
+            return value;
+        }
+
+        /** Write a JSONObject or JSONArray whose values have been written. */
+        private int container(WriteFrame frame) throws IOException {
+            int count = frame.offsets.length;
+            int[] keys = null;
+            if (frame.keys != null) {
+                keys = new int[count];
+                for (int i = 0; i < count; i += 1) {
+                    keys[i] = this.string(frame.keys[i]);
+                }
+            }
+            int offset = this.offset();
+            this.out.write(keys != null ? 'O' : 'A');
+            this.writeInt(count);
+            for (int i = 0; i < count; i += 1) {
+                if (keys != null) {
+                    this.writeInt(keys[i]);
+                }
+                this.writeInt(frame.offsets[i]);
+            }
+            this.position += 5 + (keys != null ? 8L : 4L) * count;
+            return offset;
+        }
+
+        /** Write a value that is neither a JSONObject nor a JSONArray. */
+        private int simple(Object value) throws IOException {
+            if (value == null || JSONObject.NULL.equals(value)) {
+                return this.constant(JSONObject.NULL, 'n');
+            } else if (value instanceof Boolean) {
+                return ((Boolean) value).booleanValue() ? this.constant(Boolean.TRUE, 't')
+                        : this.constant(Boolean.FALSE, 'f');
+            } else if (value instanceof Number) {
+                return this.number((Number) value);
+            } else if (value instanceof Enum<?>) {
+                return this.string(((Enum<?>) value).name());
+            }
+            return this.string(value.toString());
+        }
+
+        private int constant(Object value, char tag) throws IOException {
+            Integer offset = this.constants.get(value);
+            if (offset == null) {
+                offset = Integer.valueOf(this.offset());
+                this.out.write(tag);
+                this.position += 1;
+                this.constants.put(value, offset);
+            }
+            return offset.intValue();
+        }
+
+        private int number(Number number) throws IOException {
+            JSONObject.testValidity(number);
+            byte[] scratch = this.scratch;
+            ByteBuffer data = ByteBuffer.wrap(scratch, 1, 8);
+            if (number instanceof Integer || number instanceof Short || number instanceof Byte
+                    || number instanceof AtomicInteger) {
+                scratch[0] = 'I';
+                data.putInt(number.intValue());
+            } else if (number instanceof Long || number instanceof AtomicLong) {
+                scratch[0] = 'L';
+                data.putLong(number.longValue());
+            } else if (number instanceof Double) {
+                scratch[0] = 'D';
+                data.putDouble(number.doubleValue());
+            } else if (number instanceof Float) {
+                scratch[0] = 'R';
+                data.putFloat(number.floatValue());
+            } else if (number instanceof BigInteger) {
+                return this.string('G', number.toString());
+            } else if (number instanceof BigDecimal) {
+                return this.string('B', number.toString());
+            } else {
+                // as JSONObject.toString writes it
+                String string = JSONObject.numberToString(number);
+                if (JSONObject.NUMBER_PATTERN.matcher(string).matches()) {
+                    return this.number(JSONObject.stringToNumber(string));
+                }
+                return this.string(string);
+            }
+            int offset = this.offset();
+            int length = data.position();
+            this.out.write(scratch, 0, length);
+            this.position += length;
+            return offset;
+        }
+
+        /** Write a string, or find it if it has been written. */
+        private int string(String string) throws IOException {
+            Integer offset = this.strings.get(string);
+            if (offset == null) {
+                offset = Integer.valueOf(this.string('S', string));
+                this.strings.put(string, offset);
+            }
+            return offset.intValue();
+        }
+
+        private int string(char tag, String string) throws IOException {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            int offset = this.offset();
+            this.out.write(tag);
+            this.writeInt(bytes.length);
+            this.out.write(bytes);
+            this.position += 5L + bytes.length;
+            return offset;
+        }
+
+        /** The offset of the next value, which must leave room for the end. */
+        private int offset() {
+            if (this.position > Integer.MAX_VALUE - 16) {
+                throw new JSONException("A JSONTape is at most 2 GB long");
+            }
+            return (int) this.position;
+        }
+
+        private void writeInt(int value) throws IOException {
+            byte[] scratch = this.scratch;
+            scratch[0] = (byte) (value >>> 24);
+            scratch[1] = (byte) (value >>> 16);
+            scratch[2] = (byte) (value >>> 8);
+            scratch[3] = (byte) value;
+            this.out.write(scratch, 0, 4);
+        }
+    }
+
+    /** The members of a JSONObject view, sorted by key. */
+    private static final class TapeMap extends AbstractMap<String, Object> {
+        final JSONTape tape;
+        /** The offset of the first member. */
+        final int members;
+        final int count;
+
+        TapeMap(JSONTape tape, int at) {
+            this.tape = tape;
+            this.members = at + 5;
+            this.count = tape.buffer.getInt(at + 1);
+        }
+
+        int keyAt(int i) {
+            return this.tape.buffer.getInt(this.members + 8 * i);
+        }
+
+        int valueAt(int i) {
+            return this.tape.buffer.getInt(this.members + 8 * i + 4);
+        }
+
+        /** Find a key by binary search. */
+        private int find(Object key) {
+            if (!(key instanceof String)) {
+                return -1;
+            }
+            byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = this.count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int c = this.tape.compare(this.keyAt(middle), bytes);
+                if (c < 0) {
+                    low = middle + 1;
+                } else if (c > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object get(Object key) {
+            int i = this.find(key);
+            return i < 0 ? null : this.tape.value(this.valueAt(i));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.find(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return this.count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.count == 0;
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            throw readOnly();
+        }
+
+        @Override
+        public Object remove(Object key) {
+            throw readOnly();
+        }
+
+        @Override
+        public void clear() {
+            throw readOnly();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new MemberIterator<String>() {
+                        @Override
+                        String member(int i) {
+                            return TapeMap.this.tape.string(TapeMap.this.keyAt(i));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return TapeMap.this.count;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return TapeMap.this.containsKey(o);
+                }
+            };
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new MemberIterator<Map.Entry<String, Object>>() {
+                        @Override
+                        Map.Entry<String, Object> member(int i) {
+                            JSONTape tape = TapeMap.this.tape;
+                            return new AbstractMap.SimpleImmutableEntry<String, Object>(
+                                    tape.string(TapeMap.this.keyAt(i)), tape.value(TapeMap.this.valueAt(i)));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return TapeMap.this.count;
+                }
+            };
+        }
+
+        /** Lists the members in order. */
+        private abstract class MemberIterator<T> implements Iterator<T> {
+            private int next;
+
+            abstract T member(int i);
+
+            @Override
+            public boolean hasNext() {
+                return this.next < TapeMap.this.count;
+            }
+
+            @Override
+            public T next() {
+                if (this.next >= TapeMap.this.count) {
+                    throw new NoSuchElementException();
+                }
+                return this.member(this.next++);
+            }
+
+            @Override
+            public void remove() {
+                throw readOnly();
+            }
+        }
+    }
+
+    /**
+     * The elements of a JSONArray view, read from the tape as they are got.
+     */
+    private static final class TapeList extends AbstractList<Object> implements RandomAccess {
+        private final JSONTape tape;
+        private final int first;
+        private final int count;
+
+        TapeList(JSONTape tape, int at) {
+            this.tape = tape;
+            this.first = at + 5;
+            this.count = tape.buffer.getInt(at + 1);
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= this.count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.count);
+            }
+            return this.tape.value(this.tape.buffer.getInt(this.first + 4 * index));
+        }
+
+        @Override
+        public int size() {
+            return this.count;
+        }
+
+        @Override
+        public Object set(int i, Object element) {
+            throw readOnly();
+        }
+
+        @Override
+        public void add(int i, Object element) {
+            throw readOnly();
+        }
+
+        @Override
+        public Object remove(int i) {
+            throw readOnly();
+        }
+
+        @Override
+        public void clear() {
+            throw readOnly();
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super Object> filter) {
+            throw readOnly();
+        }
+
+        @Override
+        public void replaceAll(UnaryOperator<Object> operator) {
+            throw readOnly();
+        }
+
+        @Override
+        public void sort(Comparator<? super Object> c) {
+            throw readOnly();
+        }
+    }
+}
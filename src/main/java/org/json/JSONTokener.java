@@ -6,6 +6,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.time.Duration;
+import java.util.Arrays;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -55,6 +57,17 @@ public class JSONTokener {
     private boolean usePrevious;
     /** the number of characters read in the previous line. */
     private long characterPreviousLine;
+    /** characters left to read before the next check for interruption and the deadline. */
+    private int untilCheck = CHECK_INTERVAL;
+    /** the System.nanoTime by which reading must end, if hasDeadline. */
+    private long deadline;
+    /** flag to indicate that reading must end by the deadline. */
+    private boolean hasDeadline;
+    /** flag to indicate that reading ends when the thread is interrupted. */
+    private boolean interruptible;
+
+    /** the number of characters read between checks for interruption and the deadline. */
+    private static final int CHECK_INTERVAL = 4096;
 
 
     /**
@@ -205,11 +218,57 @@ public class JSONTokener {
             this.eof = true;
             return 0;
         }
+        if (this.interruptible && --this.untilCheck == 0) {
+            this.checkCancelled();
+        }
         this.incrementIndexes(c);
         this.previous = (char) c;
         return this.previous;
     }
 
+    /**
+     * Make reading fail once a time has passed, or when the thread is
+     * interrupted. Parsing a large text then gives up promptly instead of
+     * holding its thread and memory.
+     *
+     * @param timeout The time allowed from now, or null for no limit.
+     */
+    void setTimeout(Duration timeout) {
+        if (timeout == null) {
+            this.hasDeadline = false;
+        } else {
+            this.hasDeadline = true;
+            this.interruptible = true;
+            this.deadline = System.nanoTime() + timeout.toNanos();
+        }
+    }
+
+    /**
+     * Make reading fail when the thread is interrupted, as the thread of a
+     * cancelled Future is. Other tokeners ignore the interrupt status, so
+     * a thread whose flag is set can still parse.
+     */
+    void setInterruptible() {
+        this.interruptible = true;
+    }
+
+    /**
+     * Fail if reading is interruptible and the thread has been interrupted,
+     * as a cancelled Future's is, or if the deadline has passed. The
+     * interrupt status is kept.
+     *
+     * @throws JSONException if reading must stop
+     */
+    void checkCancelled() throws JSONException {
+        this.untilCheck = CHECK_INTERVAL;
+        if (this.interruptible && Thread.currentThread().isInterrupted()) {
+            throw this.syntaxError("Parsing was interrupted");
+        }
+        if (this.hasDeadline && System.nanoTime() - this.deadline > 0) {
+            throw this.syntaxError("Parsing timed out");
+        }
+    }
+
     /**
      * Increments the internal indexes according to the previous character
      * read and the character passed as the current character.
@@ -420,8 +479,6 @@ public class JSONTokener {
      */
     public Object nextValue() throws JSONException {
         char c = this.nextClean();
-        String string;
-
         switch (c) {
         case '"':
         case '\'':
@@ -433,7 +490,53 @@ public class JSONTokener {
             this.back();
             return new JSONArray(this);
         }
+        return this.nextSimpleValue(c);
+    }
+
+    /**
+     * Read the next value as an object of a class. The value is bound as it
+     * is read, as {@link JSONObject#toBean(Class)} binds a JSONObject, but
+     * without making the JSONObjects and JSONArrays between: members
+     * without a setter are skipped, and nested beans, records, arrays and
+     * collections are made directly. A duplicated key is not found; the
+     * last value is kept. Nesting is limited to
+     * {@link JSONParserConfiguration#DEFAULT_MAXIMUM_NESTING_DEPTH} levels.
+     * As for toBean, on Android this needs API level 26.
+     *
+     * @param <T> The type.
+     * @param type The class of the object, which may also be an array, a
+     *  collection, a map or a scalar class.
+     * @return The object, or null for a JSON null.
+     * @throws JSONException If the text is malformed, or a value cannot be
+     *  converted.
+     */
+    public <T> T readValue(Class<T> type) throws JSONException {
+        return this.readValue(type, new JSONParserConfiguration());
+    }
+
+    /**
+     * Read the next value as an object of a class, using a parser
+     * configuration. See {@link #readValue(Class)}.
+     *
+     * @param <T> The type.
+     * @param type The class of the object.
+     * @param config The parser configuration, which limits the nesting.
+     * @return The object, or null for a JSON null.
+     * @throws JSONException If the text is malformed, or a value cannot be
+     *  converted.
+     */
+    public <T> T readValue(Class<T> type, JSONParserConfiguration config) throws JSONException {
+        return new JSONReader(this, config).nextValue(type);
+    }
 
+    /**
+     * Get the unquoted value that starts with a character already read.
+     *
+     * @param c The first character of the value.
+     * @return A Boolean, Number, String or JSONObject.NULL.
+     * @throws JSONException If the value is missing.
+     */
+    private Object nextSimpleValue(char c) throws JSONException {
         /*
          * Handle unquoted text. This could be the values true, false, or
          * null, or it can be a number. An implementation (such as this one)
@@ -452,13 +555,277 @@ public class JSONTokener {
             this.back();
         }
 
-        string = sb.toString().trim();
+        String string = sb.toString().trim();
         if ("".equals(string)) {
             throw this.syntaxError("Missing value");
         }
         return JSONObject.stringToValue(string);
     }
 
+    /**
+     * Parse the JSONObject or JSONArray text that comes next into an empty
+     * container. Nested objects and arrays are parsed from an explicit stack
+     * rather than by recursion, so the depth of a document is limited by the
+     * configuration and not by the size of the thread's stack.
+     *
+     * @param root An empty JSONObject or JSONArray that receives the text.
+     * @param config The parser configuration.
+     * @throws JSONException If there is a syntax error, a duplicated key, or
+     *  the nesting is deeper than the configuration allows.
+     */
+    void parse(Object root, JSONParserConfiguration config) throws JSONException {
+        if (config.getTimeout() != null) {
+            this.setTimeout(config.getTimeout());
+        }
+        if (root instanceof JSONObject) {
+            if (this.nextClean() != '{') {
+                throw this.syntaxError("A JSONObject text must begin with '{'");
+            }
+        } else if (this.nextClean() != '[') {
+            throw this.syntaxError("A JSONArray text must start with '['");
+        }
+        ParseState state = new ParseState(root, config.getMaxNestingDepth());
+        while (this.parseNext(state)) {
+            // each step reads one value, or the end of a container
+        }
+    }
+
+    /**
+     * The containers that are open while a text is parsed, and what the
+     * last step of the parse read.
+     */
+    static final class ParseState {
+        final int maxNestingDepth;
+        Object[] stack = new Object[16];
+        int depth;
+        /** The value read by the last step, or null if it closed a container. */
+        Object value;
+        /** True if the value is a container whose '{' or '[' has just been read. */
+        boolean descend = true;
+
+        /**
+         * @param root An empty JSONObject or JSONArray whose '{' or '[' has
+         *  just been read.
+         * @param maxNestingDepth The maximum number of open containers, or -1
+         *  for no limit.
+         */
+        ParseState(Object root, int maxNestingDepth) {
+            this.value = root;
+            this.maxNestingDepth = maxNestingDepth;
+        }
+    }
+
+    /**
+     * Read the next value, or the end of a container, of the text being
+     * parsed. All that a step reads is read before the containers are
+     * changed, so a step that fails to read can be run again from where it
+     * started, once the position of the tokener is restored.
+     *
+     * @param state The state of the parse, updated by the step.
+     * @return false if the root container has ended
+     * @throws JSONException If there is a syntax error, a duplicated key, or
+     *  the nesting is deeper than allowed.
+     */
+    boolean parseNext(ParseState state) throws JSONException {
+        Object[] stack = state.stack;
+        int depth = state.depth;
+        Object value = state.value;
+
+        if (state.descend) {
+            // value is a container whose '{' or '[' has just been read
+            if (state.maxNestingDepth > JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH
+                    && depth >= state.maxNestingDepth) {
+                throw this.syntaxError("Maximum nesting depth of " + state.maxNestingDepth + " reached");
+            }
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+                state.stack = stack;
+            }
+            stack[depth] = value;
+            depth += 1;
+            if (value instanceof JSONArray) {
+                char c = this.nextClean();
+                if (c == 0) {
+                    // array is unclosed. No ']' found, instead EOF
+                    throw this.syntaxError("Expected a ',' or ']'");
+                }
+                if (c == ']') {
+                    value = null;
+                } else {
+                    this.back();
+                    value = this.nextElement((JSONArray) value);
+                }
+            } else {
+                value = this.nextMember((JSONObject) value);
+            }
+        } else if (stack[depth - 1] instanceof JSONArray) {
+            // a value has been added to the array
+            switch (this.nextClean()) {
+            case 0:
+                // array is unclosed. No ']' found, instead EOF
+                throw this.syntaxError("Expected a ',' or ']'");
+            case ',':
+                char c = this.nextClean();
+                if (c == 0) {
+                    // array is unclosed. No ']' found, instead EOF
+                    throw this.syntaxError("Expected a ',' or ']'");
+                }
+                if (c == ']') {
+                    value = null;
+                } else {
+                    this.back();
+                    value = this.nextElement((JSONArray) stack[depth - 1]);
+                }
+                break;
+            case ']':
+                value = null;
+                break;
+            default:
+                throw this.syntaxError("Expected a ',' or ']'");
+            }
+        } else {
+            // Pairs are separated by ','.
+            switch (this.nextClean()) {
+            case ';':
+            case ',':
+                value = this.nextMember((JSONObject) stack[depth - 1]);
+                break;
+            case '}':
+                value = null;
+                break;
+            default:
+                throw this.syntaxError("Expected a ',' or '}'");
+            }
+        }
+        state.value = value;
+        if (value == null) {
+            // the container on top of the stack is closed
+            depth -= 1;
+            stack[depth] = null;
+            state.depth = depth;
+            state.descend = false;
+            return depth > 0;
+        }
+        state.depth = depth;
+        state.descend = value instanceof JSONObject || value instanceof JSONArray;
+        return true;
+    }
+
+    /** A position of a tokener, saved so that reading can be undone. */
+    static final class Position {
+        long index;
+        long character;
+        long characterPreviousLine;
+        long line;
+        char previous;
+        boolean usePrevious;
+        boolean eof;
+    }
+
+    /**
+     * Save the position of the tokener, so that it can go back to it.
+     *
+     * @param position Receives the position.
+     */
+    void savePosition(Position position) {
+        position.index = this.index;
+        position.character = this.character;
+        position.characterPreviousLine = this.characterPreviousLine;
+        position.line = this.line;
+        position.previous = this.previous;
+        position.usePrevious = this.usePrevious;
+        position.eof = this.eof;
+    }
+
+    /**
+     * Go back to a saved position. The reader must be reset to the same
+     * position by the caller.
+     *
+     * @param position The position given by savePosition.
+     */
+    void restorePosition(Position position) {
+        this.index = position.index;
+        this.character = position.character;
+        this.characterPreviousLine = position.characterPreviousLine;
+        this.line = position.line;
+        this.previous = position.previous;
+        this.usePrevious = position.usePrevious;
+        this.eof = position.eof;
+    }
+
+    /**
+     * Read the next element of an array. A nested JSONObject or JSONArray is
+     * added empty and left for the caller to parse.
+     *
+     * @param ja The array.
+     * @return The element, which is a new empty JSONObject or JSONArray if
+     *  the element is nested.
+     */
+    private Object nextElement(JSONArray ja) throws JSONException {
+        char c = this.nextClean();
+        if (c == ',') {
+            this.back();
+            ja.put(JSONObject.NULL);
+            return JSONObject.NULL;
+        }
+        Object value = this.nextScalarOrContainer(c);
+        ja.put(value);
+        return value;
+    }
+
+    /**
+     * Read the next member of an object, or its closing '}'. A nested
+     * JSONObject or JSONArray is added empty and left for the caller to parse.
+     *
+     * @param jo The object.
+     * @return The value of the member, which is a new empty JSONObject or
+     *  JSONArray if the value is nested, or null if the object has ended.
+     */
+    private Object nextMember(JSONObject jo) throws JSONException {
+        char c = this.nextClean();
+        switch (c) {
+        case 0:
+            throw this.syntaxError("A JSONObject text must end with '}'");
+        case '}':
+            return null;
+        default:
+            this.back();
+        }
+        String key = this.nextValue().toString();
+
+        // The key is followed by ':'.
+
+        if (this.nextClean() != ':') {
+            throw this.syntaxError("Expected a ':' after a key");
+        }
+        // Check if key exists
+        if (jo.opt(key) != null) {
+            // key already exists
+            throw this.syntaxError("Duplicate key \"" + key + "\"");
+        }
+        Object value = this.nextScalarOrContainer(this.nextClean());
+        jo.put(key, value);
+        return value;
+    }
+
+    /**
+     * Get the value that starts with a character already read. A '{' or '['
+     * gives a new empty JSONObject or JSONArray.
+     */
+    private Object nextScalarOrContainer(char c) throws JSONException {
+        switch (c) {
+        case '"':
+        case '\'':
+            return this.nextString(c);
+        case '{':
+            return new JSONObject();
+        case '[':
+            return new JSONArray();
+        default:
+            return this.nextSimpleValue(c);
+        }
+    }
+
 
     /**
      * Skip characters until the next character is the requested character.
@@ -0,0 +1,152 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * The read-only views of JSONObject.asMap and JSONArray.asList. A view
+ * copies nothing: it reads the map or list of its JSONObject or JSONArray
+ * when it is used, and so sees later changes to them. Values are given as
+ * toMap and toList give them: JSONObject.NULL as null, and nested
+ * JSONObjects and JSONArrays as views of their own, made when they are
+ * reached.
+ */
+final class JSONViews {
+
+    private JSONViews() {
+    }
+
+    /**
+     * Give a value as a view gives it.
+     *
+     * @param value A value of a JSONObject or JSONArray.
+     * @return The value, null, or a view.
+     */
+    static Object unwrap(Object value) {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return null;
+        } else if (value instanceof JSONObject) {
+            return ((JSONObject) value).asMap();
+        } else if (value instanceof JSONArray) {
+            return ((JSONArray) value).asList();
+        }
+        return value;
+    }
+
+    /** A view of the map of a JSONObject. */
+    static final class ObjectView extends AbstractMap<String, Object> {
+        private final Map<String, Object> map;
+        private Set<Map.Entry<String, Object>> entries;
+
+        ObjectView(Map<String, Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return this.map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.map.isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.map.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return unwrap(this.map.get(key));
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(this.map.keySet());
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            if (this.entries == null) {
+                this.entries = new AbstractSet<Map.Entry<String, Object>>() {
+                    @Override
+                    public int size() {
+                        return ObjectView.this.map.size();
+                    }
+
+                    @Override
+                    public Iterator<Map.Entry<String, Object>> iterator() {
+                        final Iterator<Map.Entry<String, Object>> iterator = ObjectView.this.map.entrySet().iterator();
+                        return new Iterator<Map.Entry<String, Object>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return iterator.hasNext();
+                            }
+
+                            @Override
+                            public Map.Entry<String, Object> next() {
+                                Map.Entry<String, Object> entry = iterator.next();
+                                return new AbstractMap.SimpleImmutableEntry<String, Object>(entry.getKey(),
+                                        unwrap(entry.getValue()));
+                            }
+                        };
+                    }
+                };
+            }
+            return this.entries;
+        }
+    }
+
+    /** A view of the list of a JSONArray. */
+    static final class ArrayView extends AbstractList<Object> implements RandomAccess {
+        private final List<Object> list;
+
+        ArrayView(List<Object> list) {
+            this.list = list;
+        }
+
+        @Override
+        public int size() {
+            return this.list.size();
+        }
+
+        @Override
+        public Object get(int index) {
+            return unwrap(this.list.get(index));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.json;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 
@@ -51,7 +52,14 @@ SOFTWARE.
  * <p>
  * The first method called must be <code>array</code> or <code>object</code>.
  * There are no methods for adding commas or colons. JSONWriter adds them for
- * you. Objects and arrays can be nested up to 200 levels deep.
+ * you. Objects and arrays can be nested up to 200 levels deep, and a key
+ * that is repeated in an object is rejected.
+ * <p>
+ * For writing many objects quickly, {@link #JSONWriter(Appendable, boolean, int)}
+ * can leave out the check for repeated keys and raise or remove the limit on
+ * nesting. Keys and strings are escaped straight into the Appendable, and the
+ * keys of an object are checked in a small hash set that is kept for the next
+ * object at the same depth.
  * <p>
  * This can sometimes be easier than using a JSONObject to build a string.
  * @author JSON.org
@@ -77,15 +85,28 @@ public class JSONWriter {
     protected char mode;
 
     /**
-     * The object/array stack.
+     * The object/array stack: 'a' for an array, 'k' for an object. It grows
+     * as the nesting deepens.
+     */
+    private char[] stack;
+
+    /**
+     * The keys written in each object of the stack, if keys are checked. A
+     * set is kept when its object ends, for the next object at its depth.
      */
-    private final JSONObject stack[];
+    private KeySet[] keys;
 
     /**
      * The stack top index. A value of 0 indicates that the stack is empty.
      */
     private int top;
 
+    /**
+     * The maximum depth of nesting, or
+     * {@link JSONParserConfiguration#UNDEFINED_MAXIMUM_NESTING_DEPTH}.
+     */
+    private final int maxNestingDepth;
+
     /**
      * The writer that will receive the output.
      */
@@ -96,10 +117,26 @@ public class JSONWriter {
      * @param w an appendable object
      */
     public JSONWriter(Appendable w) {
+        this(w, true, maxdepth);
+    }
+
+    /**
+     * Make a fresh JSONWriter. It can be used to build one JSON text.
+     * @param w an appendable object
+     * @param checkKeys true to reject a key that is repeated in an object,
+     *  false to write keys unchecked, leaving the caller to keep them unique
+     * @param maxNestingDepth the maximum depth of nesting, or
+     *  {@link JSONParserConfiguration#UNDEFINED_MAXIMUM_NESTING_DEPTH} for no
+     *  limit
+     */
+    public JSONWriter(Appendable w, boolean checkKeys, int maxNestingDepth) {
         this.comma = false;
         this.mode = 'i';
-        this.stack = new JSONObject[maxdepth];
+        this.stack = new char[maxNestingDepth > JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH
+                ? Math.min(maxNestingDepth, 16) : 16];
+        this.keys = checkKeys ? new KeySet[this.stack.length] : null;
         this.top = 0;
+        this.maxNestingDepth = maxNestingDepth;
         this.writer = w;
     }
 
@@ -113,25 +150,45 @@ public class JSONWriter {
         if (string == null) {
             throw new JSONException("Null pointer");
         }
-        if (this.mode == 'o' || this.mode == 'a') {
+        this.beginValue();
+        try {
+            this.writer.append(string);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        return this.endValue();
+    }
+
+    /**
+     * Check that a value may be written, and write the comma before it.
+     * @throws JSONException If the value is out of sequence.
+     */
+    private void beginValue() throws JSONException {
+        if (this.mode != 'o' && this.mode != 'a') {
+            throw new JSONException("Value out of sequence.");
+        }
+        if (this.comma && this.mode == 'a') {
             try {
-                if (this.comma && this.mode == 'a') {
-                    this.writer.append(',');
-                }
-                this.writer.append(string);
+                this.writer.append(',');
             } catch (IOException e) {
             	// Android as of API 25 does not support this exception constructor
             	// however we won't worry about it. If an exception is happening here
             	// it will just throw a "Method not found" exception instead.
                 throw new JSONException(e);
             }
-            if (this.mode == 'o') {
-                this.mode = 'k';
-            }
-            this.comma = true;
-            return this;
         }
-        throw new JSONException("Value out of sequence.");
+    }
+
+    /**
+     * Note that a value has been written.
+     * @return this
+     */
+    private JSONWriter endValue() {
+        if (this.mode == 'o') {
+            this.mode = 'k';
+        }
+        this.comma = true;
+        return this;
     }
 
     /**
@@ -145,7 +202,7 @@ public class JSONWriter {
      */
     public JSONWriter array() throws JSONException {
         if (this.mode == 'i' || this.mode == 'o' || this.mode == 'a') {
-            this.push(null);
+            this.push('a');
             this.append("[");
             this.comma = false;
             return this;
@@ -213,16 +270,13 @@ public class JSONWriter {
         }
         if (this.mode == 'k') {
             try {
-                JSONObject topObject = this.stack[this.top - 1];
-                // don't use the built in putOnce method to maintain Android support
-				if(topObject.has(string)) {
-					throw new JSONException("Duplicate key \"" + string + "\"");
-				}
-                topObject.put(string, true);
+                if (this.keys != null && !this.keys[this.top - 1].add(string)) {
+                    throw new JSONException("Duplicate key \"" + string + "\"");
+                }
                 if (this.comma) {
                     this.writer.append(',');
                 }
-                this.writer.append(JSONObject.quote(string));
+                JSONObject.quote(string, this.writer);
                 this.writer.append(':');
                 this.comma = false;
                 this.mode = 'o';
@@ -253,7 +307,7 @@ public class JSONWriter {
         }
         if (this.mode == 'o' || this.mode == 'a') {
             this.append("{");
-            this.push(new JSONObject());
+            this.push('k');
             this.comma = false;
             return this;
         }
@@ -271,32 +325,94 @@ public class JSONWriter {
         if (this.top <= 0) {
             throw new JSONException("Nesting error.");
         }
-        char m = this.stack[this.top - 1] == null ? 'a' : 'k';
+        char m = this.stack[this.top - 1];
         if (m != c) {
             throw new JSONException("Nesting error.");
         }
         this.top -= 1;
+        if (m == 'k' && this.keys != null) {
+            this.keys[this.top].clear();
+        }
         this.mode = this.top == 0
             ? 'd'
-            : this.stack[this.top - 1] == null
-            ? 'a'
-            : 'k';
+            : this.stack[this.top - 1];
     }
 
     /**
      * Push an array or object scope.
-     * @param jo The scope to open.
+     * @param m The scope to open: 'a' for an array, 'k' for an object.
      * @throws JSONException If nesting is too deep.
      */
-    private void push(JSONObject jo) throws JSONException {
-        if (this.top >= maxdepth) {
+    private void push(char m) throws JSONException {
+        if (this.maxNestingDepth > JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH
+                && this.top >= this.maxNestingDepth) {
             throw new JSONException("Nesting too deep.");
         }
-        this.stack[this.top] = jo;
-        this.mode = jo == null ? 'a' : 'k';
+        if (this.top == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.top * 2);
+            if (this.keys != null) {
+                this.keys = Arrays.copyOf(this.keys, this.top * 2);
+            }
+        }
+        if (m == 'k' && this.keys != null && this.keys[this.top] == null) {
+            this.keys[this.top] = new KeySet();
+        }
+        this.stack[this.top] = m;
+        this.mode = m;
         this.top += 1;
     }
 
+    /**
+     * The keys of an object, in an open-addressing hash table.
+     */
+    private static final class KeySet {
+        private String[] table = new String[8];
+        private int size;
+
+        /**
+         * Add a key.
+         * @param key The key.
+         * @return false if the key was already in the set.
+         */
+        boolean add(String key) {
+            int mask = this.table.length - 1;
+            int h = key.hashCode() * 0x9E3779B9;
+            int i = (h ^ h >>> 16) & mask;
+            for (String k = this.table[i]; k != null; k = this.table[i]) {
+                if (k.equals(key)) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            this.table[i] = key;
+            this.size += 1;
+            if (this.size * 2 > this.table.length) {
+                String[] old = this.table;
+                this.table = new String[old.length * 2];
+                this.size = 0;
+                for (String k : old) {
+                    if (k != null) {
+                        this.add(k);
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Empty the set for the next object, giving up a table that a large
+         * object has grown.
+         */
+        void clear() {
+            if (this.table.length > 64) {
+                this.table = new String[8];
+            } else if (this.size > 0) {
+                Arrays.fill(this.table, null);
+            }
+            this.size = 0;
+        }
+    }
+
     /**
      * Make a JSON text of an Object value. If the object has an
      * value.toJSONString() method, then that method will be used to produce the
@@ -387,7 +503,7 @@ public class JSONWriter {
      * @throws JSONException If the number is not finite.
      */
     public JSONWriter value(double d) throws JSONException {
-        return this.value(Double.valueOf(d));
+        return this.append(JSONObject.numberToString(Double.valueOf(d)));
     }
 
     /**
@@ -409,6 +525,18 @@ public class JSONWriter {
      * @throws JSONException If the value is out of sequence.
      */
     public JSONWriter value(Object object) throws JSONException {
+        if (object instanceof String) {
+            this.beginValue();
+            try {
+                JSONObject.quote((String) object, this.writer);
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+            return this.endValue();
+        }
+        if (object instanceof Integer || object instanceof Long || object instanceof Boolean) {
+            return this.append(object.toString());
+        }
         return this.append(valueToString(object));
     }
 }
@@ -0,0 +1,474 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The map of a persistent JSONObject: a hash array mapped trie that cannot
+ * be changed. {@link #with(String, Object)} and {@link #without(String)}
+ * make new maps that share all but the path to the changed member with
+ * this one, so they take time and space in the order of log n. Because
+ * nothing in it changes, a map can be shared between threads without
+ * locks.
+ * <p>
+ * Each level of the trie takes five bits of the hash of a key. A branch
+ * keeps a bitmap of the children it has and an array of just those
+ * children; keys whose hashes are equal are kept together in one node.
+ */
+final class PersistentMap extends AbstractMap<String, Object> {
+
+    /** The empty map. */
+    static final PersistentMap EMPTY = new PersistentMap(null, 0);
+
+    /** The root, or null if the map is empty. */
+    private final Node root;
+    private final int size;
+    private transient Set<Map.Entry<String, Object>> entries;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Make a map with a member added or replaced.
+     *
+     * @param key The key.
+     * @param value The value, which is not null.
+     * @return The new map, or this map if the member is already in it.
+     */
+    PersistentMap with(String key, Object value) {
+        int hash = hash(key);
+        if (this.root == null) {
+            return new PersistentMap(new Leaf(key, hash, value), 1);
+        }
+        Node root = this.root.with(key, hash, value, 0);
+        if (root == this.root) {
+            return this;
+        }
+        return new PersistentMap(root, this.root.get(key, hash, 0) == null ? this.size + 1 : this.size);
+    }
+
+    /**
+     * Make a map without a member.
+     *
+     * @param key The key.
+     * @return The new map, or this map if it has no such member.
+     */
+    PersistentMap without(String key) {
+        if (this.root == null) {
+            return this;
+        }
+        Node root = this.root.without(key, hash(key), 0);
+        if (root == this.root) {
+            return this;
+        }
+        return root == null ? EMPTY : new PersistentMap(root, this.size - 1);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return key == null || this.root == null ? null : this.root.get(key, hash(key), 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw unchangeable();
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw unchangeable();
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Object> m) {
+        throw unchangeable();
+    }
+
+    @Override
+    public void clear() {
+        throw unchangeable();
+    }
+
+    static UnsupportedOperationException unchangeable() {
+        return new UnsupportedOperationException("A persistent JSONObject or JSONArray cannot be changed");
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (this.entries == null) {
+            this.entries = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public int size() {
+                    return PersistentMap.this.size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator(PersistentMap.this.root);
+                }
+            };
+        }
+        return this.entries;
+    }
+
+    /** A node of the trie. */
+    private abstract static class Node {
+        /** Get the value of a key, or null. */
+        abstract Object get(Object key, int hash, int shift);
+
+        /** Make a node with a member added or replaced, or return this node if it is there. */
+        abstract Node with(String key, int hash, Object value, int shift);
+
+        /** Make a node without a member, or return this node if it is not there, or null if none are left. */
+        abstract Node without(Object key, int hash, int shift);
+
+        /** The hash of the keys of a leaf or a collision. */
+        abstract int hash();
+    }
+
+    /**
+     * Make a branch for two nodes whose hashes differ, at a level.
+     */
+    static Node branch(Node a, Node b, int shift) {
+        int ia = (a.hash() >>> shift) & 31;
+        int ib = (b.hash() >>> shift) & 31;
+        if (ia == ib) {
+            return new Branch(1 << ia, new Node[] {branch(a, b, shift + 5)});
+        }
+        return new Branch((1 << ia) | (1 << ib), ia < ib ? new Node[] {a, b} : new Node[] {b, a});
+    }
+
+    /** A member. */
+    private static final class Leaf extends Node implements Map.Entry<String, Object> {
+        final String key;
+        final int hash;
+        final Object value;
+
+        Leaf(String key, int hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            return this.key.equals(key) ? this.value : null;
+        }
+
+        @Override
+        Node with(String key, int hash, Object value, int shift) {
+            if (this.key.equals(key)) {
+                return this.value == value ? this : new Leaf(key, hash, value);
+            } else if (this.hash == hash) {
+                return new Collision(hash, new Leaf[] {this, new Leaf(key, hash, value)});
+            }
+            return branch(this, new Leaf(key, hash, value), shift);
+        }
+
+        @Override
+        Node without(Object key, int hash, int shift) {
+            return this.key.equals(key) ? null : this;
+        }
+
+        @Override
+        int hash() {
+            return this.hash;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @Override
+        public Object getValue() {
+            return this.value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw unchangeable();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return this.key.equals(e.getKey()) && this.value.equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode() ^ this.value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+
+    /** The members whose keys have the same hash. */
+    private static final class Collision extends Node {
+        final int hash;
+        final Leaf[] leaves;
+
+        Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int find(Object key) {
+            for (int i = 0; i < this.leaves.length; i += 1) {
+                if (this.leaves[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int i = this.find(key);
+            return i < 0 ? null : this.leaves[i].value;
+        }
+
+        @Override
+        Node with(String key, int hash, Object value, int shift) {
+            if (this.hash != hash) {
+                return branch(this, new Leaf(key, hash, value), shift);
+            }
+            int i = this.find(key);
+            Leaf[] leaves;
+            if (i < 0) {
+                leaves = new Leaf[this.leaves.length + 1];
+                System.arraycopy(this.leaves, 0, leaves, 0, this.leaves.length);
+                i = this.leaves.length;
+            } else if (this.leaves[i].value == value) {
+                return this;
+            } else {
+                leaves = this.leaves.clone();
+            }
+            leaves[i] = new Leaf(key, hash, value);
+            return new Collision(hash, leaves);
+        }
+
+        @Override
+        Node without(Object key, int hash, int shift) {
+            int i = this.find(key);
+            if (i < 0) {
+                return this;
+            } else if (this.leaves.length == 2) {
+                return this.leaves[1 - i];
+            }
+            Leaf[] leaves = new Leaf[this.leaves.length - 1];
+            System.arraycopy(this.leaves, 0, leaves, 0, i);
+            System.arraycopy(this.leaves, i + 1, leaves, i, leaves.length - i);
+            return new Collision(hash, leaves);
+        }
+
+        @Override
+        int hash() {
+            return this.hash;
+        }
+    }
+
+    /** A level of the trie, with up to 32 children. */
+    private static final class Branch extends Node {
+        final int bitmap;
+        final Node[] children;
+
+        Branch(int bitmap, Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        @Override
+        Object get(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((this.bitmap & bit) == 0) {
+                return null;
+            }
+            return this.children[Integer.bitCount(this.bitmap & (bit - 1))].get(key, hash, shift + 5);
+        }
+
+        @Override
+        Node with(String key, int hash, Object value, int shift) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            int i = Integer.bitCount(this.bitmap & (bit - 1));
+            if ((this.bitmap & bit) == 0) {
+                Node[] children = new Node[this.children.length + 1];
+                System.arraycopy(this.children, 0, children, 0, i);
+                children[i] = new Leaf(key, hash, value);
+                System.arraycopy(this.children, i, children, i + 1, this.children.length - i);
+                return new Branch(this.bitmap | bit, children);
+            }
+            Node child = this.children[i].with(key, hash, value, shift + 5);
+            if (child == this.children[i]) {
+                return this;
+            }
+            Node[] children = this.children.clone();
+            children[i] = child;
+            return new Branch(this.bitmap, children);
+        }
+
+        @Override
+        Node without(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((this.bitmap & bit) == 0) {
+                return this;
+            }
+            int i = Integer.bitCount(this.bitmap & (bit - 1));
+            Node child = this.children[i].without(key, hash, shift + 5);
+            if (child == this.children[i]) {
+                return this;
+            }
+            if (child == null) {
+                if (this.children.length == 1) {
+                    return null;
+                }
+                if (this.children.length == 2 && !(this.children[1 - i] instanceof Branch)) {
+                    // a lone member moves up, so that the trie stays as shallow as it can be
+                    return this.children[1 - i];
+                }
+                Node[] children = new Node[this.children.length - 1];
+                System.arraycopy(this.children, 0, children, 0, i);
+                System.arraycopy(this.children, i + 1, children, i, children.length - i);
+                return new Branch(this.bitmap & ~bit, children);
+            }
+            if (this.children.length == 1 && !(child instanceof Branch)) {
+                return child;
+            }
+            Node[] children = this.children.clone();
+            children[i] = child;
+            return new Branch(this.bitmap, children);
+        }
+
+        @Override
+        int hash() {
+            throw new IllegalStateException();
+        }
+    }
+
+    /** Walks the trie depth first, without recursion. */
+    private static final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private final Node[][] nodes = new Node[8][];
+        private final int[] indexes = new int[8];
+        private int depth = -1;
+        private Leaf[] leaves;
+        private int leaf;
+        private Leaf next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                this.push(new Node[] {root});
+                this.advance();
+            }
+        }
+
+        private void push(Node[] children) {
+            this.depth += 1;
+            this.nodes[this.depth] = children;
+            this.indexes[this.depth] = 0;
+        }
+
+        private void advance() {
+            this.next = null;
+            if (this.leaves != null) {
+                if (this.leaf < this.leaves.length) {
+                    this.next = this.leaves[this.leaf++];
+                    return;
+                }
+                this.leaves = null;
+            }
+            while (this.depth >= 0) {
+                Node[] children = this.nodes[this.depth];
+                int i = this.indexes[this.depth];
+                if (i == children.length) {
+                    this.depth -= 1;
+                    continue;
+                }
+                this.indexes[this.depth] = i + 1;
+                Node node = children[i];
+                if (node instanceof Leaf) {
+                    this.next = (Leaf) node;
+                    return;
+                } else if (node instanceof Collision) {
+                    this.leaves = ((Collision) node).leaves;
+                    this.leaf = 1;
+                    this.next = this.leaves[0];
+                    return;
+                }
+                this.push(((Branch) node).children);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            Leaf next = this.next;
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            this.advance();
+            return next;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.util.AbstractList;
+import java.util.Comparator;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The list of a persistent JSONArray: a trie of arrays of 32 elements,
+ * with the last elements kept apart in a tail, that cannot be changed.
+ * {@link #with(int, Object)}, {@link #withAppended(Object)} and
+ * {@link #withoutLast()} make new lists that share all but the path to the
+ * changed element with this one, so they take time and space in the order
+ * of log n, and appending mostly copies only the tail. Because nothing in
+ * it changes, a list can be shared between threads without locks; the
+ * methods of List that would change it throw UnsupportedOperationException.
+ */
+final class PersistentVector extends AbstractList<Object> implements RandomAccess {
+    private static final Object[] NO_ELEMENTS = new Object[0];
+
+    /** The empty list. */
+    static final PersistentVector EMPTY = new PersistentVector(0, 5, new Object[32], NO_ELEMENTS);
+
+    private final int count;
+    /** The number of bits of an index that are above the level of the root. */
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int count, int shift, Object[] root, Object[] tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /** The index of the first element of the tail. */
+    private int tailOffset() {
+        return this.count < 32 ? 0 : ((this.count - 1) >>> 5) << 5;
+    }
+
+    /** The array that holds an element. */
+    private Object[] arrayFor(int index) {
+        if (index < 0 || index >= this.count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.count);
+        }
+        if (index >= this.tailOffset()) {
+            return this.tail;
+        }
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= 5) {
+            node = (Object[]) node[(index >>> level) & 31];
+        }
+        return node;
+    }
+
+    /**
+     * Make a list with an element replaced.
+     *
+     * @param index The index, from 0 to size() - 1.
+     * @param value The element.
+     * @return The new list.
+     */
+    PersistentVector with(int index, Object value) {
+        if (index >= this.tailOffset()) {
+            this.arrayFor(index);
+            Object[] tail = this.tail.clone();
+            tail[index & 31] = value;
+            return new PersistentVector(this.count, this.shift, this.root, tail);
+        }
+        return new PersistentVector(this.count, this.shift, with(this.shift, this.root, index, value), this.tail);
+    }
+
+    private static Object[] with(int level, Object[] node, int index, Object value) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & 31] = value;
+        } else {
+            int i = (index >>> level) & 31;
+            copy[i] = with(level - 5, (Object[]) node[i], index, value);
+        }
+        return copy;
+    }
+
+    /**
+     * Make a list with an element appended.
+     *
+     * @param value The element.
+     * @return The new list.
+     */
+    PersistentVector withAppended(Object value) {
+        if (this.count - this.tailOffset() < 32) {
+            Object[] tail = new Object[this.tail.length + 1];
+            System.arraycopy(this.tail, 0, tail, 0, this.tail.length);
+            tail[this.tail.length] = value;
+            return new PersistentVector(this.count + 1, this.shift, this.root, tail);
+        }
+        // the tail is full: it goes into the trie, which grows a level if it is full too
+        Object[] root;
+        int shift = this.shift;
+        if ((this.count >>> 5) > (1 << this.shift)) {
+            root = new Object[32];
+            root[0] = this.root;
+            root[1] = path(this.shift, this.tail);
+            shift += 5;
+        } else {
+            root = this.pushTail(this.shift, this.root, this.tail);
+        }
+        return new PersistentVector(this.count + 1, shift, root, new Object[] {value});
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tail) {
+        int i = ((this.count - 1) >>> level) & 31;
+        Object[] copy = parent.clone();
+        if (level == 5) {
+            copy[i] = tail;
+        } else {
+            Object[] child = (Object[]) parent[i];
+            copy[i] = child != null ? this.pushTail(level - 5, child, tail) : path(level - 5, tail);
+        }
+        return copy;
+    }
+
+    private static Object[] path(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[32];
+        path[0] = path(level - 5, node);
+        return path;
+    }
+
+    /**
+     * Make a list without its last element.
+     *
+     * @return The new list.
+     */
+    PersistentVector withoutLast() {
+        if (this.count == 0) {
+            throw new IndexOutOfBoundsException("Index: -1, Size: 0");
+        } else if (this.count == 1) {
+            return EMPTY;
+        } else if (this.count - this.tailOffset() > 1) {
+            Object[] tail = new Object[this.tail.length - 1];
+            System.arraycopy(this.tail, 0, tail, 0, tail.length);
+            return new PersistentVector(this.count - 1, this.shift, this.root, tail);
+        }
+        // the tail is emptied: the last array of the trie becomes the tail
+        Object[] tail = this.arrayFor(this.count - 2);
+        Object[] root = this.popTail(this.shift, this.root);
+        int shift = this.shift;
+        if (root == null) {
+            root = EMPTY.root;
+        }
+        if (shift > 5 && root[1] == null) {
+            root = (Object[]) root[0];
+            shift -= 5;
+        }
+        return new PersistentVector(this.count - 1, shift, root, tail);
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        int i = ((this.count - 2) >>> level) & 31;
+        if (level > 5) {
+            Object[] child = this.popTail(level - 5, (Object[]) node[i]);
+            if (child == null && i == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[i] = child;
+            return copy;
+        } else if (i == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[i] = null;
+        return copy;
+    }
+
+    @Override
+    public Object get(int index) {
+        return this.arrayFor(index)[index & 31];
+    }
+
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    public Object set(int i, Object element) {
+        throw PersistentMap.unchangeable();
+    }
+
+    @Override
+    public void add(int i, Object element) {
+        throw PersistentMap.unchangeable();
+    }
+
+    @Override
+    public Object remove(int i) {
+        throw PersistentMap.unchangeable();
+    }
+
+    @Override
+    public void clear() {
+        throw PersistentMap.unchangeable();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Object> filter) {
+        throw PersistentMap.unchangeable();
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Object> operator) {
+        throw PersistentMap.unchangeable();
+    }
+
+    @Override
+    public void sort(Comparator<? super Object> c) {
+        throw PersistentMap.unchangeable();
+    }
+}
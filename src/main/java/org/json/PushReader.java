@@ -0,0 +1,252 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The chars that were pushed to a parser and have not yet been read by its
+ * tokener. It never waits: when the chars run out before the input has
+ * ended, reading fails with an underflow, which the parser catches to wait
+ * for the next chunk. The chars that were read are dropped when room is
+ * needed, so only the unfinished part of the input is held.
+ */
+final class PushReader extends Reader {
+
+    /**
+     * Thrown when the chars run out before the input has ended. It is
+     * thrown at every pause in the input, so it has no stack trace.
+     */
+    private static final class Underflow extends IOException {
+        private static final long serialVersionUID = 0;
+
+        Underflow() {
+            super("More input is needed");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    char[] buf = new char[1024];
+    /** The index of the next char to read. */
+    int start;
+    /** The index after the last char that arrived. */
+    int end;
+    /** The number of chars that were dropped before buf[0]. */
+    long base;
+    private int mark = -1;
+    private int markLimit;
+    private boolean ended;
+
+    private CharsetDecoder decoder;
+    /** The bytes of an incomplete UTF-8 sequence, or null. */
+    private ByteBuffer leftover;
+
+    /**
+     * @param e An exception thrown while reading.
+     * @return true if it was thrown because the chars ran out
+     */
+    static boolean isUnderflow(JSONException e) {
+        return e.getCause() instanceof Underflow;
+    }
+
+    /**
+     * @return the number of chars read
+     */
+    long position() {
+        return this.base + this.start;
+    }
+
+    /**
+     * @return true once all of the input has arrived
+     */
+    boolean isEnded() {
+        return this.ended;
+    }
+
+    /**
+     * Add chars.
+     */
+    void append(char[] chars, int offset, int length) {
+        this.reserve(length);
+        System.arraycopy(chars, offset, this.buf, this.end, length);
+        this.end += length;
+    }
+
+    /**
+     * Add the remaining chars of a buffer, draining it.
+     */
+    void append(CharBuffer chars) {
+        int length = chars.remaining();
+        this.reserve(length);
+        chars.get(this.buf, this.end, length);
+        this.end += length;
+    }
+
+    /**
+     * Add the remaining bytes of a buffer in UTF-8, draining it. A multibyte
+     * sequence that is cut by the end of the buffer is kept until the next
+     * buffer completes it. Malformed sequences are replaced, as
+     * {@link JSONTokener#JSONTokener(java.io.InputStream)} replaces them.
+     */
+    void append(ByteBuffer bytes) {
+        if (this.decoder == null) {
+            this.decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        ByteBuffer in = bytes;
+        if (this.leftover != null) {
+            in = ByteBuffer.allocate(this.leftover.remaining() + bytes.remaining());
+            in.put(this.leftover);
+            in.put(bytes);
+            in.flip();
+            this.leftover = null;
+        }
+        this.decode(in, false);
+        if (in.hasRemaining()) {
+            this.leftover = ByteBuffer.allocate(in.remaining());
+            this.leftover.put(in);
+            this.leftover.flip();
+        }
+    }
+
+    /**
+     * Mark the end of the input. The bytes of an incomplete UTF-8 sequence
+     * are replaced.
+     */
+    void endOfInput() {
+        if (this.decoder != null) {
+            this.decode(this.leftover == null ? ByteBuffer.allocate(0) : this.leftover, true);
+            this.leftover = null;
+            CoderResult result;
+            do {
+                this.reserve(16);
+                CharBuffer out = CharBuffer.wrap(this.buf, this.end, this.buf.length - this.end);
+                result = this.decoder.flush(out);
+                this.end = out.position();
+            } while (result.isOverflow());
+        }
+        this.ended = true;
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        CoderResult result;
+        do {
+            this.reserve(Math.max(16, in.remaining()));
+            CharBuffer out = CharBuffer.wrap(this.buf, this.end, this.buf.length - this.end);
+            result = this.decoder.decode(in, out, endOfInput);
+            this.end = out.position();
+        } while (result.isOverflow());
+    }
+
+    /**
+     * Make room for more chars after end, dropping the chars that were read
+     * and can no longer be reset to.
+     */
+    private void reserve(int length) {
+        if (this.mark >= 0 && this.start - this.mark > this.markLimit) {
+            this.mark = -1;
+        }
+        if (this.end + length <= this.buf.length) {
+            return;
+        }
+        int keep = this.mark >= 0 ? this.mark : this.start;
+        int size = this.end - keep;
+        if (size + length > this.buf.length) {
+            this.buf = Arrays.copyOfRange(this.buf, keep,
+                    keep + Math.max(size + length, this.buf.length * 2));
+        } else {
+            System.arraycopy(this.buf, keep, this.buf, 0, size);
+        }
+        this.base += keep;
+        this.start -= keep;
+        this.end -= keep;
+        if (this.mark >= 0) {
+            this.mark -= keep;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.start < this.end) {
+            return this.buf[this.start++];
+        }
+        if (this.ended) {
+            return -1;
+        }
+        throw new Underflow();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int count = Math.min(len, this.end - this.start);
+        if (count <= 0) {
+            if (this.ended) {
+                return -1;
+            }
+            throw new Underflow();
+        }
+        System.arraycopy(this.buf, this.start, cbuf, off, count);
+        this.start += count;
+        return count;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) {
+        this.mark = this.start;
+        this.markLimit = readAheadLimit;
+    }
+
+    @Override
+    public void reset() {
+        this.start = this.mark;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
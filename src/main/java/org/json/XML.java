@@ -24,15 +24,16 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
 */
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -89,43 +90,23 @@ public class XML {
 
 
     /**
-     * Creates an iterator for navigating Code Points in a string instead of
-     * characters. Once Java7 support is dropped, this can be replaced with
-     * <code>
-     * string.codePoints()
-     * </code>
-     * which is available in Java8 and above.
-     *
-     * @see <a href=
-     *      "http://stackoverflow.com/a/21791059/6030888">http://stackoverflow.com/a/21791059/6030888</a>
+     * For each character below 0xA0, the text that escapes it, or null if it
+     * is written as it is.
      */
-    private static Iterable<Integer> codePointIterator(final String string) {
-        return new Iterable<Integer>() {
-            @Override
-            public Iterator<Integer> iterator() {
-                return new Iterator<Integer>() {
-                    private int nextIndex = 0;
-                    private int length = string.length();
-
-                    @Override
-                    public boolean hasNext() {
-                        return this.nextIndex < this.length;
-                    }
-
-                    @Override
-                    public Integer next() {
-                        int result = string.codePointAt(this.nextIndex);
-                        this.nextIndex += Character.charCount(result);
-                        return result;
-                    }
+    private static final String[] ESCAPES = new String[0xA0];
 
-                    @Override
-                    public void remove() {
-                        throw new UnsupportedOperationException();
-                    }
-                };
+    static {
+        // ISO control characters, including tabs and new lines, are escaped
+        for (int c = 0; c < ESCAPES.length; c += 1) {
+            if (Character.isISOControl(c)) {
+                ESCAPES[c] = "&#x" + Integer.toHexString(c) + ';';
             }
-        };
+        }
+        ESCAPES['&'] = "&amp;";
+        ESCAPES['<'] = "&lt;";
+        ESCAPES['>'] = "&gt;";
+        ESCAPES['"'] = "&quot;";
+        ESCAPES['\''] = "&apos;";
     }
 
     /**
@@ -144,61 +125,58 @@ public class XML {
      * @return The escaped string.
      */
     public static String escape(String string) {
-        StringBuilder sb = new StringBuilder(string.length());
-        for (final int cp : codePointIterator(string)) {
-            switch (cp) {
-            case '&':
-                sb.append("&amp;");
-                break;
-            case '<':
-                sb.append("&lt;");
-                break;
-            case '>':
-                sb.append("&gt;");
-                break;
-            case '"':
-                sb.append("&quot;");
-                break;
-            case '\'':
-                sb.append("&apos;");
-                break;
-            default:
-                if (mustEscape(cp)) {
-                    sb.append("&#x");
-                    sb.append(Integer.toHexString(cp));
-                    sb.append(';');
-                } else {
-                    sb.appendCodePoint(cp);
-                }
-            }
+        StringBuilder sb = new StringBuilder(string.length() + 16);
+        try {
+            return escape(string, sb).toString();
+        } catch (IOException e) {
+            // a StringBuilder does not throw
+            throw new JSONException(e);
         }
-        return sb.toString();
     }
 
     /**
-     * @param cp code point to test
-     * @return true if the code point is not valid for an XML
+     * Write a string with its special characters replaced by XML escapes, as
+     * {@link #escape(String)} does. Runs of characters that need no escape
+     * are appended whole.
+     *
+     * @param string
+     *            The string to be escaped.
+     * @param appendable
+     *            Where to write the escaped string.
+     * @return The appendable.
+     * @throws IOException If the appendable throws.
      */
-    private static boolean mustEscape(int cp) {
+    public static Appendable escape(String string, Appendable appendable) throws IOException {
         /* Valid range from https://www.w3.org/TR/REC-xml/#charsets
          *
          * #x9 | #xA | #xD | [#x20-#xD7FF] | [#xE000-#xFFFD] | [#x10000-#x10FFFF]
          *
          * any Unicode character, excluding the surrogate blocks, FFFE, and FFFF.
          */
-        // isISOControl is true when (cp >= 0 && cp <= 0x1F) || (cp >= 0x7F && cp <= 0x9F)
-        // all ISO control characters are out of range except tabs and new lines
-        return (Character.isISOControl(cp)
-                && cp != 0x9
-                && cp != 0xA
-                && cp != 0xD
-            ) || !(
-                // valid the range of acceptable characters that aren't control
-                (cp >= 0x20 && cp <= 0xD7FF)
-                || (cp >= 0xE000 && cp <= 0xFFFD)
-                || (cp >= 0x10000 && cp <= 0x10FFFF)
-            )
-        ;
+        final int length = string.length();
+        int start = 0;
+        for (int i = 0; i < length; i += 1) {
+            char c = string.charAt(i);
+            String escape;
+            if (c < ESCAPES.length) {
+                escape = ESCAPES[c];
+                if (escape == null) {
+                    continue;
+                }
+            } else if (c < Character.MIN_SURROGATE || (c > Character.MAX_SURROGATE && c < 0xFFFE)) {
+                continue;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                // a supplementary character
+                i += 1;
+                continue;
+            } else {
+                escape = "&#x" + Integer.toHexString(c) + ';';
+            }
+            appendable.append(string, start, i).append(escape);
+            start = i + 1;
+        }
+        return appendable.append(string, start, length);
     }
 
     /**
@@ -209,27 +187,27 @@ public class XML {
      * @return string with converted entities
      */
     public static String unescape(String string) {
-        StringBuilder sb = new StringBuilder(string.length());
-        for (int i = 0, length = string.length(); i < length; i++) {
-            char c = string.charAt(i);
-            if (c == '&') {
-                final int semic = string.indexOf(';', i);
-                if (semic > i) {
-                    final String entity = string.substring(i + 1, semic);
-                    sb.append(XMLTokener.unescapeEntity(entity));
-                    // skip past the entity we just parsed.
-                    i += entity.length() + 1;
-                } else {
-                    // this shouldn't happen in most cases since the parser
-                    // errors on unclosed entries.
-                    sb.append(c);
-                }
-            } else {
-                // not part of an entity
-                sb.append(c);
+        int i = string.indexOf('&');
+        if (i < 0) {
+            return string;
+        }
+        final int length = string.length();
+        StringBuilder sb = new StringBuilder(length);
+        int start = 0;
+        while (i >= 0) {
+            final int semic = string.indexOf(';', i);
+            if (semic < 0) {
+                // this shouldn't happen in most cases since the parser
+                // errors on unclosed entries.
+                break;
             }
+            sb.append(string, start, i);
+            XMLTokener.unescapeEntity(string, i + 1, semic, sb);
+            // skip past the entity we just parsed.
+            start = semic + 1;
+            i = string.indexOf('&', start);
         }
-        return sb.toString();
+        return sb.append(string, start, length).toString();
     }
 
     /**
@@ -254,26 +232,126 @@ public class XML {
     }
 
     /**
-     * Scan the content following the named tag, attaching it to the context.
+     * Read a well-formed (but not necessarily valid) XML document and report
+     * its elements, attributes, content text and CDATA sections to a visitor,
+     * in document order. Comments, prologs, DTDs and processing instructions
+     * are skipped. Every conversion of XML to JSON in this class is a visitor
+     * run by this method, so the document is read the same way by all of
+     * them, and filters such as {@link XMLKeyTransformer} and
+     * {@link XMLPointerFilter} can be combined in a single pass.
+     *
+     * @param reader The XML source reader.
+     * @param visitor The visitor that receives the document.
+     * @throws JSONException Thrown if the XML is not well formed.
+     */
+    public static void visit(Reader reader, XMLVisitor visitor) throws JSONException {
+        visit(reader, XMLParserConfiguration.ORIGINAL, visitor);
+    }
+
+    /**
+     * Read a well-formed (but not necessarily valid) XML document and report
+     * it to a visitor, as {@link #visit(Reader, XMLVisitor)} does, rejecting
+     * documents nested deeper than the configuration allows.
+     *
+     * @param reader The XML source reader.
+     * @param config Configuration options for the parser; only the maximum
+     *  nesting depth is used, the visitor applies the others.
+     * @param visitor The visitor that receives the document.
+     * @throws JSONException Thrown if the XML is not well formed or is
+     *  nested too deep.
+     */
+    public static void visit(Reader reader, XMLParserConfiguration config, XMLVisitor visitor)
+            throws JSONException {
+        visit(reader, config, visitor, false);
+    }
+
+    /**
+     * @param interruptible true if the parse stops when the thread is
+     *  interrupted, even without a timeout
+     */
+    private static void visit(Reader reader, XMLParserConfiguration config, XMLVisitor visitor,
+            boolean interruptible) throws JSONException {
+        XMLTokener x = new XMLTokener(reader);
+        x.setTimeout(config.getTimeout());
+        if (interruptible) {
+            x.setInterruptible();
+        }
+        visit(x, visitor, config.getMaxNestingDepth());
+    }
+
+    /**
+     * Scan the XML tokens, reporting them to the visitor. Open elements are
+     * kept on an array-backed stack of names rather than on the Java stack,
+     * so deep documents need no more than a slot per level.
+     *
+     * @param x
+     *            The XMLTokener containing the source string.
+     * @param visitor
+     *            The visitor that receives the document.
+     * @param maxNestingDepth
+     *            The maximum number of open elements, or -1 for no limit.
+     * @throws JSONException
+     */
+    private static void visit(XMLTokener x, XMLVisitor visitor, int maxNestingDepth) throws JSONException {
+        OpenTags open = new OpenTags();
+        while (!visitor.isDone()) {
+            if (!visitNext(x, visitor, maxNestingDepth, open)) {
+                return;
+            }
+        }
+    }
+
+    /** The names of the open elements, the outermost first. */
+    static final class OpenTags {
+        String[] names = new String[16];
+        int depth;
+    }
+
+    /**
+     * Scan the next content text, or the next markup and the content text
+     * before it when there is no element open, reporting them to the
+     * visitor. Each call reads no further than the end of the markup it
+     * reports, which lets {@link XMLPushParser} run the scan one step at a
+     * time as input arrives.
      *
      * @param x
      *            The XMLTokener containing the source string.
-     * @param context
-     *            The JSONObject that will include the new material.
-     * @param name
-     *            The tag name.
-     * @return true if the close tag is processed.
+     * @param visitor
+     *            The visitor that receives the document.
+     * @param maxNestingDepth
+     *            The maximum number of open elements, or -1 for no limit.
+     * @param open
+     *            The open elements, updated by the step.
+     * @return false if the end of the document was reached
      * @throws JSONException
      */
-    private static boolean parse(XMLTokener x, JSONObject context, String name, XMLParserConfiguration config)
+    static boolean visitNext(XMLTokener x, XMLVisitor visitor, int maxNestingDepth, OpenTags open)
             throws JSONException {
         char c;
         int i;
-        JSONObject jsonObject = null;
         String string;
         String tagName;
         Object token;
-        XMLXsiTypeConverter<?> xmlXsiTypeConverter;
+        int depth = open.depth;
+
+        if (depth == 0) {
+            x.skipPast("<");
+            if (!x.more()) {
+                return false;
+            }
+        } else {
+            // Content, between <...> and </...>
+            token = x.nextContent();
+            if (token == null) {
+                throw x.syntaxError("Unclosed tag " + open.names[depth - 1]);
+            } else if (token instanceof String) {
+                string = (String) token;
+                if (string.length() > 0) {
+                    visitor.content(string);
+                }
+                return true;
+            }
+        }
 
         // Test for and skip past these forms:
         // <!-- ... -->
@@ -294,7 +372,7 @@ public class XML {
             if (c == '-') {
                 if (x.next() == '-') {
                     x.skipPast("-->");
-                    return false;
+                    return true;
                 }
                 x.back();
             } else if (c == '[') {
@@ -303,9 +381,9 @@ public class XML {
                     if (x.next() == '[') {
                         string = x.nextCDATA();
                         if (string.length() > 0) {
-                            context.accumulate(config.getcDataTagName(), string);
+                            visitor.cdata(string);
                         }
-                        return false;
+                        return true;
                     }
                 }
                 throw x.syntaxError("Expected 'CDATA['");
@@ -321,28 +399,27 @@ public class XML {
                     i -= 1;
                 }
             } while (i > 0);
-            return false;
         } else if (token == QUEST) {
 
             // <?
             x.skipPast("?>");
-            return false;
         } else if (token == SLASH) {
 
             // Close tag </
 
             token = x.nextToken();
-            if (name == null) {
+            if (depth == 0) {
                 throw x.syntaxError("Mismatched close tag " + token);
             }
-            if (!token.equals(name)) {
-                throw x.syntaxError("Mismatched " + name + " and " + token);
+            tagName = open.names[depth - 1];
+            if (!token.equals(tagName)) {
+                throw x.syntaxError("Mismatched " + tagName + " and " + token);
             }
             if (x.nextToken() != GT) {
                 throw x.syntaxError("Misshaped close tag");
             }
-            return true;
-
+            open.names[--open.depth] = null;
+            visitor.endElement(tagName);
         } else if (token instanceof Character) {
             throw x.syntaxError("Misshaped tag");
 
@@ -350,10 +427,11 @@ public class XML {
 
         } else {
             tagName = (String) token;
+            if (maxNestingDepth > -1 && depth >= maxNestingDepth) {
+                throw x.syntaxError("Maximum nesting depth of " + maxNestingDepth + " reached");
+            }
+            visitor.startElement(tagName);
             token = null;
-            jsonObject = new JSONObject();
-            boolean nilAttributeFound = false;
-            xmlXsiTypeConverter = null;
             for (;;) {
                 if (token == null) {
                     token = x.nextToken();
@@ -367,83 +445,31 @@ public class XML {
                         if (!(token instanceof String)) {
                             throw x.syntaxError("Missing value");
                         }
-
-                        if (config.isConvertNilAttributeToNull()
-                                && NULL_ATTR.equals(string)
-                                && Boolean.parseBoolean((String) token)) {
-                            nilAttributeFound = true;
-                        } else if(config.getXsiTypeMap() != null && !config.getXsiTypeMap().isEmpty()
-                                && TYPE_ATTR.equals(string)) {
-                            xmlXsiTypeConverter = config.getXsiTypeMap().get(token);
-                        } else if (!nilAttributeFound) {
-                            jsonObject.accumulate(string,
-                                    config.isKeepStrings()
-                                            ? ((String) token)
-                                            : stringToValue((String) token));
-                        }
+                        visitor.attribute(string, (String) token);
                         token = null;
                     } else {
-                        jsonObject.accumulate(string, "");
+                        visitor.attribute(string, "");
                     }
-
-
                 } else if (token == SLASH) {
                     // Empty tag <.../>
                     if (x.nextToken() != GT) {
                         throw x.syntaxError("Misshaped tag");
                     }
-                    if (nilAttributeFound) {
-                        context.accumulate(tagName, JSONObject.NULL);
-                    } else if (jsonObject.length() > 0) {
-                        context.accumulate(tagName, jsonObject);
-                    } else {
-                        context.accumulate(tagName, "");
-                    }
-                    return false;
-
+                    visitor.endElement(tagName);
+                    break;
                 } else if (token == GT) {
-                    // Content, between <...> and </...>
-                    for (;;) {
-                        token = x.nextContent();
-                        if (token == null) {
-                            if (tagName != null) {
-                                throw x.syntaxError("Unclosed tag " + tagName);
-                            }
-                            return false;
-                        } else if (token instanceof String) {
-                            string = (String) token;
-                            if (string.length() > 0) {
-                                if(xmlXsiTypeConverter != null) {
-                                    jsonObject.accumulate(config.getcDataTagName(),
-                                            stringToValue(string, xmlXsiTypeConverter));
-                                } else {
-                                    jsonObject.accumulate(config.getcDataTagName(),
-                                            config.isKeepStrings() ? string : stringToValue(string));
-                                }
-                            }
-
-                        } else if (token == LT) {
-                            // Nested element
-                            if (parse(x, jsonObject, tagName, config)) {
-                                if (jsonObject.length() == 0) {
-                                    context.accumulate(tagName, "");
-                                } else if (jsonObject.length() == 1
-                                        && jsonObject.opt(config.getcDataTagName()) != null) {
-                                    context.accumulate(tagName, jsonObject.opt(config.getcDataTagName()));
-                                } else {
-                                    context.accumulate(tagName, jsonObject);
-                                }
-                                return false;
-                            }
-                        }
+                    if (depth == open.names.length) {
+                        open.names = Arrays.copyOf(open.names, depth * 2);
                     }
+                    open.names[open.depth++] = tagName;
+                    break;
                 } else {
                     throw x.syntaxError("Misshaped tag");
                 }
             }
         }
+        return true;
     }
-
     /**
      * This method tries to convert the given string value to the target object
      * @param string String to convert
@@ -644,16 +670,54 @@ public class XML {
      * @return A Future object that at some point in the future will hold the JSONObject, once its parsing finishes.
      */
     public static Future<JSONObject> toFutureJSONObject(Reader reader, boolean keepStrings) throws JSONException{
+        return toFutureJSONObject(reader,
+                keepStrings ? XMLParserConfiguration.KEEP_STRINGS : XMLParserConfiguration.ORIGINAL);
+    }
+
+    /**
+     * Asynchronous method to read a XML object and return a JSON Object.
+     * Cancelling the Future with <code>cancel(true)</code> stops the parse,
+     * as does the timeout of the configuration, so the thread and the
+     * partly built JSONObject are released.
+     * @param reader The XML source reader.
+     * @param config Configuration options for the parser.
+     * @return A Future object that at some point in the future will hold the JSONObject, once its parsing finishes.
+     */
+    public static Future<JSONObject> toFutureJSONObject(Reader reader, XMLParserConfiguration config) {
         Future<JSONObject> futureJSONObject = threadPool.submit(new Callable<JSONObject>(){
             public JSONObject call() throws JSONException{
-                JSONObject jo= XML.toJSONObject(reader, keepStrings);
-                return jo;
+                XMLToJSONBuilder builder = new XMLToJSONBuilder(config);
+                visit(reader, config, builder, true);
+                return builder.getJSONObject();
             }
         });
         //do not shutdown after current task is finished as future calls will not be able to use threadPool.
         // for performance sake, threadPool will automatically shutdown if unused after 60 seconds.
         return futureJSONObject;
     }
+
+    /**
+     * Convert a record-oriented XML file into a JSONObject on several
+     * threads. The children of the root element are split into runs at
+     * element boundaries found by a quick scan of the file, the runs are
+     * parsed on a fork-join pool, and the results are merged in document
+     * order, so the JSONObject is the one
+     * {@link #toJSONObject(Reader, XMLParserConfiguration)} produces. The
+     * file is read as UTF-8. A document that cannot be split, such as one
+     * with an internal DTD subset, is parsed on the calling thread.
+     *
+     * @param path The XML file.
+     * @param config Configuration options for the parser.
+     * @param threads The number of threads to parse with. With 1 or less the
+     *  file is parsed on the calling thread.
+     * @return A JSONObject containing the structured data from the XML file.
+     * @throws JSONException Thrown if the file cannot be read or there is an
+     *  error while parsing it
+     */
+    public static JSONObject toJSONObjectParallel(Path path, XMLParserConfiguration config, int threads)
+            throws JSONException {
+        return XMLParallelParser.toJSONObject(path, config, threads);
+    }
 /**
      * Find a JSONObject pointed to by a JSONPointer inside a well-formed 
      * (but not necessarily valid) XML, replace it with the replacement
@@ -679,563 +743,391 @@ public class XML {
      */
     public static JSONObject toJSONObject (Reader reader, JSONPointer path, JSONObject replacement){
         XMLParserConfiguration config = XMLParserConfiguration.ORIGINAL;
-        List<String> pointerList = new ArrayList<String>();
-        String [] pathStr;
-        if (path.toString().equals("/")){
-            pathStr = new String[0];
-        }else{
-            pathStr = path.toString().split("/");
-        }
-        // path should start with "/"
-        if (pathStr.length >0 && !pathStr[0].equals("")){
-            throw new JSONPointerException("Incorrectly formed JSON Pointer");
-        }
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(config);
+        visit(reader, new XMLReplacementFilter(path, replacement, config.getcDataTagName(), builder));
+        return builder.getJSONObject();
+    }
+
+    /**
+     * Copy a well-formed (but not necessarily valid) XML document from the
+     * reader to the writer, replacing the element pointed to by a JSONPointer
+     * with the XML form of the replacement JSONObject. No JSONObject is built
+     * for the document: everything outside the target element, including
+     * comments, processing instructions, CDATA sections and whitespace, is
+     * copied as it is read, and the content of the target element is skipped.
+     * Memory use depends on the nesting depth of the document, not its size.
+     *
+     * The pointer is matched the same way as by
+     * {@link #toJSONObject(Reader, JSONPointer, JSONObject)}: each token names
+     * an element, and a numeric token selects among same-named siblings, so
+     * "/catalog/book/1" is the second book element of the catalog. When the
+     * last token is not followed by an index, the first matching element is
+     * replaced and its later siblings of the same name are dropped, since
+     * together they form the JSONArray being replaced. The pointer "/"
+     * replaces the root element. If nothing matches, the document is copied
+     * unchanged.
+     *
+     * @param reader The XML source reader.
+     * @param path A JSONPointer path to the element to be replaced.
+     * @param replacement The JSONObject written in place of the element.
+     * @param writer The writer that receives the resulting XML.
+     * @return The writer.
+     * @throws JSONException Thrown if the XML is not well formed or the
+     *  writer fails.
+     */
+    public static Writer replace(Reader reader, JSONPointer path, JSONObject replacement, Writer writer)
+            throws JSONException {
+        XMLPointerMatcher matcher = new XMLPointerMatcher(path);
+        XMLTokener x = new XMLTokener(reader);
+        StringBuilder tag = new StringBuilder();
+        List<String> open = new ArrayList<String>();
+        try {
+            for (;;) {
+                char c = x.next();
+                if (c == 0) {
+                    break;
+                }
+                if (c != '<') {
+                    writer.write(c);
+                    continue;
+                }
+                c = x.next();
+                if (c == '!' || c == '?') {
+                    copyMeta(x, c, writer);
+                } else if (c == '/') {
+
+                    // Close tag </
+
+                    readTag(x, c, tag);
+                    String name = tagName(x, tag, 2);
+                    if (open.isEmpty()) {
+                        throw x.syntaxError("Mismatched close tag " + name);
+                    }
+                    String openName = open.remove(open.size() - 1);
+                    if (!openName.equals(name)) {
+                        throw x.syntaxError("Mismatched " + openName + " and " + name);
+                    }
+                    matcher.exit();
+                    writer.append(tag);
+                } else {
 
-        if (pathStr.length==0){
-            if (!path.toString().equals("/")){
-                throw new JSONPointerException("Incorrectly formed JSON Pointer");
+                    // Open tag <
+
+                    readTag(x, c, tag);
+                    String name = tagName(x, tag, 1);
+                    boolean empty = isEmptyTag(tag);
+                    int match = matcher.enter(name);
+                    if (match == XMLPointerMatcher.TARGET) {
+                        write(replacement, matcher.isRoot() ? null : name,
+                                XMLParserConfiguration.ORIGINAL, writer);
+                    }
+                    if (match == XMLPointerMatcher.TARGET || match == XMLPointerMatcher.DROPPED) {
+                        if (!empty) {
+                            skipElement(x, name);
+                        }
+                        matcher.exit();
+                    } else {
+                        writer.append(tag);
+                        if (empty) {
+                            matcher.exit();
+                        } else {
+                            open.add(name);
+                        }
+                    }
+                }
             }
+        } catch (IOException e) {
+            throw new JSONException(e);
         }
-        // start from second string because first should be empty because path should have started with "/"
-        for (int i=1; i<pathStr.length; i++){
-            pointerList.add(pathStr[i]); // add ea
+        if (!open.isEmpty()) {
+            throw x.syntaxError("Unclosed tag " + open.get(open.size() - 1));
         }
+        return writer;
+    }
 
-        JSONObject jo = new JSONObject();
-        XMLTokener x = new XMLTokener(reader);
-        boolean skipSaving = false; // don't skip saving
-        boolean [] foundObj = {false};
-        int recursionLevel = -1;
-        // keep looking only while jo has nothing in it.
-        // once jo has something, its time to return
-        while (x.more() && jo.length()==0) {
-            x.skipPast("<");
-            if(x.more()) {
-                 parseReplaceSubObject(x, jo, null, config, pointerList, foundObj, recursionLevel, replacement);
+    /**
+     * Read the rest of a tag, after its '&lt;', into the buffer. Quoted
+     * attribute values may contain '&gt;'.
+     *
+     * @param x The XMLTokener positioned after the '&lt;'.
+     * @param c The first character after the '&lt;'.
+     * @param tag Receives the whole tag, from '&lt;' to '&gt;'.
+     * @throws JSONException If the tag is not closed.
+     */
+    private static void readTag(XMLTokener x, char c, StringBuilder tag) throws JSONException {
+        char q = 0;
+        tag.setLength(0);
+        tag.append('<');
+        for (;;) {
+            if (c == 0) {
+                throw x.syntaxError("Misshaped element");
             }
+            tag.append(c);
+            if (q != 0) {
+                if (c == q) {
+                    q = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                q = c;
+            } else if (c == '>') {
+                return;
+            } else if (c == '<') {
+                throw x.syntaxError("Misplaced '<'");
+            }
+            c = x.next();
         }
-        return jo;
     }
 
     /**
-     * parseReplaceSubObject().
-     * This method finds and replaces a subObject inside the XML with the supplied replacement JSONObject. It returns the 
-     * resultant XML as a JSONObject
+     * Extract the element name from a tag read by readTag.
+     *
+     * @param x The XMLTokener, for error reporting.
+     * @param tag The whole tag.
+     * @param start The offset of the name: 1 for an open tag, 2 for a close tag.
+     * @return The element name.
+     * @throws JSONException If the tag has no name.
      */
-    private static boolean parseReplaceSubObject(XMLTokener x, JSONObject context, String name, XMLParserConfiguration config, List<String> pointerList, boolean [] foundObj, int recursionLevel, JSONObject replacement)
-    throws JSONException {
-char c;
-int i;
-JSONObject jsonObject = null;
-String string;
-String tagName;
-Object token;
-XMLXsiTypeConverter<?> xmlXsiTypeConverter;
-String topPointer; // pointer token at the top of the pointerList
-List<String> newPointerList; // new pointer list to pass on to the next level of recursion
-
-// Test for and skip past these forms:
-// <!-- ... -->
-// <! ... >
-// <![ ... ]]>
-// <? ... ?>
-// Report errors for these forms:
-// <>
-// <=
-// <<
-
-token = x.nextToken();
-
-// <!
-
-if (token == BANG) {
-    c = x.next();
-    if (c == '-') {
-        if (x.next() == '-') {
-            x.skipPast("-->");
-            return false;
-        }
-        x.back();
-    } else if (c == '[') {
-        token = x.nextToken();
-        if ("CDATA".equals(token)) {
-            if (x.next() == '[') {
-                    string = x.nextCDATA();
-                    if (string.length() > 0) {
-                        context.accumulate(config.getcDataTagName(), string);
-                    }
-                return false;
+    private static String tagName(XMLTokener x, StringBuilder tag, int start) throws JSONException {
+        int end = start;
+        while (end < tag.length()) {
+            char c = tag.charAt(end);
+            if (Character.isWhitespace(c) || c == '/' || c == '>') {
+                break;
             }
+            end += 1;
         }
-        throw x.syntaxError("Expected 'CDATA['");
-    }
-    i = 1;
-    do {
-        token = x.nextMeta();
-        if (token == null) {
-            throw x.syntaxError("Missing '>' after '<!'.");
-        } else if (token == LT) {
-            i += 1;
-        } else if (token == GT) {
-            i -= 1;
+        if (end == start) {
+            throw x.syntaxError("Misshaped tag");
         }
-    } while (i > 0);
-    return false;
-} else if (token == QUEST) {
-
-    // <?
-    x.skipPast("?>");
-    return false;
-} else if (token == SLASH) {
-
-    // Close tag </
-
-    token = x.nextToken();
-    if (name == null) {
-        throw x.syntaxError("Mismatched close tag " + token);
-    }
-    if (!token.equals(name)) {
-        throw x.syntaxError("Mismatched " + name + " and " + token);
-    }
-    if (x.nextToken() != GT) {
-        throw x.syntaxError("Misshaped close tag");
+        return tag.substring(start, end);
     }
-    return true;
 
-} else if (token instanceof Character) {
-    throw x.syntaxError("Misshaped tag");
-
-    // Open tag <
-
-} else {
-    tagName = (String) token;
-    token = null;
-    jsonObject = new JSONObject();
-    boolean nilAttributeFound = false;
-    xmlXsiTypeConverter = null;
-    
-    //new logic to check if pointerList has any matches
-    newPointerList = new ArrayList<String>(); // initialize empty new pointer list
-        // copy the modified pointerList to newPointerList
-    newPointerList.addAll(pointerList); 
-
-    // check if pointerList is already null then we should be getting recursionLevel of 0
-    if (pointerList.isEmpty()){
-        recursionLevel = 0;
+    /**
+     * @param tag a whole open tag
+     * @return true if the tag is an empty-element tag such as {@code <a/>}
+     */
+    private static boolean isEmptyTag(StringBuilder tag) {
+        int i = tag.length() - 2;
+        while (i > 0 && Character.isWhitespace(tag.charAt(i))) {
+            i -= 1;
+        }
+        return tag.charAt(i) == '/';
     }
 
-    if (!newPointerList.isEmpty() && tagName.equals(newPointerList.get(0)))
-    {
-        // we are on the right tag
-        topPointer = newPointerList.get(0);
-        // check case where a next pointer exists that is integer. In this case, don't remove this pointer instead
-        // decrement the next integer pointer and keep looking. Otherwise remove this top pointer
-        if (newPointerList.size()>1 && (newPointerList.get(1).matches("[0-9]+"))){
-            // second pointer is integer. check if it is zero, then we have found the topPointer and the zeroth value
-            // if more than 0, then we keep looking and decrement
-            if (Integer.parseInt(newPointerList.get(1))>0){
-                // decrement my own pointer. newPointer doesen't have a meaning as any downstream recursion is 
-                // useless for us so we don't decrement it.
-                pointerList.set(1,String.valueOf(Integer.parseInt(pointerList.get(1))-1));
-            }// check if integer value is 0 and not negative i.e. the zeroth value hasn't already passed
-            else if (Integer.parseInt(newPointerList.get(1))==0){
-                // remove pointers from the list only if we have reached "/tag/0"
-                    newPointerList.remove(1); //safe to remove the integer next pointer
-                    newPointerList.remove(0); // safe to remove the top pointer
-                // we have to make sure we only do this once and not again if the tag's value is an array
-                // so we decrement the next integer to -1 from our original pointerList so the next time
-                // we find the same tagName at this level, we don't recognize it as /tag/0
-                    pointerList.set(1,String.valueOf(Integer.parseInt(pointerList.get(1))-1));
+    /**
+     * Copy a comment, CDATA section, declaration or processing instruction.
+     *
+     * @param x The XMLTokener positioned after the "&lt;!" or "&lt;?".
+     * @param c Either '!' or '?'.
+     * @param writer Receives the markup, or null to skip it.
+     * @throws JSONException If the markup is not closed.
+     * @throws IOException If the writer fails.
+     */
+    private static void copyMeta(XMLTokener x, char c, Writer writer) throws JSONException, IOException {
+        if (writer != null) {
+            writer.write('<');
+            writer.write(c);
+        }
+        if (c == '?') {
+            copyPast(x, "?>", writer, "Unclosed processing instruction");
+            return;
+        }
+        c = x.next();
+        if (c == '[') {
+            if (writer != null) {
+                writer.write(c);
+            }
+            copyPast(x, "]]>", writer, "Unclosed CDATA");
+            return;
+        }
+        if (c == '-') {
+            if (writer != null) {
+                writer.write(c);
+            }
+            c = x.next();
+            if (c == '-') {
+                if (writer != null) {
+                    writer.write(c);
+                }
+                copyPast(x, "-->", writer, "Unclosed comment");
+                return;
+            }
+        }
+        // <! ... > declarations may nest, as in a DOCTYPE internal subset
+        int depth = 1;
+        char q = 0;
+        for (;;) {
+            if (c == 0) {
+                throw x.syntaxError("Missing '>' after '<!'.");
             }
-            else{
-                // Integer.parseInt(newPointerList.get(1)) is negative. Not interested in replacing this object
+            if (writer != null) {
+                writer.write(c);
             }
-        }else{
-            //next pointer is not an integer. can safetly remove the top pointer
-            newPointerList.remove(0); 
+            if (q != 0) {
+                if (c == q) {
+                    q = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                q = c;
+            } else if (c == '<') {
+                depth += 1;
+            } else if (c == '>') {
+                depth -= 1;
+                if (depth == 0) {
+                    return;
+                }
+            }
+            c = x.next();
         }
     }
-    else if (!newPointerList.isEmpty() && !tagName.equals(newPointerList.get(0))){
-        // the next pointer does not match the current tag. I should add some impossible key 
-        // to the top of list so that downstream recursions don't end up matching the JSONpointer
-        // this will ensure the recursion returns successfully and I keep searching for the complete
-        // JSONPointer. This prevents "/book/0" from replacing at "/catalog/book/0"
-       
-        newPointerList.add(0, ""); // empty key shouldn't match any tag in xml
-    }
-
-    // check if pointerList has become empty due to the above code or we inherited it empty
-    if (newPointerList.isEmpty()){
-        // when the pointerList becomes empty the first time, recursionLevel=0. We will stop saving when we return to 
-        // recursionLevel=0
-        recursionLevel +=1; 
-    }
 
-    for (;;) {
-        if (token == null) {
-            token = x.nextToken();
-        }
-        // attribute = value
-        if (token instanceof String) {
-            string = (String) token;
-            token = x.nextToken();
-            if (token == EQ) {
-                token = x.nextToken();
-                if (!(token instanceof String)) {
-                    throw x.syntaxError("Missing value");
+    /**
+     * Copy characters up to and including the requested string.
+     *
+     * @param x The XMLTokener.
+     * @param to The string that ends the copy.
+     * @param writer Receives the characters, or null to skip them.
+     * @param message The error message if the string is not found.
+     * @throws JSONException If the end of the input is reached first.
+     * @throws IOException If the writer fails.
+     */
+    private static void copyPast(XMLTokener x, String to, Writer writer, String message)
+            throws JSONException, IOException {
+        int length = to.length();
+        // the characters are written in chunks, and 'matched' counts how
+        // many of the last characters are the start of 'to'
+        char[] chunk = writer != null ? new char[128] : null;
+        int n = 0;
+        int matched = 0;
+        for (;;) {
+            char c = x.next();
+            if (c == 0) {
+                if (n > 0) {
+                    writer.write(chunk, 0, n);
                 }
-
-                if (config.isConvertNilAttributeToNull()
-                        && NULL_ATTR.equals(string)
-                        && Boolean.parseBoolean((String) token)) {
-                    nilAttributeFound = true;
-                } else if(config.getXsiTypeMap() != null && !config.getXsiTypeMap().isEmpty()
-                        && TYPE_ATTR.equals(string)) {
-                    xmlXsiTypeConverter = config.getXsiTypeMap().get(token);
-                } else if (!nilAttributeFound) {
-                        jsonObject.accumulate(string,
-                        config.isKeepStrings()
-                                ? ((String) token)
-                                : stringToValue((String) token));
+                throw x.syntaxError(message);
+            }
+            if (chunk != null) {
+                if (n == chunk.length) {
+                    writer.write(chunk, 0, n);
+                    n = 0;
                 }
-                token = null;
-            } else {
-                    jsonObject.accumulate(string, "");
+                chunk[n++] = c;
             }
-
-
-        } else if (token == SLASH) {
-            // Empty tag <.../>
-            if (x.nextToken() != GT) {
-                throw x.syntaxError("Misshaped tag");
+            if (to.charAt(matched) == c) {
+                matched += 1;
+            } else {
+                matched = rematch(to, matched, c);
             }
-                if (nilAttributeFound) {
-                    context.accumulate(tagName, JSONObject.NULL);
-                } else if (jsonObject.length() > 0) {
-                    context.accumulate(tagName, jsonObject);
-                } else {
-                    context.accumulate(tagName, "");
-                }    
-            return false;
-
-        } else if (token == GT) {
-            // Content, between <...> and </...>
-            for (;;) {
-                token = x.nextContent();
-                if (token == null) {
-                    if (tagName != null) {
-                        throw x.syntaxError("Unclosed tag " + tagName);
-                    }
-                    return false;
-                } else if (token instanceof String) {
-                    string = (String) token;
-                    // if pointerList is empty, then only add to json otherwise skip adding, we're not 
-                    // at the desired subObject yet
-                        if (string.length() > 0) {
-                            if(xmlXsiTypeConverter != null) {
-                                jsonObject.accumulate(config.getcDataTagName(),
-                                        stringToValue(string, xmlXsiTypeConverter));
-                            } else {
-                                jsonObject.accumulate(config.getcDataTagName(),
-                                        config.isKeepStrings() ? string : stringToValue(string));
-                            }
-                        }
-                } else if (token == LT) {
-                    // Nested element
-
-                    // if we are at recursion ==0 then try to skip until this tag closes and actually 
-                    boolean returnedFlag = false;
-                    if (recursionLevel ==1){
-                        // we were given a call with "/"
-                        // just replace context with replacement
-                        Iterator<String> it = replacement.keys();
-                            context.clear(); // clear anything in context
-                            while (it.hasNext()){
-                                String key = it.next();
-                                context.put(key, replacement.get(key));
-                            }
-                            x.skipPast("/"+tagName+">"); // skip until recursion=0 tag has ended
-                            return false;
-                    }
-                    else if (recursionLevel ==0){
-                        if (!foundObj[0]){
-                            jsonObject = replacement;
-                            x.skipPast("/"+tagName+">"); // skip until recursion=0 tag has ended
-                            returnedFlag = true; // okay to save    
-                            //also turn on found flag
-                            foundObj[0] = true;
-                        }else{
-                            //object has been previously found. should not come back to recursion =0
-                            // otherwise an array will be built when we want single object
-                            x.skipPast("/"+ tagName+ ">");
-                            returnedFlag = false; // we don't even want empty values accumulated
-                            return false;
-                        }
-                    }else{
-                        returnedFlag = parseReplaceSubObject(x, jsonObject, tagName, config, newPointerList, foundObj, recursionLevel, replacement);
-                    }
-                    // call with updated newPointerList. This way on returning we maintain the original pointerList
-                    if (returnedFlag) {
-                        // Either the pointerList  or while we are still building the subObject,
-                        // keep returning up the recursion
-                        if (true){
-                             
-                            if (jsonObject.length() == 0) {
-                                context.accumulate(tagName, "");
-                            } else if (jsonObject.length() == 1
-                                    && jsonObject.opt(config.getcDataTagName()) != null) {
-                                context.accumulate(tagName, jsonObject.opt(config.getcDataTagName()));
-                            } else {
-                                context.accumulate(tagName, jsonObject);
-                            } 
-                            
-                        }else{
-                            // let's try if this works. I want upstream context to just pass through the underlying jsonObject
-                            // because  I don't want any more tags be added.
-                            // I'll try to copy jsonObject into context
-                            Iterator<String> it = jsonObject.keys();
-                            context.clear(); // clear anything in context
-                            while (it.hasNext()){
-                                String key = it.next();
-                                context.put(key, jsonObject.get(key));
-                            }
-                            // if you have data in context, and you're not in recursion >0 then you can go forward
-                            if (context.length() != 0){
-                                //try this. skip to where end of this tag is. it's like fast forward
-                                x.skipPast("/"+tagName);
-                                return true; // after concatenating at rec level 0, it's time to return true
-                            }
-                        }
-                        return false;
-                    }
+            if (matched == length) {
+                if (n > 0) {
+                    writer.write(chunk, 0, n);
                 }
+                return;
             }
-        } else {
-            throw x.syntaxError("Misshaped tag");
         }
     }
-}
-}
 
+    /**
+     * Find how much of a string is matched after a character that does not
+     * continue a partial match.
+     *
+     * @param to The string being matched.
+     * @param matched The number of its characters that were matched.
+     * @param c The character that does not match the next one.
+     * @return The length of the longest start of the string that ends the
+     *  matched characters followed by c.
+     */
+    private static int rematch(String to, int matched, char c) {
+        for (int k = matched; k > 0; k -= 1) {
+            if (to.charAt(k - 1) == c && to.regionMatches(0, to, matched - k + 1, k - 1)) {
+                return k;
+            }
+        }
+        return 0;
+    }
 
     /**
-     * Scan the content following the named tag, attaching it to the context. Transform each key with client provided function fun.
-     * fun may be an arbitrary function of type Function(String, String)
+     * Skip the content and close tag of an element whose open tag has just
+     * been read.
      *
-     * @param x
-     *            The XMLTokener containing the source string.
-     * @param context
-     *            The JSONObject that will include the new material.
-     * @param name
-     *            The tag name.
-     * @param fun
-     *            The function which transforms the keys/tags
-     * @return true if the close tag is processed.
-     * @throws JSONException
+     * @param x The XMLTokener positioned after the open tag.
+     * @param name The element name, for error reporting.
+     * @throws JSONException If the element is not closed.
+     * @throws IOException Never, as nothing is written.
      */
-    private static boolean parseTransformKey(XMLTokener x, JSONObject context, String name, XMLParserConfiguration config, Function<String, String> fun)
-            throws JSONException {
-                try{
-                    char c;
-                    int i;
-                    JSONObject jsonObject = null;
-                    String string;
-                    String tagName;
-                    Object token;
-                    XMLXsiTypeConverter<?> xmlXsiTypeConverter;
-            
-                    // Test for and skip past these forms:
-                    // <!-- ... -->
-                    // <! ... >
-                    // <![ ... ]]>
-                    // <? ... ?>
-                    // Report errors for these forms:
-                    // <>
-                    // <=
-                    // <<
-            
-                    token = x.nextToken();
-            
-                    // <!
-            
-                    if (token == BANG) {
-                        c = x.next();
-                        if (c == '-') {
-                            if (x.next() == '-') {
-                                x.skipPast("-->");
-                                return false;
-                            }
-                            x.back();
-                        } else if (c == '[') {
-                            token = x.nextToken();
-                            if ("CDATA".equals(token)) {
-                                if (x.next() == '[') {
-                                    string = x.nextCDATA();
-                                    if (string.length() > 0) {
-                                        context.accumulate(config.getcDataTagName(), string);
-                                    }
-                                    return false;
-                                }
-                            }
-                            throw x.syntaxError("Expected 'CDATA['");
-                        }
-                        i = 1;
-                        do {
-                            token = x.nextMeta();
-                            if (token == null) {
-                                throw x.syntaxError("Missing '>' after '<!'.");
-                            } else if (token == LT) {
-                                i += 1;
-                            } else if (token == GT) {
-                                i -= 1;
-                            }
-                        } while (i > 0);
-                        return false;
-                    } else if (token == QUEST) {
-            
-                        // <?
-                        x.skipPast("?>");
-                        return false;
-                    } else if (token == SLASH) {
-            
-                        // Close tag </
-            
-                        token = x.nextToken();
-                        if (name == null) {
-                            throw x.syntaxError("Mismatched close tag " + token);
-                        }
-                        if (!token.equals(name)) {
-                            throw x.syntaxError("Mismatched " + name + " and " + token);
-                        }
-                        if (x.nextToken() != GT) {
-                            throw x.syntaxError("Misshaped close tag");
-                        }
-                        return true;
-            
-                    } else if (token instanceof Character) {
-                        throw x.syntaxError("Misshaped tag");
-            
-                        // Open tag <
-            
-                    } else {
-                        tagName = (String) token;
-                        token = null;
-                        jsonObject = new JSONObject();
-                        boolean nilAttributeFound = false;
-                        xmlXsiTypeConverter = null;
-                        for (;;) {
-                            if (token == null) {
-                                token = x.nextToken();
-                            }
-                            // attribute = value
-                            if (token instanceof String) {
-                                string = (String) token;
-                                token = x.nextToken();
-                                if (token == EQ) {
-                                    token = x.nextToken();
-                                    if (!(token instanceof String)) {
-                                        throw x.syntaxError("Missing value");
-                                    }
-            
-                                    if (config.isConvertNilAttributeToNull()
-                                            && NULL_ATTR.equals(string)
-                                            && Boolean.parseBoolean((String) token)) {
-                                        nilAttributeFound = true;
-                                    } else if(config.getXsiTypeMap() != null && !config.getXsiTypeMap().isEmpty()
-                                            && TYPE_ATTR.equals(string)) {
-                                        xmlXsiTypeConverter = config.getXsiTypeMap().get(token);
-                                    } else if (!nilAttributeFound) {
-                                        jsonObject.accumulate(fun.apply(string),
-                                                config.isKeepStrings()
-                                                        ? ((String) token)
-                                                        : stringToValue((String) token));
-                                    }
-                                    token = null;
-                                } else {
-                                    jsonObject.accumulate(fun.apply(string), "");
-                                }
-            
-            
-                            } else if (token == SLASH) {
-                                // Empty tag <.../>
-                                if (x.nextToken() != GT) {
-                                    throw x.syntaxError("Misshaped tag");
-                                }
-                                if (nilAttributeFound) {
-                                    context.accumulate(fun.apply(tagName), JSONObject.NULL);
-                                } else if (jsonObject.length() > 0) {
-                                    context.accumulate(fun.apply(tagName), jsonObject);
-                                } else {
-                                    context.accumulate(fun.apply(tagName), "");
-                                }
-                                return false;
-            
-                            } else if (token == GT) {
-                                // Content, between <...> and </...>
-                                for (;;) {
-                                    token = x.nextContent();
-                                    if (token == null) {
-                                        if (tagName != null) {
-                                            throw x.syntaxError("Unclosed tag " + tagName);
-                                        }
-                                        return false;
-                                    } else if (token instanceof String) {
-                                        string = (String) token;
-                                        if (string.length() > 0) {
-                                            if(xmlXsiTypeConverter != null) {
-                                                jsonObject.accumulate(config.getcDataTagName(),
-                                                        stringToValue(string, xmlXsiTypeConverter));
-                                            } else {
-                                                jsonObject.accumulate(config.getcDataTagName(),
-                                                        config.isKeepStrings() ? string : stringToValue(string));
-                                            }
-                                        }
-            
-                                    } else if (token == LT) {
-                                        // Nested element
-                                        if (parseTransformKey(x, jsonObject, tagName, config, fun)) {
-                                            if (jsonObject.length() == 0) {
-                                                context.accumulate(fun.apply(tagName), "");
-                                            } else if (jsonObject.length() == 1
-                                                    && jsonObject.opt(config.getcDataTagName()) != null) {
-                                                context.accumulate(fun.apply(tagName), jsonObject.opt(config.getcDataTagName()));
-                                            } else {
-                                                context.accumulate(fun.apply(tagName), jsonObject);
-                                            }
-                                            return false;
-                                        }
-                                    }
-                                }
-                            } else {
-                                throw x.syntaxError("Misshaped tag");
-                            }
-                        }
+    private static void skipElement(XMLTokener x, String name) throws JSONException, IOException {
+        StringBuilder tag = new StringBuilder();
+        int depth = 1;
+        for (;;) {
+            char c = x.next();
+            if (c == 0) {
+                throw x.syntaxError("Unclosed tag " + name);
+            }
+            if (c != '<') {
+                continue;
+            }
+            c = x.next();
+            if (c == '!' || c == '?') {
+                copyMeta(x, c, null);
+            } else {
+                readTag(x, c, tag);
+                if (c == '/') {
+                    depth -= 1;
+                    if (depth == 0) {
+                        return;
                     }
-                }catch(Exception e){
-                    //exception can be of any type e.g., java.lang.NullPointerException or ClassCastException
-                    throw new JSONException(e.getMessage());
+                } else if (!isEmptyTag(tag)) {
+                    depth += 1;
                 }
- 
+            }
+        }
     }
+
     /**
      * This method transforms all tags of XML with a client supplied function and returns
-     * the resultant XML as a JSONObject
+     * the resultant XML as a JSONObject. The function is called once per distinct name.
      * @param reader The XML source reader
      * @param fun The function to transform key of the type Function(String, String)
      * @return JSONObject with keys transformed with function fun
      */
     public static JSONObject toJSONObject(Reader reader, Function<String, String> fun){
-     XMLTokener x = new XMLTokener(reader);
-     JSONObject jo = new JSONObject();
-     XMLParserConfiguration config = XMLParserConfiguration.ORIGINAL;
-
-     while (x.more()) {
-        x.skipPast("<");
-        if(x.more()) {
-            parseTransformKey(x, jo, null, config, fun);
-        }
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(XMLParserConfiguration.ORIGINAL);
+        visit(reader, new XMLKeyTransformer(fun, builder));
+        return builder.getJSONObject();
     }
-    return jo;
+
+    /**
+     * Transform all tags of XML with a client supplied function and write
+     * the result as JSON text, as it is read. The text is the same as that
+     * of {@link #toJSONObject(Reader, Function)}, but no JSONObject is built
+     * for the document and the function is called once per distinct name,
+     * so it must not depend on anything but its argument.
+     *
+     * Elements with the same name are merged into a JSONArray as
+     * toJSONObject merges them, whether or not they are adjacent. Since an
+     * element may be followed by another with its name until its parent
+     * ends, the members of an element are held until then, except that the
+     * first name found twice in an element has its JSONArray written as it
+     * is read. So a list of records is streamed, but an element that is the
+     * only one with its name, such as the single wrapper of a list of
+     * records, is held whole until its parent ends. A name that repeats
+     * among the top level elements of the document is reported as a
+     * duplicate key.
+     *
+     * @param reader The XML source reader
+     * @param fun The function to transform key of the type Function(String, String)
+     * @param writer The writer that receives the JSON text
+     * @return The writer
+     * @throws JSONException Thrown if the XML is not well formed, if a top
+     *  level name repeats, or if the writer fails
+     */
+    public static Writer transformKeysTo(Reader reader, Function<String, String> fun, Writer writer)
+            throws JSONException {
+        XMLToJSONWriter out = new XMLToJSONWriter(writer, XMLParserConfiguration.ORIGINAL);
+        visit(reader, new XMLKeyTransformer(fun, out));
+        out.endDocument();
+        return writer;
     }
 
     /**
@@ -1261,360 +1153,11 @@ if (token == BANG) {
      * @throws JSONException Thrown if there is an errors while parsing the string
      */
     public static JSONObject toJSONObject(Reader reader, JSONPointer path) throws JSONException{
-        // reads a xml file tag by tag
-        // keeps going on until finds a tag given by first level of path
-        // keeps going until finds the tag given by last level of path
-        // as soon as the path is completed, the value of that xml tag represents the JSON object to return
-        XMLParserConfiguration config = XMLParserConfiguration.ORIGINAL;
-        List<String> pointerList = new ArrayList<String>();
-        String [] pathStr;
-        if (path.toString().equals("/")){
-            pathStr = new String[0];
-        }else{
-            pathStr = path.toString().split("/");
-        }
-        // path should start with "/"
-        if (pathStr.length >0 && !pathStr[0].equals("")){
-            throw new JSONPointerException("Incorrectly formed JSON Pointer");
-        }
-
-        if (pathStr.length==0){
-            if (!path.toString().equals("/")){
-                throw new JSONPointerException("Incorrectly formed JSON Pointer");
-            }
-        }
-        // start from second string because first should be empty because path should have started with "/"
-        for (int i=1; i<pathStr.length; i++){
-            pointerList.add(pathStr[i]); // add ea
-        }
-
-        JSONObject jo = new JSONObject();
-        XMLTokener x = new XMLTokener(reader);
-        boolean skipSaving = true;
-        int recursionLevel = -1;
-        // keep looking only while jo has nothing in it.
-        // once jo has something, its time to return
-        while (x.more() && jo.length()==0) {
-            x.skipPast("<");
-            if(x.more()) {
-                parsesubObject(x, jo, null, config, pointerList, skipSaving, recursionLevel);
-            }
-        }
-        return jo;
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(XMLParserConfiguration.ORIGINAL);
+        visit(reader, new XMLPointerFilter(path, builder));
+        return builder.getJSONObject();
     }
 
-    /**
-     * This is a parse function that parses an XML string and looks for a subobject pointed to by the list of JSONPointer Strings
-     * pointer. It skips over the name tags which are not equal to the next required named pointer (at the top of the list).
-     * If the found tag is equal to the tag at top of the list then this tag is processed i.e. parse is called on that tag's value.
-     * But if the next pointer is an integer, then we don't call parse again rather skip this tag and decrement next pointer's value by 1
-     * We do this unless next pointer integer is 0 because we have to look for this named tag again (for e.g. if we find tag = book 
-     * and next pointer is 1, then we skip book and decrement 1 to 0 since we are waiting for the next book tag which will have pointer=0)
-     * Don't save into JSONObject if skipSaving is True. This is set true after subObject has been found and saved. Wed don't want
-     * to save any more data.
-     * Recursion level starts with -1 when we haven't found the subObject. It becomes 0 the first time we find the subObject
-     * and keeps increasing by 1 each recursion after that. We reset skipSaving to false by checking when recursionLevel == 0.
-     * @param x XMLTokener
-     * @param config XMLParserConfiguration
-     * @param context initial JSONObject
-     * @param name name of the tag which called this parsesubObject method
-     * @param pointerList list of strings that are keys in the supplied JSONPointer path
-     * @param skipSaving when true, method does not save the read XML code into JSON 
-     * @param recursionLevel recursionLevel>=0 denotes we are inside the desired subObject. recursionLevel=-1 denotes we are outside the subObject
-     * @return True when tag finishes
-     * @throws JSONException
-     */
-
-private static boolean parsesubObject(XMLTokener x, JSONObject context, String name, XMLParserConfiguration config, List<String> pointerList, boolean skipSaving, int recursionLevel)
-    throws JSONException {
-char c;
-int i;
-JSONObject jsonObject = null;
-String string;
-String tagName;
-Object token;
-XMLXsiTypeConverter<?> xmlXsiTypeConverter;
-String topPointer; // pointer token at the top of the pointerList
-List<String> newPointerList; // new pointer list to pass on to the next level of recursion
-
-// Test for and skip past these forms:
-// <!-- ... -->
-// <! ... >
-// <![ ... ]]>
-// <? ... ?>
-// Report errors for these forms:
-// <>
-// <=
-// <<
-
-token = x.nextToken();
-
-// <!
-
-if (token == BANG) {
-    c = x.next();
-    if (c == '-') {
-        if (x.next() == '-') {
-            x.skipPast("-->");
-            return false;
-        }
-        x.back();
-    } else if (c == '[') {
-        token = x.nextToken();
-        if ("CDATA".equals(token)) {
-            if (x.next() == '[') {
-                if (!skipSaving){
-                    string = x.nextCDATA();
-                    if (string.length() > 0) {
-                        context.accumulate(config.getcDataTagName(), string);
-                    }
-                }
-                return false;
-            }
-        }
-        throw x.syntaxError("Expected 'CDATA['");
-    }
-    i = 1;
-    do {
-        token = x.nextMeta();
-        if (token == null) {
-            throw x.syntaxError("Missing '>' after '<!'.");
-        } else if (token == LT) {
-            i += 1;
-        } else if (token == GT) {
-            i -= 1;
-        }
-    } while (i > 0);
-    return false;
-} else if (token == QUEST) {
-
-    // <?
-    x.skipPast("?>");
-    return false;
-} else if (token == SLASH) {
-
-    // Close tag </
-
-    token = x.nextToken();
-    if (name == null) {
-        throw x.syntaxError("Mismatched close tag " + token);
-    }
-    if (!token.equals(name)) {
-        throw x.syntaxError("Mismatched " + name + " and " + token);
-    }
-    if (x.nextToken() != GT) {
-        throw x.syntaxError("Misshaped close tag");
-    }
-    return true;
-
-} else if (token instanceof Character) {
-    throw x.syntaxError("Misshaped tag");
-
-    // Open tag <
-
-} else {
-    tagName = (String) token;
-    token = null;
-    jsonObject = new JSONObject();
-    boolean nilAttributeFound = false;
-    xmlXsiTypeConverter = null;
-    
-    //new logic to check if pointerList has any matches
-    newPointerList = new ArrayList<String>(); // initialize empty new pointer list
-        // copy the modified pointerList to newPointerList
-    newPointerList.addAll(pointerList); 
-
-    if (!newPointerList.isEmpty() && tagName.equals(newPointerList.get(0)))
-    {
-        // we are on the right tag
-        topPointer = newPointerList.get(0);
-        // check case where a next pointer exists that is integer. In this case, don't remove this pointer instead
-        // decrement the next integer pointer and keep looking. Otherwise remove this top pointer
-        if (newPointerList.size()>1 && (newPointerList.get(1).matches("[0-9]+"))){
-            // second pointer is integer. check if it is zero, then we have found the topPointer and the zeroth value
-            // if more than 0, then we keep looking and decrement
-            if (Integer.parseInt(newPointerList.get(1))>0){
-                // decrement my own pointer. newPointer doesen't have a meaning as any downstream recursion is 
-                // useless for us so we don't decrement it.
-                pointerList.set(1,String.valueOf(Integer.parseInt(pointerList.get(1))-1));
-            }// check if integer value is 0 and not negative i.e. the zeroth value hasn't already passed
-            else {
-                //we have found zeroth element of an array with key = topPointer. safe to remove both pointers 
-                // iff we don't have an existing context which would mean we have already found the desired subObject
-                if (context.length()==0){
-                    newPointerList.remove(1); //safe to remove the integer next pointer
-                    newPointerList.remove(0); // safe to remove the top pointer
-                }else{
-                    // we don't have to find another JSONObject as two integer indices cannot occur one after another in xml
-                }
-            }
-        }else{
-            //next pointer is not an integer. can safetly remove the top pointer
-            newPointerList.remove(0); 
-        }
-    }
-    else if (!newPointerList.isEmpty() && !tagName.equals(newPointerList.get(0))){
-        //tagname does not equal the tag we're looking for. WE can't ignore this otherwise 
-        // /book may match /catalog/book in the nxt level
-        //skip until we get to the end of this tag
-        x.skipPast("</" + tagName + ">");
-        return false; // we ended the newly found tag but not the "name" tag on which we are being called to investigate
-    }
-
-    // check if pointerList has become empty due to the above code or we inherited it empty
-    if (newPointerList.isEmpty()){
-        //we should start saving the jsonObject from here
-        skipSaving = false;
-        // when the pointerList becomes empty the first time, recursionLevel=0. We will stop saving when we return to 
-        // recursionLevel=0
-        recursionLevel +=1; 
-    }
-
-    for (;;) {
-        if (token == null) {
-            token = x.nextToken();
-        }
-        // attribute = value
-        if (token instanceof String) {
-            string = (String) token;
-            token = x.nextToken();
-            if (token == EQ) {
-                token = x.nextToken();
-                if (!(token instanceof String)) {
-                    throw x.syntaxError("Missing value");
-                }
-
-                if (config.isConvertNilAttributeToNull()
-                        && NULL_ATTR.equals(string)
-                        && Boolean.parseBoolean((String) token)) {
-                    nilAttributeFound = true;
-                } else if(config.getXsiTypeMap() != null && !config.getXsiTypeMap().isEmpty()
-                        && TYPE_ATTR.equals(string)) {
-                    xmlXsiTypeConverter = config.getXsiTypeMap().get(token);
-                } else if (!nilAttributeFound) {
-                    if (!skipSaving){
-                        jsonObject.accumulate(string,
-                        config.isKeepStrings()
-                                ? ((String) token)
-                                : stringToValue((String) token));
-                    }
-                }
-                token = null;
-            } else {
-                if (!skipSaving){
-                    jsonObject.accumulate(string, "");
-                }
-            }
-
-
-        } else if (token == SLASH) {
-            // Empty tag <.../>
-            if (x.nextToken() != GT) {
-                throw x.syntaxError("Misshaped tag");
-            }
-            if (!skipSaving){
-                if (nilAttributeFound) {
-                    context.accumulate(tagName, JSONObject.NULL);
-                } else if (jsonObject.length() > 0) {
-                    context.accumulate(tagName, jsonObject);
-                } else {
-                    context.accumulate(tagName, "");
-                }    
-            }else{
-                // do nothing. pointerList not yet empty
-            }
-            return false;
-
-        } else if (token == GT) {
-            // Content, between <...> and </...>
-            for (;;) {
-                token = x.nextContent();
-                if (token == null) {
-                    if (tagName != null) {
-                        throw x.syntaxError("Unclosed tag " + tagName);
-                    }
-                    return false;
-                } else if (token instanceof String) {
-                    string = (String) token;
-                    // if pointerList is empty, then only add to json otherwise skip adding, we're not 
-                    // at the desired subObject yet
-                    if (!skipSaving){
-                        if (string.length() > 0) {
-                            if(xmlXsiTypeConverter != null) {
-                                jsonObject.accumulate(config.getcDataTagName(),
-                                        stringToValue(string, xmlXsiTypeConverter));
-                            } else {
-                                jsonObject.accumulate(config.getcDataTagName(),
-                                        config.isKeepStrings() ? string : stringToValue(string));
-                            }
-                        }
-                    }else{
-                        // still not found desired subObject. Let the loop continue and finish this tag
-                    }
-                } else if (token == LT) {
-                    // Nested element
-                    // call with updated newPointerList. This way on returning we maintain the original pointerList
-                    if (parsesubObject(x, jsonObject, tagName, config, newPointerList, skipSaving, recursionLevel)) {
-                        // pointerList empty means we are at inside the correct subObject, so we should 
-                        // accumulate it into context for returning
-                        // ideally the recursionLevel would be 1 or more here because recursionLevel=0 is the level
-                        // at which the last tag is found. Usually for recursionLevel==0, we do not want to include its
-                        // key in the returned jSONObject. 
-                        // BUT, in case we get a call with an empty pointerList right from the start i.e., no JSONPointer, 
-                        // just return the whole XML, then even at recursionLevel=0, we have to include its key.
-                        // Hence the following if condition handles both these concepts with an && condition
-                        // accumulate for returning up the recursion
-                        if (pointerList.isEmpty() && recursionLevel>=0){
-                            if (jsonObject.length() == 0) {
-                                context.accumulate(tagName, "");
-                            } else if (jsonObject.length() == 1
-                                    && jsonObject.opt(config.getcDataTagName()) != null) {
-                                context.accumulate(tagName, jsonObject.opt(config.getcDataTagName()));
-                            } else {
-                                context.accumulate(tagName, jsonObject);
-                            }
-                            // once skipSaving is off, we will keep returning true for all above recursion levels
-                            // to signal end of tag
-                            if (recursionLevel ==0 || recursionLevel ==-1){
-                                // also time to return true now since we're back at recursionLevel==0. WE have
-                                // found and filled the subObject. We return true so that upper recursion can stop
-                                // adding new elements. returning true signals the end of a tag
-                                return true;
-                            }    
-                            
-                        }else{
-                            // Here, we are either at recursionLevel== -1 i.e., haven't found the subObject, OR
-                            // we are at recursionLevel==0, and we have just found the subObject inside jsonObject.
-                            // In first case, jsonObject is empty so this code does nothing.
-                            // In the second case, I I want upstream context to just pass through the underlying jsonObject
-                            // because  I don't want any more upstream tags be added.
-                            // I'll try to copy jsonObject into context
-                            Iterator<String> it = jsonObject.keys();
-                            context.clear(); // clear anything in context
-                            while (it.hasNext()){
-                                String key = it.next();
-                                context.put(key, jsonObject.get(key));
-                            }
-                            // if you have data in context, and you're not in recursion >0 then you can go forward
-                            // otherwise you got to keep looking
-                            if (context.length() != 0){
-                                //skip to where end of this tag is. it's like fast forward
-                                x.skipPast("/"+tagName+">");
-                                return true; // after concatenating at rec level 0, it's time to return true
-                            }
-                        }
-                        return false;
-                    }
-                }
-            }
-        } else {
-            throw x.syntaxError("Misshaped tag");
-        }
-    }
-}
-}
-
-
     /**
      * Convert a well-formed (but not necessarily valid) XML into a
      * JSONObject. Some information may be lost in this transformation because
@@ -1636,15 +1179,9 @@ if (token == BANG) {
      * @throws JSONException Thrown if there is an errors while parsing the string
      */
     public static JSONObject toJSONObject(Reader reader, XMLParserConfiguration config) throws JSONException {
-        JSONObject jo = new JSONObject();
-        XMLTokener x = new XMLTokener(reader);
-        while (x.more()) {
-            x.skipPast("<");
-            if(x.more()) {
-                parse(x, jo, null, config);
-            }
-        }
-        return jo;
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(config);
+        visit(reader, config, builder);
+        return builder.getJSONObject();
     }
 
     /**
@@ -1738,18 +1275,46 @@ if (token == BANG) {
      */
     public static String toString(final Object object, final String tagName, final XMLParserConfiguration config)
             throws JSONException {
-        StringBuilder sb = new StringBuilder();
+        return write(object, tagName, config, new StringBuilder()).toString();
+    }
+
+    /**
+     * Write a JSONObject as a well-formed, element-normal XML string. The
+     * text is the same as {@link #toString(Object, String, XMLParserConfiguration)}
+     * gives, but it is written in one pass, without building each element as
+     * a string first.
+     *
+     * @param object
+     *            A JSONObject.
+     * @param tagName
+     *            The optional name of the enclosing tag.
+     * @param config
+     *            Configuration that can control output to XML.
+     * @param appendable
+     *            Where to write the XML.
+     * @return The appendable.
+     * @throws JSONException Thrown if there is an error writing the XML
+     */
+    public static <A extends Appendable> A write(final Object object, final String tagName,
+            final XMLParserConfiguration config, final A appendable) throws JSONException {
+        try {
+            writeElement(object, tagName, config, appendable);
+            return appendable;
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    private static void writeElement(final Object object, final String tagName,
+            final XMLParserConfiguration config, final Appendable out) throws IOException {
         JSONArray ja;
         JSONObject jo;
-        String string;
 
         if (object instanceof JSONObject) {
 
             // Emit <tagName>
             if (tagName != null) {
-                sb.append('<');
-                sb.append(tagName);
-                sb.append('>');
+                out.append('<').append(tagName).append('>');
             }
 
             // Loop thru the keys.
@@ -1769,15 +1334,15 @@ if (token == BANG) {
                         ja = (JSONArray) value;
                         int jaLength = ja.length();
                         // don't use the new iterator API to maintain support for Android
-						for (int i = 0; i < jaLength; i++) {
+                        for (int i = 0; i < jaLength; i++) {
                             if (i > 0) {
-                                sb.append('\n');
+                                out.append('\n');
                             }
                             Object val = ja.opt(i);
-                            sb.append(escape(val.toString()));
+                            escape(val.toString(), out);
                         }
                     } else {
-                        sb.append(escape(value.toString()));
+                        escape(value.toString(), out);
                     }
 
                     // Emit an array of similar keys
@@ -1786,39 +1351,31 @@ if (token == BANG) {
                     ja = (JSONArray) value;
                     int jaLength = ja.length();
                     // don't use the new iterator API to maintain support for Android
-					for (int i = 0; i < jaLength; i++) {
+                    for (int i = 0; i < jaLength; i++) {
                         Object val = ja.opt(i);
                         if (val instanceof JSONArray) {
-                            sb.append('<');
-                            sb.append(key);
-                            sb.append('>');
-                            sb.append(toString(val, null, config));
-                            sb.append("</");
-                            sb.append(key);
-                            sb.append('>');
+                            out.append('<').append(key).append('>');
+                            writeElement(val, null, config, out);
+                            out.append("</").append(key).append('>');
                         } else {
-                            sb.append(toString(val, key, config));
+                            writeElement(val, key, config, out);
                         }
                     }
                 } else if ("".equals(value)) {
-                    sb.append('<');
-                    sb.append(key);
-                    sb.append("/>");
+                    out.append('<').append(key).append("/>");
 
                     // Emit a new tag <k>
 
                 } else {
-                    sb.append(toString(value, key, config));
+                    writeElement(value, key, config, out);
                 }
             }
             if (tagName != null) {
 
                 // Emit the </tagName> close tag
-                sb.append("</");
-                sb.append(tagName);
-                sb.append('>');
+                out.append("</").append(tagName).append('>');
             }
-            return sb.toString();
+            return;
 
         }
 
@@ -1830,20 +1387,253 @@ if (token == BANG) {
             }
             int jaLength = ja.length();
             // don't use the new iterator API to maintain support for Android
-			for (int i = 0; i < jaLength; i++) {
+            for (int i = 0; i < jaLength; i++) {
                 Object val = ja.opt(i);
                 // XML does not have good support for arrays. If an array
                 // appears in a place where XML is lacking, synthesize an
                 // <array> element.
-                sb.append(toString(val, tagName == null ? "array" : tagName, config));
+                writeElement(val, tagName == null ? "array" : tagName, config, out);
             }
-            return sb.toString();
+            return;
         }
 
-        string = (object == null) ? "null" : escape(object.toString());
-        return (tagName == null) ? "\"" + string + "\""
-                : (string.length() == 0) ? "<" + tagName + "/>" : "<" + tagName
-                        + ">" + string + "</" + tagName + ">";
+        String string = (object == null) ? "null" : object.toString();
+        if (tagName == null) {
+            escape(string, out.append('"')).append('"');
+        } else if (string.length() == 0) {
+            out.append('<').append(tagName).append("/>");
+        } else {
+            escape(string, out.append('<').append(tagName).append('>'))
+                    .append("</").append(tagName).append('>');
+        }
+    }
+
+    /**
+     * Convert JSON text to XML as it is read, without building a JSONObject.
+     * The XML is the same as {@link #toString(Object, String, XMLParserConfiguration)}
+     * gives for the JSONObject or JSONArray the text holds, with no enclosing
+     * tag, except that elements are written in the order of the text rather
+     * than in the order of the JSONObject's keys, and repeated keys are not
+     * reported. Arrays become repeated tags. Only the values of the CDATA key
+     * that are themselves objects or arrays are held in memory, since they are
+     * written as their JSON text.
+     *
+     * @param x
+     *            The JSON text.
+     * @param appendable
+     *            Where to write the XML.
+     * @param config
+     *            Configuration that can control output to XML. Its maximum
+     *            nesting depth limits the nesting of the JSON text.
+     * @return The appendable.
+     * @throws JSONException Thrown if the JSON text is not valid, is nested
+     *            too deeply, or there is an error writing the XML
+     */
+    public static <A extends Appendable> A fromJSON(JSONTokener x, A appendable,
+            XMLParserConfiguration config) throws JSONException {
+        try {
+            writeJSON(x, appendable, config);
+            return appendable;
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
 
+    private static void writeJSON(JSONTokener x, Appendable out, XMLParserConfiguration config)
+            throws IOException {
+        final int maxNestingDepth = config.getMaxNestingDepth();
+        final String cDataTagName = config.getcDataTagName();
+        JSONFrame top = null;
+        int depth = 0;
+        char c = x.nextClean();
+        String tag = null;
+
+        if (c != '{' && c != '[') {
+            // a lone value is quoted
+            escape(nextValue(x, c).toString(), out.append('"')).append('"');
+            return;
+        }
+        for (;;) {
+            if (c == '{' || c == '[') {
+                // open the value whose first character is c
+                if (maxNestingDepth > XMLParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH
+                        && depth >= maxNestingDepth) {
+                    throw x.syntaxError("Maximum nesting depth of " + maxNestingDepth + " reached");
+                }
+                depth += 1;
+                if (c == '{') {
+                    if (tag != null) {
+                        out.append('<').append(tag).append('>');
+                    }
+                    top = new JSONFrame(top, null, false, tag);
+                } else if (top == null) {
+                    // XML does not have good support for arrays. If an array
+                    // appears in a place where XML is lacking, synthesize an
+                    // <array> element.
+                    top = new JSONFrame(top, "array", false, null);
+                } else if (top.elementTag == null) {
+                    // the value of a key: each element is named by the key
+                    top = new JSONFrame(top, tag, true, null);
+                } else if (top.wrapArrays) {
+                    out.append('<').append(tag).append('>');
+                    top = new JSONFrame(top, "array", false, tag);
+                } else {
+                    top = new JSONFrame(top, tag, false, null);
+                }
+                c = x.nextClean();
+            } else {
+                c = x.nextClean();
+                if (top.elementTag == null) {
+                    // Pairs are separated by ','.
+                    if (c == ',' || c == ';') {
+                        c = x.nextClean();
+                    } else if (c != '}') {
+                        throw x.syntaxError("Expected a ',' or '}'");
+                    }
+                } else {
+                    if (c == ',') {
+                        c = x.nextClean();
+                    } else if (c != ']') {
+                        throw x.syntaxError("Expected a ',' or ']'");
+                    }
+                }
+            }
+
+            // c is the first character of a member or element, or the end of the container
+            if (top.elementTag == null) {
+                if (c == 0) {
+                    throw x.syntaxError("A JSONObject text must end with '}'");
+                }
+                if (c != '}') {
+                    x.back();
+                    tag = x.nextValue().toString();
+                    if (x.nextClean() != ':') {
+                        throw x.syntaxError("Expected a ':' after a key");
+                    }
+                    c = x.nextClean();
+                    if (tag.equals(cDataTagName)) {
+                        // Emit content in body
+                        writeContent(x, c, out);
+                        c = 0;
+                    } else if (c != '{' && c != '[') {
+                        writeSimpleElement(nextValue(x, c), tag, out);
+                        c = 0;
+                    }
+                    continue;
+                }
+            } else {
+                if (c == 0) {
+                    // array is unclosed. No ']' found, instead EOF
+                    throw x.syntaxError("Expected a ',' or ']'");
+                }
+                if (c != ']') {
+                    tag = top.elementTag;
+                    if (c == ',') {
+                        x.back();
+                        writeSimpleElement(JSONObject.NULL, tag, out);
+                        c = 0;
+                    } else if (c != '{' && c != '[') {
+                        writeSimpleElement(nextValue(x, c), tag, out);
+                        c = 0;
+                    }
+                    continue;
+                }
+            }
+
+            // the container has ended
+            if (top.closeTag != null) {
+                out.append("</").append(top.closeTag).append('>');
+            }
+            top = top.parent;
+            depth -= 1;
+            if (top == null) {
+                return;
+            }
+            c = 0;
+        }
+    }
+
+    /**
+     * Write the value of the CDATA key, whose first character has been read.
+     * The elements of an array are written on separate lines.
+     */
+    private static void writeContent(JSONTokener x, char c, Appendable out) throws IOException {
+        if (c != '[') {
+            escape(nextValue(x, c).toString(), out);
+            return;
+        }
+        c = x.nextClean();
+        if (c == ']') {
+            return;
+        }
+        for (boolean first = true;; first = false) {
+            if (c == 0) {
+                // array is unclosed. No ']' found, instead EOF
+                throw x.syntaxError("Expected a ',' or ']'");
+            }
+            if (!first) {
+                out.append('\n');
+            }
+            if (c == ',') {
+                x.back();
+                out.append(JSONObject.NULL.toString());
+            } else {
+                escape(nextValue(x, c).toString(), out);
+            }
+            c = x.nextClean();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw x.syntaxError("Expected a ',' or ']'");
+            }
+            c = x.nextClean();
+            if (c == ']') {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read the value whose first character has been read. Objects and arrays
+     * are read whole.
+     */
+    private static Object nextValue(JSONTokener x, char c) {
+        if (c == '"' || c == '\'') {
+            return x.nextString(c);
+        }
+        x.back();
+        return x.nextValue();
+    }
+
+    private static void writeSimpleElement(Object value, String tagName, Appendable out)
+            throws IOException {
+        String string = value.toString();
+        if (string.length() == 0) {
+            out.append('<').append(tagName).append("/>");
+        } else {
+            escape(string, out.append('<').append(tagName).append('>'))
+                    .append("</").append(tagName).append('>');
+        }
+    }
+
+    /**
+     * A JSONObject or JSONArray that writeJSON is in the middle of converting.
+     */
+    private static final class JSONFrame {
+        final JSONFrame parent;
+        /** The tag of the elements of an array, or null for an object. */
+        final String elementTag;
+        /** true if a nested array is wrapped in an element named by elementTag. */
+        final boolean wrapArrays;
+        /** The tag to close when the container ends, or null. */
+        final String closeTag;
+
+        JSONFrame(JSONFrame parent, String elementTag, boolean wrapArrays, String closeTag) {
+            this.parent = parent;
+            this.elementTag = elementTag;
+            this.wrapArrays = wrapArrays;
+            this.closeTag = closeTag;
+        }
     }
 }
@@ -0,0 +1,80 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * An XMLVisitor that passes everything it receives on to another visitor.
+ * Subclasses override the methods for the parts they change or drop.
+ */
+public class XMLFilter implements XMLVisitor {
+
+    /** The visitor that receives the filtered document. */
+    protected final XMLVisitor visitor;
+
+    /**
+     * @param visitor The visitor that receives the filtered document.
+     */
+    public XMLFilter(XMLVisitor visitor) {
+        if (visitor == null) {
+            throw new NullPointerException("visitor cannot be null");
+        }
+        this.visitor = visitor;
+    }
+
+    @Override
+    public void startElement(String name) {
+        this.visitor.startElement(name);
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        this.visitor.attribute(name, value);
+    }
+
+    @Override
+    public void content(String text) {
+        this.visitor.content(text);
+    }
+
+    @Override
+    public void cdata(String text) {
+        this.visitor.cdata(text);
+    }
+
+    @Override
+    public void element(String name, Object value) {
+        this.visitor.element(name, value);
+    }
+
+    @Override
+    public void endElement(String name) {
+        this.visitor.endElement(name);
+    }
+
+    @Override
+    public boolean isDone() {
+        return this.visitor.isDone();
+    }
+}
@@ -0,0 +1,88 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An XMLFilter that renames every element and attribute with a client
+ * supplied function. The function is called once per distinct name and its
+ * result is remembered, so it must not depend on anything but its argument.
+ */
+public class XMLKeyTransformer extends XMLFilter {
+
+    private final Function<String, String> function;
+    private final Map<String, String> keys = new HashMap<String, String>();
+
+    /**
+     * @param function The function that transforms the names.
+     * @param visitor The visitor that receives the renamed document.
+     */
+    public XMLKeyTransformer(Function<String, String> function, XMLVisitor visitor) {
+        super(visitor);
+        this.function = function;
+    }
+
+    @Override
+    public void startElement(String name) {
+        this.visitor.startElement(this.key(name));
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        this.visitor.attribute(this.key(name), value);
+    }
+
+    @Override
+    public void element(String name, Object value) {
+        this.visitor.element(this.key(name), value);
+    }
+
+    @Override
+    public void endElement(String name) {
+        this.visitor.endElement(this.key(name));
+    }
+
+    private String key(String name) {
+        String key = this.keys.get(name);
+        if (key == null) {
+            try {
+                key = this.function.apply(name);
+            } catch (JSONException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // whatever the function throws is reported as a JSONException
+                throw new JSONException(e.getMessage(), e);
+            }
+            if (key == null) {
+                throw new JSONException("Null key.");
+            }
+            this.keys.put(name, key);
+        }
+        return key;
+    }
+}
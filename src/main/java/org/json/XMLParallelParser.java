@@ -0,0 +1,512 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Converts a record-oriented XML file to a JSONObject on several threads. A
+ * pre-scan of the bytes of the file finds where the children of the root
+ * element end, and the runs of children between those points are parsed in
+ * parallel. The elements and content each run holds directly under the root
+ * are then given, in document order, to one XMLToJSONBuilder, so the result
+ * is the JSONObject that {@link XML#toJSONObject(Reader, XMLParserConfiguration)}
+ * builds.
+ * <p>
+ * The file is read as UTF-8. Documents the pre-scan does not split, such as
+ * those with an internal DTD subset or text outside the root element, and
+ * documents with errors, are parsed on the calling thread, so errors are
+ * reported exactly as the sequential parser reports them.
+ */
+final class XMLParallelParser {
+
+    /** Each thread is given about this many runs, to even out their sizes. */
+    private static final int RUNS_PER_THREAD = 4;
+
+    private XMLParallelParser() {
+    }
+
+    static JSONObject toJSONObject(Path path, XMLParserConfiguration config, int threads)
+            throws JSONException {
+        try {
+            if (threads > 1) {
+                JSONObject jsonObject = toJSONObjectInParallel(path, config, threads);
+                if (jsonObject != null) {
+                    return jsonObject;
+                }
+            }
+            Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            try {
+                return XML.toJSONObject(reader, config);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    /**
+     * @return the JSONObject, or null if the document must be parsed
+     *  sequentially
+     */
+    private static JSONObject toJSONObjectInParallel(Path path, final XMLParserConfiguration config,
+            int threads) throws IOException {
+        final MappedByteBuffer bytes;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+        BoundaryScanner scanner = new BoundaryScanner(bytes, threads * RUNS_PER_THREAD);
+        if (!scanner.scan()) {
+            return null;
+        }
+        List<Integer> splits = scanner.splits;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Future<RunRecorder>> runs = new ArrayList<Future<RunRecorder>>(splits.size() - 1);
+            for (int i = 0; i + 1 < splits.size(); i += 1) {
+                final int start = splits.get(i).intValue();
+                final int end = splits.get(i + 1).intValue();
+                runs.add(pool.submit(new Callable<RunRecorder>() {
+                    @Override
+                    public RunRecorder call() {
+                        // the run is decoded on its own thread, and wrapped in
+                        // an element that stands for the root
+                        String text = "<r>" + decode(bytes, start, end) + "</r>";
+                        RunRecorder recorder = new RunRecorder(new XMLToJSONBuilder(config));
+                        XML.visit(new StringReader(text), config, recorder);
+                        return recorder;
+                    }
+                }));
+            }
+
+            XMLToJSONBuilder builder = new XMLToJSONBuilder(config);
+            RootStart root = new RootStart(builder);
+            XML.visit(new StringReader(decode(bytes, scanner.rootStart, scanner.contentStart)
+                    + "</" + scanner.rootName + '>'), config, root);
+            for (Future<RunRecorder> run : runs) {
+                run.get().replay(builder);
+            }
+            builder.endElement(root.name);
+            return builder.getJSONObject();
+        } catch (ExecutionException e) {
+            // parse again on this thread to report the error the sequential parser reports
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSONException(e);
+        } catch (JSONException e) {
+            return null;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String decode(ByteBuffer bytes, int start, int end) {
+        ByteBuffer slice = bytes.duplicate();
+        slice.limit(end);
+        slice.position(start);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    /**
+     * Reports the start and the attributes of the root element, but not its
+     * end, so that the content of the runs can follow.
+     */
+    private static final class RootStart extends XMLFilter {
+        String name;
+
+        RootStart(XMLVisitor visitor) {
+            super(visitor);
+        }
+
+        @Override
+        public void startElement(String name) {
+            this.name = name;
+            super.startElement(name);
+        }
+
+        @Override
+        public void endElement(String name) {
+            // the runs are replayed before the root ends
+        }
+    }
+
+    /**
+     * Builds the elements of a run with a builder of its own, and records
+     * them, and the content between them, for replay. The element that wraps
+     * the run is not passed on.
+     */
+    private static final class RunRecorder extends XMLFilter {
+        private static final Character CONTENT = Character.valueOf('c');
+        private static final Character CDATA = Character.valueOf('d');
+        private static final Character ELEMENT = Character.valueOf('e');
+
+        private final XMLToJSONBuilder builder;
+        /** The recorded events, three entries each: kind, name, value. */
+        private final List<Object> events = new ArrayList<Object>();
+        private int depth;
+
+        RunRecorder(XMLToJSONBuilder builder) {
+            super(builder);
+            this.builder = builder;
+        }
+
+        @Override
+        public void startElement(String name) {
+            this.depth += 1;
+            if (this.depth > 1) {
+                super.startElement(name);
+            }
+        }
+
+        @Override
+        public void attribute(String name, String value) {
+            if (this.depth > 1) {
+                super.attribute(name, value);
+            }
+        }
+
+        @Override
+        public void content(String text) {
+            if (this.depth == 1) {
+                this.record(CONTENT, null, text);
+            } else {
+                super.content(text);
+            }
+        }
+
+        @Override
+        public void cdata(String text) {
+            if (this.depth == 1) {
+                this.record(CDATA, null, text);
+            } else {
+                super.cdata(text);
+            }
+        }
+
+        @Override
+        public void endElement(String name) {
+            if (this.depth == 2) {
+                // the value as it will be accumulated under the root, not as
+                // accumulating it here would leave it
+                this.record(ELEMENT, name, this.builder.endValue());
+            } else if (this.depth > 2) {
+                super.endElement(name);
+            }
+            this.depth -= 1;
+        }
+
+        private void record(Character kind, String name, Object value) {
+            this.events.add(kind);
+            this.events.add(name);
+            this.events.add(value);
+        }
+
+        void replay(XMLToJSONBuilder builder) {
+            for (int i = 0; i < this.events.size(); i += 3) {
+                Object kind = this.events.get(i);
+                if (kind == ELEMENT) {
+                    builder.accumulate((String) this.events.get(i + 1), this.events.get(i + 2));
+                } else if (kind == CONTENT) {
+                    builder.content((String) this.events.get(i + 2));
+                } else {
+                    builder.cdata((String) this.events.get(i + 2));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the root element and the points between its children where the
+     * document can be split. Markup is recognized only as far as is needed
+     * to find where elements start and end.
+     */
+    private static final class BoundaryScanner {
+        private final ByteBuffer bytes;
+        private final int length;
+        private final int runs;
+        private int pos;
+
+        String rootName;
+        /** Where the root start tag begins. */
+        int rootStart;
+        /** Where the content of the root begins, after its start tag. */
+        int contentStart;
+        /** The bounds of the runs: where the content of the root begins, the splits, and where it ends. */
+        final List<Integer> splits = new ArrayList<Integer>();
+
+        BoundaryScanner(ByteBuffer bytes, int runs) {
+            this.bytes = bytes;
+            this.length = bytes.limit();
+            this.runs = runs;
+        }
+
+        /**
+         * @return true if the document can be split
+         */
+        boolean scan() {
+            // a UTF-8 byte order mark
+            if (this.length >= 3 && this.at(0) == (byte) 0xEF && this.at(1) == (byte) 0xBB
+                    && this.at(2) == (byte) 0xBF) {
+                this.pos = 3;
+            }
+
+            // the prolog
+            for (;;) {
+                this.skipWhitespace();
+                if (this.pos >= this.length || this.at(this.pos) != '<') {
+                    return false;
+                }
+                if (this.startsWith("<!DOCTYPE")) {
+                    if (!this.skipDoctype()) {
+                        return false;
+                    }
+                } else if (!this.skipMeta()) {
+                    break;
+                }
+            }
+            if (!this.isNameStart(this.pos + 1)) {
+                return false;
+            }
+            this.rootStart = this.pos;
+            int nameEnd = this.nameEnd(this.pos + 1);
+            this.rootName = new String(this.range(this.pos + 1, nameEnd), StandardCharsets.UTF_8);
+            if (!this.skipTag() || this.at(this.pos - 2) == '/') {
+                return false;
+            }
+            this.contentStart = this.pos;
+
+            // the content of the root
+            final int target = (this.length - this.contentStart) / this.runs + 1;
+            int lastSplit = this.contentStart;
+            this.splits.add(Integer.valueOf(this.contentStart));
+            int depth = 1;
+            for (;;) {
+                while (this.pos < this.length && this.at(this.pos) != '<') {
+                    this.pos += 1;
+                }
+                if (this.pos >= this.length) {
+                    return false;
+                }
+                if (this.at(this.pos + 1) == '/') {
+                    int tagStart = this.pos;
+                    if (!this.skipTag()) {
+                        return false;
+                    }
+                    depth -= 1;
+                    if (depth == 0) {
+                        this.splits.add(Integer.valueOf(tagStart));
+                        break;
+                    }
+                } else if (this.skipMeta()) {
+                    continue;
+                } else if (this.isNameStart(this.pos + 1)) {
+                    if (!this.skipTag()) {
+                        return false;
+                    }
+                    if (this.at(this.pos - 2) != '/') {
+                        depth += 1;
+                    }
+                } else {
+                    return false;
+                }
+                if (depth == 1 && this.pos - lastSplit >= target) {
+                    this.splits.add(Integer.valueOf(this.pos));
+                    lastSplit = this.pos;
+                }
+            }
+
+            // only comments, processing instructions and white space may follow
+            for (;;) {
+                this.skipWhitespace();
+                if (this.pos >= this.length) {
+                    break;
+                }
+                if (this.at(this.pos) != '<' || this.at(this.pos + 1) == '!' && !this.startsWith("<!--")
+                        || !this.skipMeta()) {
+                    return false;
+                }
+            }
+            return this.splits.size() > 2;
+        }
+
+        private byte at(int i) {
+            return i < this.length ? this.bytes.get(i) : 0;
+        }
+
+        private byte[] range(int start, int end) {
+            byte[] b = new byte[end - start];
+            for (int i = start; i < end; i += 1) {
+                b[i - start] = this.bytes.get(i);
+            }
+            return b;
+        }
+
+        private boolean startsWith(String s) {
+            for (int i = 0; i < s.length(); i += 1) {
+                if (this.at(this.pos + i) != s.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void skipWhitespace() {
+            while (this.pos < this.length) {
+                byte b = this.at(this.pos);
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                this.pos += 1;
+            }
+        }
+
+        /**
+         * Skip past a string if it comes next.
+         *
+         * @return false if the end is not found
+         */
+        private boolean skipPast(String end) {
+            for (int i = this.pos; i + end.length() <= this.length; i += 1) {
+                int j = 0;
+                while (j < end.length() && this.at(i + j) == end.charAt(j)) {
+                    j += 1;
+                }
+                if (j == end.length()) {
+                    this.pos = i + j;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Skip a comment, CDATA section or processing instruction that
+         * begins at pos.
+         *
+         * @return false if there is none
+         */
+        private boolean skipMeta() {
+            if (this.startsWith("<!--")) {
+                this.pos += 4;
+                return this.skipPast("-->") || this.fail();
+            }
+            if (this.startsWith("<![CDATA[")) {
+                return this.skipPast("]]>") || this.fail();
+            }
+            if (this.startsWith("<?")) {
+                return this.skipPast("?>") || this.fail();
+            }
+            return false;
+        }
+
+        /**
+         * Skip a DOCTYPE declaration without an internal subset.
+         */
+        private boolean skipDoctype() {
+            while (this.pos < this.length) {
+                byte b = this.at(this.pos++);
+                if (b == '>') {
+                    return true;
+                }
+                if (b == '[') {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Skip a start or end tag that begins at pos, with any quoted
+         * attribute values in it.
+         *
+         * @return false if the end of the tag is not found
+         */
+        private boolean skipTag() {
+            byte quote = 0;
+            for (int i = this.pos + 1; i < this.length; i += 1) {
+                byte b = this.at(i);
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '<') {
+                    return false;
+                } else if (b == '>') {
+                    this.pos = i + 1;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isNameStart(int i) {
+            byte b = this.at(i);
+            return b != 0 && b != '/' && b != '!' && b != '?' && b != '>' && b != '<'
+                    && b != ' ' && b != '\t' && b != '\n' && b != '\r';
+        }
+
+        private int nameEnd(int i) {
+            while (i < this.length) {
+                byte b = this.at(i);
+                if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '/' || b == '>') {
+                    break;
+                }
+                i += 1;
+            }
+            return i;
+        }
+
+        private boolean fail() {
+            this.pos = this.length;
+            return false;
+        }
+    }
+}
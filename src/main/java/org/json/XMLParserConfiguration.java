@@ -23,6 +23,7 @@ OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
 */
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -41,6 +42,17 @@ public class XMLParserConfiguration {
     public static final XMLParserConfiguration KEEP_STRINGS
         = new XMLParserConfiguration().withKeepStrings(true);
 
+    /**
+     * Used to indicate there's no defined limit to the maximum nesting depth when parsing a XML
+     * document to JSON.
+     */
+    public static final int UNDEFINED_MAXIMUM_NESTING_DEPTH = -1;
+
+    /**
+     * The default maximum nesting depth when parsing a XML document to JSON.
+     */
+    public static final int DEFAULT_MAXIMUM_NESTING_DEPTH = 512;
+
     /**
      * When parsing the XML into JSON, specifies if values should be kept as strings (<code>true</code>), or if
      * they should try to be guessed into JSON values (numeric, boolean, string)
@@ -66,6 +78,17 @@ public class XMLParserConfiguration {
      */
     private Map<String, XMLXsiTypeConverter<?>> xsiTypeMap;
 
+    /**
+     * When parsing the XML into JSON, specifies the tags nesting depth at which the
+     * document is rejected.
+     */
+    private int maxNestingDepth = DEFAULT_MAXIMUM_NESTING_DEPTH;
+
+    /**
+     * The longest time a parse may take, or <code>null</code> for no limit.
+     */
+    private Duration timeout;
+
     /**
      * Default parser configuration. Does not keep strings (tries to implicitly convert
      * values), and the CDATA Tag Name is "content".
@@ -151,13 +174,18 @@ public class XMLParserConfiguration {
      *                                  <code>false</code> to parse values with attribute xsi:nil="true" as {"xsi:nil":true}.
      * @param xsiTypeMap  <code>new HashMap<String, XMLXsiTypeConverter<?>>()</code> to parse values with attribute
      *                   xsi:type="integer" as integer,  xsi:type="string" as string
+     * @param maxNestingDepth The maximum nesting depth of the document, or -1 for no limit.
+     * @param timeout The longest time a parse may take, or <code>null</code> for no limit.
      */
     private XMLParserConfiguration (final boolean keepStrings, final String cDataTagName,
-            final boolean convertNilAttributeToNull, final Map<String, XMLXsiTypeConverter<?>> xsiTypeMap ) {
+            final boolean convertNilAttributeToNull, final Map<String, XMLXsiTypeConverter<?>> xsiTypeMap,
+            final int maxNestingDepth, final Duration timeout) {
         this.keepStrings = keepStrings;
         this.cDataTagName = cDataTagName;
         this.convertNilAttributeToNull = convertNilAttributeToNull;
         this.xsiTypeMap = Collections.unmodifiableMap(xsiTypeMap);
+        this.maxNestingDepth = maxNestingDepth;
+        this.timeout = timeout;
     }
 
     /**
@@ -174,7 +202,9 @@ public class XMLParserConfiguration {
                 this.keepStrings,
                 this.cDataTagName,
                 this.convertNilAttributeToNull,
-                this.xsiTypeMap
+                this.xsiTypeMap,
+                this.maxNestingDepth,
+                this.timeout
         );
     }
     
@@ -283,4 +313,55 @@ public class XMLParserConfiguration {
         newConfig.xsiTypeMap = Collections.unmodifiableMap(cloneXsiTypeMap);
         return newConfig;
     }
+
+    /**
+     * The maximum nesting depth that the parser will descend before throwing an exception
+     * when parsing the XML into JSON.
+     * @return the maximum nesting depth set for this configuration
+     */
+    public int getMaxNestingDepth() {
+        return this.maxNestingDepth;
+    }
+
+    /**
+     * Defines the maximum nesting depth that the parser will descend before throwing an exception
+     * when parsing the XML into JSON. The default max nesting depth is 512, which means the parser
+     * will throw a JSONException if the maximum depth is reached.
+     * Using any negative value as a parameter is equivalent to setting no limit to the nesting depth,
+     * which means the parser will go as deep as the memory allows.
+     * @param maxNestingDepth the maximum nesting depth allowed to the XML parser
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public XMLParserConfiguration withMaxNestingDepth(int maxNestingDepth) {
+        XMLParserConfiguration newConfig = this.clone();
+        if (maxNestingDepth > UNDEFINED_MAXIMUM_NESTING_DEPTH) {
+            newConfig.maxNestingDepth = maxNestingDepth;
+        } else {
+            newConfig.maxNestingDepth = UNDEFINED_MAXIMUM_NESTING_DEPTH;
+        }
+        return newConfig;
+    }
+
+    /**
+     * The longest time a parse may take before it fails.
+     * @return the timeout, or <code>null</code> if there is no limit
+     */
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Defines the longest time a parse may take. The time is counted from the
+     * start of each parse, and once it has passed the parser throws a
+     * JSONException, so that a runaway conversion frees its thread. A parse
+     * with a timeout also stops with a JSONException when its thread is
+     * interrupted.
+     * @param newVal the longest time a parse may take, or <code>null</code> for no limit
+     * @return The existing configuration will not be modified. A new configuration is returned.
+     */
+    public XMLParserConfiguration withTimeout(final Duration newVal) {
+        XMLParserConfiguration newConfig = this.clone();
+        newConfig.timeout = newVal;
+        return newConfig;
+    }
 }
@@ -0,0 +1,106 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * An XMLFilter that passes on only the content of the element a JSONPointer
+ * points to: its attributes, content text and child elements are reported as
+ * if they were those of the document, so a JSONObject built from them is the
+ * value of that element. Pointers are matched as described for
+ * {@link XML#toJSONObject(java.io.Reader, JSONPointer)}; the pointers "/" and
+ * "" pass on the whole document. Reading stops once the element has ended.
+ */
+public class XMLPointerFilter extends XMLFilter {
+
+    private final XMLPointerMatcher matcher;
+    /** Depth inside the target, 1 for the target itself, 0 outside of it. */
+    private int inside;
+
+    /**
+     * @param pointer The pointer to the element to pass on.
+     * @param visitor The visitor that receives the content of the element.
+     */
+    public XMLPointerFilter(JSONPointer pointer, XMLVisitor visitor) {
+        super(visitor);
+        this.matcher = new XMLPointerMatcher(pointer);
+    }
+
+    @Override
+    public void startElement(String name) {
+        if (this.matcher.isRoot() || this.inside > 0) {
+            this.inside += 1;
+            this.visitor.startElement(name);
+        } else if (this.matcher.enter(name) == XMLPointerMatcher.TARGET) {
+            this.inside = 1;
+        }
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        if (this.matcher.isRoot() || this.inside > 0) {
+            this.visitor.attribute(name, value);
+        }
+    }
+
+    @Override
+    public void content(String text) {
+        if (this.matcher.isRoot() || this.inside > 0) {
+            this.visitor.content(text);
+        }
+    }
+
+    @Override
+    public void cdata(String text) {
+        if (this.matcher.isRoot() || this.inside > 0) {
+            this.visitor.cdata(text);
+        }
+    }
+
+    @Override
+    public void element(String name, Object value) {
+        if (this.matcher.isRoot() || this.inside > 0) {
+            this.visitor.element(name, value);
+        }
+    }
+
+    @Override
+    public void endElement(String name) {
+        if (this.matcher.isRoot()) {
+            this.visitor.endElement(name);
+        } else if (this.inside > 1) {
+            this.inside -= 1;
+            this.visitor.endElement(name);
+        } else {
+            // the target's own tags are not passed on
+            this.inside = 0;
+            this.matcher.exit();
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return (this.matcher.isFound() && this.inside == 0) || this.visitor.isDone();
+    }
+}
@@ -0,0 +1,154 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches a JSONPointer against the elements of an XML document as they are
+ * read. Each token of the pointer names an element, and a numeric token
+ * selects among same-named siblings, so "/catalog/book/1" is the second book
+ * element of the catalog. When the last token is not followed by an index,
+ * the first matching element is the target and its later siblings of the same
+ * name are reported as dropped, since together they form the JSONArray that
+ * the pointer refers to. Only the first target is found.
+ */
+final class XMLPointerMatcher {
+
+    /** The element is not on the pointer's path. */
+    static final int OUTSIDE = 0;
+    /** The element is an ancestor of the target. */
+    static final int PATH = 1;
+    /** The element is the target. */
+    static final int TARGET = 2;
+    /** The element is a later member of the array that was the target. */
+    static final int DROPPED = 3;
+
+    private final String[] names;
+    private final int[] indexes;
+    /** Same-named siblings met so far at each level of the pointer. */
+    private final int[] seen;
+    /** Number of open elements. */
+    private int depth;
+    /** Number of open elements, from the root, that follow the pointer. */
+    private int onPath;
+    private boolean found;
+    private String dropName;
+    private int dropDepth = -1;
+
+    /**
+     * @param pointer The pointer to match. "/" and "" point to the root
+     *  element.
+     */
+    XMLPointerMatcher(JSONPointer pointer) {
+        List<String> tokens = pointer.getRefTokens();
+        if (tokens.size() == 1 && tokens.get(0).isEmpty()) {
+            tokens = new ArrayList<String>(0);
+        }
+        // fold each array index into the element name before it: /book/0 is book[0]
+        List<String> names = new ArrayList<String>(tokens.size());
+        List<Integer> indexes = new ArrayList<Integer>(tokens.size());
+        for (String token : tokens) {
+            if (!names.isEmpty() && indexes.get(indexes.size() - 1).intValue() < 0
+                    && token.matches("[0-9]{1,9}")) {
+                indexes.set(indexes.size() - 1, Integer.valueOf(token));
+            } else {
+                names.add(token);
+                indexes.add(Integer.valueOf(-1));
+            }
+        }
+        this.names = names.toArray(new String[names.size()]);
+        this.indexes = new int[indexes.size()];
+        for (int i = 0; i < this.indexes.length; i += 1) {
+            this.indexes[i] = indexes.get(i).intValue();
+        }
+        this.seen = new int[this.names.length];
+    }
+
+    /**
+     * @return true if the pointer points to the root element
+     */
+    boolean isRoot() {
+        return this.names.length == 0;
+    }
+
+    /**
+     * @return true once the target has been entered
+     */
+    boolean isFound() {
+        return this.found;
+    }
+
+    /**
+     * An element starts. Every call must be paired with a call to exit.
+     *
+     * @param name The tag name.
+     * @return OUTSIDE, PATH, TARGET or DROPPED
+     */
+    int enter(String name) {
+        int level = this.depth;
+        this.depth += 1;
+        if (level == this.dropDepth && name.equals(this.dropName)) {
+            return DROPPED;
+        }
+        if (this.found || level != this.onPath) {
+            return OUTSIDE;
+        }
+        if (this.names.length == 0) {
+            this.found = true;
+            return TARGET;
+        }
+        if (!name.equals(this.names[level])
+                || this.seen[level]++ != Math.max(this.indexes[level], 0)) {
+            return OUTSIDE;
+        }
+        if (level == this.names.length - 1) {
+            this.found = true;
+            if (this.indexes[level] < 0) {
+                this.dropName = name;
+                this.dropDepth = level;
+            }
+            return TARGET;
+        }
+        this.onPath += 1;
+        this.seen[this.onPath] = 0;
+        return PATH;
+    }
+
+    /**
+     * The current element ends.
+     */
+    void exit() {
+        this.depth -= 1;
+        if (this.onPath > this.depth) {
+            this.onPath = this.depth;
+        }
+        if (this.depth < this.dropDepth) {
+            this.dropName = null;
+            this.dropDepth = -1;
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.function.Consumer;
+
+/**
+ * An XML to JSON converter that is fed its input a chunk at a time, as it
+ * arrives from a channel or a socket, instead of reading it from a Reader.
+ * No call blocks waiting for input: each chunk is buffered, and the parts of
+ * the document that it completes are reported at once, so the parser can be
+ * driven by an NIO selector or a completion handler.
+ * <p>
+ * The document is read the way {@link XML#visit(Reader, XMLParserConfiguration, XMLVisitor)}
+ * reads it, whatever the chunks are: a chunk may end in the middle of a tag,
+ * an entity or a multibyte UTF-8 sequence. Markup is reported once its
+ * closing '&gt;' has arrived, and the chars that were reported are dropped
+ * from the buffer, so only the unfinished part of the document is held.
+ * <pre>{@code
+ * XMLPushParser parser = new XMLPushParser(XMLParserConfiguration.ORIGINAL);
+ * while (channel.read(buffer) >= 0) {
+ *     buffer.flip();
+ *     parser.feed(buffer);
+ *     buffer.clear();
+ * }
+ * parser.endOfInput();
+ * JSONObject jsonObject = parser.getJSONObject();
+ * }</pre>
+ */
+public class XMLPushParser {
+
+    /** Scanning content text. */
+    private static final int TEXT = 0;
+    /** After '&lt;'. */
+    private static final int OPEN = 1;
+    /** In a tag. */
+    private static final int TAG = 2;
+    /** In a quoted string of a tag. */
+    private static final int TAG_QUOTE = 3;
+    /** After '&lt;!'. */
+    private static final int BANG = 4;
+    /** After '&lt;!-'. */
+    private static final int BANG_DASH = 5;
+    /** In a comment, before '--&gt;'. */
+    private static final int COMMENT = 6;
+    /** In a CDATA section, before ']]&gt;'. */
+    private static final int CDATA = 7;
+    /** In a processing instruction, before '?&gt;'. */
+    private static final int PI = 8;
+    /** In a declaration, before its balancing '&gt;'. */
+    private static final int META = 9;
+    /** In a quoted string of a declaration. */
+    private static final int META_QUOTE = 10;
+
+    private final XMLVisitor visitor;
+    private final XMLToJSONBuilder builder;
+    private final int maxNestingDepth;
+    private final PushReader input = new PushReader();
+    private final XMLTokener x = new XMLTokener(this.input);
+    private final XML.OpenTags open = new XML.OpenTags();
+
+    /** The state of the scan for the end of the current markup. */
+    private int state = TEXT;
+    /** The quote that ends the current quoted string. */
+    private char quote;
+    /** The number of '-', ']' or '?' just scanned, or the nesting of a declaration. */
+    private int run;
+    /** The number of chars scanned. */
+    private long scanned;
+    /** The number of chars up to the end of the last markup scanned. */
+    private long complete;
+
+    private boolean ended;
+    private boolean finished;
+    private JSONException failure;
+
+    /**
+     * Construct a parser that builds the JSONObject of the document, as
+     * {@link XML#toJSONObject(Reader, XMLParserConfiguration)} does.
+     *
+     * @param config Configuration options for the parser.
+     */
+    public XMLPushParser(XMLParserConfiguration config) {
+        this.builder = new XMLToJSONBuilder(config);
+        this.visitor = this.builder;
+        this.maxNestingDepth = config.getMaxNestingDepth();
+    }
+
+    /**
+     * Construct a parser that reports the document to a visitor as it
+     * arrives.
+     *
+     * @param config Configuration options for the parser; only the maximum
+     *  nesting depth is used, the visitor applies the others.
+     * @param visitor The visitor that receives the document.
+     */
+    public XMLPushParser(XMLParserConfiguration config, XMLVisitor visitor) {
+        if (visitor == null) {
+            throw new NullPointerException("visitor cannot be null");
+        }
+        this.builder = null;
+        this.visitor = visitor;
+        this.maxNestingDepth = config.getMaxNestingDepth();
+    }
+
+    /**
+     * Construct a parser that emits the children of the root element as
+     * records. Each child is converted as
+     * {@link XML#toJSONObject(Reader, XMLParserConfiguration)} would convert
+     * it on its own, and is passed on as soon as its end tag arrives, then
+     * forgotten, so a long stream of records is converted in constant
+     * memory. The attributes and content text of the root element are
+     * dropped.
+     *
+     * @param config Configuration options for the parser.
+     * @param records Receives a JSONObject holding each child element, keyed
+     *  by its tag name.
+     */
+    public XMLPushParser(XMLParserConfiguration config, Consumer<JSONObject> records) {
+        this(config, new String[2], records);
+    }
+
+    /**
+     * Construct a parser that emits the elements found at a path as
+     * records, as {@link #XMLPushParser(XMLParserConfiguration, Consumer)}
+     * emits the children of the root element. Each token of the pointer
+     * names an element, the root element first, so "/catalog/book" emits
+     * every book element of the catalog. Everything outside of the records
+     * is dropped.
+     *
+     * @param config Configuration options for the parser.
+     * @param path The names of the record elements and of their ancestors.
+     * @param records Receives a JSONObject holding each record element,
+     *  keyed by its tag name.
+     */
+    public XMLPushParser(XMLParserConfiguration config, JSONPointer path, Consumer<JSONObject> records) {
+        this(config, path.getRefTokens().toArray(new String[0]), records);
+    }
+
+    /**
+     * @param path The names of the record elements and of their ancestors,
+     *  where null matches any name.
+     */
+    private XMLPushParser(XMLParserConfiguration config, String[] path, Consumer<JSONObject> records) {
+        if (records == null) {
+            throw new NullPointerException("records cannot be null");
+        }
+        this.builder = null;
+        this.visitor = new RecordEmitter(new XMLToJSONBuilder(config), path, records);
+        this.maxNestingDepth = config.getMaxNestingDepth();
+    }
+
+    /**
+     * Feed the next chunk of the document, as chars.
+     *
+     * @param chars The chunk.
+     * @param offset The index of the first char of the chunk.
+     * @param length The number of chars in the chunk.
+     * @throws JSONException Thrown if the XML is not well formed, or if the
+     *  input has ended.
+     */
+    public void feed(char[] chars, int offset, int length) throws JSONException {
+        if (!this.accepts()) {
+            return;
+        }
+        this.input.append(chars, offset, length);
+        this.parse();
+    }
+
+    /**
+     * Feed the next chunk of the document, as the remaining chars of a
+     * buffer. The buffer is drained.
+     *
+     * @param chars The chunk.
+     * @throws JSONException Thrown if the XML is not well formed, or if the
+     *  input has ended.
+     */
+    public void feed(CharBuffer chars) throws JSONException {
+        if (!this.accepts()) {
+            chars.position(chars.limit());
+            return;
+        }
+        this.input.append(chars);
+        this.parse();
+    }
+
+    /**
+     * Feed the next chunk of the document, as the remaining bytes of a
+     * buffer in UTF-8. The buffer is drained; a multibyte sequence that is
+     * cut by the end of the chunk is kept until the next chunk completes it.
+     * Malformed sequences are replaced, as
+     * {@link JSONTokener#JSONTokener(java.io.InputStream)} replaces them.
+     *
+     * @param bytes The chunk.
+     * @throws JSONException Thrown if the XML is not well formed, or if the
+     *  input has ended.
+     */
+    public void feed(ByteBuffer bytes) throws JSONException {
+        if (!this.accepts()) {
+            bytes.position(bytes.limit());
+            return;
+        }
+        this.input.append(bytes);
+        this.parse();
+    }
+
+    /**
+     * Report that the whole document has been fed, and finish reading it.
+     *
+     * @throws JSONException Thrown if the XML is not well formed, or ends
+     *  with an element open.
+     */
+    public void endOfInput() throws JSONException {
+        if (!this.accepts()) {
+            this.ended = true;
+            return;
+        }
+        this.input.endOfInput();
+        this.ended = true;
+        this.parse();
+    }
+
+    /**
+     * @return true if the document has been read to its end, or the visitor
+     *  needs no more of it; later chunks are ignored
+     */
+    public boolean isDone() {
+        return this.finished || this.visitor.isDone();
+    }
+
+    /**
+     * @return the JSONObject of the document once it is done, or null if it
+     *  is not done or the parser reports to a visitor or to a consumer of
+     *  records instead of building a JSONObject
+     */
+    public JSONObject getJSONObject() {
+        return this.builder != null && this.isDone() ? this.builder.getJSONObject() : null;
+    }
+
+    /**
+     * @return false if the parser is done and input is to be ignored
+     * @throws JSONException if the parser has failed, or the input has ended
+     */
+    private boolean accepts() throws JSONException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+        if (this.ended) {
+            throw new JSONException("The input has ended");
+        }
+        return !this.isDone();
+    }
+
+    /**
+     * Scan the chars that arrived for the ends of markup, then report every
+     * part of the document that is complete.
+     */
+    private void parse() throws JSONException {
+        PushReader input = this.input;
+        for (int i = (int) (this.scanned - input.base); i < input.end; i += 1) {
+            if (this.scan(input.buf[i])) {
+                this.complete = input.base + i + 1;
+            }
+        }
+        this.scanned = input.base + input.end;
+        try {
+            while (!this.isDone() && (this.ended || input.position() < this.complete)) {
+                if (!XML.visitNext(this.x, this.visitor, this.maxNestingDepth, this.open)) {
+                    this.finished = true;
+                }
+            }
+        } catch (JSONException e) {
+            this.failure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Scan the next char, following the way {@link XML#visitNext} reads
+     * markup closely enough to know where it ends. Where the two could
+     * differ the markup is malformed, and the scan only finds the end later
+     * than the parse needs it.
+     *
+     * @param c The char.
+     * @return true if the char ends a markup
+     */
+    private boolean scan(char c) {
+        switch (this.state) {
+        case TEXT:
+            if (c == '<') {
+                this.state = OPEN;
+            }
+            return false;
+        case OPEN:
+            if (c == '!') {
+                this.state = BANG;
+            } else if (c == '?') {
+                this.state = PI;
+                this.run = 0;
+            } else if (!Character.isWhitespace(c)) {
+                this.state = TAG;
+                return this.scan(c);
+            }
+            return false;
+        case TAG:
+            if (c == '"' || c == '\'') {
+                this.quote = c;
+                this.state = TAG_QUOTE;
+            } else if (c == '>' || c == '<') {
+                // '<' is an error, reported when the parse reaches it
+                this.state = TEXT;
+                return true;
+            }
+            return false;
+        case TAG_QUOTE:
+            if (c == this.quote) {
+                this.state = TAG;
+            }
+            return false;
+        case BANG:
+            if (c == '-') {
+                this.state = BANG_DASH;
+            } else if (c == '[') {
+                this.state = CDATA;
+                this.run = 0;
+            } else {
+                // the char after <! is skipped
+                this.state = META;
+                this.run = 1;
+            }
+            return false;
+        case BANG_DASH:
+            if (c == '-') {
+                this.state = COMMENT;
+                this.run = 0;
+                return false;
+            }
+            this.state = META;
+            this.run = 1;
+            return this.scan(c);
+        case COMMENT:
+            return this.scanPast(c, '-', 2);
+        case CDATA:
+            return this.scanPast(c, ']', 2);
+        case PI:
+            return this.scanPast(c, '?', 1);
+        case META:
+            if (c == '"' || c == '\'') {
+                this.quote = c;
+                this.state = META_QUOTE;
+            } else if (c == '<') {
+                this.run += 1;
+            } else if (c == '>') {
+                this.run -= 1;
+                if (this.run == 0) {
+                    this.state = TEXT;
+                    return true;
+                }
+            }
+            return false;
+        default:
+            if (c == this.quote) {
+                this.state = META;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Scan for a '&gt;' that follows a number of repeated chars, such as the
+     * end of a comment.
+     */
+    private boolean scanPast(char c, char repeated, int count) {
+        if (c == repeated) {
+            this.run += 1;
+        } else if (c == '>' && this.run >= count) {
+            this.state = TEXT;
+            return true;
+        } else {
+            this.run = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Passes the elements at a path on to a builder, and takes each of them
+     * out of the builder as a record when it ends.
+     */
+    private static final class RecordEmitter extends XMLFilter {
+        private final XMLToJSONBuilder builder;
+        private final String[] path;
+        private final Consumer<JSONObject> records;
+        /** Number of open elements. */
+        private int depth;
+        /** Number of open elements, from the root, that follow the path. */
+        private int onPath;
+
+        RecordEmitter(XMLToJSONBuilder builder, String[] path, Consumer<JSONObject> records) {
+            super(builder);
+            this.builder = builder;
+            this.path = path;
+            this.records = records;
+        }
+
+        private boolean inRecord() {
+            return this.onPath == this.path.length;
+        }
+
+        @Override
+        public void startElement(String name) {
+            if (this.onPath == this.depth && this.depth < this.path.length
+                    && (this.path[this.depth] == null || this.path[this.depth].equals(name))) {
+                this.onPath += 1;
+            }
+            this.depth += 1;
+            if (this.inRecord()) {
+                super.startElement(name);
+            }
+        }
+
+        @Override
+        public void attribute(String name, String value) {
+            if (this.inRecord()) {
+                super.attribute(name, value);
+            }
+        }
+
+        @Override
+        public void content(String text) {
+            if (this.inRecord()) {
+                super.content(text);
+            }
+        }
+
+        @Override
+        public void cdata(String text) {
+            if (this.inRecord()) {
+                super.cdata(text);
+            }
+        }
+
+        @Override
+        public void element(String name, Object value) {
+            if (this.inRecord()) {
+                super.element(name, value);
+            } else if (this.onPath == this.depth && this.depth == this.path.length - 1
+                    && (this.path[this.depth] == null || this.path[this.depth].equals(name))) {
+                this.records.accept(new JSONObject().put(name, value));
+            }
+        }
+
+        @Override
+        public void endElement(String name) {
+            if (this.inRecord()) {
+                super.endElement(name);
+                if (this.depth == this.path.length) {
+                    this.records.accept(new JSONObject().put(name,
+                            this.builder.getJSONObject().remove(name)));
+                }
+            }
+            this.depth -= 1;
+            if (this.onPath > this.depth) {
+                this.onPath = this.depth;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.util.Iterator;
+
+/**
+ * An XMLFilter that passes on the whole document except for the element a
+ * JSONPointer points to, which is replaced by a JSONObject. Pointers are
+ * matched as described for
+ * {@link XML#toJSONObject(java.io.Reader, JSONPointer, JSONObject)}. When the
+ * pointer is "/", the members of the replacement are passed on in place of the
+ * root element, so the document becomes the replacement.
+ */
+public class XMLReplacementFilter extends XMLFilter {
+
+    private final XMLPointerMatcher matcher;
+    private final JSONObject replacement;
+    private final String cDataTagName;
+    /** Depth inside a skipped element, 1 for the element itself. */
+    private int skipping;
+
+    /**
+     * @param pointer The pointer to the element to replace.
+     * @param replacement The JSONObject that replaces it.
+     * @param cDataTagName The name of the content member, so that a
+     *  replacement with only content is written as a value.
+     * @param visitor The visitor that receives the changed document.
+     */
+    public XMLReplacementFilter(JSONPointer pointer, JSONObject replacement, String cDataTagName,
+            XMLVisitor visitor) {
+        super(visitor);
+        this.matcher = new XMLPointerMatcher(pointer);
+        this.replacement = replacement;
+        this.cDataTagName = cDataTagName;
+    }
+
+    @Override
+    public void startElement(String name) {
+        if (this.skipping > 0) {
+            this.skipping += 1;
+            return;
+        }
+        switch (this.matcher.enter(name)) {
+        case XMLPointerMatcher.TARGET:
+            if (this.matcher.isRoot()) {
+                Iterator<String> keys = this.replacement.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    this.visitor.element(key, this.replacement.get(key));
+                }
+            } else if (this.replacement.isEmpty()) {
+                this.visitor.element(name, "");
+            } else if (this.replacement.length() == 1
+                    && this.replacement.opt(this.cDataTagName) != null) {
+                this.visitor.element(name, this.replacement.opt(this.cDataTagName));
+            } else {
+                this.visitor.element(name, this.replacement);
+            }
+            this.skipping = 1;
+            break;
+        case XMLPointerMatcher.DROPPED:
+            this.skipping = 1;
+            break;
+        default:
+            this.visitor.startElement(name);
+        }
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        if (this.skipping == 0) {
+            this.visitor.attribute(name, value);
+        }
+    }
+
+    @Override
+    public void content(String text) {
+        if (this.skipping == 0) {
+            this.visitor.content(text);
+        }
+    }
+
+    @Override
+    public void cdata(String text) {
+        if (this.skipping == 0) {
+            this.visitor.cdata(text);
+        }
+    }
+
+    @Override
+    public void element(String name, Object value) {
+        if (this.skipping == 0) {
+            this.visitor.element(name, value);
+        }
+    }
+
+    @Override
+    public void endElement(String name) {
+        if (this.skipping > 0) {
+            this.skipping -= 1;
+            if (this.skipping == 0) {
+                this.matcher.exit();
+            }
+        } else {
+            this.matcher.exit();
+            this.visitor.endElement(name);
+        }
+    }
+}
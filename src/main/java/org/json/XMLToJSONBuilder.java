@@ -0,0 +1,171 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.util.Arrays;
+
+/**
+ * An XMLVisitor that builds the JSONObject for a document. Elements and
+ * attributes become members, content text becomes the content member, and
+ * elements with only content text or CDATA become values; an attribute
+ * named like the content member does not make its element a value.
+ * Elements with the same name become a JSONArray. Values are converted as
+ * configured by an XMLParserConfiguration.
+ */
+public class XMLToJSONBuilder implements XMLVisitor {
+
+    /** One open element, or the document. */
+    private static final class Frame {
+        final JSONObject jsonObject = new JSONObject();
+        boolean nilAttributeFound;
+        boolean hasContent;
+        /** True if the element has content text or CDATA, not only attributes. */
+        boolean hasText;
+        XMLXsiTypeConverter<?> xmlXsiTypeConverter;
+    }
+
+    private final XMLParserConfiguration config;
+    /** The frames of the enclosing elements, the document first. */
+    private Frame[] stack = new Frame[16];
+    private int depth;
+    private Frame top;
+
+    /**
+     * @param config Configuration options for the conversion.
+     */
+    public XMLToJSONBuilder(XMLParserConfiguration config) {
+        this.config = config;
+        this.top = new Frame();
+    }
+
+    /**
+     * @return the JSONObject built for the document so far
+     */
+    public JSONObject getJSONObject() {
+        return this.depth == 0 ? this.top.jsonObject : this.stack[0].jsonObject;
+    }
+
+    @Override
+    public void startElement(String name) {
+        this.top.hasContent = true;
+        if (this.depth == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+        }
+        this.stack[this.depth++] = this.top;
+        this.top = new Frame();
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        Frame frame = this.top;
+        if (this.config.isConvertNilAttributeToNull()
+                && XML.NULL_ATTR.equals(name)
+                && Boolean.parseBoolean(value)) {
+            frame.nilAttributeFound = true;
+        } else if (this.config.getXsiTypeMap() != null && !this.config.getXsiTypeMap().isEmpty()
+                && XML.TYPE_ATTR.equals(name)) {
+            frame.xmlXsiTypeConverter = this.config.getXsiTypeMap().get(value);
+        } else if (!frame.nilAttributeFound) {
+            frame.jsonObject.accumulate(name,
+                    this.config.isKeepStrings() ? value : XML.stringToValue(value));
+        }
+    }
+
+    @Override
+    public void content(String text) {
+        Frame frame = this.top;
+        frame.hasContent = true;
+        frame.hasText = true;
+        if (frame.xmlXsiTypeConverter != null) {
+            frame.jsonObject.accumulate(this.config.getcDataTagName(),
+                    XML.stringToValue(text, frame.xmlXsiTypeConverter));
+        } else {
+            frame.jsonObject.accumulate(this.config.getcDataTagName(),
+                    this.config.isKeepStrings() ? text : XML.stringToValue(text));
+        }
+    }
+
+    @Override
+    public void cdata(String text) {
+        this.top.hasContent = true;
+        this.top.hasText = true;
+        this.top.jsonObject.accumulate(this.config.getcDataTagName(), text);
+    }
+
+    @Override
+    public void element(String name, Object value) {
+        this.top.hasContent = true;
+        if (this.top.jsonObject.opt(name) == null) {
+            // a JSONArray value is the whole array, not its first element
+            this.top.jsonObject.put(name, value);
+        } else {
+            this.top.jsonObject.accumulate(name, value);
+        }
+    }
+
+    @Override
+    public void endElement(String name) {
+        Object value = this.endValue();
+        this.top.jsonObject.accumulate(name, value);
+    }
+
+    /**
+     * End the open element without adding it to its parent.
+     *
+     * @return the value the element is accumulated as
+     */
+    Object endValue() {
+        Frame frame = this.top;
+        JSONObject jsonObject = frame.jsonObject;
+        this.top = this.stack[--this.depth];
+        this.stack[this.depth] = null;
+        if (frame.nilAttributeFound && !frame.hasContent) {
+            return JSONObject.NULL;
+        } else if (jsonObject.length() == 0) {
+            return "";
+        } else if (frame.hasText && jsonObject.length() == 1
+                && jsonObject.opt(this.config.getcDataTagName()) != null) {
+            return jsonObject.opt(this.config.getcDataTagName());
+        }
+        return jsonObject;
+    }
+
+    /**
+     * Add an element to the open element as {@link #endElement(String)}
+     * adds it, with a value made by {@link #endValue()}.
+     *
+     * @param name the name of the element
+     * @param value the value of the element
+     */
+    void accumulate(String name, Object value) {
+        this.top.hasContent = true;
+        this.top.jsonObject.accumulate(name, value);
+    }
+
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+}
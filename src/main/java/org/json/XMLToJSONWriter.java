@@ -0,0 +1,341 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * An XMLVisitor that writes the JSON text XML.toJSONObject would produce for
+ * a document, as the parts of the document are reported to it, without
+ * building JSONObjects. Elements and attributes become members, content text
+ * becomes the content member, and elements with only content text become
+ * values. Values are converted as configured by an XMLParserConfiguration.
+ * <p>
+ * Elements with the same name become a JSONArray, whether or not they are
+ * adjacent. Whether an element is the only one with its name is not known
+ * until its parent ends, so the members of an element are held as JSON text
+ * until then, except for one name: the first name that is found twice has
+ * its JSONArray opened in the output, and the elements with that name that
+ * follow are written straight through. A list of records is therefore
+ * streamed, but an element that is the only one with its name, such as the
+ * single wrapper of a list of records, is held whole until its parent ends.
+ * The elements of the document itself are never held; a name that repeats
+ * at that level is reported as a duplicate key.
+ */
+final class XMLToJSONWriter implements XMLVisitor {
+
+    /** The values of a member of an element, held as JSON texts. */
+    private static final class Held {
+        final List<String> texts = new ArrayList<String>(1);
+        /** True if the texts are written as a JSONArray even if there is only one. */
+        boolean array;
+    }
+
+    /** One open element, or the document. */
+    private static final class Frame {
+        final Frame parent;
+        final String name;
+        /** Receives the value of this element. */
+        final Writer out;
+        /** The buffer out is, if the value is held by the parent, or null. */
+        final StringWriter buffer;
+        boolean nilAttributeFound;
+        boolean hasContent;
+        /** True if the element has content text or CDATA, not only attributes. */
+        boolean hasText;
+        XMLXsiTypeConverter<?> xmlXsiTypeConverter;
+        /** Members not yet written, in the order they appeared. */
+        final Map<String, Held> members = new LinkedHashMap<String, Held>();
+        /** The name whose JSONArray is open in out, or null. */
+        String streamed;
+        /** True once the opening brace has been written. */
+        boolean object;
+        /** True if a member has been written, so the next needs a comma. */
+        boolean comma;
+        /** The names of the elements of the document, which are written as they start. */
+        Set<String> keys;
+
+        Frame(Frame parent, String name, Writer out, StringWriter buffer) {
+            this.parent = parent;
+            this.name = name;
+            this.out = out;
+            this.buffer = buffer;
+        }
+    }
+
+    private final XMLParserConfiguration config;
+    private Frame top;
+
+    /**
+     * @param writer Receives the JSON text.
+     * @param config Configuration options for the conversion.
+     */
+    XMLToJSONWriter(Writer writer, XMLParserConfiguration config) {
+        this.config = config;
+        this.top = new Frame(null, null, writer, null);
+        this.top.keys = new HashSet<String>();
+    }
+
+    /**
+     * Finish the document, which is a JSONObject of its top level elements.
+     */
+    void endDocument() {
+        try {
+            this.openObject(this.top);
+            this.writeMembers(this.top);
+            this.top.out.write('}');
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    @Override
+    public void startElement(String name) {
+        try {
+            Writer out = this.child(this.top, name);
+            StringWriter buffer = out == null ? new StringWriter() : null;
+            this.top = new Frame(this.top, name, out == null ? buffer : out, buffer);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        Frame frame = this.top;
+        if (this.config.isConvertNilAttributeToNull()
+                && XML.NULL_ATTR.equals(name)
+                && Boolean.parseBoolean(value)) {
+            frame.nilAttributeFound = true;
+        } else if (this.config.getXsiTypeMap() != null && !this.config.getXsiTypeMap().isEmpty()
+                && XML.TYPE_ATTR.equals(name)) {
+            frame.xmlXsiTypeConverter = this.config.getXsiTypeMap().get(value);
+        } else if (!frame.nilAttributeFound) {
+            this.hold(frame, name, text(this.config.isKeepStrings() ? value : XML.stringToValue(value)), false);
+        }
+    }
+
+    @Override
+    public void content(String text) {
+        Frame frame = this.top;
+        frame.hasContent = true;
+        frame.hasText = true;
+        Object value;
+        if (frame.xmlXsiTypeConverter != null) {
+            value = XML.stringToValue(text, frame.xmlXsiTypeConverter);
+        } else {
+            value = this.config.isKeepStrings() ? text : XML.stringToValue(text);
+        }
+        this.hold(frame, this.config.getcDataTagName(), text(value), false);
+    }
+
+    @Override
+    public void cdata(String text) {
+        this.top.hasContent = true;
+        this.top.hasText = true;
+        this.hold(this.top, this.config.getcDataTagName(), text(text), false);
+    }
+
+    @Override
+    public void element(String name, Object value) {
+        Frame frame = this.top;
+        try {
+            Writer out = this.child(frame, name);
+            if (out != null) {
+                JSONObject.writeValue(out, value, 0, 0);
+            } else if (value instanceof JSONArray && !frame.members.containsKey(name)) {
+                // a JSONArray value is the whole array, not its first element
+                Held held = new Held();
+                held.array = true;
+                for (Object element : (JSONArray) value) {
+                    held.texts.add(text(element));
+                }
+                frame.members.put(name, held);
+            } else {
+                this.hold(frame, name, text(value), false);
+            }
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    @Override
+    public void endElement(String name) {
+        Frame frame = this.top;
+        boolean array;
+        try {
+            array = this.end(frame);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        this.top = frame.parent;
+        if (frame.buffer != null) {
+            this.hold(this.top, frame.name, frame.buffer.toString(), array);
+        }
+    }
+
+    @Override
+    public boolean isDone() {
+        return false;
+    }
+
+    /**
+     * Start a member of an element for a child element.
+     *
+     * @return the writer that receives the value of the child, or null if
+     *  the value is to be held
+     */
+    private Writer child(Frame parent, String key) throws IOException {
+        parent.hasContent = true;
+        if (parent.parent == null) {
+            this.openObject(parent);
+            if (!parent.keys.add(key)) {
+                throw new JSONException("Duplicate key \"" + key + "\"");
+            }
+            this.writeKey(parent, key);
+            return parent.out;
+        }
+        if (key.equals(parent.streamed)) {
+            parent.out.write(',');
+            return parent.out;
+        }
+        Held held = parent.members.get(key);
+        if (held == null || parent.streamed != null || key.equals(this.config.getcDataTagName())) {
+            return null;
+        }
+        // the second value of a name: open its JSONArray, and write the rest through
+        this.openObject(parent);
+        this.writeKey(parent, key);
+        parent.out.write('[');
+        for (String text : held.texts) {
+            parent.out.write(text);
+            parent.out.write(',');
+        }
+        parent.members.remove(key);
+        parent.streamed = key;
+        return parent.out;
+    }
+
+    /**
+     * Add a value to a member of an element, as JSONObject.accumulate would.
+     */
+    private void hold(Frame frame, String key, String text, boolean array) {
+        Held held = frame.members.get(key);
+        if (held == null) {
+            held = new Held();
+            held.array = array;
+            frame.members.put(key, held);
+        }
+        held.texts.add(text);
+    }
+
+    /**
+     * Write the value of an element, or what remains of it.
+     *
+     * @return true if the value is a JSONArray
+     */
+    private boolean end(Frame frame) throws IOException {
+        if (frame.streamed != null) {
+            frame.out.write(']');
+        } else if (frame.nilAttributeFound && !frame.hasContent) {
+            frame.out.write("null");
+            return false;
+        } else if (frame.members.isEmpty()) {
+            frame.out.write("\"\"");
+            return false;
+        } else if (frame.hasText && frame.members.size() == 1 && frame.members.containsKey(this.config.getcDataTagName())) {
+            return this.writeHeld(frame.out, frame.members.get(this.config.getcDataTagName()));
+        } else {
+            this.openObject(frame);
+        }
+        this.writeMembers(frame);
+        frame.out.write('}');
+        return false;
+    }
+
+    private void openObject(Frame frame) throws IOException {
+        if (!frame.object) {
+            frame.out.write('{');
+            frame.object = true;
+        }
+    }
+
+    private void writeMembers(Frame frame) throws IOException {
+        for (Entry<String, Held> member : frame.members.entrySet()) {
+            this.writeKey(frame, member.getKey());
+            this.writeHeld(frame.out, member.getValue());
+        }
+    }
+
+    private void writeKey(Frame frame, String key) throws IOException {
+        if (frame.comma) {
+            frame.out.write(',');
+        }
+        JSONObject.quote(key, frame.out);
+        frame.out.write(':');
+        frame.comma = true;
+    }
+
+    /**
+     * Write the held values of a member.
+     *
+     * @return true if they were written as a JSONArray
+     */
+    private boolean writeHeld(Writer out, Held held) throws IOException {
+        List<String> texts = held.texts;
+        if (texts.size() == 1 && !held.array) {
+            out.write(texts.get(0));
+            return false;
+        }
+        out.write('[');
+        for (int i = 0; i < texts.size(); i += 1) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(texts.get(i));
+        }
+        out.write(']');
+        return true;
+    }
+
+    private static String text(Object value) {
+        StringWriter writer = new StringWriter();
+        try {
+            JSONObject.writeValue(writer, value, 0, 0);
+        } catch (IOException e) {
+            // will never happen - we are writing to a string writer
+        }
+        return writer.toString();
+    }
+}
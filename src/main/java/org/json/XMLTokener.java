@@ -49,6 +49,41 @@ public class XMLTokener extends JSONTokener {
        entity.put("quot", XML.QUOT);
    }
 
+    /** The names of the predefined XML entities, which are decoded without the entity table. */
+    private static final String[] PREDEFINED_NAMES = {"amp", "apos", "gt", "lt", "quot"};
+
+    /** The characters of the predefined XML entities, in the order of PREDEFINED_NAMES. */
+    private static final char[] PREDEFINED_CHARS = {'&', '\'', '>', '<', '"'};
+
+    /**
+     * For each ASCII character, its lower case form if it may appear in an
+     * entity, or 0 if it may not.
+     */
+    private static final char[] ENTITY_CHARS = new char[128];
+
+    /** For each ASCII character, its value as a hexadecimal digit, or -1. */
+    private static final byte[] DIGITS = new byte[128];
+
+    static {
+        java.util.Arrays.fill(DIGITS, (byte) -1);
+        for (char c = '0'; c <= '9'; c++) {
+            ENTITY_CHARS[c] = c;
+            DIGITS[c] = (byte) (c - '0');
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            ENTITY_CHARS[c] = c;
+            ENTITY_CHARS[c - 'a' + 'A'] = c;
+        }
+        for (char c = 'a'; c <= 'f'; c++) {
+            DIGITS[c] = (byte) (c - 'a' + 10);
+            DIGITS[c - 'a' + 'A'] = (byte) (c - 'a' + 10);
+        }
+        ENTITY_CHARS['#'] = '#';
+    }
+
+    /** The name of the entity being read by nextEntity, reused for every entity. */
+    private final StringBuilder entityName = new StringBuilder();
+
     /**
      * Construct an XMLTokener from a Reader.
      * @param r A source reader.
@@ -120,7 +155,7 @@ public class XMLTokener extends JSONTokener {
                 return sb.toString().trim();
             }
             if (c == '&') {
-                sb.append(nextEntity(c));
+                nextEntity(sb);
             } else {
                 sb.append(c);
             }
@@ -139,49 +174,141 @@ public class XMLTokener extends JSONTokener {
      * @throws JSONException If missing ';' in XML entity.
      */
     public Object nextEntity(@SuppressWarnings("unused") char ampersand) throws JSONException {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(8);
+        this.nextEntity(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Read the entity that follows an ampersand, and append its decoded
+     * value to a buffer. The name is lower cased, and is kept encoded if it
+     * is not recognized.
+     *
+     * @param sb The buffer.
+     * @throws JSONException If missing ';' in XML entity.
+     */
+    private void nextEntity(StringBuilder sb) throws JSONException {
+        StringBuilder name = this.entityName;
+        name.setLength(0);
         for (;;) {
             char c = next();
-            if (Character.isLetterOrDigit(c) || c == '#') {
-                sb.append(Character.toLowerCase(c));
+            char lower = c < 128 ? ENTITY_CHARS[c]
+                    : Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+            if (lower != 0) {
+                name.append(lower);
             } else if (c == ';') {
                 break;
             } else {
-                throw syntaxError("Missing ';' in XML entity: &" + sb);
+                throw syntaxError("Missing ';' in XML entity: &" + name);
             }
         }
-        String string = sb.toString();
-        return unescapeEntity(string);
+        unescapeEntity(name, 0, name.length(), sb);
     }
-    
+
     /**
      * Unescape an XML entity encoding;
      * @param e entity (only the actual entity value, not the preceding & or ending ;
      * @return
      */
     static String unescapeEntity(String e) {
+        StringBuilder sb = new StringBuilder(8);
+        unescapeEntity(e, 0, e == null ? 0 : e.length(), sb);
+        return sb.toString();
+    }
+
+    /**
+     * Unescape an XML entity encoding, appending the result to a buffer. The
+     * predefined entities and numeric character references are decoded
+     * without allocating; other names are looked up in the entity table.
+     *
+     * @param e The text holding the entity.
+     * @param start The index of the entity in the text, after the '&amp;'.
+     * @param end The index of the ';' that ends the entity.
+     * @param sb The buffer.
+     */
+    static void unescapeEntity(CharSequence e, int start, int end, StringBuilder sb) {
+        int length = end - start;
         // validate
-        if (e == null || e.isEmpty()) {
-            return "";
+        if (length <= 0) {
+            return;
         }
         // if our entity is an encoded unicode point, parse it.
-        if (e.charAt(0) == '#') {
-            int cp;
-            if (e.charAt(1) == 'x' || e.charAt(1) == 'X') {
-                // hex encoded unicode
-                cp = Integer.parseInt(e.substring(2), 16);
+        if (e.charAt(start) == '#') {
+            int cp = codePoint(e, start + 1, end);
+            if (cp >= 0) {
+                sb.appendCodePoint(cp);
             } else {
-                // decimal encoded unicode
-                cp = Integer.parseInt(e.substring(1));
+                // a malformed reference fails the way it always has
+                sb.append(unescapeCodePoint(e.subSequence(start, end).toString()));
+            }
+            return;
+        }
+        for (int i = 0; i < PREDEFINED_NAMES.length; i += 1) {
+            String predefined = PREDEFINED_NAMES[i];
+            if (predefined.length() == length && regionMatches(e, start, predefined)) {
+                sb.append(PREDEFINED_CHARS[i]);
+                return;
             }
-            return new String(new int[] {cp},0,1);
-        } 
-        Character knownEntity = entity.get(e);
+        }
+        String name = e.subSequence(start, end).toString();
+        Character knownEntity = entity.get(name);
         if(knownEntity==null) {
             // we don't know the entity so keep it encoded
-            return '&' + e + ';';
+            sb.append('&').append(name).append(';');
+        } else {
+            sb.append(knownEntity.charValue());
+        }
+    }
+
+    private static boolean regionMatches(CharSequence e, int start, String name) {
+        for (int i = 0; i < name.length(); i += 1) {
+            if (e.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse the number of a character reference.
+     *
+     * @return The code point, or -1 if the reference is not a well formed
+     *  decimal or hexadecimal number of a code point.
+     */
+    private static int codePoint(CharSequence e, int start, int end) {
+        int radix = 10;
+        if (start < end && (e.charAt(start) == 'x' || e.charAt(start) == 'X')) {
+            radix = 16;
+            start += 1;
+        }
+        if (start == end) {
+            return -1;
+        }
+        int cp = 0;
+        for (int i = start; i < end; i += 1) {
+            char c = e.charAt(i);
+            int digit = c < 128 ? DIGITS[c] : -1;
+            if (digit < 0 || digit >= radix) {
+                return -1;
+            }
+            cp = cp * radix + digit;
+            if (cp > Character.MAX_CODE_POINT) {
+                return -1;
+            }
+        }
+        return cp;
+    }
+
+    private static String unescapeCodePoint(String e) {
+        int cp;
+        if (e.charAt(1) == 'x' || e.charAt(1) == 'X') {
+            // hex encoded unicode
+            cp = Integer.parseInt(e.substring(2), 16);
+        } else {
+            // decimal encoded unicode
+            cp = Integer.parseInt(e.substring(1));
         }
-        return knownEntity.toString();
+        return new String(new int[] {cp},0,1);
     }
 
 
@@ -303,7 +430,7 @@ public class XMLTokener extends JSONTokener {
                     return sb.toString();
                 }
                 if (c == '&') {
-                    sb.append(nextEntity(c));
+                    nextEntity(sb);
                 } else {
                     sb.append(c);
                 }
@@ -0,0 +1,96 @@
+package org.json;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * Receives the parts of an XML document as {@link XML#visit(java.io.Reader, XMLVisitor)}
+ * reads them. Comments, processing instructions and declarations are not
+ * reported. Every startElement is followed by the attributes of the element,
+ * then its content, CDATA and child elements in document order, then the
+ * matching endElement, so an empty element tag is reported as a start and an
+ * end with nothing between.
+ * <p>
+ * Visitors can be chained: an {@link XMLFilter} passes what it receives on to
+ * another visitor, changing or dropping some of it, so that a key
+ * transformation, a JSONPointer filter and a JSONObject builder can all work
+ * in a single pass over the document.
+ */
+public interface XMLVisitor {
+
+    /**
+     * An element starts.
+     *
+     * @param name The tag name.
+     */
+    void startElement(String name);
+
+    /**
+     * An attribute of the element that just started.
+     *
+     * @param name The attribute name.
+     * @param value The unescaped attribute value, or "" if the attribute has
+     *  no value.
+     */
+    void attribute(String name, String value);
+
+    /**
+     * Content text of the current element, or of the document. Content
+     * separated by child elements, comments or CDATA is reported in pieces.
+     *
+     * @param text The unescaped, trimmed, nonempty text.
+     */
+    void content(String text);
+
+    /**
+     * A CDATA section of the current element, or of the document.
+     *
+     * @param text The nonempty text of the section.
+     */
+    void cdata(String text);
+
+    /**
+     * A whole element given by its JSON value instead of by its parts, as
+     * reported by a filter that substitutes elements.
+     *
+     * @param name The tag name.
+     * @param value The value of the element, as found in a JSONObject.
+     */
+    void element(String name, Object value);
+
+    /**
+     * The current element ends.
+     *
+     * @param name The tag name.
+     */
+    void endElement(String name);
+
+    /**
+     * Checked after each element ends. A visitor that has all it needs
+     * returns true, and the rest of the document is not read.
+     *
+     * @return true to stop reading
+     */
+    boolean isDone();
+}
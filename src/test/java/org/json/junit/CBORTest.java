@@ -0,0 +1,194 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.junit.Test;
+
+/**
+ * Tests for writing and reading JSON values in CBOR.
+ */
+public class CBORTest {
+
+    private static byte[] bytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static byte[] toBinary(JSONObject jo, boolean shareStrings) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jo.toBinary(out, shareStrings);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void shouldKeepValuesAndTheirTypes() {
+        JSONObject jo = new JSONObject()
+                .put("int", -24)
+                .put("long", 1L << 40)
+                .put("bigInteger", new BigInteger("-123456789012345678901234567890"))
+                .put("bigDecimal", new BigDecimal("12.50"))
+                .put("double", 0.1)
+                .put("float", 1.5f)
+                .put("string", "caf\u00e9 \ud83d\ude00")
+                .put("empty", "")
+                .put("true", true)
+                .put("null", JSONObject.NULL)
+                .put("array", new JSONArray().put(new JSONObject()).put(new JSONArray()).put(false))
+                .put("map", new JSONObject().put("a", new int[] {1, 2}));
+        for (boolean shareStrings : new boolean[] {false, true}) {
+            byte[] bytes = toBinary(jo, shareStrings);
+            JSONObject read = JSONObject.fromBinary(new ByteArrayInputStream(bytes));
+            assertEquals(jo.toString(), read.toString());
+            assertEquals(Integer.valueOf(-24), read.get("int"));
+            assertEquals(Long.valueOf(1L << 40), read.get("long"));
+            assertEquals(new BigInteger("-123456789012345678901234567890"), read.get("bigInteger"));
+            assertEquals(new BigDecimal("12.50"), read.get("bigDecimal"));
+            assertEquals(Double.valueOf(0.1), read.get("double"));
+            assertEquals(Float.valueOf(1.5f), read.get("float"));
+            assertEquals(JSONObject.NULL, read.get("null"));
+        }
+    }
+
+    @Test
+    public void shouldWriteAndReadTheWireFormat() {
+        // RFC 8949, appendix A
+        JSONObject jo = new JSONObject().put("a", 1).put("b", new JSONArray().put(2).put(3));
+        assertArrayEquals(bytes("a26161016162820203"), toBinary(jo, false));
+        assertTrue(jo.similar(JSONObject.fromBinary(new ByteArrayInputStream(bytes("bf61610161629f0203ffff")))));
+        JSONArray ja = JSONArray.fromBinary(new ByteArrayInputStream(bytes(
+                "88f93c00fb3ff199999999999ac249010000000000000000c48221196ab3f6f7d9d9f7"
+                + "7f657374726561646d696e67ff1bffffffffffffffff")));
+        assertEquals(Float.valueOf(1.0f), ja.get(0));
+        assertEquals(Double.valueOf(1.1), ja.get(1));
+        assertEquals(new BigInteger("18446744073709551616"), ja.get(2));
+        assertEquals(new BigDecimal("273.15"), ja.get(3));
+        assertEquals(JSONObject.NULL, ja.get(4));
+        assertEquals(JSONObject.NULL, ja.get(5));
+        assertEquals("streaming", ja.get(6));
+        assertEquals(new BigInteger("18446744073709551615"), ja.get(7));
+
+        // the input is read up to the end of the value
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes("a0a161610080"));
+        assertTrue(JSONObject.fromBinary(in).isEmpty());
+        assertTrue(JSONObject.fromBinary(in).similar(new JSONObject().put("a", 0)));
+        assertTrue(JSONArray.fromBinary(in).isEmpty());
+    }
+
+    @Test
+    public void shouldWriteStringsLongerThanTheBuffer() {
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'a');
+        String ascii = new String(chars);
+        chars[19999] = '\u00e9';
+        String utf8 = new String(chars);
+        JSONObject jo = new JSONObject().put("n", 1).put("ascii", ascii).put("utf8", utf8);
+        for (boolean shareStrings : new boolean[] {false, true}) {
+            byte[] bytes = toBinary(jo, shareStrings);
+            assertTrue(jo.similar(JSONObject.fromBinary(new ByteArrayInputStream(bytes))));
+        }
+    }
+
+    @Test
+    public void shouldShareStrings() {
+        JSONArray records = new JSONArray();
+        records.put(new JSONObject().put("name", 1));
+        records.put(new JSONObject().put("name", 2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        records.toBinary(out, true);
+        assertArrayEquals(bytes("d9010082a1646e616d6501a1d81900" + "02"), out.toByteArray());
+
+        for (int i = 0; i < 1000; i++) {
+            records.put(new JSONObject().put("name", "name " + i % 10).put("description", i).put("id", i));
+        }
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream shared = new ByteArrayOutputStream();
+        records.toBinary(plain);
+        records.toBinary(shared, true);
+        assertTrue(shared.size() * 3 < plain.size() * 2);
+        assertTrue(records.similar(JSONArray.fromBinary(new ByteArrayInputStream(shared.toByteArray()))));
+    }
+
+    @Test
+    public void shouldReportErrors() {
+        String[] hexes = {"a26161016162", "a2616101616102", "a10101", "a1616141ff",
+            "a1616181f97e00", "bf6161ff", "81d81900", "8100"};
+        String[] messages = {
+            "Unexpected end of CBOR data",
+            "Duplicate key \"a\"",
+            "A CBOR map key must be a text string",
+            "A CBOR byte string has no JSON value",
+            "JSON does not allow non-finite numbers.",
+            "Unexpected CBOR break",
+            "A CBOR stringref outside a namespace",
+            "Expected a CBOR map",
+        };
+        for (int i = 0; i < hexes.length; i++) {
+            try {
+                JSONObject.fromBinary(new ByteArrayInputStream(bytes(hexes[i])));
+                fail("Expected an exception");
+            } catch (JSONException e) {
+                assertEquals(messages[i], e.getMessage());
+            }
+        }
+
+        byte[] deep = new byte[1000];
+        Arrays.fill(deep, (byte) 0x81);
+        deep[deep.length - 1] = (byte) 0x80;
+        try {
+            JSONArray.fromBinary(new ByteArrayInputStream(deep));
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Maximum nesting depth of 512 reached", e.getMessage());
+        }
+        JSONArray ja = JSONArray.fromBinary(new ByteArrayInputStream(deep),
+                new JSONParserConfiguration().withMaxNestingDepth(1000));
+        assertEquals(1, ja.length());
+
+        try {
+            new JSONObject().put("a", new JSONArray().put(Double.NaN)).toBinary(new ByteArrayOutputStream());
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("JSON does not allow non-finite numbers.", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONParserConfiguration;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+/**
+ * Tests for JSONArray.parseParallel, which parses the elements of an array
+ * file on several threads.
+ */
+public class JSONArrayParallelTest {
+
+    /**
+     * Tests that a file parsed on several threads gives the JSONArray the
+     * sequential parser gives, strings holding brackets and commas included.
+     */
+    @Test
+    public void parseParallelShouldMatchTheSequentialParser() throws IOException {
+        StringBuilder text = new StringBuilder(" [");
+        for (int i = 0; i < 20000; i++) {
+            text.append("{\"id\":").append(i).append(",\"s\":\"a\\\", ]\",t:['b]',{}],u:x'y},\n");
+        }
+        text.append("true,]");
+        Path path = Files.createTempFile("array", ".json");
+        try {
+            Files.write(path, text.toString().getBytes(StandardCharsets.UTF_8));
+            JSONParserConfiguration config = new JSONParserConfiguration();
+            JSONArray expected = new JSONArray(text.toString());
+            assertTrue(expected.similar(JSONArray.parseParallel(path, config, 4)));
+            assertTrue(expected.similar(JSONArray.parseParallel(path, config, 1)));
+            assertEquals(20001, JSONArray.parseParallel(path, config, 3).length());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Tests that errors of a file parsed on several threads are the ones
+     * the sequential parser reports.
+     */
+    @Test
+    public void parseParallelShouldReportErrorsAsTheSequentialParser() throws IOException {
+        String[] texts = {"[1,2,3,4,5,6,7,8,9}", "[1,2,,4,5,6,7,8,9]", "[1,2,3,[4,5,6,7,8,9]", "{\"a\":1}"};
+        Path path = Files.createTempFile("array", ".json");
+        try {
+            for (String text : texts) {
+                Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+                JSONParserConfiguration config = new JSONParserConfiguration();
+                String expected = null;
+                Object value = null;
+                try {
+                    value = new JSONArray(new JSONTokener(text), config);
+                } catch (JSONException e) {
+                    expected = e.getMessage();
+                }
+                try {
+                    JSONArray actual = JSONArray.parseParallel(path, config, 8);
+                    assertTrue(text, actual.similar(value));
+                } catch (JSONException e) {
+                    assertEquals(expected, e.getMessage());
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
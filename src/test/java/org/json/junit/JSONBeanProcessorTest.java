@@ -0,0 +1,177 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.json.JSONBeanSerializer;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for JSONBeanProcessor: beans are compiled with and without the
+ * processor, and the generated serializers must write and read them as
+ * reflection does.
+ */
+public class JSONBeanProcessorTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private static final String ORDER = "package beans;\n"
+            + "import java.util.List;\n"
+            + "import java.util.Map;\n"
+            + "import org.json.JSONBean;\n"
+            + "import org.json.JSONPropertyIgnore;\n"
+            + "import org.json.JSONPropertyName;\n"
+            + "interface Priced { @JSONPropertyName(\"cost\") double getPrice(); }\n"
+            + "@JSONBean\n"
+            + "public class Order implements Priced {\n"
+            + "    public enum Status { OPEN, SHIPPED }\n"
+            + "    private String id; private int count; private Status status; private double price;\n"
+            + "    private List<Map<String, Double>> lines; private long[] codes; private Order parent;\n"
+            + "    public String getId() { return id; } public void setId(String id) { this.id = id; }\n"
+            + "    public int getCount() { return count; } public void setCount(int count) { this.count = count; }\n"
+            + "    public void setCount(String count) { this.count = -1; }\n"
+            + "    public Status getStatus() { return status; } public void setStatus(Status s) { status = s; }\n"
+            + "    public double getPrice() { return price; } public void setPrice(double price) { this.price = price; }\n"
+            + "    public List<Map<String, Double>> getLines() { return lines; }\n"
+            + "    public void setLines(List<Map<String, Double>> lines) { this.lines = lines; }\n"
+            + "    public long[] getCodes() { return codes; } public void setCodes(long[] codes) { this.codes = codes; }\n"
+            + "    public Order getParent() { return parent; } public void setParent(Order p) { parent = p; }\n"
+            + "    @JSONPropertyIgnore public String getNote() { return \"note\"; }\n"
+            + "    @JSONPropertyName(\"a\\\"b\\u00e9\") public String getOdd() { return \"odd\"; }\n"
+            + "    public String getBroken() { throw new IllegalStateException(); }\n"
+            + "}\n";
+
+    private static final String TEXT = "{\"id\":\"o-1\",\"count\":\"3\",\"status\":\"SHIPPED\",\"cost\":2.5,"
+            + "\"lines\":[{\"a\":1,\"b\":null},null],\"codes\":[1,\"2\"],"
+            + "\"parent\":{\"id\":\"o-0\",\"codes\":[]},\"note\":\"x\",\"unknown\":[{}]}";
+
+    /**
+     * Compile a source file.
+     *
+     * @return The errors and warnings.
+     */
+    private static List<Diagnostic<? extends JavaFileObject>> compile(File source, File out, String... options)
+            throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        List<String> arguments = new ArrayList<String>(Arrays.asList("-classpath",
+                System.getProperty("java.class.path"), "-d", out.getPath(), "-s", out.getPath()));
+        arguments.addAll(Arrays.asList(options));
+        compiler.getTask(null, files, diagnostics, arguments, null, files.getJavaFileObjects(source)).call();
+        files.close();
+        return diagnostics.getDiagnostics();
+    }
+
+    private Class<?> compileOrder(String name, String... options) throws Exception {
+        File folder = this.testFolder.newFolder(name);
+        File source = new File(folder, "Order.java");
+        Files.write(source.toPath(), ORDER.getBytes(StandardCharsets.UTF_8));
+        compile(source, folder, options);
+        URLClassLoader loader = new URLClassLoader(new URL[] {folder.toURI().toURL()},
+                JSONBeanProcessorTest.class.getClassLoader());
+        return loader.loadClass("beans.Order");
+    }
+
+    @Test
+    public void shouldMatchReflection() throws Exception {
+        Class<?> generated = this.compileOrder("generated", "-processor", "org.json.JSONBeanProcessor");
+        Class<?> reflected = this.compileOrder("reflected", "-proc:none");
+        JSONBeanSerializer<?> serializer = (JSONBeanSerializer<?>) generated.getClassLoader()
+                .loadClass("beans.Order_JSONBeanSerializer").getField("INSTANCE").get(null);
+        assertNotNull(serializer);
+
+        Object a = new JSONObject(TEXT).toBean(generated);
+        Object b = new JSONObject(TEXT).toBean(reflected);
+        JSONObject written = new JSONObject(a);
+        // the enums of the two class loaders differ, so the texts are compared
+        assertTrue(new JSONObject(written.toString()).similar(new JSONObject(new JSONObject(b).toString())));
+        assertEquals(8, written.length());
+        assertEquals(3, written.getInt("count"));
+        assertEquals(2.5, written.getDouble("cost"), 0);
+        assertEquals("odd", written.getString("a\"b\u00e9"));
+        assertFalse(written.has("note"));
+        assertFalse(written.has("broken"));
+        assertArrayEquals(new long[] {1, 2}, (long[]) generated.getMethod("getCodes").invoke(a));
+        assertEquals("o-0", written.getJSONObject("parent").getString("id"));
+        assertTrue(written.getJSONArray("lines").getJSONObject(0).isNull("b"));
+
+        // wrapped, streamed, and written by the serializer itself
+        assertTrue(written.similar(JSONObject.wrap(new JSONTokener(TEXT).readValue(generated))));
+        StringWriter writer = new StringWriter();
+        @SuppressWarnings("unchecked")
+        JSONBeanSerializer<Object> typed = (JSONBeanSerializer<Object>) serializer;
+        typed.toJSON(a, writer);
+        assertTrue(new JSONObject(written.toString()).similar(new JSONObject(writer.toString())));
+        assertTrue(written.similar(new JSONObject(typed.fromJSON(written))));
+    }
+
+    @Test
+    public void shouldReportUnsupportedClasses() throws Exception {
+        File folder = this.testFolder.newFolder("unsupported");
+        File source = new File(folder, "Flags.java");
+        Files.write(source.toPath(), ("package beans;\n"
+                + "@org.json.JSONBean public class Flags {\n"
+                + "    public char getFlag() { return 'x'; } public void setFlag(char flag) { }\n"
+                + "    @org.json.JSONBean public interface Flagged { }\n"
+                + "}\n").getBytes(StandardCharsets.UTF_8));
+        List<String> messages = new ArrayList<String>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : compile(source, folder, "-processor",
+                "org.json.JSONBeanProcessor")) {
+            messages.add(diagnostic.getKind() + ": " + diagnostic.getMessage(null));
+        }
+        assertTrue(messages.toString(), messages.contains(
+                "WARNING: The property \"flag\" of beans.Flags is not read: its type char is not supported"));
+        assertTrue(messages.toString(), messages.contains("ERROR: @JSONBean is for classes and records"));
+    }
+}
@@ -0,0 +1,131 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.json.junit.data.MyEnum;
+import org.json.junit.data.MyEnumClass;
+import org.json.junit.data.MyEnumField;
+import org.json.junit.data.MySettableBean;
+import org.junit.Test;
+
+/**
+ * Tests for binding JSON to beans, with JSONObject.toBean and
+ * JSONTokener.readValue.
+ */
+public class JSONBinderTest {
+
+    private static final String TEXT = "{\"name\":\"Ann\",\"years\":\"41\",\"active\":\"true\","
+            + "\"enums\":[{\"myEnum\":\"VAL2\",\"myEnumField\":\"VAL3\"},{}],"
+            + "\"counts\":{\"a\":1,\"b\":2.5},\"weights\":[0.5,2],"
+            + "\"friend\":{\"name\":\"Bob\",\"unknown\":[{\"a\":[]}]},\"secret\":\"s\"}";
+
+    private static void check(MySettableBean bean) {
+        assertEquals("Ann", bean.getName());
+        assertEquals(41, bean.getAge());
+        assertTrue(bean.isActive());
+        assertEquals(MyEnum.VAL2, bean.getEnums().get(0).getMyEnum());
+        assertEquals(MyEnumField.VAL3, bean.getEnums().get(0).getMyEnumField());
+        assertNull(bean.getEnums().get(1).getMyEnum());
+        assertEquals(Long.valueOf(2), bean.getCounts().get("b"));
+        assertArrayEquals(new double[] {0.5, 2}, bean.getWeights(), 0);
+        assertEquals("Bob", bean.getFriend().getName());
+        assertNull(bean.getFriend().getFriend());
+        assertNull(bean.getSecret());
+    }
+
+    @Test
+    public void shouldBindBeans() {
+        check(new JSONObject(TEXT).toBean(MySettableBean.class));
+        check(new JSONTokener(TEXT).readValue(MySettableBean.class));
+
+        // a bean is read with the keys it is written with
+        MySettableBean bean = new JSONObject(TEXT).toBean(MySettableBean.class);
+        JSONObject written = new JSONObject(bean);
+        assertEquals(41, written.getInt("years"));
+        assertTrue(written.similar(new JSONObject(written.toBean(MySettableBean.class))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldBindArraysCollectionsAndScalars() {
+        MyEnumClass[] array = new JSONTokener("[{\"myEnum\":\"VAL1\"},null]").readValue(MyEnumClass[].class);
+        assertEquals(MyEnum.VAL1, array[0].getMyEnum());
+        assertNull(array[1]);
+        List<Object> list = new JSONTokener("[1, \"a\", {\"b\": null}]").readValue(List.class);
+        assertEquals(Arrays.asList(1, "a", new JSONObject().put("b", JSONObject.NULL)).toString(), list.toString());
+        Map<String, Object> map = new JSONObject("{\"a\":[1]}").toBean(Map.class);
+        assertEquals("{\"a\":[1]}", new JSONObject(map).toString());
+        assertArrayEquals(new int[] {1, 2}, new JSONTokener("[1, \"2\"]").readValue(int[].class));
+        assertEquals(MyEnum.VAL3, new JSONTokener("VAL3").readValue(MyEnum.class));
+        assertNull(new JSONTokener("null").readValue(String.class));
+    }
+
+    @Test
+    public void shouldReportValuesThatCannotBeBound() {
+        String[] texts = {"{\"years\":\"old\"}", "{\"enums\":[{\"myEnum\":\"VAL4\"}]}",
+            "{\"weights\":[1,null]}", "{\"name\":[]}", "{\"friend\":1}"};
+        String[] messages = {
+            "JSONObject[\"years\"] is not a int (old).",
+            "JSONObject[\"myEnum\"] is not a enum of type \"MyEnum\" (VAL4).",
+            "JSONArray[1] is not a double (null).",
+            "JSONObject[\"name\"] is not a String ([]).",
+            "JSONObject[\"friend\"] is not a MySettableBean (1).",
+        };
+        for (int i = 0; i < texts.length; i++) {
+            try {
+                new JSONObject(texts[i]).toBean(MySettableBean.class);
+                fail("Expected an exception");
+            } catch (JSONException e) {
+                assertEquals(messages[i], e.getMessage());
+            }
+            try {
+                new JSONTokener(texts[i]).readValue(MySettableBean.class);
+                fail("Expected an exception");
+            } catch (JSONException e) {
+                assertEquals(messages[i], e.getMessage());
+            }
+        }
+        try {
+            new JSONObject("{}").toBean(Runnable.class);
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Unable to make a java.lang.Runnable: it has no public constructor without parameters",
+                    e.getMessage());
+        }
+    }
+}
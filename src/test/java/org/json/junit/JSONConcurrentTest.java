@@ -0,0 +1,170 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for concurrent JSONObjects and JSONArrays.
+ */
+public class JSONConcurrentTest {
+
+    private static final int THREADS = 8;
+
+    /**
+     * Run a task on several threads at once, and fail with the first
+     * exception that any of them throws.
+     */
+    private static void inParallel(final Runnable task) throws Throwable {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS; i += 1) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        task.run();
+                    } catch (Throwable t) {
+                        synchronized (failures) {
+                            failures.add(t);
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+    }
+
+    @Test
+    public void shouldCopyToConcurrentContainers() {
+        JSONObject template = new JSONObject("{\"a\":1,\"b\":{\"c\":[1,{\"d\":2}]},\"e\":null}");
+        JSONObject concurrent = template.toConcurrent();
+        assertTrue(concurrent.isConcurrent());
+        assertFalse(template.isConcurrent());
+        assertTrue(concurrent.similar(template));
+        assertSame(concurrent, concurrent.toConcurrent());
+        assertTrue(concurrent.getJSONObject("b").isConcurrent());
+        assertTrue(concurrent.getJSONObject("b").getJSONArray("c").isConcurrent());
+        assertTrue(concurrent.getJSONObject("b").getJSONArray("c").getJSONObject(1).isConcurrent());
+
+        JSONArray array = new JSONArray("[1,2]").toConcurrent();
+        array.put(4, "x");
+        assertEquals("[1,2,null,null,\"x\"]", array.toString());
+        assertEquals(2, array.remove(1));
+        assertNull(array.remove(9));
+        assertNull(array.opt(9));
+        assertEquals(4, array.length());
+
+        JSONObject accumulated = new JSONObject().toConcurrent().accumulate("k", 1).accumulate("k", 2);
+        assertTrue(accumulated.getJSONArray("k").isConcurrent());
+        try {
+            new JSONObject().toConcurrent().put("k", 1).append("k", 2);
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("JSONObject[\"k\"] is not a JSONArray (null).", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldChangeAtomically() throws Throwable {
+        final JSONObject counters = new JSONObject().toConcurrent();
+        final AtomicInteger puts = new AtomicInteger();
+        final AtomicInteger names = new AtomicInteger();
+        inParallel(new Runnable() {
+            @Override
+            public void run() {
+                int name = names.getAndIncrement();
+                for (int i = 0; i < 1000; i += 1) {
+                    counters.increment("count");
+                    counters.accumulate("accumulated", name * 1000 + i);
+                    counters.append("appended", i);
+                    try {
+                        counters.putOnce("once" + (i % 10), name);
+                        puts.incrementAndGet();
+                    } catch (JSONException e) {
+                        // another thread put it first
+                    }
+                }
+            }
+        });
+        assertEquals(THREADS * 1000, counters.getInt("count"));
+        assertEquals(THREADS * 1000, counters.getJSONArray("accumulated").length());
+        assertEquals(THREADS * 1000, counters.getJSONArray("appended").length());
+        assertEquals(10, puts.get());
+    }
+
+    @Test
+    public void shouldWriteWhileChanged() throws Throwable {
+        final JSONObject document = new JSONObject("{\"list\":[]}").toConcurrent();
+        final JSONArray list = document.getJSONArray("list");
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicInteger names = new AtomicInteger();
+        inParallel(new Runnable() {
+            @Override
+            public void run() {
+                int name = names.getAndIncrement();
+                for (int i = 0; i < 2000 && writing.get(); i += 1) {
+                    if (name % 2 == 0) {
+                        // every text written is valid JSON
+                        new JSONObject(document.toString(name % 4));
+                        assertTrue(document.toStream().count() > 0);
+                    } else if (i % 3 == 0) {
+                        document.remove("k" + (i - 3));
+                        list.remove(0);
+                    } else {
+                        document.put("k" + i, new JSONObject().put("v", i).toConcurrent());
+                        list.put(i);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONIndex;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.junit.Test;
+
+/**
+ * Tests for JSONIndex, which parses JSON text into lazy JSONObjects and
+ * JSONArrays.
+ */
+public class JSONIndexTest {
+
+    private static final String TEXT = "{\"name\":\"caf\\u00e9 \u00e9\ud83d\ude00\",\"n\":[1,-2.5e3,true,null,,"
+            + "{\"k\":'v',unquoted:x y; 1.0:00}],\"empty\":{},\"e\":[],\"a\\\"b\":\"\\\"\",}";
+
+    @Test
+    public void shouldParseAsTheEagerParser() {
+        JSONParserConfiguration config = new JSONParserConfiguration();
+        JSONObject expected = new JSONObject(TEXT);
+        JSONObject lazy = JSONIndex.parseObject(TEXT, config);
+        assertEquals(expected.length(), lazy.length());
+        assertEquals(expected.toString(), lazy.toString());
+        assertTrue(expected.similar(lazy));
+        assertTrue(expected.similar(JSONIndex.parseObject(TEXT.getBytes(StandardCharsets.UTF_8), config)));
+
+        char[] chars = ("  " + TEXT + "  ").toCharArray();
+        assertTrue(expected.similar(JSONIndex.parseObject(chars, 2, TEXT.length(), config)));
+
+        String array = " [1, [2, 3], \"four\", {}] ignored";
+        assertEquals(new JSONArray(array).toString(), JSONIndex.parseArray(array, config).toString());
+    }
+
+    @Test
+    public void shouldMakeValuesWhenTheyAreRead() {
+        JSONObject lazy = JSONIndex.parseObject(TEXT, new JSONParserConfiguration());
+        assertTrue(lazy.has("a\"b"));
+        assertFalse(lazy.has("a"));
+        assertEquals("caf\u00e9 \u00e9\ud83d\ude00", lazy.getString("name"));
+        JSONObject nested = lazy.getJSONArray("n").getJSONObject(5);
+        assertSame(nested, lazy.getJSONArray("n").getJSONObject(5));
+        assertEquals("x y", nested.get("unquoted"));
+        assertEquals("00", nested.get("1.0"));
+        assertSame(JSONObject.NULL, lazy.getJSONArray("n").get(4));
+
+        nested.put("added", 1);
+        nested.remove("k");
+        assertTrue(new JSONObject("{\"added\":1,\"unquoted\":\"x y\",\"1.0\":\"00\"}").similar(nested));
+    }
+
+    @Test
+    public void shouldReportErrorsAsTheEagerParser() {
+        String[] texts = {
+            "{\"a\":1,\"b\":}",
+            "{\"a\" 1}",
+            "{[1]:2}",
+            "[1,2",
+            "[\"\\x\"]",
+            "{\"a\":\"b\nc\"}",
+            "[[[[[[1]]]]]]",
+            "1",
+        };
+        JSONParserConfiguration config = new JSONParserConfiguration().withMaxNestingDepth(5);
+        for (String text : texts) {
+            String expected = null;
+            try {
+                new JSONArray(new org.json.JSONTokener(text), config);
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            try {
+                JSONIndex.parseArray(text, config);
+                fail("Expected an exception for " + text);
+            } catch (JSONException e) {
+                if (text.startsWith("[")) {
+                    assertEquals(expected, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldReportDuplicateKeysWhenAnObjectIsRead() {
+        String text = "{\"a\":[{\"k\":1,\"k\":2}],\"b\":3}";
+        JSONObject lazy = JSONIndex.parseObject(text, new JSONParserConfiguration());
+        assertEquals(3, lazy.get("b"));
+        JSONArray array = lazy.getJSONArray("a");
+        try {
+            array.getJSONObject(0).get("k");
+            fail("Expected a duplicate key");
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"k\" at 17 [character 18 line 1]", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for reading and writing newline-delimited JSON.
+ */
+public class JSONLinesTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private static List<JSONObject> objects(int count) {
+        List<JSONObject> objects = new ArrayList<JSONObject>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // some lines are longer than a batch
+            text.setLength(0);
+            for (int j = i % 997 == 0 ? 40000 : 1; j > 0; j--) {
+                text.append("caf\u00e9 ");
+            }
+            objects.add(new JSONObject().put("i", i).put("text", text.toString())
+                    .put("a", new int[] {i, i + 1}));
+        }
+        return objects;
+    }
+
+    private static List<String> strings(Stream<JSONObject> stream) {
+        return stream.map(JSONObject::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    public void shouldWriteAndStreamLinesInOrder() throws Exception {
+        List<JSONObject> objects = objects(100000);
+        List<String> expected = strings(objects.stream());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSONObject.writeLines(objects, out);
+
+        File file = this.testFolder.newFile("lines.ndjson");
+        Files.write(file.toPath(), out.toByteArray());
+        try (Stream<JSONObject> stream = JSONObject.streamLines(file.toPath())) {
+            assertTrue(stream.isParallel());
+            assertEquals(expected, strings(stream));
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            assertEquals(expected, strings(JSONObject.streamLines(in)));
+        }
+        try (Stream<JSONObject> stream = JSONObject.streamLines(file.toPath())) {
+            assertEquals(100000L * 99999 / 2, stream.unordered().mapToLong(o -> o.getLong("i")).sum());
+        }
+    }
+
+    @Test
+    public void shouldSkipBlankLinesAndCarriageReturns() {
+        byte[] bytes = "\ufeff{\"a\":1}\r\n\n  \r\n{\"b\":\"\u00e9\"}  \n{\"c\":[]}".getBytes(StandardCharsets.UTF_8);
+        assertEquals("[{\"a\":1}, {\"b\":\"\u00e9\"}, {\"c\":[]}]",
+                strings(JSONObject.streamLines(new ByteArrayInputStream(bytes))).toString());
+    }
+
+    @Test
+    public void shouldReportWhereABadLineStarts() {
+        String[] texts = {"{\"a\":1}\n{\"b\":2} {\"c\":3}\n", "{\"a\":1}\n[1]\n"};
+        String[] messages = {
+            "Expected the end of the line at 9 [character 10 line 1] in the line at byte 8",
+            "A JSONObject text must begin with '{' at 1 [character 2 line 1] in the line at byte 8",
+        };
+        for (int i = 0; i < texts.length; i++) {
+            try {
+                JSONObject.streamLines(new ByteArrayInputStream(texts[i].getBytes(StandardCharsets.UTF_8)))
+                        .count();
+                fail("Expected an exception");
+            } catch (JSONException e) {
+                assertEquals(messages[i], e.getMessage());
+            }
+        }
+    }
+}
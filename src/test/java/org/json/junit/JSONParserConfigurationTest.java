@@ -0,0 +1,138 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+/**
+ * Tests for the nesting depth limit of the JSON parser, and for documents
+ * too deep to be handled by recursion.
+ */
+public class JSONParserConfigurationTest {
+
+    private static final int DEEP = 100000;
+
+    @Test
+    public void defaultMaxNestingDepth() {
+        assertEquals(JSONParserConfiguration.DEFAULT_MAXIMUM_NESTING_DEPTH,
+                new JSONParserConfiguration().getMaxNestingDepth());
+        assertEquals(JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH,
+                new JSONParserConfiguration().withMaxNestingDepth(-10).getMaxNestingDepth());
+        new JSONArray(nestedArrays(JSONParserConfiguration.DEFAULT_MAXIMUM_NESTING_DEPTH));
+        try {
+            new JSONArray(nestedArrays(JSONParserConfiguration.DEFAULT_MAXIMUM_NESTING_DEPTH + 1));
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Maximum nesting depth of 512 reached"));
+        }
+    }
+
+    @Test
+    public void maxNestingDepthIsRespected() {
+        String str = "{\"a\":[{\"b\":1}],\"c\":[]}";
+        JSONParserConfiguration config = new JSONParserConfiguration().withMaxNestingDepth(2);
+        try {
+            new JSONObject(new JSONTokener(str), config);
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertEquals("Maximum nesting depth of 2 reached at 7 [character 8 line 1]",
+                    e.getMessage());
+        }
+        JSONObject jsonObject = new JSONObject(new JSONTokener(str), config.withMaxNestingDepth(3));
+        assertTrue(new JSONObject(str).similar(jsonObject));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void unlimitedNestingDepth() {
+        JSONParserConfiguration config = new JSONParserConfiguration()
+                .withMaxNestingDepth(JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH);
+        String str = nestedArrays(DEEP);
+        JSONArray jsonArray = new JSONArray(new JSONTokener(str), config);
+
+        assertEquals(str, jsonArray.toString());
+        assertTrue(jsonArray.similar(new JSONArray(new JSONTokener(str), config)));
+        List<Object> list = jsonArray.toList();
+        for (int i = 1; i < DEEP; i++) {
+            list = (List<Object>) list.get(0);
+        }
+        assertEquals(0, list.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void unlimitedNestingDepthOfObjects() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DEEP; i++) {
+            sb.append("{\"a\":");
+        }
+        sb.append("1");
+        for (int i = 0; i < DEEP; i++) {
+            sb.append('}');
+        }
+        JSONObject jsonObject = new JSONObject(new JSONTokener(sb.toString()),
+                new JSONParserConfiguration().withMaxNestingDepth(-1));
+
+        StringWriter writer = new StringWriter();
+        jsonObject.write(writer, 1, 0);
+        assertTrue(writer.toString().startsWith("{\"a\": {\"a\": {\"a\": "));
+        Map<String, Object> map = jsonObject.toMap();
+        for (int i = 1; i < DEEP; i++) {
+            map = (Map<String, Object>) map.get("a");
+        }
+        assertEquals(1, map.get("a"));
+    }
+
+    @Test
+    public void similarComparesEveryNumber() {
+        assertTrue(!new JSONArray("[1,2]").similar(new JSONArray("[1,3]")));
+        assertTrue(!new JSONObject("{\"a\":[1,2]}").similar(new JSONObject("{\"a\":[1.0,3]}")));
+        assertTrue(new JSONObject("{\"a\":[1,2]}").similar(new JSONObject("{\"a\":[1.0,2]}")));
+    }
+
+    private static String nestedArrays(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append('[');
+        }
+        for (int i = 0; i < depth; i++) {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+}
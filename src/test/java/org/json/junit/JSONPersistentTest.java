@@ -0,0 +1,157 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for persistent JSONObjects and JSONArrays.
+ */
+public class JSONPersistentTest {
+
+    @Test
+    public void shouldKeepEveryVersionOfAnObject() {
+        JSONObject template = new JSONObject("{\"a\":1,\"b\":{\"c\":[1,2]},\"d\":null}");
+        JSONObject v0 = template.toPersistent();
+        assertTrue(v0.isPersistent());
+        assertFalse(template.isPersistent());
+        assertTrue(v0.similar(template));
+        assertSame(v0, v0.toPersistent());
+        assertTrue(v0.getJSONObject("b").isPersistent());
+        assertTrue(v0.getJSONObject("b").getJSONArray("c").isPersistent());
+
+        JSONObject v1 = v0.with("a", 2).with("e", "x").without("d");
+        assertEquals(1, v0.getInt("a"));
+        assertTrue(v0.has("d"));
+        assertFalse(v0.has("e"));
+        assertEquals(2, v1.getInt("a"));
+        assertEquals("x", v1.getString("e"));
+        assertFalse(v1.has("d"));
+        assertSame(v0.get("b"), v1.get("b"));
+        assertSame(v1, v1.without("none"));
+
+        // keys with equal hashes share a node of the trie
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        JSONObject collided = v1.with("Aa", 1).with("BB", 2).without("Aa");
+        assertEquals(2, collided.getInt("BB"));
+        assertFalse(collided.has("Aa"));
+
+        // many versions, each checked against a HashMap
+        JSONObject version = new JSONObject().toPersistent();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        for (int i = 0; i < 5000; i += 1) {
+            String key = "k" + (i * 7919 % 1500);
+            if (i % 3 == 0) {
+                version = version.without(key);
+                expected.remove(key);
+            } else {
+                version = version.with(key, Integer.valueOf(i));
+                expected.put(key, Integer.valueOf(i));
+            }
+        }
+        assertEquals(expected, version.toMap());
+        assertEquals(expected.size(), version.length());
+    }
+
+    @Test
+    public void shouldKeepEveryVersionOfAnArray() {
+        JSONArray version = new JSONArray().toPersistent();
+        List<Object> expected = new ArrayList<Object>();
+        JSONArray snapshot = null;
+        for (int i = 0; i < 40000; i += 1) {
+            version = version.withAppended(Integer.valueOf(i));
+            expected.add(Integer.valueOf(i));
+            if (i == 1000) {
+                snapshot = version;
+            }
+        }
+        for (int i = 0; i < 40000; i += 997) {
+            version = version.with(i, "x" + i);
+            expected.set(i, "x" + i);
+        }
+        for (int i = 0; i < 1100; i += 1) {
+            version = version.without(version.length() - 1);
+            expected.remove(expected.size() - 1);
+        }
+        version = version.without(5);
+        expected.remove(5);
+        version = version.with(version.length() + 1, Boolean.TRUE);
+        expected.add(JSONObject.NULL);
+        expected.add(Boolean.TRUE);
+        assertEquals(expected.size(), version.length());
+        for (int i = 0; i < expected.size(); i += 1) {
+            assertEquals(expected.get(i), version.get(i));
+        }
+        assertEquals(1001, snapshot.length());
+        assertEquals(1000, snapshot.getInt(1000));
+        assertEquals(0, snapshot.getInt(0));
+
+        JSONArray nested = new JSONArray().withAppended(new JSONArray("[1]"));
+        assertTrue(nested.getJSONArray(0).isPersistent());
+    }
+
+    @Test
+    public void shouldNotChangePersistentValues() {
+        JSONObject jo = new JSONObject("{\"a\":[1],\"b\":{}}").toPersistent();
+        try {
+            jo.put("c", 1);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            assertEquals("A persistent JSONObject or JSONArray cannot be changed", e.getMessage());
+        }
+        try {
+            jo.getJSONArray("a").put(2);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            assertEquals("A persistent JSONObject or JSONArray cannot be changed", e.getMessage());
+        }
+        try {
+            jo.keySet().remove("a");
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            // cannot be changed
+        }
+        try {
+            jo.getJSONObject("b").remove("x");
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            // cannot be changed
+        }
+        assertEquals("{\"a\":[1],\"b\":{}}", new JSONObject(jo.toString()).toString());
+    }
+}
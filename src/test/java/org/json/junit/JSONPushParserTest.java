@@ -0,0 +1,175 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.json.JSONPushParser;
+import org.junit.Test;
+
+/**
+ * Tests for JSONPushParser, which parses text fed to it in chunks.
+ */
+public class JSONPushParserTest {
+
+    private static final String TEXT = "{\"name\":\"caf\\u00e9 \u00e9\ud83d\ude00\",\"n\":[1,-2.5e3,true,null,"
+            + "{\"k\":'v',unquoted:x y}],\"empty\":{},\"e\":[]}";
+
+    @Test
+    public void shouldParseChunksAsAWhole() {
+        JSONObject expected = new JSONObject(TEXT);
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        for (int size = 1; size <= 8; size++) {
+            JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration());
+            for (int i = 0; i < bytes.length; i += size) {
+                parser.feed(ByteBuffer.wrap(bytes, i, Math.min(size, bytes.length - i)));
+            }
+            assertTrue(parser.isDone());
+            assertTrue(expected.similar(parser.getValue()));
+            parser.endOfInput();
+        }
+
+        JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration());
+        char[] chars = "[1, [2, 3], \"four\"] ignored".toCharArray();
+        parser.feed(chars, 0, 5);
+        assertFalse(parser.isDone());
+        assertNull(parser.getValue());
+        parser.feed(CharBuffer.wrap(chars, 5, chars.length - 5));
+        assertTrue(new JSONArray("[1,[2,3],\"four\"]").similar(parser.getValue()));
+    }
+
+    @Test
+    public void shouldNotEndANumberAtTheEndOfAChunk() {
+        JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration());
+        parser.feed(CharBuffer.wrap("[12"));
+        parser.feed(CharBuffer.wrap("34"));
+        assertFalse(parser.isDone());
+        parser.feed(CharBuffer.wrap("]"));
+        assertEquals("[1234]", parser.getValue().toString());
+    }
+
+    @Test
+    public void shouldPassOnEachTextOfASequence() {
+        final List<Object> values = new ArrayList<Object>();
+        JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration(), new Consumer<Object>() {
+            @Override
+            public void accept(Object value) {
+                values.add(value);
+            }
+        });
+        parser.feed(CharBuffer.wrap("{\"a\":1}\n[2"));
+        assertEquals(1, values.size());
+        assertEquals("{\"a\":1}", values.get(0).toString());
+        parser.feed(CharBuffer.wrap("]\n{\"b\":{}}\n"));
+        assertEquals(3, values.size());
+        assertFalse(parser.isDone());
+        parser.endOfInput();
+        assertTrue(parser.isDone());
+        assertEquals("[2]", values.get(1).toString());
+        assertEquals("{\"b\":{}}", values.get(2).toString());
+        assertNull(parser.getValue());
+    }
+
+    @Test
+    public void shouldReportErrorsAsAWhole() {
+        String[] texts = {"{\"a\":1,\"a\":2}", "{\"a\" 1}", "[1,2", "{\"a\":\"b", "{\"a\":}", "[\"\\x\"]"};
+        for (String text : texts) {
+            String expected = null;
+            try {
+                if (text.startsWith("[")) {
+                    new JSONArray(text);
+                } else {
+                    new JSONObject(text);
+                }
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration());
+            try {
+                for (int i = 0; i < text.length(); i++) {
+                    parser.feed(new char[] {text.charAt(i)}, 0, 1);
+                }
+                parser.endOfInput();
+                fail("Expecting a JSONException for " + text);
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+
+        JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration().withMaxNestingDepth(2));
+        try {
+            parser.feed(CharBuffer.wrap("{\"a\":[{"));
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertEquals("Maximum nesting depth of 2 reached at 7 [character 8 line 1]", e.getMessage());
+        }
+        try {
+            new JSONPushParser(new JSONParserConfiguration()).feed(CharBuffer.wrap("x"));
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertEquals("A JSON text must begin with '{' or '[' at 1 [character 2 line 1]", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldTimeOutWhileWaitingForInput() throws InterruptedException {
+        JSONPushParser parser = new JSONPushParser(new JSONParserConfiguration().withTimeout(Duration.ofMillis(10)));
+        parser.feed(CharBuffer.wrap("{\"a\":"));
+        Thread.sleep(50);
+        try {
+            parser.feed(CharBuffer.wrap("1}"));
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Parsing timed out"));
+        }
+        try {
+            parser.endOfInput();
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Parsing timed out"));
+        }
+
+        parser = new JSONPushParser(new JSONParserConfiguration().withTimeout(Duration.ofMinutes(1)));
+        parser.feed(CharBuffer.wrap("{\"a\":"));
+        parser.feed(CharBuffer.wrap("1}"));
+        assertTrue(new JSONObject("{\"a\":1}").similar(parser.getValue()));
+    }
+}
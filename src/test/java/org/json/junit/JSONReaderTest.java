@@ -0,0 +1,151 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.json.JSONReader;
+import org.json.JSONReader.Token;
+import org.json.JSONTokener;
+import org.junit.Test;
+
+/**
+ * Tests for JSONReader, which reads JSON text one token at a time.
+ */
+public class JSONReaderTest {
+
+    @Test
+    public void shouldReadTokens() {
+        JSONReader reader = new JSONReader(new JSONTokener(
+                "{\"id\": 7, name: 'caf\\u00e9'; \"tags\": [\"a\",,true, null,], \"skip\": {\"x\": [1, {}]}}"));
+        assertEquals(Token.BEGIN_OBJECT, reader.peek());
+        reader.beginObject();
+        assertEquals(Token.NAME, reader.peek());
+        assertEquals("id", reader.nextName());
+        assertEquals(Token.NUMBER, reader.peek());
+        assertEquals(7L, reader.nextLong());
+        assertEquals("name", reader.nextName());
+        assertEquals(Token.STRING, reader.peek());
+        assertEquals("caf\u00e9", reader.nextString());
+        assertEquals("tags", reader.nextName());
+        reader.beginArray();
+        assertEquals("a", reader.nextString());
+        assertEquals(Token.NULL, reader.peek());
+        reader.nextNull();
+        assertTrue(reader.nextBoolean());
+        reader.nextNull();
+        assertFalse(reader.hasNext());
+        assertEquals(Token.END_ARRAY, reader.peek());
+        reader.endArray();
+        assertTrue(reader.hasNext());
+        reader.skipValue();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void shouldReadNumbersAsTheJSONObjectParser() {
+        JSONReader reader = new JSONReader(new JSONTokener(
+                "[12, -3.75, 12345678901234567890, 1e2, \"42\", 0x1F, -0, 2147483648]"));
+        reader.beginArray();
+        assertEquals(12, reader.nextInt());
+        assertEquals(-3, reader.nextLong());
+        assertEquals(new BigInteger("12345678901234567890"), reader.nextNumber());
+        assertEquals(new BigDecimal("1e2"), reader.nextNumber());
+        assertEquals(42, reader.nextInt());
+        assertEquals(Token.STRING, reader.peek());
+        assertEquals("0x1F", reader.nextString());
+        assertEquals(-0.0d, reader.nextDouble(), 0.0d);
+        assertEquals(Integer.MIN_VALUE, reader.nextInt());
+        reader.endArray();
+
+        reader = new JSONReader(new JSONTokener("[\"x\"]"));
+        reader.beginArray();
+        try {
+            reader.nextLong();
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Expected NUMBER but was STRING at 4 [character 5 line 1]", e.getMessage());
+        }
+        assertEquals("x", reader.nextString());
+        reader.endArray();
+    }
+
+    @Test
+    public void shouldReadValuesAsTheJSONObjectParser() {
+        String text = "{\"a\": [1, {\"b\": null}, ,], c: {}, \"d\": 'e'}";
+        JSONReader reader = new JSONReader(new JSONTokener("[" + text + ", 3]"));
+        reader.beginArray();
+        assertTrue(new JSONObject(text).similar(reader.nextValue()));
+        assertEquals(3, reader.nextValue());
+        reader.endArray();
+
+        reader = new JSONReader(new JSONTokener("{\"k\": 1, \"k\": 2}"));
+        try {
+            reader.nextValue();
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"k\" at 13 [character 14 line 1]", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldReportErrorsAsTheJSONObjectParser() {
+        String[] texts = {"[1 }", "{\"a\" 1}", "{\"a\":1", "[\"\\x\"]", "[[[1]]]", "{\"a\":[}"};
+        JSONParserConfiguration config = new JSONParserConfiguration().withMaxNestingDepth(2);
+        for (String text : texts) {
+            String expected = null;
+            try {
+                new JSONArray(new JSONTokener(text), config);
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            if (text.startsWith("{")) {
+                try {
+                    new JSONObject(new JSONTokener(text), config);
+                } catch (JSONException e) {
+                    expected = e.getMessage();
+                }
+            }
+            try {
+                new JSONReader(new JSONTokener(text), config).skipValue();
+                fail("Expected an exception for " + text);
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.json.JSONPointer;
+import org.json.JSONRecordPublisher;
+import org.json.XMLParserConfiguration;
+import org.junit.Test;
+
+/**
+ * Tests for JSONRecordPublisher, which sends records as they are requested.
+ */
+public class JSONRecordPublisherTest {
+
+    @Test
+    public void shouldPublishXMLElementsAtAPath() {
+        String xml = "<?xml version=\"1.0\"?><catalog><info>x</info><book id=\"1\"><title>A</title></book>"
+                + "<shelf><book id=\"9\"/></shelf><book id=\"2\"><title>B</title><title>C</title></book></catalog>";
+        Recorder recorder = new Recorder();
+        JSONRecordPublisher.fromXML(new StringReader(xml), new JSONPointer("/catalog/book"),
+                XMLParserConfiguration.ORIGINAL).subscribe(recorder);
+        assertTrue(recorder.records.isEmpty());
+        recorder.subscription.request(1);
+        assertEquals(1, recorder.records.size());
+        assertEquals("{\"book\":{\"id\":1,\"title\":\"A\"}}", recorder.records.get(0).toString());
+        recorder.subscription.request(5);
+        assertEquals(2, recorder.records.size());
+        assertEquals("{\"book\":{\"id\":2,\"title\":[\"B\",\"C\"]}}", recorder.records.get(1).toString());
+        assertTrue(recorder.complete);
+        assertNull(recorder.error);
+    }
+
+    @Test
+    public void shouldReadOnlyAsFarAsRequested() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 100000; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append('}');
+        }
+        CountingReader reader = new CountingReader(sb.append(']').toString());
+        Recorder recorder = new Recorder();
+        JSONRecordPublisher.fromArray(reader, new JSONParserConfiguration()).subscribe(recorder);
+        recorder.subscription.request(3);
+        assertEquals(3, recorder.records.size());
+        assertEquals(2, recorder.records.get(2).getInt("id"));
+        assertTrue(reader.read < 100000);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(100000, recorder.records.size());
+        assertTrue(recorder.complete);
+    }
+
+    @Test
+    public void shouldPublishLinesAndReportErrors() {
+        Recorder recorder = new Recorder();
+        JSONRecordPublisher.fromLines(new StringReader("{\"a\":1}\n{\"b\":[2]}\n[3]\n"),
+                new JSONParserConfiguration()).subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(2, recorder.records.size());
+        assertEquals("{\"b\":[2]}", recorder.records.get(1).toString());
+        assertFalse(recorder.complete);
+        assertTrue(recorder.error instanceof JSONException);
+        assertEquals("Record \"[3]\" is not a JSONObject", recorder.error.getMessage());
+
+        recorder = new Recorder();
+        JSONRecordPublisher.fromLines(new StringReader("{}"), new JSONParserConfiguration()).subscribe(recorder);
+        recorder.subscription.request(0);
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+        assertTrue(recorder.records.isEmpty());
+    }
+
+    @Test
+    public void shouldStopWhenCancelled() {
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onNext(JSONObject record) {
+                super.onNext(record);
+                this.subscription.cancel();
+            }
+        };
+        JSONRecordPublisher.fromLines(new StringReader("{\"a\":1}\n{\"a\":2}\n"),
+                new JSONParserConfiguration()).subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(1, recorder.records.size());
+        assertFalse(recorder.complete);
+        assertNull(recorder.error);
+    }
+
+    private static class Recorder implements JSONRecordPublisher.Subscriber {
+        JSONRecordPublisher.Subscription subscription;
+        final List<JSONObject> records = new ArrayList<JSONObject>();
+        boolean complete;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(JSONRecordPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(JSONObject record) {
+            this.records.add(record);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.complete = true;
+        }
+    }
+
+    /**
+     * A Reader of a string that counts the chars read.
+     */
+    private static class CountingReader extends Reader {
+        private final String string;
+        int read;
+
+        CountingReader(String string) {
+            this.string = string;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (this.read == this.string.length()) {
+                return -1;
+            }
+            int count = Math.min(len, this.string.length() - this.read);
+            this.string.getChars(this.read, this.read + count, cbuf, off);
+            this.read += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTape;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for JSONTape, the read-only binary form of a JSON document.
+ */
+public class JSONTapeTest {
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadWhatWasWritten() throws Exception {
+        JSONObject jo = new JSONObject()
+                .put("int", 7)
+                .put("long", 1L << 40)
+                .put("double", 0.1)
+                .put("float", 1.5f)
+                .put("bigInteger", new BigInteger("123456789012345678901234567890"))
+                .put("bigDecimal", new BigDecimal("12.50"))
+                .put("string", "caf\u00e9")
+                .put("true", true)
+                .put("null", JSONObject.NULL)
+                .put("list", Arrays.asList(1, "two", Collections.singletonMap("three", 3)))
+                .put("empty", new JSONObject());
+        for (int i = 0; i < 1000; i++) {
+            jo.put("key" + i, new JSONObject().put("i", i).put("name", "name " + i % 10));
+        }
+        File file = this.testFolder.newFile("document.tape");
+        JSONTape.write(jo, file.toPath());
+        JSONObject tape = JSONTape.open(file.toPath()).getJSONObject();
+
+        assertEquals(jo.length(), tape.length());
+        assertTrue(tape.similar(jo));
+        assertEquals(Integer.valueOf(7), tape.get("int"));
+        assertEquals(Long.valueOf(1L << 40), tape.get("long"));
+        assertEquals(Double.valueOf(0.1), tape.get("double"));
+        assertEquals(Float.valueOf(1.5f), tape.get("float"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), tape.get("bigInteger"));
+        assertEquals(new BigDecimal("12.50"), tape.get("bigDecimal"));
+        assertEquals("caf\u00e9", tape.getString("string"));
+        assertEquals(JSONObject.NULL, tape.get("null"));
+        assertEquals(3, tape.getJSONArray("list").getJSONObject(2).getInt("three"));
+        assertTrue(tape.getJSONObject("empty").isEmpty());
+        assertEquals("name 7", tape.getJSONObject("key997").getString("name"));
+        assertNull(tape.opt("key1000"));
+        assertFalse(tape.has("key"));
+        assertTrue(new JSONObject(tape.toString()).similar(new JSONObject(jo.toString())));
+    }
+
+    @Test
+    public void shouldSortKeysByTheirBytes() {
+        JSONObject jo = new JSONObject();
+        String[] keys = {"b", "a", "", "\u00e9", "\uffff", "\ud83d\ude00", "\ue000", "ab", "A"};
+        for (int i = 0; i < keys.length; i++) {
+            jo.put(keys[i], i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSONTape.write(new JSONArray().put(jo), out);
+        JSONObject tape = JSONTape.wrap(ByteBuffer.wrap(out.toByteArray())).getJSONArray().getJSONObject(0);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i, tape.getInt(keys[i]));
+        }
+        assertEquals(Arrays.asList("", "A", "a", "ab", "b", "\u00e9", "\ue000", "\uffff", "\ud83d\ude00"),
+                new JSONArray(tape.keySet()).toList());
+    }
+
+    @Test
+    public void shouldBeReadOnly() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSONTape.write(new JSONArray().put(new JSONObject().put("a", 1)), out);
+        JSONTape tape = JSONTape.wrap(ByteBuffer.wrap(out.toByteArray()));
+        JSONArray ja = tape.getJSONArray();
+        try {
+            ja.put(2);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            assertEquals("A JSONTape is read-only", e.getMessage());
+        }
+        try {
+            ja.getJSONObject(0).put("b", 2);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            assertEquals("A JSONTape is read-only", e.getMessage());
+        }
+        try {
+            tape.getJSONObject();
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("The JSONTape does not hold a JSONObject.", e.getMessage());
+        }
+        try {
+            JSONTape.wrap(ByteBuffer.wrap("{\"a\":1} is JSON text".getBytes()));
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Not a JSONTape", e.getMessage());
+        }
+        JSONObject copy = new JSONObject(ja.getJSONObject(0).toMap());
+        copy.put("b", 2);
+        assertEquals(2, copy.length());
+    }
+}
@@ -0,0 +1,118 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for the read-only views of JSONObject.asMap and JSONArray.asList.
+ */
+public class JSONViewsTest {
+
+    private static final String TEXT = "{\"a\":1,\"b\":null,\"c\":{\"d\":[true,null,{\"e\":\"f\"}]},\"g\":[]}";
+
+    @Test
+    public void shouldViewAsToMapAndToListCopy() {
+        JSONObject jo = new JSONObject(TEXT);
+        Map<String, Object> map = jo.asMap();
+        assertEquals(jo.toMap(), map);
+        assertEquals(map, jo.toMap());
+        assertEquals(jo.toMap().hashCode(), map.hashCode());
+        assertEquals(4, map.size());
+        assertEquals(Integer.valueOf(1), map.get("a"));
+        assertTrue(map.containsKey("b"));
+        assertNull(map.get("b"));
+        assertFalse(map.containsKey("z"));
+
+        List<?> d = (List<?>) ((Map<?, ?>) map.get("c")).get("d");
+        assertEquals(3, d.size());
+        assertEquals(Boolean.TRUE, d.get(0));
+        assertNull(d.get(1));
+        assertEquals("f", ((Map<?, ?>) d.get(2)).get("e"));
+
+        JSONArray ja = jo.getJSONObject("c").getJSONArray("d");
+        assertEquals(ja.toList(), ja.asList());
+        assertEquals(ja.toList().hashCode(), ja.asList().hashCode());
+
+        // the views see later changes
+        jo.put("h", new JSONArray("[1]"));
+        ja.put(2, "x");
+        assertEquals(5, map.size());
+        assertEquals(1, ((List<?>) map.get("h")).size());
+        assertEquals("x", d.get(2));
+    }
+
+    @Test
+    public void shouldNotChangeViews() {
+        JSONObject jo = new JSONObject(TEXT);
+        Map<String, Object> map = jo.asMap();
+        List<Object> list = jo.getJSONObject("c").getJSONArray("d").asList();
+        try {
+            map.put("a", 2);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            // read-only
+        }
+        try {
+            map.keySet().remove("a");
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            // read-only
+        }
+        try {
+            Iterator<Map.Entry<String, Object>> entries = map.entrySet().iterator();
+            entries.next().setValue(2);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            // read-only
+        }
+        try {
+            list.set(0, Boolean.FALSE);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            // read-only
+        }
+        try {
+            list.remove(0);
+            fail("Expected an exception");
+        } catch (UnsupportedOperationException e) {
+            // read-only
+        }
+        assertEquals(4, jo.length());
+        assertEquals(3, list.size());
+    }
+}
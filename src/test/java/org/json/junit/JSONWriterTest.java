@@ -0,0 +1,104 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2002 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
+import org.json.JSONTokener;
+import org.json.JSONWriter;
+import org.junit.Test;
+
+/**
+ * Tests for JSONWriter with and without checked keys and nesting limits.
+ */
+public class JSONWriterTest {
+
+    @Test
+    public void shouldCheckKeysOfEachObject() {
+        StringBuilder sb = new StringBuilder();
+        JSONWriter writer = new JSONWriter(sb);
+        writer.array();
+        for (int i = 0; i < 3; i += 1) {
+            // the keys of one object do not carry over to the next
+            writer.object().key("a").value(i).key("</b\n").value("\u2028").endObject();
+        }
+        writer.object();
+        for (int i = 0; i < 100; i += 1) {
+            writer.key("k" + i).value(i);
+        }
+        writer.endObject();
+        writer.object().key("k1").value(1.5).endObject();
+        writer.endArray();
+        String text = sb.toString();
+        assertTrue(text.startsWith("[{\"a\":0,\"<\\/b\\n\":\"\\u2028\"},{\"a\":1,"));
+        assertTrue(text.endsWith(",\"k99\":99},{\"k1\":1.5}]"));
+        JSONArray parsed = new JSONArray(text);
+        assertEquals(5, parsed.length());
+        assertEquals(100, parsed.getJSONObject(3).length());
+
+        writer = new JSONWriter(new StringBuilder()).array().object().key("a").value(1).endObject().object();
+        try {
+            writer.key("a").value(2).key("a");
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"a\"", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldWriteUncheckedKeysAtAnyDepth() {
+        StringBuilder sb = new StringBuilder();
+        JSONWriter writer = new JSONWriter(sb, false, JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH);
+        writer.object().key("a").value(1).key("a").value("x").endObject();
+        assertEquals("{\"a\":1,\"a\":\"x\"}", sb.toString());
+
+        sb.setLength(0);
+        writer = new JSONWriter(sb, false, JSONParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH);
+        for (int i = 0; i < 1000; i += 1) {
+            writer.object().key("n");
+        }
+        writer.value(true);
+        for (int i = 0; i < 1000; i += 1) {
+            writer.endObject();
+        }
+        JSONObject parsed = new JSONObject(new JSONTokener(sb.toString()),
+                new JSONParserConfiguration().withMaxNestingDepth(2000));
+        assertEquals(Boolean.TRUE, parsed.query(new String(new char[1000]).replace("\0", "/n")));
+
+        writer = new JSONWriter(new StringBuilder(), true, 3).array().array().array();
+        try {
+            writer.array();
+            fail("Expected an exception");
+        } catch (JSONException e) {
+            assertEquals("Nesting too deep.", e.getMessage());
+        }
+    }
+}
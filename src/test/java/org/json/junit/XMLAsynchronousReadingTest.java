@@ -27,6 +27,7 @@ SOFTWARE.
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -37,16 +38,26 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONParserConfiguration;
 import org.json.JSONPointer;
+import org.json.JSONTokener;
 import org.json.XML;
 import org.json.XMLParserConfiguration;
+import org.json.XMLPushParser;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -151,4 +162,237 @@ public class XMLAsynchronousReadingTest {
     }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldParseInParallelAsSequentially() throws IOException {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\"?>\n<!-- records -->\n<catalog id=\"c1\">\n");
+        for (int i = 0; i < 500; i++) {
+            sb.append("<book id=\"bk").append(i).append("\" note=\"a > b\">")
+                .append("<title>T&amp;").append(i).append("</title><empty/>")
+                .append("<![CDATA[<raw>]]><!-- <book> --></book>\n");
+            if (i % 50 == 0) {
+                sb.append("text ").append(i).append("<author>A").append(i).append("</author>\n");
+            }
+        }
+        sb.append("</catalog>\n<!-- end -->\n");
+        File file = testFolder.newFile("records.xml");
+        FileWriter writer = new FileWriter(file);
+        writer.write(sb.toString());
+        writer.close();
+
+        JSONObject expected = XML.toJSONObject(sb.toString(), XMLParserConfiguration.ORIGINAL);
+        JSONObject actual = XML.toJSONObjectParallel(file.toPath(), XMLParserConfiguration.ORIGINAL, 4);
+        assertTrue(expected.similar(actual));
+        assertEquals(500, actual.getJSONObject("catalog").getJSONArray("book").length());
+        assertEquals("bk499", actual.getJSONObject("catalog").getJSONArray("book")
+                .getJSONObject(499).getString("id"));
+        assertEquals(expected.toString(), actual.toString());
+
+        XMLParserConfiguration keepStrings = XMLParserConfiguration.KEEP_STRINGS;
+        assertTrue(XML.toJSONObject(sb.toString(), keepStrings)
+                .similar(XML.toJSONObjectParallel(file.toPath(), keepStrings, 3)));
+    }
+
+    @Test
+    public void shouldParseArrayValuedRecordsInParallelAsSequentially() throws IOException {
+        // each record is a content array, and repeats of it make an array of arrays
+        StringBuilder sb = new StringBuilder("<records>");
+        for (int i = 0; i < 50; i++) {
+            sb.append("<a>x").append(i).append("<![CDATA[y]]></a>");
+        }
+        sb.append("</records>");
+        File file = testFolder.newFile("arrays.xml");
+        FileWriter writer = new FileWriter(file);
+        writer.write(sb.toString());
+        writer.close();
+
+        JSONObject expected = XML.toJSONObject(sb.toString(), XMLParserConfiguration.ORIGINAL);
+        JSONObject actual = XML.toJSONObjectParallel(file.toPath(), XMLParserConfiguration.ORIGINAL, 4);
+        assertTrue(expected.similar(actual));
+        assertEquals("[\"x1\",\"y\"]", actual.getJSONObject("records").getJSONArray("a").get(1).toString());
+    }
+
+    @Test
+    public void shouldReportErrorsAsSequentially() throws IOException {
+        String xml = "<catalog><book>1</book><book>2</bok><book>3</book></catalog>";
+        File file = testFolder.newFile("broken.xml");
+        FileWriter writer = new FileWriter(file);
+        writer.write(xml);
+        writer.close();
+        try {
+            XML.toJSONObject(xml);
+            fail("Expecting a JSONException");
+        } catch (JSONException expected) {
+            try {
+                XML.toJSONObjectParallel(file.toPath(), XMLParserConfiguration.ORIGINAL, 2);
+                fail("Expecting a JSONException");
+            } catch (JSONException actual) {
+                assertEquals(expected.getMessage(), actual.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void shouldStopWhenTheTimeoutPasses() throws InterruptedException {
+        XMLParserConfiguration config = XMLParserConfiguration.ORIGINAL.withTimeout(Duration.ofMillis(100));
+        Future<JSONObject> future = XML.toFutureJSONObject(new EndlessReader("<a>", "<b>x</b>"), config);
+        try {
+            future.get();
+            fail("Expecting an ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof JSONException);
+            assertTrue(e.getCause().getMessage().startsWith("Parsing timed out"));
+        }
+
+        try {
+            new JSONArray(new JSONTokener(new EndlessReader("[", "1,")),
+                    new JSONParserConfiguration().withTimeout(Duration.ofMillis(100)));
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Parsing timed out"));
+        }
+    }
+
+    @Test
+    public void shouldStopWhenCancelled() throws InterruptedException {
+        EndlessReader reader = new EndlessReader("<a>", "<b>x</b>");
+        Future<JSONObject> future = XML.toFutureJSONObject(reader, XMLParserConfiguration.ORIGINAL);
+        while (reader.read == 0) {
+            Thread.sleep(1);
+        }
+        assertTrue(future.cancel(true));
+        // the parse notices the interruption within a few thousand characters
+        long read;
+        do {
+            read = reader.read;
+            Thread.sleep(50);
+        } while (read != reader.read);
+        Thread.sleep(50);
+        assertEquals(read, reader.read);
+    }
+
+    @Test
+    public void shouldParseFedChunksAsSequentially() {
+        byte[] bytes = ("<x a=\"&lt;1&gt;\"><!-- a > b --><y>caf\u00e9 \ud83d\ude00</y>"
+                + "<![CDATA[<z/>]]></x>" + this.booksXMLstr).getBytes(StandardCharsets.UTF_8);
+        JSONObject expected = XML.toJSONObject(new String(bytes, StandardCharsets.UTF_8));
+        for (int size = 1; size <= 8; size++) {
+            XMLPushParser parser = new XMLPushParser(XMLParserConfiguration.ORIGINAL);
+            for (int i = 0; i < bytes.length; i += size) {
+                parser.feed(ByteBuffer.wrap(bytes, i, Math.min(size, bytes.length - i)));
+            }
+            assertNull(parser.getJSONObject());
+            parser.endOfInput();
+            assertTrue(parser.isDone());
+            Util.compareActualVsExpectedJsonObjects(parser.getJSONObject(), expected);
+        }
+
+        XMLPushParser parser = new XMLPushParser(XMLParserConfiguration.ORIGINAL);
+        char[] chars = this.booksXMLstr.toCharArray();
+        parser.feed(chars, 0, 100);
+        parser.feed(CharBuffer.wrap(chars, 100, chars.length - 100));
+        parser.endOfInput();
+        assertEquals(new JSONObject(this.booksXMLjsonStr).toString(), parser.getJSONObject().toString());
+    }
+
+    @Test
+    public void shouldEmitRecordsAsTheyArrive() {
+        final List<JSONObject> records = new ArrayList<JSONObject>();
+        XMLPushParser parser = new XMLPushParser(XMLParserConfiguration.ORIGINAL, new Consumer<JSONObject>() {
+            @Override
+            public void accept(JSONObject record) {
+                records.add(record);
+            }
+        });
+        int split = this.booksXMLstr.indexOf("</book>") + 3;
+        parser.feed(CharBuffer.wrap(this.booksXMLstr.substring(0, split)));
+        assertTrue(records.isEmpty());
+        parser.feed(CharBuffer.wrap(this.booksXMLstr.substring(split, split + 5)));
+        assertEquals(1, records.size());
+        assertEquals("bk101", records.get(0).getJSONObject("book").get("id"));
+        parser.feed(CharBuffer.wrap(this.booksXMLstr.substring(split + 5)));
+        parser.endOfInput();
+        assertEquals(2, records.size());
+        assertEquals(new JSONObject(this.booksXMLjsonStr).query("/catalog/book/1").toString(),
+                records.get(1).getJSONObject("book").toString());
+        assertNull(parser.getJSONObject());
+    }
+
+    @Test
+    public void shouldReportErrorsOfFedChunksAsSequentially() {
+        String[] documents = {"<a><b></a>", "<a x='1>", "<a>&amp</a>", "<![CDATA[x", "<a><b>"};
+        for (String document : documents) {
+            String expected = null;
+            try {
+                XML.toJSONObject(document);
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            XMLPushParser parser = new XMLPushParser(XMLParserConfiguration.ORIGINAL);
+            try {
+                for (int i = 0; i < document.length(); i++) {
+                    parser.feed(new char[] {document.charAt(i)}, 0, 1);
+                }
+                parser.endOfInput();
+                fail("Expecting a JSONException for " + document);
+            } catch (JSONException e) {
+                assertEquals(expected, e.getMessage());
+            }
+        }
+
+        XMLPushParser parser = new XMLPushParser(XMLParserConfiguration.ORIGINAL.withMaxNestingDepth(2));
+        try {
+            parser.feed(CharBuffer.wrap("<a><b><c>"));
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertEquals("Maximum nesting depth of 2 reached at 8 [character 9 line 1]", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldIgnoreTheInterruptStatusWithoutATimeout() {
+        StringBuilder json = new StringBuilder("[");
+        StringBuilder xml = new StringBuilder("<a>");
+        for (int i = 0; i < 10000; i++) {
+            json.append(i).append(',');
+            xml.append("<b>x</b>");
+        }
+        json.append("0]");
+        xml.append("</a>");
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(10001, new JSONArray(json.toString()).length());
+            assertEquals(10000, XML.toJSONObject(xml.toString()).getJSONObject("a").getJSONArray("b").length());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * A Reader of a prefix followed by a body repeated forever.
+     */
+    private static class EndlessReader extends Reader {
+        private final String prefix;
+        private final String body;
+        volatile long read;
+
+        EndlessReader(String prefix, String body) {
+            this.prefix = prefix;
+            this.body = body;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            for (int i = 0; i < len; i++, this.read++) {
+                cbuf[off + i] = this.read < this.prefix.length() ? this.prefix.charAt((int) this.read)
+                        : this.body.charAt((int) ((this.read - this.prefix.length()) % this.body.length()));
+            }
+            return len;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
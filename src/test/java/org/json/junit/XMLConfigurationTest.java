@@ -905,6 +905,64 @@ public class XMLConfigurationTest {
     }
     
     
+    /**
+     * The parser keeps no Java stack frame per level, so a document much
+     * deeper than a recursive parser could handle converts when the limit is
+     * lifted
+     */
+    @Test
+    public void testUnlimitedNestingDepth() {
+        final int depth = 100000;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append("<a>");
+        }
+        sb.append("x");
+        for (int i = 0; i < depth; i++) {
+            sb.append("</a>");
+        }
+        XMLParserConfiguration config = new XMLParserConfiguration()
+                .withMaxNestingDepth(XMLParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH);
+        JSONObject jsonObject = XML.toJSONObject(sb.toString(), config);
+        for (int i = 0; i < depth - 1; i++) {
+            jsonObject = jsonObject.getJSONObject("a");
+        }
+        assertEquals("x", jsonObject.get("a"));
+    }
+
+    @Test
+    public void testMaxNestingDepthIsRespected() {
+        String xmlStr = "<a><b><c><d>x</d></c></b></a>";
+        XMLParserConfiguration config = new XMLParserConfiguration().withMaxNestingDepth(3);
+        try {
+            XML.toJSONObject(xmlStr, config);
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Maximum nesting depth of 3 reached"));
+        }
+        config = config.withMaxNestingDepth(4);
+        JSONObject expected = new JSONObject("{\"a\":{\"b\":{\"c\":{\"d\":\"x\"}}}}");
+        Util.compareActualVsExpectedJsonObjects(XML.toJSONObject(xmlStr, config), expected);
+    }
+
+    @Test
+    public void testDefaultMaxNestingDepth() {
+        assertEquals(XMLParserConfiguration.DEFAULT_MAXIMUM_NESTING_DEPTH,
+                XMLParserConfiguration.ORIGINAL.getMaxNestingDepth());
+        assertEquals(XMLParserConfiguration.UNDEFINED_MAXIMUM_NESTING_DEPTH,
+                new XMLParserConfiguration().withMaxNestingDepth(-10).getMaxNestingDepth());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= XMLParserConfiguration.DEFAULT_MAXIMUM_NESTING_DEPTH; i++) {
+            sb.append("<a>");
+        }
+        try {
+            XML.toJSONObject(sb.toString());
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Maximum nesting depth of 512 reached"));
+        }
+    }
+
     /**
      * Convenience method, given an input string and expected result,
      * convert to JSONObject and compare actual to expected result.
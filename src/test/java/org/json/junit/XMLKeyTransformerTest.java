@@ -36,6 +36,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.json.JSONArray;
@@ -159,4 +161,79 @@ public class XMLKeyTransformerTest{
       JSONObject expectedJsonObject = new JSONObject(booksXMLjsonStr_emptykey);
       Util.compareActualVsExpectedJsonObjects(actual, expectedJsonObject);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void ShouldStreamTransformedKeys(){
+      StringWriter writer = new StringWriter();
+      XML.transformKeysTo(new StringReader(booksXMLstr), (str)-> "\\"+str, writer);
+      JSONObject actual = new JSONObject(writer.toString());
+      JSONObject expectedJsonObject = new JSONObject(booksXMLjsonStr_backslash);
+      Util.compareActualVsExpectedJsonObjects(actual, expectedJsonObject);
+    }
+
+    @Test
+    public void ShouldStreamSameTextAsToJSONObject(){
+      String xmlStr = "<a x=\"1\"><b/><c y=\"z\"/><d>t<e>2</e>u</d><f><![CDATA[<g>]]></f><h>true</h><h>3</h><h/></a>";
+      StringWriter writer = new StringWriter();
+      XML.transformKeysTo(new StringReader(xmlStr), (str)-> "pre_"+str, writer);
+      JSONObject actual = new JSONObject(writer.toString());
+      JSONObject expectedJsonObject = XML.toJSONObject(new StringReader(xmlStr), (str)-> "pre_"+str);
+      Util.compareActualVsExpectedJsonObjects(actual, expectedJsonObject);
+    }
+
+    @Test
+    public void ShouldCallStreamingFunctionOncePerName(){
+      AtomicInteger calls = new AtomicInteger();
+      StringWriter writer = new StringWriter();
+      XML.transformKeysTo(new StringReader(booksXMLstr), (str)-> {
+         calls.incrementAndGet();
+         return str;
+      }, writer);
+      // catalog, book, id and the six children of book
+      assertEquals(9, calls.get());
+    }
+
+    @Test
+    public void StreamingNullFunctionThrowsException(){
+      assertThrows(JSONException.class,
+         () -> XML.transformKeysTo(new StringReader(booksXMLstr), (str)-> null, new StringWriter()));
+      JSONException e = assertThrows(JSONException.class,
+         () -> XML.transformKeysTo(new StringReader(booksXMLstr), (str)-> (String)(Object)Integer.valueOf(1), new StringWriter()));
+      assertTrue(e.getCause() instanceof ClassCastException);
+    }
+
+    /**
+     * Names that repeat after other siblings, or that collide after
+     * transformation, are merged into arrays as toJSONObject merges them
+     */
+    @Test
+    public void StreamingMergesNonAdjacentRepeats(){
+      String[] xmlStrs = {
+         "<a><b/><c/><b/></a>",
+         "<a b=\"1\"><c>x<![CDATA[y]]></c><b>2</b><c>z</c><b><b/></b></a>",
+         "<a><b content=\"x\"/><c content=\"y\">z</c><d><![CDATA[w]]></d></a>",
+         booksXMLstr,
+      };
+      for (String xmlStr : xmlStrs) {
+         StringWriter writer = new StringWriter();
+         XML.transformKeysTo(new StringReader(xmlStr), (str)-> "", writer);
+         JSONObject actual = new JSONObject(writer.toString());
+         JSONObject expectedJsonObject = XML.toJSONObject(new StringReader(xmlStr), (str)-> "");
+         Util.compareActualVsExpectedJsonObjects(actual, expectedJsonObject);
+         writer = new StringWriter();
+         XML.transformKeysTo(new StringReader(xmlStr), (str)-> str, writer);
+         Util.compareActualVsExpectedJsonObjects(new JSONObject(writer.toString()),
+            XML.toJSONObject(new StringReader(xmlStr), (str)-> str));
+      }
+    }
+
+    /**
+     * The elements of the document are written as they start, so a name
+     * cannot repeat at that level
+     */
+    @Test
+    public void StreamingDuplicateDocumentKeyThrowsException(){
+      assertThrows(JSONException.class,
+         () -> XML.transformKeysTo(new StringReader("<a/><b/>"), (str)-> "", new StringWriter()));
+    }
+}
@@ -35,6 +35,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -222,7 +223,98 @@ public class XMLSubObjectAdvancedTest {
         Util.compareActualVsExpectedJsonObjects(jsonObject,expectedJsonObject);
     }
 
+    /**
+     * Should stream the XML, writing the replacement in place of the
+     * pointed element, without building the whole document
+     */
+    @Test
+    public void shouldStreamReplaceSubObjectXML(){
+        JSONPointer jp = new JSONPointer("/catalog/book/0");
+        JSONObject replacement = new JSONObject(replacementJSONStr);
+        StringWriter writer = new StringWriter();
+        XML.replace(new StringReader(booksXMLstr), jp, replacement, writer);
+        JSONObject jsonObject = XML.toJSONObject(writer.toString());
+        JSONObject expectedJsonObject = new JSONObject(booksXML_jsonStr_catalog_book_0_replaced);
+        Util.compareActualVsExpectedJsonObjects(jsonObject,expectedJsonObject);
+        // everything before the replaced element is copied as is
+        assertTrue(writer.toString().startsWith("<?xml version=\"1.0\"?>\n<catalog>\n<book><hellokey>"));
+    }
 
+    @Test
+    public void shouldStreamReplaceSubArrayXML(){
+        JSONPointer jp = new JSONPointer("/catalog/book");
+        JSONObject replacement = new JSONObject(replacementJSONStr);
+        StringWriter writer = new StringWriter();
+        XML.replace(new StringReader(booksXMLstr), jp, replacement, writer);
+        JSONObject jsonObject = XML.toJSONObject(writer.toString());
+        JSONObject expectedJsonObject = new JSONObject(booksXML_jsonStr_catalog_book_replaced);
+        Util.compareActualVsExpectedJsonObjects(jsonObject,expectedJsonObject);
+    }
 
+    @Test
+    public void shouldStreamReplaceWholeXML(){
+        JSONPointer jp = new JSONPointer("/");
+        JSONObject replacement = new JSONObject(replacementJSONStr);
+        StringWriter writer = new StringWriter();
+        XML.replace(new StringReader(booksXMLstr), jp, replacement, writer);
+        JSONObject jsonObject = XML.toJSONObject(writer.toString());
+        JSONObject expectedJsonObject = new JSONObject(booksXML_jsonStr_replaced);
+        Util.compareActualVsExpectedJsonObjects(jsonObject,expectedJsonObject);
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldStreamEmptyReplacement(){
+        JSONPointer jp = new JSONPointer("/catalog/book/0/author");
+        StringWriter writer = new StringWriter();
+        XML.replace(new StringReader(booksXMLstr), jp, new JSONObject(), writer);
+        JSONObject jsonObject = XML.toJSONObject(writer.toString());
+        JSONObject expectedJsonObject = new JSONObject(booksXMLjsonStr_catalog_book_0_author_replaced_empty);
+        Util.compareActualVsExpectedJsonObjects(jsonObject,expectedJsonObject);
+    }
+
+    /**
+     * Comments, CDATA and processing instructions outside the replaced
+     * element survive, and a pointer that matches nothing copies the
+     * document unchanged
+     */
+    @Test
+    public void shouldStreamCopyUnmatchedXMLVerbatim(){
+        String xmlStr = "<?xml version=\"1.0\"?>\n<!DOCTYPE a [<!ENTITY e \"v\">]>\n"+
+            "<a x='1 > 0'><!-- <b>not an element</b> --><b>1</b><b><![CDATA[<c/>]]></b><?pi data?></a>";
+        StringWriter writer = new StringWriter();
+        XML.replace(new StringReader(xmlStr), new JSONPointer("/a/c"), new JSONObject(replacementJSONStr), writer);
+        assertEquals(xmlStr, writer.toString());
+
+        writer = new StringWriter();
+        XML.replace(new StringReader(xmlStr), new JSONPointer("/a/b/1"), new JSONObject("{\"d\":2}"), writer);
+        assertEquals(xmlStr.replace("<b><![CDATA[<c/>]]></b>", "<b><d>2</d></b>"), writer.toString());
+    }
+
+    /**
+     * A terminator that overlaps a partial match, as in "---&gt;" or
+     * "]]]&gt;", still ends the markup, and long markup is copied whole
+     */
+    @Test
+    public void shouldStreamCopyOverlappingTerminators(){
+        StringBuilder longComment = new StringBuilder("<!--");
+        for (int i = 0; i < 1000; i++) {
+            longComment.append('-');
+        }
+        longComment.append("x-->");
+        String xmlStr = "<a><!-- b ---><![CDATA[c]]]]>]]><?pi ?? ?>" + longComment + "<b>1</b></a>";
+        StringWriter writer = new StringWriter();
+        XML.replace(new StringReader(xmlStr), new JSONPointer("/a/b"), new JSONObject("{\"d\":2}"), writer);
+        assertEquals(xmlStr.replace("<b>1</b>", "<b><d>2</d></b>"), writer.toString());
+    }
+
+    @Test
+    public void shouldStreamRejectMismatchedTags(){
+        StringWriter writer = new StringWriter();
+        try {
+            XML.replace(new StringReader("<a><b></a>"), new JSONPointer("/a/c"), new JSONObject(), writer);
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Mismatched b and a"));
+        }
+    }
+}
@@ -38,6 +38,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -888,6 +889,70 @@ public class XMLTest {
 
    }
 
+    /**
+     * Writing XML to an Appendable gives the same text as toString.
+     */
+    @Test
+    public void testWriteToAppendable() {
+        JSONObject jsonObject = new JSONObject(
+                "{\"a\":[1,[2,3],{\"b\":\"x<y\"}],\"content\":[\"t1\",\"t&2\"],\"e\":\"\"}");
+        StringWriter writer = XML.write(jsonObject, "root", XMLParserConfiguration.ORIGINAL, new StringWriter());
+        assertEquals(XML.toString(jsonObject, "root"), writer.toString());
+        assertTrue(writer.toString().startsWith("<root>"));
+        assertTrue(writer.toString().contains("<a><array>2</array><array>3</array></a><a><b>x&lt;y</b></a>"));
+        assertTrue(writer.toString().contains("t1\nt&amp;2"));
+        assertEquals("\"a&amp;b\"",
+                XML.write("a&b", null, XMLParserConfiguration.ORIGINAL, new StringBuilder()).toString());
+    }
+
+    /**
+     * Converting JSON text to XML as it is read gives the same XML as
+     * toString gives for the parsed JSONObject, in the order of the text.
+     */
+    @Test
+    public void testFromJSON() {
+        String jsonStr = "{\"a\":[1,[2,3],{\"b\":\"x<y\"},[]],\"content\":[\"t1\",\"t&2\"],\"e\":\"\",\"n\":null}";
+        JSONObject jsonObject = new JSONObject(jsonStr);
+        String xml = XML.fromJSON(new JSONTokener(jsonObject.toString()), new StringBuilder(),
+                XMLParserConfiguration.ORIGINAL).toString();
+        assertEquals(XML.toString(jsonObject), xml);
+
+        assertEquals("<a>1</a><a><array>2</array><array>3</array></a><a><b>x&lt;y</b></a><a></a>"
+                + "t1\nt&amp;2<e/><n>null</n>",
+                XML.fromJSON(new JSONTokener(jsonStr), new StringWriter(), XMLParserConfiguration.ORIGINAL)
+                        .toString());
+        assertEquals("<array>1</array><array><x>2</x></array>",
+                XML.fromJSON(new JSONTokener("[1,{\"x\":2}]"), new StringBuilder(),
+                        XMLParserConfiguration.ORIGINAL).toString());
+        try {
+            XML.fromJSON(new JSONTokener("{\"a\":[[[1]]]}"), new StringBuilder(),
+                    XMLParserConfiguration.ORIGINAL.withMaxNestingDepth(3));
+            fail("Expecting a JSONException");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage().startsWith("Maximum nesting depth of 3 reached"));
+        }
+    }
+
+    /**
+     * Escaping to an Appendable gives the same text as escaping to a String,
+     * and entities decode the same whatever their case or form.
+     */
+    @Test
+    public void testEscapeToAppendable() throws IOException {
+        String str = "a < b & \"c\" \ud834\udd22 \ud834 \u0085\t\uFFFE done";
+        StringWriter writer = new StringWriter();
+        XML.escape(str, writer);
+        assertEquals("a &lt; b &amp; &quot;c&quot; \ud834\udd22 &#xd834; &#x85;&#x9;&#xfffe; done",
+                writer.toString());
+        assertEquals(writer.toString(), XML.escape(str));
+        assertEquals("plain", XML.escape("plain", new StringBuilder()).toString());
+
+        assertEquals(str.replace("\ud834 ", "\ud834\udd22 "),
+                XML.unescape(writer.toString().replace("&#xd834; ", "&#x1D122; ")));
+        assertEquals("{\"xml\":\"<>&'\\\" \u00e9 \u00e9 &unknown;\"}",
+                XML.toJSONObject("<xml>&LT;&Gt;&amp;&APOS;&quot; &#233; &#XE9; &Unknown;</xml>").toString());
+    }
+
     /**
      * test passes when xsi:nil="true" converting to null (JSON specification-like nil conversion enabled)
      */
@@ -1068,4 +1133,20 @@ public class XMLTest {
             fail("Expected to be unable to modify the config");
         } catch (Exception ignored) { }
     }
+
+    /**
+     * An attribute named like the content key is kept as a member; only
+     * content text and CDATA make an element collapse to its content.
+     */
+    @Test
+    public void testContentAttributeIsNotCollapsed() {
+        assertTrue(new JSONObject("{\"r\":{\"a\":{\"content\":\"x\"}}}")
+                .similar(XML.toJSONObject("<r><a content=\"x\"/></r>")));
+        assertTrue(new JSONObject("{\"r\":{\"a\":{\"content\":\"x\"}}}")
+                .similar(XML.toJSONObject("<r><a content=\"x\"></a></r>")));
+        assertTrue(new JSONObject("{\"r\":{\"a\":\"x\"}}")
+                .similar(XML.toJSONObject("<r><a>x</a></r>")));
+        assertTrue(new JSONObject("{\"r\":{\"a\":\"x\"}}")
+                .similar(XML.toJSONObject("<r><a><![CDATA[x]]></a></r>")));
+    }
 }
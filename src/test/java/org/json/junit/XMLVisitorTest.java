@@ -0,0 +1,178 @@
+package org.json.junit;
+
+/*
+Copyright (c) 2020 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Locale;
+
+import org.json.JSONObject;
+import org.json.JSONPointer;
+import org.json.XML;
+import org.json.XMLFilter;
+import org.json.XMLKeyTransformer;
+import org.json.XMLParserConfiguration;
+import org.json.XMLPointerFilter;
+import org.json.XMLReplacementFilter;
+import org.json.XMLToJSONBuilder;
+import org.json.XMLVisitor;
+import org.junit.Test;
+
+/**
+ * Tests for XML.visit(Reader, XMLVisitor) and the visitors that implement
+ * the XML to JSON conversions
+ */
+public class XMLVisitorTest {
+
+    private String booksXMLstr = "<?xml version=\"1.0\"?>\n"+
+    "<catalog>\n"+
+       "<!-- <book>commented out</book> -->\n"+
+       "<book id=\"bk101\">\n"+
+          "<author>Gambardella, Matthew</author>\n"+
+          "<price>44.95</price>\n"+
+       "</book>\n"+
+       "<book id=\"bk102\">\n"+
+          "<author>Ralls, Kim</author>\n"+
+          "<price>5.95</price>\n"+
+       "</book>\n"+
+    "</catalog>";
+
+    /**
+     * Records the events it receives
+     */
+    private static class Recorder implements XMLVisitor {
+        StringBuilder events = new StringBuilder();
+
+        @Override
+        public void startElement(String name) {
+            this.events.append('<').append(name).append('>');
+        }
+
+        @Override
+        public void attribute(String name, String value) {
+            this.events.append('@').append(name).append('=').append(value).append(';');
+        }
+
+        @Override
+        public void content(String text) {
+            this.events.append(text).append(';');
+        }
+
+        @Override
+        public void cdata(String text) {
+            this.events.append("[").append(text).append("];");
+        }
+
+        @Override
+        public void element(String name, Object value) {
+            this.events.append(name).append(':').append(value).append(';');
+        }
+
+        @Override
+        public void endElement(String name) {
+            this.events.append("</").append(name).append('>');
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+    }
+
+    @Test
+    public void shouldReportEventsInDocumentOrder() {
+        Recorder recorder = new Recorder();
+        XML.visit(new StringReader("<?pi?><a x=\"1\" y>t&amp;u<!-- c --><b/><![CDATA[<c>]]>v</a>"), recorder);
+        assertEquals("<a>@x=1;@y=;t&u;<b></b>[<c>];v;</a>", recorder.events.toString());
+    }
+
+    @Test
+    public void shouldBuildSameJSONObjectAsToJSONObject() {
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(XMLParserConfiguration.KEEP_STRINGS);
+        XML.visit(new StringReader(booksXMLstr), builder);
+        JSONObject expected = XML.toJSONObject(booksXMLstr, true);
+        Util.compareActualVsExpectedJsonObjects(builder.getJSONObject(), expected);
+    }
+
+    /**
+     * Filters compose: keys are transformed while a sub object is extracted,
+     * in one pass, and the pointer names the transformed keys
+     */
+    @Test
+    public void shouldTransformKeysWhileExtractingPointer() {
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(XMLParserConfiguration.ORIGINAL);
+        XML.visit(new StringReader(booksXMLstr),
+                new XMLKeyTransformer((str) -> "x_" + str,
+                        new XMLPointerFilter(new JSONPointer("/x_catalog/x_book/1"), builder)));
+        JSONObject expected = new JSONObject("{\"x_id\":\"bk102\",\"x_author\":\"Ralls, Kim\",\"x_price\":5.95}");
+        Util.compareActualVsExpectedJsonObjects(builder.getJSONObject(), expected);
+    }
+
+    @Test
+    public void shouldReplaceWhileTransformingKeys() {
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(XMLParserConfiguration.ORIGINAL);
+        XML.visit(new StringReader(booksXMLstr),
+                new XMLReplacementFilter(new JSONPointer("/catalog/book/0/price"), new JSONObject("{\"content\":1}"),
+                        "content", new XMLKeyTransformer((str) -> str.toUpperCase(Locale.ROOT), builder)));
+        JSONObject actual = builder.getJSONObject();
+        assertEquals(1, new JSONPointer("/CATALOG/BOOK/0/PRICE").queryFrom(actual));
+        assertEquals("5.95", new JSONPointer("/CATALOG/BOOK/1/PRICE").queryFrom(actual).toString());
+    }
+
+    /**
+     * The pointer filter stops reading once its element has ended, so
+     * anything after it is never read
+     */
+    @Test
+    public void shouldStopReadingAfterPointer() {
+        XMLToJSONBuilder builder = new XMLToJSONBuilder(XMLParserConfiguration.ORIGINAL);
+        XML.visit(new StringReader("<a><b>1</b><c>broken</d></a>"),
+                new XMLPointerFilter(new JSONPointer("/a/b"), builder));
+        Util.compareActualVsExpectedJsonObjects(builder.getJSONObject(), new JSONObject("{\"content\":1}"));
+    }
+
+    @Test
+    public void shouldFilterWithCustomFilter() {
+        // drop every attribute
+        Recorder recorder = new Recorder();
+        XML.visit(new StringReader("<a x=\"1\"><b y=\"2\">t</b></a>"), new XMLFilter(recorder) {
+            @Override
+            public void attribute(String name, String value) {
+            }
+        });
+        assertEquals("<a><b>t;</b></a>", recorder.events.toString());
+    }
+
+    @Test
+    public void shouldStreamTransformedPointerToWriter() {
+        StringWriter writer = new StringWriter();
+        XML.transformKeysTo(new StringReader(booksXMLstr), (str) -> "x_" + str, writer);
+        JSONObject actual = new JSONObject(writer.toString());
+        assertTrue(actual.getJSONObject("x_catalog").getJSONArray("x_book").length() == 2);
+    }
+}
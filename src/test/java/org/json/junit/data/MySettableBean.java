@@ -0,0 +1,47 @@
+package org.json.junit.data;
+
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONPropertyIgnore;
+import org.json.JSONPropertyName;
+
+/**
+ * Test bean with setters, for binding JSON to beans.
+ */
+public class MySettableBean {
+    private String name;
+    private int age;
+    private List<MyEnumClass> enums;
+    private Map<String, Long> counts;
+    private double[] weights;
+    private MySettableBean friend;
+    private boolean active;
+    private String secret;
+
+    public String getName() { return this.name; }
+    public void setName(String name) { this.name = name; }
+
+    @JSONPropertyName("years")
+    public int getAge() { return this.age; }
+    public void setAge(int age) { this.age = age; }
+
+    public List<MyEnumClass> getEnums() { return this.enums; }
+    public void setEnums(List<MyEnumClass> enums) { this.enums = enums; }
+
+    public Map<String, Long> getCounts() { return this.counts; }
+    public void setCounts(Map<String, Long> counts) { this.counts = counts; }
+
+    public double[] getWeights() { return this.weights; }
+    public void setWeights(double[] weights) { this.weights = weights; }
+
+    public MySettableBean getFriend() { return this.friend; }
+    public void setFriend(MySettableBean friend) { this.friend = friend; }
+
+    public boolean isActive() { return this.active; }
+    public void setActive(boolean active) { this.active = active; }
+
+    @JSONPropertyIgnore
+    public String getSecret() { return this.secret; }
+    public void setSecret(String secret) { this.secret = secret; }
+}